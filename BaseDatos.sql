@@ -33,6 +33,7 @@ CREATE TABLE IF NOT EXISTS cuentas (
     saldo_inicial DECIMAL(10,2) NOT NULL DEFAULT 0.00 CHECK (saldo_inicial >= 0),
     estado BOOLEAN NOT NULL DEFAULT TRUE,
     cliente_id BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (cliente_id) REFERENCES clientes(cliente_id) ON DELETE CASCADE
 );
 
@@ -44,9 +45,44 @@ CREATE TABLE IF NOT EXISTS movimientos (
     valor DECIMAL(10,2) NOT NULL CHECK (valor > 0),
     saldo DECIMAL(10,2) NOT NULL,
     cuenta_id BIGINT NOT NULL,
+    -- Position in the account's history: 1, 2, 3... assigned when the movement is posted
+    seq BIGINT NOT NULL,
+    CONSTRAINT uk_movimientos_cuenta_seq UNIQUE (cuenta_id, seq),
     FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
 );
 
+-- Create movimientos_pendientes table (movements of hot accounts waiting to be
+-- merged into movimientos, slot (ranura) by slot and in orden within a slot)
+CREATE TABLE IF NOT EXISTS movimientos_pendientes (
+    movimiento_id BIGINT PRIMARY KEY,
+    cuenta_id BIGINT NOT NULL,
+    ranura INT NOT NULL,
+    orden BIGINT NOT NULL,
+    fecha DATETIME(6) NOT NULL,
+    tipo_movimiento VARCHAR(20) NOT NULL CHECK (tipo_movimiento IN ('Deposito', 'Retiro')),
+    valor DECIMAL(10,2) NOT NULL CHECK (valor > 0),
+    CONSTRAINT uk_movimientos_pendientes_orden UNIQUE (cuenta_id, ranura, orden),
+    FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
+);
+
+-- Create retenciones table (active authorization holds; a row is deleted
+-- when its hold is captured, released or expires)
+CREATE TABLE IF NOT EXISTS retenciones (
+    retencion_id BIGINT PRIMARY KEY,
+    cuenta_id BIGINT NOT NULL,
+    valor DECIMAL(10,2) NOT NULL CHECK (valor > 0),
+    fecha DATETIME(6) NOT NULL,
+    fecha_expiracion DATETIME(6) NOT NULL,
+    FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
+);
+
+-- Create id_secuencias table (id blocks handed out by account-movement-service,
+-- one row per table on every shard)
+CREATE TABLE IF NOT EXISTS id_secuencias (
+    nombre VARCHAR(50) PRIMARY KEY,
+    siguiente BIGINT NOT NULL
+);
+
 -- Insert sample data for personas
 INSERT INTO personas (nombre, genero, edad, identificacion, direccion, telefono) VALUES
 ('Jose Lema', 'M', 30, '1234567890', 'Otavalo sn y principal', '0982547856'),
@@ -68,18 +104,17 @@ INSERT INTO cuentas (numero_cuenta, tipo_cuenta, saldo_inicial, estado, cliente_
 ('585545', 'Corriente', 1000.00, TRUE, 1);
 
 -- Insert sample data for movimientos
-INSERT INTO movimientos (fecha, tipo_movimiento, valor, saldo, cuenta_id) VALUES
-('2024-02-10 10:30:00', 'Retiro', 575.00, 1425.00, 1),
-('2024-02-10 11:15:00', 'Deposito', 600.00, 700.00, 2),
-('2024-02-08 14:20:00', 'Deposito', 150.00, 150.00, 3),
-('2024-02-08 16:45:00', 'Retiro', 540.00, 0.00, 4);
+INSERT INTO movimientos (fecha, tipo_movimiento, valor, saldo, cuenta_id, seq) VALUES
+('2024-02-10 10:30:00', 'Retiro', 575.00, 1425.00, 1, 1),
+('2024-02-10 11:15:00', 'Deposito', 600.00, 700.00, 2, 1),
+('2024-02-08 14:20:00', 'Deposito', 150.00, 150.00, 3, 1),
+('2024-02-08 16:45:00', 'Retiro', 540.00, 0.00, 4, 1);
 
 -- Create indexes for better performance
 CREATE INDEX idx_personas_identificacion ON personas(identificacion);
 CREATE INDEX idx_clientes_persona_id ON clientes(persona_id);
 CREATE INDEX idx_cuentas_numero_cuenta ON cuentas(numero_cuenta);
 CREATE INDEX idx_cuentas_cliente_id ON cuentas(cliente_id);
-CREATE INDEX idx_movimientos_cuenta_id ON movimientos(cuenta_id);
 CREATE INDEX idx_movimientos_fecha ON movimientos(fecha);
 
 -- Create views for common queries
@@ -142,7 +177,7 @@ BEGIN
     SELECT saldo INTO last_movement_balance 
     FROM movimientos 
     WHERE cuenta_id = account_id 
-    ORDER BY fecha DESC 
+    ORDER BY seq DESC 
     LIMIT 1;
     
     -- Return current balance
@@ -197,8 +232,10 @@ BEGIN
         
         -- Create movement if valid
         IF success THEN
-            INSERT INTO movimientos (fecha, tipo_movimiento, valor, saldo, cuenta_id)
-            VALUES (NOW(), movement_type, movement_value, new_balance, account_id);
+            INSERT INTO movimientos (fecha, tipo_movimiento, valor, saldo, cuenta_id, seq)
+            SELECT NOW(), movement_type, movement_value, new_balance, account_id, COALESCE(MAX(seq), 0) + 1
+            FROM movimientos
+            WHERE cuenta_id = account_id;
         END IF;
     END IF;
 END //
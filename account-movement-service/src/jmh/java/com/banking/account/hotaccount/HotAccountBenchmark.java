@@ -0,0 +1,102 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.entity.PendingMovement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deposits per second to one hot account from 64 threads. Staging a movement
+ * parks for commitMicros, standing in for the insert and its commit; with
+ * one slot every deposit waits for the one before it, as postings to one
+ * account do without the engine, so slots=1 is the baseline the other slot
+ * counts are compared to (benchmark-hot-account.sh does).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class HotAccountBenchmark {
+
+    private static final long CUENTA_ID = 1L;
+    // One cent, so the balance stays in range however many deposits are measured
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"1", "4", "16"})
+    public int slots;
+
+    @Param({"0", "200"})
+    public long commitMicros;
+
+    private HotAccountEngine engine;
+
+    @Setup(Level.Trial)
+    public void start() {
+        AtomicLong ids = new AtomicLong();
+        engine = new HotAccountEngine(new SlowStore(commitMicros), cuentaId -> ids.incrementAndGet(),
+                List.of(CUENTA_ID), slots, Duration.ofHours(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        engine.close();
+    }
+
+    @Benchmark
+    public Movement deposit() {
+        return engine.post(CUENTA_ID, "Deposito", AMOUNT);
+    }
+
+    /**
+     * The account exists with a zero balance; staging takes commitMicros and merging nothing
+     */
+    private static final class SlowStore implements HotAccountStore {
+
+        private final long commitNanos;
+
+        SlowStore(long commitMicros) {
+            this.commitNanos = TimeUnit.MICROSECONDS.toNanos(commitMicros);
+        }
+
+        @Override
+        public void stage(PendingMovement movement) {
+            if (commitNanos > 0) {
+                LockSupport.parkNanos(commitNanos);
+            }
+        }
+
+        @Override
+        public Optional<MergedAccount> merge(long cuentaId) {
+            return Optional.of(new MergedAccount(true, 0, 0));
+        }
+
+        @Override
+        public Set<Long> findPendingAccounts() {
+            return Set.of();
+        }
+    }
+}
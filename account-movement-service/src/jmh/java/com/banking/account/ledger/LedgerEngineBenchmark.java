@@ -0,0 +1,105 @@
+package com.banking.account.ledger;
+
+import com.banking.account.entity.Movement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Postings per second through the ledger with a real, synced journal and a
+ * database that takes every batch immediately, so the numbers are those of
+ * the writer threads and the disk. Each partition is one writer thread:
+ * divide the score by the partitions for movements per second per core
+ * (benchmark-ledger.sh does). The journal goes to java.io.tmpdir unless
+ * -jvmArgs -Dledger.benchmark.dir=... points it to the disk to measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class LedgerEngineBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Param({"1", "2", "4"})
+    public int partitions;
+
+    @Param({"100000"})
+    public int accounts;
+
+    private Path directory;
+    private LedgerEngine engine;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        directory = Files.createTempDirectory(
+                Paths.get(System.getProperty("ledger.benchmark.dir", System.getProperty("java.io.tmpdir"))),
+                "ledger-benchmark");
+        AtomicLong ids = new AtomicLong();
+        engine = new LedgerEngine(new DiscardingStore(), cuentaId -> ids.incrementAndGet(), directory,
+                partitions, 10_000, 256, 64L * 1024 * 1024, Integer.MAX_VALUE,
+                Duration.ofSeconds(30), Duration.ofSeconds(30));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        engine.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Movement deposit() {
+        return engine.post(ThreadLocalRandom.current().nextLong(accounts), "Deposito", AMOUNT);
+    }
+
+    /**
+     * Every account exists with a zero balance and every batch is stored at once
+     */
+    private static final class DiscardingStore implements LedgerStore {
+
+        @Override
+        public Optional<LedgerAccount> load(long cuentaId) {
+            return Optional.of(new LedgerAccount(true, 0, 0));
+        }
+
+        @Override
+        public void persist(List<LedgerEntry> entries) {
+        }
+
+        @Override
+        public void persistMissing(List<LedgerEntry> entries) {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.banking.account.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance computation of a run of postings with BigDecimal, as MovementService
+ * did, against Money. Run with {@code -prof gc} to see the bytes allocated
+ * per operation (gc.alloc.rate.norm) next to the throughput:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="MoneyBenchmark -prof gc"}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int POSTINGS = 1024;
+
+    private final BigDecimal[] decimalAmounts = new BigDecimal[POSTINGS];
+    private final Money[] moneyAmounts = new Money[POSTINGS];
+    private final boolean[] deposits = new boolean[POSTINGS];
+    private BigDecimal initialDecimal;
+    private Money initialMoney;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < POSTINGS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            decimalAmounts[i] = amount;
+            moneyAmounts[i] = Money.of(amount);
+            deposits[i] = random.nextBoolean();
+        }
+        initialDecimal = new BigDecimal("50000.00");
+        initialMoney = Money.of(initialDecimal);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal balance = initialDecimal;
+        for (int i = 0; i < POSTINGS; i++) {
+            BigDecimal next = deposits[i] ? balance.add(decimalAmounts[i]) : balance.subtract(decimalAmounts[i]);
+            if (next.compareTo(BigDecimal.ZERO) >= 0) {
+                balance = next;
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public Money money() {
+        Money balance = initialMoney;
+        for (int i = 0; i < POSTINGS; i++) {
+            Money next = deposits[i] ? balance.plus(moneyAmounts[i]) : balance.minus(moneyAmounts[i]);
+            if (!next.isNegative()) {
+                balance = next;
+            }
+        }
+        return balance;
+    }
+}
@@ -0,0 +1,73 @@
+package com.banking.account.velocity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the velocity checks add to a withdrawal: the time to check one against
+ * the default rules, on accounts with a full history, by history size. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="VelocityBenchmark -prof gc"}
+ * to see that a check allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class VelocityBenchmark {
+
+    private static final int ACCOUNTS = 100_000;
+
+    @Param({"16", "32", "128"})
+    public int historySize;
+
+    private VelocityEngine engine;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new VelocityEngine(List.of(
+                new BurstRule(10, Duration.ofMinutes(10), VelocityDecision.BLOCK),
+                new UnusualAmountRule(5, 4, 5, VelocityDecision.FLAG)),
+                historySize, Duration.ofNanos(500_000), Duration.ofHours(24), nanos -> { });
+        Random random = new Random(42);
+        now = System.currentTimeMillis();
+        for (long cuentaId = 0; cuentaId < ACCOUNTS; cuentaId++) {
+            for (int i = 0; i < historySize; i++) {
+                // One withdrawal an hour, none in the burst period
+                engine.record(cuentaId, 1_000 + random.nextInt(100_000), now - (historySize - i) * 3_600_000L);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    @Benchmark
+    public VelocityDecision evaluate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return engine.evaluate((long) random.nextInt(ACCOUNTS), 1_000 + random.nextInt(100_000), now);
+    }
+}
@@ -1,14 +1,17 @@
 package com.banking.account;
 
+import com.banking.account.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Account Movement Service Application
  * Microservice for managing accounts and movements
  */
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 @EnableFeignClients
 public class AccountMovementServiceApplication {
 
@@ -0,0 +1,112 @@
+package com.banking.account.archive;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Moves closed months out of movimientos into the {@link MovementArchive}.
+ * Every month older than {@code archive.hot-months} is exported shard by shard,
+ * in ranges of {@code archive.accounts-per-segment} account ids, one segment and
+ * one transaction per range: the segment is synced to disk before the rows are
+ * deleted, so a failure at any point leaves the movements in the table, the
+ * archive or both (queries skip the duplicates), and the next run picks up
+ * where it stopped. Only one instance should run the export.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "archive.export.enabled", havingValue = "true")
+public class ArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveJob.class);
+
+    private final MovementRepository movementRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final MovementArchive archive;
+    private final long accountsPerSegment;
+
+    public ArchiveJob(MovementRepository movementRepository,
+                      ShardRouter shardRouter,
+                      PlatformTransactionManager transactionManager,
+                      MovementArchive archive,
+                      @Value("${archive.accounts-per-segment:10000}") long accountsPerSegment) {
+        this.movementRepository = movementRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.accountsPerSegment = accountsPerSegment;
+    }
+
+    @Scheduled(cron = "${archive.export.cron:0 30 2 * * *}")
+    public void archiveClosedMonths() {
+        long start = System.nanoTime();
+        int archived = archiveBefore(archive.firstHotMonth());
+        log.info("Archived {} movements in {} ms", archived, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Export and delete the movements of every month before the given one
+     * @param firstHotMonth the first month that stays in movimientos
+     * @return the number of movements archived
+     */
+    int archiveBefore(YearMonth firstHotMonth) {
+        int archived = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            LocalDateTime oldest = inTransaction(shard, movementRepository::findOldestFecha);
+            if (oldest == null) {
+                continue;
+            }
+            for (YearMonth month = YearMonth.from(oldest); month.isBefore(firstHotMonth); month = month.plusMonths(1)) {
+                archived += archiveMonth(shard, month);
+            }
+        }
+        return archived;
+    }
+
+    private int archiveMonth(int shard, YearMonth month) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        List<Object[]> range = inTransaction(shard, () -> movementRepository.findCuentaIdRange(start, end));
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return 0;
+        }
+        long lowest = ((Number) range.get(0)[0]).longValue();
+        long highest = ((Number) range.get(0)[1]).longValue();
+
+        int archived = 0;
+        // Ranges are aligned so a re-run writes the same segment files
+        for (long first = Math.floorDiv(lowest, accountsPerSegment) * accountsPerSegment; first <= highest;
+             first += accountsPerSegment) {
+            long firstCuentaId = first;
+            long lastCuentaId = first + accountsPerSegment - 1;
+            archived += inTransaction(shard, () -> {
+                List<Movement> movements = movementRepository.findForArchive(firstCuentaId, lastCuentaId, start, end);
+                if (movements.isEmpty()) {
+                    return 0;
+                }
+                archive.write(month, shard, firstCuentaId, lastCuentaId, movements);
+                return movementRepository.deleteArchived(firstCuentaId, lastCuentaId, start, end);
+            });
+        }
+        return archived;
+    }
+
+    private <T> T inTransaction(int shard, Supplier<T> work) {
+        return transactionTemplate.execute(status -> shardRouter.onShard(shard, work));
+    }
+}
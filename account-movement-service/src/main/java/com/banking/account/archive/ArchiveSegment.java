@@ -0,0 +1,404 @@
+package com.banking.account.archive;
+
+import com.banking.account.entity.Movement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One archive file: the movements of a range of accounts for one month, stored
+ * column by column. Rows are sorted by account and date; every column is
+ * delta or plain varint encoded and deflated on its own, so a query only
+ * inflates the columns it needs, and only after the header's min/max of
+ * account and date say the file can match at all. Files are memory-mapped
+ * read-only and never change once written.
+ *
+ * <pre>
+ * header     magic, version, row count, min/max fecha, min/max cuenta_id
+ * directory  offset, compressed length, raw length per column
+ * columns    cuenta_id, fecha, movimiento_id, tipo_movimiento, valor, saldo, seq
+ * </pre>
+ *
+ * Version 1 files, written before movements were numbered, have no seq
+ * column; their movements are read with a null seq.
+ */
+public final class ArchiveSegment {
+
+    static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x4D564152;
+    private static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_SEQ = 1;
+
+    private static final int CUENTA = 0;
+    private static final int FECHA = 1;
+    private static final int ID = 2;
+    private static final int TIPO = 3;
+    private static final int VALOR = 4;
+    private static final int SALDO = 5;
+    private static final int SEQ = 6;
+    private static final int COLUMNS = 7;
+
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 * 8;
+    private static final int DIRECTORY_ENTRY_SIZE = 8 + 4 + 4;
+
+    private static final String DEPOSITO = "Deposito";
+    private static final String RETIRO = "Retiro";
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final boolean hasSeq;
+    private final int rowCount;
+    private final LocalDateTime minFecha;
+    private final LocalDateTime maxFecha;
+    private final long minCuentaId;
+    private final long maxCuentaId;
+
+    private ArchiveSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        short version = buffer.getShort(4);
+        short columns = buffer.getShort(6);
+        if (buffer.getInt(0) != MAGIC || !(version == VERSION && columns == COLUMNS
+                || version == VERSION_WITHOUT_SEQ && columns == SEQ)) {
+            throw new IOException("Not a movement archive segment: " + file);
+        }
+        this.hasSeq = version == VERSION;
+        this.rowCount = buffer.getInt(8);
+        this.minFecha = fromMicros(buffer.getLong(12));
+        this.maxFecha = fromMicros(buffer.getLong(20));
+        this.minCuentaId = buffer.getLong(28);
+        this.maxCuentaId = buffer.getLong(36);
+    }
+
+    /**
+     * Map an existing segment file
+     * @param file the segment file
+     * @return the segment
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    public static ArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ArchiveSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write movements to a new segment file. The file is written under a temporary
+     * name, synced and then renamed, so a segment file is always complete.
+     * @param file the segment file, replaced if it exists
+     * @param movements the movements, at least one
+     * @return the written segment
+     * @throws IOException if the file cannot be written
+     */
+    public static ArchiveSegment write(Path file, Collection<Movement> movements) throws IOException {
+        if (movements.isEmpty()) {
+            throw new IllegalArgumentException("A segment needs at least one movement");
+        }
+        List<Movement> rows = new ArrayList<>(movements);
+        rows.sort(Comparator.comparing(Movement::getCuentaId)
+                .thenComparing(Movement::getSeq));
+
+        ColumnWriter[] columns = new ColumnWriter[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            columns[column] = new ColumnWriter();
+        }
+        long previousCuenta = 0;
+        long previousFecha = 0;
+        long previousId = 0;
+        long previousSeq = 0;
+        long minFecha = Long.MAX_VALUE;
+        long maxFecha = Long.MIN_VALUE;
+        for (Movement row : rows) {
+            long cuenta = row.getCuentaId();
+            long fecha = toMicros(row.getFecha());
+            columns[CUENTA].writeVarLong(cuenta - previousCuenta);
+            // Dates only ascend within an account, each account starts from an absolute date
+            columns[FECHA].writeVarLong(fecha - (cuenta == previousCuenta ? previousFecha : 0));
+            columns[ID].writeVarLong(row.getMovimientoId() - previousId);
+            columns[TIPO].writeByte(encodeTipo(row.getTipoMovimiento()));
+            columns[VALOR].writeVarLong(toCents(row.getValor()));
+            columns[SALDO].writeVarLong(toCents(row.getSaldo()));
+            // Consecutive within an account, the deltas are all ones
+            columns[SEQ].writeVarLong(row.getSeq() - (cuenta == previousCuenta ? previousSeq : 0));
+            previousCuenta = cuenta;
+            previousFecha = fecha;
+            previousId = row.getMovimientoId();
+            previousSeq = row.getSeq();
+            minFecha = Math.min(minFecha, fecha);
+            maxFecha = Math.max(maxFecha, fecha);
+        }
+
+        byte[][] compressed = new byte[COLUMNS][];
+        int[] rawLengths = new int[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            byte[] raw = columns[column].toByteArray();
+            rawLengths[column] = raw.length;
+            compressed[column] = deflate(raw);
+        }
+
+        int dataStart = HEADER_SIZE + COLUMNS * DIRECTORY_ENTRY_SIZE;
+        int size = dataStart;
+        for (byte[] column : compressed) {
+            size += column.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putShort(VERSION).putShort((short) COLUMNS).putInt(rows.size())
+                .putLong(minFecha).putLong(maxFecha)
+                .putLong(rows.get(0).getCuentaId()).putLong(rows.get(rows.size() - 1).getCuentaId());
+        long offset = dataStart;
+        for (int column = 0; column < COLUMNS; column++) {
+            out.putLong(offset).putInt(compressed[column].length).putInt(rawLengths[column]);
+            offset += compressed[column].length;
+        }
+        for (byte[] column : compressed) {
+            out.put(column);
+        }
+        out.flip();
+
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    /**
+     * Movements of the given accounts within a date range
+     * @param cuentaIds the accounts
+     * @param from start of the range, inclusive, or null for no lower bound
+     * @param to end of the range, inclusive, or null for no upper bound
+     * @return the matching movements, by account and seq
+     */
+    public List<Movement> find(Collection<Long> cuentaIds, LocalDateTime from, LocalDateTime to) {
+        List<Movement> result = new ArrayList<>();
+        if (!mayContain(cuentaIds, from, to)) {
+            return result;
+        }
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+
+        // Decide the matching rows from the two key columns before inflating the rest
+        ColumnReader cuentas = column(CUENTA);
+        ColumnReader fechas = column(FECHA);
+        long[] cuentaIdOf = new long[rowCount];
+        long[] fechaOf = new long[rowCount];
+        boolean[] match = new boolean[rowCount];
+        int matches = 0;
+        long cuenta = 0;
+        long fecha = 0;
+        for (int row = 0; row < rowCount; row++) {
+            long next = cuenta + cuentas.readVarLong();
+            fecha = (next != cuenta ? 0 : fecha) + fechas.readVarLong();
+            cuenta = next;
+            cuentaIdOf[row] = cuenta;
+            fechaOf[row] = fecha;
+            if (fecha >= fromMicros && fecha <= toMicros && cuentaIds.contains(cuenta)) {
+                match[row] = true;
+                matches++;
+            }
+        }
+        if (matches == 0) {
+            return result;
+        }
+
+        ColumnReader ids = column(ID);
+        ColumnReader tipos = column(TIPO);
+        ColumnReader valores = column(VALOR);
+        ColumnReader saldos = column(SALDO);
+        ColumnReader seqs = hasSeq ? column(SEQ) : null;
+        long id = 0;
+        long seq = 0;
+        for (int row = 0; row < rowCount; row++) {
+            id += ids.readVarLong();
+            byte tipo = tipos.readByte();
+            long valor = valores.readVarLong();
+            long saldo = saldos.readVarLong();
+            if (seqs != null) {
+                seq = (row > 0 && cuentaIdOf[row] == cuentaIdOf[row - 1] ? seq : 0) + seqs.readVarLong();
+            }
+            if (match[row]) {
+                Movement movement = new Movement(fromMicros(fechaOf[row]), decodeTipo(tipo),
+                        BigDecimal.valueOf(valor, 2), BigDecimal.valueOf(saldo, 2), cuentaIdOf[row]);
+                movement.setMovimientoId(id);
+                movement.setSeq(seqs != null ? seq : null);
+                result.add(movement);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return false if the header alone rules out any match
+     */
+    public boolean mayContain(Collection<Long> cuentaIds, LocalDateTime from, LocalDateTime to) {
+        if (from != null && maxFecha.isBefore(from) || to != null && minFecha.isAfter(to)) {
+            return false;
+        }
+        for (Long cuentaId : cuentaIds) {
+            if (cuentaId >= minCuentaId && cuentaId <= maxCuentaId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime getMinFecha() {
+        return minFecha;
+    }
+
+    public LocalDateTime getMaxFecha() {
+        return maxFecha;
+    }
+
+    public long getMinCuentaId() {
+        return minCuentaId;
+    }
+
+    public long getMaxCuentaId() {
+        return maxCuentaId;
+    }
+
+    private ColumnReader column(int column) {
+        int entry = HEADER_SIZE + column * DIRECTORY_ENTRY_SIZE;
+        int offset = (int) buffer.getLong(entry);
+        int compressedLength = buffer.getInt(entry + 8);
+        int rawLength = buffer.getInt(entry + 12);
+        ByteBuffer compressed = buffer.slice(offset, compressedLength);
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt column " + column + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+        return new ColumnReader(raw);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(raw.length / 4, 64));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long toMicros(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + fecha.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private static byte encodeTipo(String tipoMovimiento) {
+        if (DEPOSITO.equals(tipoMovimiento)) {
+            return 0;
+        }
+        if (RETIRO.equals(tipoMovimiento)) {
+            return 1;
+        }
+        throw new IllegalArgumentException("Unknown movement type " + tipoMovimiento);
+    }
+
+    private static String decodeTipo(byte tipo) {
+        return tipo == 0 ? DEPOSITO : RETIRO;
+    }
+
+    /**
+     * Zigzag varint encoding, small deltas of either sign take one or two bytes
+     */
+    private static final class ColumnWriter extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            write((int) zigzag);
+        }
+
+        void writeByte(byte value) {
+            write(value);
+        }
+    }
+
+    private static final class ColumnReader {
+
+        private final byte[] bytes;
+        private int position;
+
+        ColumnReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+    }
+}
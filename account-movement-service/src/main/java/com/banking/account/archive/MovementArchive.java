@@ -0,0 +1,179 @@
+package com.banking.account.archive;
+
+import com.banking.account.entity.Movement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for movements of closed months, exported by {@link ArchiveJob}.
+ * Segments live under {@code archive.directory} as
+ * {@code <yyyy-MM>/shard-<n>-<first account>-<last account>.seg}; their headers are
+ * read at startup, so a query only maps and decodes the segments whose account
+ * and date ranges overlap it. The directory can be shared between instances: the
+ * one exporting registers its segments right away, the others rescan the
+ * directory at most every {@code archive.refresh-interval} when a query reaches
+ * back past the hot months.
+ */
+@Component
+public class MovementArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(MovementArchive.class);
+
+    private final Path directory;
+    private final int hotMonths;
+    private final long refreshIntervalNanos;
+    private final Map<Path, ArchiveSegment> segments = new ConcurrentHashMap<>();
+    private volatile LocalDateTime archivedThrough;
+    private volatile long lastLoadNanos;
+
+    public MovementArchive(@Value("${archive.directory:archive}") String directory,
+                           @Value("${archive.hot-months:12}") int hotMonths,
+                           @Value("${archive.refresh-interval:1m}") Duration refreshInterval) {
+        this.directory = Paths.get(directory);
+        this.hotMonths = hotMonths;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        load();
+    }
+
+    /**
+     * True if movements from this date on may be archived. Queries starting in
+     * the hot months, or after the newest archived movement, never need the archive.
+     * @param from start of the range, or null for no lower bound
+     */
+    public boolean covers(LocalDateTime from) {
+        if (from != null && !from.isBefore(firstHotMonth().atDay(1).atStartOfDay())) {
+            return false;
+        }
+        refreshIfStale();
+        LocalDateTime through = archivedThrough;
+        return through != null && (from == null || !from.isAfter(through));
+    }
+
+    /**
+     * Months before this one are exported by {@link ArchiveJob} and read from the archive
+     */
+    public YearMonth firstHotMonth() {
+        return YearMonth.now().minusMonths(hotMonths);
+    }
+
+    /**
+     * Archived movements of the given accounts within a date range
+     * @param cuentaIds the accounts
+     * @param from start of the range, inclusive, or null for no lower bound
+     * @param to end of the range, inclusive, or null for no upper bound
+     * @return the matching movements, newest first
+     */
+    public List<Movement> find(Collection<Long> cuentaIds, LocalDateTime from, LocalDateTime to) {
+        if (cuentaIds.isEmpty() || !covers(from)) {
+            return List.of();
+        }
+        Set<Long> accounts = cuentaIds instanceof Set<Long> set ? set : new HashSet<>(cuentaIds);
+        List<Movement> result = new ArrayList<>();
+        for (ArchiveSegment segment : segments.values()) {
+            if (segment.mayContain(accounts, from, to)) {
+                result.addAll(segment.find(accounts, from, to));
+            }
+        }
+        result.sort(Comparator.comparing(Movement::getFecha).reversed());
+        return result;
+    }
+
+    /**
+     * Most recent archived movement of an account, the balance it left the account with
+     * @param cuentaId the account
+     * @return the movement, empty if the account has none archived
+     */
+    public Optional<Movement> findLatest(Long cuentaId) {
+        if (!covers(null)) {
+            return Optional.empty();
+        }
+        Set<Long> account = Set.of(cuentaId);
+        // Newest segments first, the first one holding the account has its latest movement
+        return segments.values().stream()
+                .filter(segment -> segment.mayContain(account, null, null))
+                .sorted(Comparator.comparing(ArchiveSegment::getMaxFecha).reversed())
+                .map(segment -> segment.find(account, null, null))
+                .filter(movements -> !movements.isEmpty())
+                .findFirst()
+                .map(movements -> movements.get(movements.size() - 1));
+    }
+
+    /**
+     * Write the movements of a range of accounts for one month to a new segment.
+     * Writing the same month, shard and range again replaces the segment.
+     * @throws UncheckedIOException if the segment cannot be written
+     */
+    public ArchiveSegment write(YearMonth month, int shard, long firstCuentaId, long lastCuentaId,
+                                Collection<Movement> movements) {
+        Path file = directory.resolve(month.toString())
+                .resolve("shard-" + shard + "-" + firstCuentaId + "-" + lastCuentaId + ArchiveSegment.EXTENSION);
+        try {
+            ArchiveSegment segment = ArchiveSegment.write(file, movements);
+            register(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment " + file, e);
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void refreshIfStale() {
+        if (System.nanoTime() - lastLoadNanos > refreshIntervalNanos) {
+            load();
+        }
+    }
+
+    private synchronized void load() {
+        lastLoadNanos = System.nanoTime();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(ArchiveSegment.EXTENSION))
+                    .filter(file -> !segments.containsKey(file))
+                    .forEach(this::open);
+        } catch (IOException e) {
+            log.warn("Could not list archive directory {}: {}", directory, e.getMessage());
+        }
+        log.debug("Movement archive has {} segments in {}", segments.size(), directory);
+    }
+
+    private void open(Path file) {
+        try {
+            register(ArchiveSegment.open(file));
+        } catch (IOException e) {
+            log.warn("Skipping unreadable archive segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    private synchronized void register(ArchiveSegment segment) {
+        segments.put(segment.getFile(), segment);
+        if (archivedThrough == null || segment.getMaxFecha().isAfter(archivedThrough)) {
+            archivedThrough = segment.getMaxFecha();
+        }
+    }
+}
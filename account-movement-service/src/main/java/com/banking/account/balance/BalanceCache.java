@@ -0,0 +1,439 @@
+package com.banking.account.balance;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Balances of accounts in memory, keyed by cuentaId, for the balance
+ * endpoints. Each entry is the balance in cents next to the seq of the
+ * movement that left it, so an older balance never replaces a newer one,
+ * whatever order postings and loads from the database land in. Entries are
+ * spread over stripes, each an open-addressing table of primitive arrays
+ * under its own lock; reads go without taking it unless a write got in the way.
+ *
+ * A balance read from the database is only cached if no posting to its
+ * account was seen while it was read: callers take {@link #version(long)}
+ * before reading and pass it to {@link #put}, and a posting to an account
+ * that is not cached bumps the version. Postings made by other instances
+ * never reach the cache, so an entry is served for at most the time to live
+ * after it was last read from the database; after that the next read goes
+ * to the database again. Entries are also checked against the database a
+ * few at a time by {@link #nextToCheck(int)}, which drops those not read
+ * since their last check. Once full, accounts not yet cached are served
+ * without caching them.
+ */
+public class BalanceCache {
+
+    private static final int STRIPES = 64;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int VERSION_STRIPES = 4096;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Bumped by postings to accounts not cached, compared by put
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final int maxPerStripe;
+    private final long timeToLiveNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private int checkStripe;
+    private int checkSlot;
+
+    /**
+     * @param maxEntries most accounts cached
+     * @param timeToLive longest a balance is served after it was read from the database
+     */
+    public BalanceCache(int maxEntries, Duration timeToLive) {
+        if (maxEntries < STRIPES) {
+            throw new IllegalArgumentException("The balance cache needs room for at least " + STRIPES + " accounts");
+        }
+        this.maxPerStripe = maxEntries / STRIPES;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        for (int index = 0; index < STRIPES; index++) {
+            stripes[index] = new Stripe();
+        }
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @return the cached balance in cents, empty if the account is not cached
+     *         or was last read from the database longer ago than the time to live
+     */
+    public OptionalLong get(long cuentaId) {
+        long hash = hash(cuentaId);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        Table table = stripe.table;
+        int slot = table.find(cuentaId, hash);
+        long cents = slot >= 0 ? table.cents[slot] : 0;
+        long loadedAt = slot >= 0 ? table.loadedAt[slot] : 0;
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                table = stripe.table;
+                slot = table.find(cuentaId, hash);
+                cents = slot >= 0 ? table.cents[slot] : 0;
+                loadedAt = slot >= 0 ? table.loadedAt[slot] : 0;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        if (slot < 0 || System.nanoTime() - loadedAt > timeToLiveNanos) {
+            // An expired entry stays until it is read again, which refreshes it
+            misses.increment();
+            return OptionalLong.empty();
+        }
+        // A racing write may mark another entry, it only keeps that one a round longer
+        table.referenced[slot] = true;
+        hits.increment();
+        return OptionalLong.of(cents);
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @return the account's version, taken before reading its balance from the database
+     */
+    public long version(long cuentaId) {
+        return versions.get(versionStripe(hash(cuentaId)));
+    }
+
+    /**
+     * Cache a balance read from the database for a request, unless a newer one
+     * is cached, or the account is not cached and a posting to it was seen
+     * since the version was taken
+     * @param cuentaId the account ID
+     * @param cents the balance in cents
+     * @param seq seq of the movement that left the balance, 0 for the saldo inicial
+     * @param version the account's version, taken before reading the balance
+     */
+    public void put(long cuentaId, long cents, long seq, long version) {
+        long hash = hash(cuentaId);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (!stripe.update(cuentaId, hash, cents, seq, true)
+                    && versions.get(versionStripe(hash)) == version) {
+                stripe.insert(cuentaId, hash, cents, seq);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Bring a cached balance up to date with a posted movement; an account
+     * that is not cached stays out, it is loaded when first asked for, and
+     * a load already under way is not cached
+     * @param cuentaId the account ID
+     * @param cents the balance in cents the movement left
+     * @param seq the movement's seq
+     */
+    public void update(long cuentaId, long cents, long seq) {
+        long hash = hash(cuentaId);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (!stripe.update(cuentaId, hash, cents, seq, false)) {
+                versions.incrementAndGet(versionStripe(hash));
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forget an account, after it was changed or deleted
+     * @param cuentaId the account ID
+     */
+    public void remove(long cuentaId) {
+        long hash = hash(cuentaId);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.table.remove(cuentaId, hash);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Compare a cached balance with the database's and correct it if it differs.
+     * A cached balance with a higher seq was posted after the database was read
+     * and is kept. Either way the entry's time to live starts again.
+     * @param cuentaId the account ID
+     * @param cents the balance in the database, in cents
+     * @param seq seq of the account's latest movement in the database
+     * @return false if the cached balance was wrong
+     */
+    public boolean verify(long cuentaId, long cents, long seq) {
+        long hash = hash(cuentaId);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            Table table = stripe.table;
+            int slot = table.find(cuentaId, hash);
+            if (slot < 0) {
+                return true;
+            }
+            table.loadedAt[slot] = System.nanoTime();
+            if (table.seqs[slot] > seq || (table.seqs[slot] == seq && table.cents[slot] == cents)) {
+                return true;
+            }
+            table.cents[slot] = cents;
+            table.seqs[slot] = seq;
+            mismatches.increment();
+            return false;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Next cached accounts to check against the database, going round the
+     * cache: an entry read since its last check is returned, one that was not
+     * is dropped. A round ends with the call that reaches the end of the cache,
+     * the next call starts the next one.
+     * @param limit most accounts returned
+     * @return the accounts to check, fewer if the round ended
+     */
+    public synchronized long[] nextToCheck(int limit) {
+        long[] due = new long[limit];
+        int count = 0;
+        while (count < limit) {
+            Stripe stripe = stripes[checkStripe];
+            long stamp = stripe.lock.writeLock();
+            try {
+                Table table = stripe.table;
+                while (checkSlot < table.keys.length && count < limit) {
+                    long key = table.keys[checkSlot];
+                    if (key == EMPTY) {
+                        checkSlot++;
+                    } else if (table.referenced[checkSlot]) {
+                        table.referenced[checkSlot] = false;
+                        due[count++] = key;
+                        checkSlot++;
+                    } else {
+                        // The next entry may be shifted into this slot
+                        table.remove(key, hash(key));
+                        evictions.increment();
+                    }
+                }
+                if (checkSlot < table.keys.length) {
+                    break;
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+            checkSlot = 0;
+            if (++checkStripe == STRIPES) {
+                checkStripe = 0;
+                break;
+            }
+        }
+        return Arrays.copyOf(due, count);
+    }
+
+    /**
+     * @return accounts cached
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.table.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return cached balances found wrong by a check so far
+     */
+    public long getMismatchCount() {
+        return mismatches.sum();
+    }
+
+    /**
+     * @return entries dropped for not being read between two checks so far
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 58)];
+    }
+
+    private static int versionStripe(long hash) {
+        return (int) hash & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * Mix the bits of an id, consecutive ids land far apart (MurmurHash3's finalizer)
+     */
+    private static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * One stripe's table, replaced by a larger one as it fills up
+     */
+    private final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_CAPACITY);
+
+        /**
+         * Update an entry unless it holds a newer balance, with the write lock held
+         * @param loaded whether the balance was read from the database, which restarts the time to live
+         * @return false if the key is not cached
+         */
+        boolean update(long key, long hash, long cents, long seq, boolean loaded) {
+            int slot = table.find(key, hash);
+            if (slot < 0) {
+                return false;
+            }
+            if (seq >= table.seqs[slot]) {
+                table.cents[slot] = cents;
+                table.seqs[slot] = seq;
+            }
+            if (loaded) {
+                // A newer cached balance came from a posting after the read, it is at least as fresh
+                table.loadedAt[slot] = System.nanoTime();
+            }
+            return true;
+        }
+
+        /**
+         * Insert an entry just read from the database, with the write lock held
+         */
+        void insert(long key, long hash, long cents, long seq) {
+            if (table.size >= maxPerStripe) {
+                return;
+            }
+            if ((table.size + 1) * 2 > table.keys.length) {
+                table = table.grow();
+            }
+            table.insert(key, hash, cents, seq, System.nanoTime(), true);
+        }
+    }
+
+    /**
+     * Open addressing with linear probing, kept at most half full
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final long[] cents;
+        private final long[] seqs;
+        private final long[] loadedAt;
+        private final boolean[] referenced;
+        private final int mask;
+        private int size;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            cents = new long[capacity];
+            seqs = new long[capacity];
+            loadedAt = new long[capacity];
+            referenced = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return the key's slot, -1 if absent; bounded by the capacity, as the
+         *         table may be changing under an optimistic read
+         */
+        int find(long key, long hash) {
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long found = keys[slot];
+                if (found == key) {
+                    return slot;
+                }
+                if (found == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insert(long key, long hash, long cents, long seq, long loadedAt, boolean referenced) {
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            this.cents[slot] = cents;
+            this.seqs[slot] = seq;
+            this.loadedAt[slot] = loadedAt;
+            this.referenced[slot] = referenced;
+            keys[slot] = key;
+            size++;
+        }
+
+        /**
+         * Remove a key and shift the entries after it back, so no probe
+         * sequence is broken by the hole
+         */
+        void remove(long key, long hash) {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return;
+            }
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = (int) hash(keys[next]) & mask;
+                // Move the entry into the hole unless its home lies after the hole, cyclically
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    cents[hole] = cents[next];
+                    seqs[hole] = seqs[next];
+                    loadedAt[hole] = loadedAt[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            referenced[hole] = false;
+            size--;
+        }
+
+        Table grow() {
+            Table larger = new Table(keys.length * 2);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    larger.insert(keys[slot], hash(keys[slot]), cents[slot], seqs[slot], loadedAt[slot],
+                            referenced[slot]);
+                }
+            }
+            return larger;
+        }
+    }
+}
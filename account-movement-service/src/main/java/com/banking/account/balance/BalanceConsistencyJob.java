@@ -0,0 +1,42 @@
+package com.banking.account.balance;
+
+import com.banking.account.service.MovementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compares cached balances with the database every
+ * balance-cache.check-interval, balance-cache.check-batch accounts at a time,
+ * going round the cache. A wrong balance, one posted by another instance or
+ * a race with an account update, is corrected and logged; entries not read
+ * since their last check are dropped instead.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "balance-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceConsistencyJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceConsistencyJob.class);
+
+    private final MovementService movementService;
+    private final int batchSize;
+
+    public BalanceConsistencyJob(MovementService movementService,
+                                 @Value("${balance-cache.check-batch:500}") int batchSize) {
+        this.movementService = movementService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${balance-cache.check-interval:PT10S}")
+    public void check() {
+        int mismatches = movementService.checkBalanceCache(batchSize);
+        if (mismatches > 0) {
+            log.warn("Corrected {} cached balances that did not match the database", mismatches);
+        }
+    }
+}
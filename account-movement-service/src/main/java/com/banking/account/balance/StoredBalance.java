@@ -0,0 +1,27 @@
+package com.banking.account.balance;
+
+/**
+ * Balance of an account as stored in the database
+ */
+public final class StoredBalance {
+
+    private final long cents;
+    private final long seq;
+
+    /**
+     * @param cents balance of the account's latest movement, or its saldo inicial, in cents
+     * @param seq seq of the latest movement, 0 if it has none
+     */
+    public StoredBalance(long cents, long seq) {
+        this.cents = cents;
+        this.seq = seq;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+}
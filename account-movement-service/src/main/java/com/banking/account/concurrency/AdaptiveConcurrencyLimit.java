@@ -0,0 +1,142 @@
+package com.banking.account.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the latency the service is measuring.
+ * Requests are sampled in windows; at the end of each window the average
+ * latency is compared with its long-term average. While they match, the limit
+ * grows by a small queue allowance; when latency rises (the database is the
+ * bottleneck and requests start queueing on the pool) the limit shrinks in
+ * proportion, and a window with failed requests cuts it multiplicatively.
+ * Admission is a single CAS on the in-flight counter; only the per-request
+ * bookkeeping at completion takes the monitor.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Window state, guarded by this
+    private double longRttNanos;
+    private long windowStartNanos;
+    private long windowRttSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    /**
+     * @param initialLimit limit before any latency has been measured
+     * @param minLimit the limit never drops below this
+     * @param maxLimit the limit never grows above this, normally the servlet thread count
+     * @param smoothing weight of each window's new limit, between 0 and 1
+     * @param windowNanos minimum length of a sampling window
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, long windowNanos) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Smoothing must be in (0, 1]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Try to admit one request
+     * @return true if the request may proceed; it must then be completed with {@link #release}
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1.0);
+    }
+
+    /**
+     * Try to admit one request that may only use part of the limit.
+     * Requests with a smaller share are turned away first as in-flight work
+     * approaches the limit, leaving the headroom to those with a larger share.
+     * @param share fraction of the limit this request may fill, between 0 and 1
+     * @return true if the request may proceed; it must then be completed with {@link #release}
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max((int) (limit * share), 1);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request
+     * @param rttNanos elapsed time of the request
+     * @param dropped true if the request failed in a way that indicates overload
+     * @param nowNanos current {@link System#nanoTime()} value
+     */
+    public void release(long rttNanos, boolean dropped, long nowNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (windowSamples == 0) {
+                windowStartNanos = nowNanos;
+            }
+            windowRttSumNanos += rttNanos;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, wasInFlight);
+            windowDropped |= dropped;
+
+            if (windowSamples >= MIN_WINDOW_SAMPLES && nowNanos - windowStartNanos >= windowNanos) {
+                updateLimit((double) windowRttSumNanos / windowSamples);
+                windowRttSumNanos = 0;
+                windowSamples = 0;
+                windowMaxInFlight = 0;
+                windowDropped = false;
+            }
+        }
+    }
+
+    private void updateLimit(double shortRttNanos) {
+        double current = limit;
+        double next;
+        if (windowDropped) {
+            next = current * BACKOFF_RATIO;
+        } else {
+            if (longRttNanos == 0) {
+                longRttNanos = shortRttNanos;
+            } else {
+                longRttNanos += (shortRttNanos - longRttNanos) * LONG_RTT_SMOOTHING;
+            }
+            // Requests never came close to the limit: latency says nothing about it
+            if (windowMaxInFlight < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRttNanos));
+            double queueAllowance = Math.sqrt(current);
+            next = current * (1 - smoothing) + (current * gradient + queueAllowance) * smoothing;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
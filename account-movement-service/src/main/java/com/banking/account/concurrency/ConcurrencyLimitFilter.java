@@ -0,0 +1,82 @@
+package com.banking.account.concurrency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Servlet filter that admits requests through an {@link AdaptiveConcurrencyLimit}.
+ * Each request is classified into a {@link RequestPriority} tier; the tier decides
+ * how much of the limit it may fill and how many threads it may hold, so
+ * low-priority work is shed first when the limit tightens. Requests turned away
+ * are answered immediately with 503 and Retry-After instead of waiting for a
+ * Tomcat thread that would only block on the connection pool. Actuator
+ * endpoints are never limited so probes keep working under overload.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String OVERLOADED_BODY = "{\"message\":\"Service overloaded, retry later\"}";
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final Map<RequestPriority, PriorityTier> tiers;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit limit, Map<RequestPriority, PriorityTier> tiers) {
+        this.limit = limit;
+        this.tiers = tiers;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RequestPriority priority = RequestPriority.classify(request.getMethod(), path);
+        PriorityTier tier = tiers.get(priority);
+
+        if (!tier.tryAcquireThread()) {
+            reject(response, tier);
+            return;
+        }
+        if (!limit.tryAcquire(tier.getLimitShare())) {
+            tier.releaseThread();
+            reject(response, tier);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = priority != RequestPriority.LOW;
+        RequestPriorityContext.set(priority);
+        try {
+            chain.doFilter(request, response);
+            // Low-priority failures are mostly its own pool running dry, which says
+            // nothing about the capacity left for the other tiers
+            dropped = priority != RequestPriority.LOW
+                    && response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            RequestPriorityContext.clear();
+            long now = System.nanoTime();
+            limit.release(now - start, dropped, now);
+            tier.releaseThread();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    private static void reject(HttpServletResponse response, PriorityTier tier) throws IOException {
+        tier.recordRejection();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(OVERLOADED_BODY);
+    }
+}
@@ -0,0 +1,23 @@
+package com.banking.account.concurrency;
+
+/**
+ * How postings and account updates guard an account against concurrent
+ * changes (account-locking.mode). Either way, every posting bumps the
+ * account's version.
+ */
+public enum LockingMode {
+
+    /**
+     * Read the account without locking it and check its version on commit;
+     * the loser of a race is rolled back and retried (see {@link PostingRetry}).
+     * Cheapest while accounts are rarely posted to at the same time.
+     */
+    OPTIMISTIC,
+
+    /**
+     * Lock the account's row (SELECT ... FOR UPDATE) for the whole
+     * transaction; postings to one account wait for each other and never
+     * need a retry.
+     */
+    PESSIMISTIC
+}
@@ -0,0 +1,116 @@
+package com.banking.account.concurrency;
+
+import com.banking.account.exception.ConcurrentUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a posting or account update in a transaction of its own and runs it
+ * again, in a new transaction, when it loses a race for its account: the
+ * version check on commit failed, or another movement took its seq. Attempts
+ * are spaced by exponential backoff with full jitter, so the transactions
+ * that collided do not collide again, up to a maximum number of attempts.
+ * Work called within a caller's transaction runs once, since only the caller
+ * can roll that back and start over.
+ *
+ * Every attempt is counted as locking.attempts, every retry as
+ * locking.retries and every operation that ran out of attempts as
+ * locking.exhausted, tagged by operation and locking mode; retries over
+ * attempts is the rate at which postings lose races under that mode.
+ */
+public class PostingRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(PostingRetry.class);
+
+    private final TransactionOperations transactions;
+    private final LockingMode mode;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param transactions runs each attempt in a new transaction
+     * @param mode the locking mode, for the metrics' tags
+     * @param maxAttempts attempts before giving up, at least one
+     * @param initialBackoff upper bound of the wait before the first retry, doubled for every further one
+     * @param maxBackoff most a wait may be
+     * @param meterRegistry where attempts and retries are counted
+     */
+    public PostingRetry(TransactionOperations transactions, LockingMode mode, int maxAttempts,
+                        Duration initialBackoff, Duration maxBackoff, MeterRegistry meterRegistry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed");
+        }
+        this.transactions = transactions;
+        this.mode = mode;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public LockingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Run work in a transaction, again while it loses races for its account
+     * @param operation what the work is, for the metrics
+     * @param work the work; its transaction commits when it returns
+     * @return what the work returned
+     * @throws ConcurrentUpdateException if the last attempt lost its race too
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            count("locking.attempts", operation);
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            count("locking.attempts", operation);
+            try {
+                return transactions.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | ConcurrentUpdateException e) {
+                if (attempt >= maxAttempts) {
+                    count("locking.exhausted", operation);
+                    log.warn("{} lost its race {} times, giving up: {}", operation, attempt, e.getMessage());
+                    throw e instanceof ConcurrentUpdateException
+                            ? (ConcurrentUpdateException) e
+                            : new ConcurrentUpdateException("The account was changed at the same time, try again");
+                }
+                count("locking.retries", operation);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Wait a random time up to the attempt's backoff
+     */
+    private void backOff(int attempt) {
+        long ceiling = initialBackoffNanos;
+        for (int retry = 1; retry < attempt && ceiling < maxBackoffNanos; retry++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxBackoffNanos);
+        long nanos = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while waiting to try again");
+        }
+    }
+
+    private void count(String name, String operation) {
+        meterRegistry.counter(name, "operation", operation, "mode", mode.name().toLowerCase()).increment();
+    }
+}
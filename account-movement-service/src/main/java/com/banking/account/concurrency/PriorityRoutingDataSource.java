@@ -0,0 +1,29 @@
+package com.banking.account.concurrency;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Connection bulkhead: low-priority requests take connections from their own
+ * small pool, so a burst of statements cannot exhaust the connections that
+ * movement posting needs. The pool is chosen when a transaction opens its
+ * connection, on the request thread.
+ */
+public class PriorityRoutingDataSource extends AbstractRoutingDataSource {
+
+    public PriorityRoutingDataSource(DataSource mainDataSource, DataSource lowPriorityDataSource) {
+        setTargetDataSources(Map.<Object, Object>of(
+                RequestPriority.CRITICAL, mainDataSource,
+                RequestPriority.NORMAL, mainDataSource,
+                RequestPriority.LOW, lowPriorityDataSource));
+        setDefaultTargetDataSource(mainDataSource);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return RequestPriorityContext.current();
+    }
+}
@@ -0,0 +1,49 @@
+package com.banking.account.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission budget of one priority tier: the share of the adaptive
+ * concurrency limit it may fill and the number of request threads it may
+ * occupy at once.
+ */
+public class PriorityTier {
+
+    private final double limitShare;
+    private final Semaphore threads;
+    private final Counter rejected;
+
+    /**
+     * @param limitShare fraction of the concurrency limit, between 0 and 1
+     * @param maxThreads request threads the tier may hold, 0 for no separate budget
+     * @param rejected counter of requests of this tier turned away
+     */
+    public PriorityTier(double limitShare, int maxThreads, Counter rejected) {
+        if (limitShare <= 0 || limitShare > 1) {
+            throw new IllegalArgumentException("Limit share must be in (0, 1]");
+        }
+        this.limitShare = limitShare;
+        this.threads = maxThreads > 0 ? new Semaphore(maxThreads) : null;
+        this.rejected = rejected;
+    }
+
+    public double getLimitShare() {
+        return limitShare;
+    }
+
+    boolean tryAcquireThread() {
+        return threads == null || threads.tryAcquire();
+    }
+
+    void releaseThread() {
+        if (threads != null) {
+            threads.release();
+        }
+    }
+
+    void recordRejection() {
+        rejected.increment();
+    }
+}
@@ -0,0 +1,45 @@
+package com.banking.account.concurrency;
+
+/**
+ * Priority tier of a request, derived from its route.
+ * Lower tiers are shed first: they may only use part of the adaptive
+ * concurrency limit and have their own thread and connection budgets.
+ */
+public enum RequestPriority {
+
+    /**
+     * Money movement: deposits, withdrawals, transfers and holds
+     */
+    CRITICAL,
+
+    /**
+     * Single-entity reads and account maintenance
+     */
+    NORMAL,
+
+    /**
+     * Statements and unbounded listings
+     */
+    LOW;
+
+    /**
+     * Classify a request by method and path
+     * @param method the HTTP method
+     * @param path the request path without context path
+     * @return the priority tier
+     */
+    public static RequestPriority classify(String method, String path) {
+        boolean get = "GET".equals(method);
+        if ("POST".equals(method) && (path.equals("/movimientos") || path.equals("/transferencias")
+                || path.contains("/retenciones"))) {
+            return CRITICAL;
+        }
+        if (path.startsWith("/reportes")) {
+            return LOW;
+        }
+        if (get && (path.equals("/movimientos") || path.equals("/cuentas") || path.startsWith("/movimientos/cliente/"))) {
+            return LOW;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,29 @@
+package com.banking.account.concurrency;
+
+/**
+ * Priority of the request being served on the current thread.
+ * Set by {@link ConcurrencyLimitFilter} for the duration of the request and read
+ * by {@link PriorityRoutingDataSource} to pick the connection pool; threads doing
+ * work on behalf of a request (shard scatter-gather) carry it over. Threads that
+ * do not serve a request (startup, schedulers) count as {@link RequestPriority#NORMAL}.
+ */
+public final class RequestPriorityContext {
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    private RequestPriorityContext() {
+    }
+
+    public static RequestPriority current() {
+        RequestPriority priority = CURRENT.get();
+        return priority != null ? priority : RequestPriority.NORMAL;
+    }
+
+    public static void set(RequestPriority priority) {
+        CURRENT.set(priority);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,42 @@
+package com.banking.account.config;
+
+import com.banking.account.balance.BalanceCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Balances in memory for the balance endpoints (see BalanceCache), on unless
+ * balance-cache.enabled is false. Lookups are counted as balance-cache.hits
+ * and balance-cache.misses, balances a check found wrong as
+ * balance-cache.mismatches and entries dropped for not being read as
+ * balance-cache.evictions; cached accounts are published as balance-cache.size.
+ */
+@Configuration
+@ConditionalOnProperty(name = "balance-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceCacheConfig {
+
+    @Bean
+    public BalanceCache balanceCache(MeterRegistry meterRegistry,
+                                     @Value("${balance-cache.max-entries:1000000}") int maxEntries,
+                                     @Value("${balance-cache.ttl:5s}") Duration timeToLive) {
+        BalanceCache cache = new BalanceCache(maxEntries, timeToLive);
+        FunctionCounter.builder("balance-cache.hits", cache, BalanceCache::getHitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("balance-cache.misses", cache, BalanceCache::getMissCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("balance-cache.mismatches", cache, BalanceCache::getMismatchCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("balance-cache.evictions", cache, BalanceCache::getEvictionCount)
+                .register(meterRegistry);
+        Gauge.builder("balance-cache.size", cache, BalanceCache::size)
+                .register(meterRegistry);
+        return cache;
+    }
+}
@@ -0,0 +1,70 @@
+package com.banking.account.config;
+
+import com.banking.account.concurrency.AdaptiveConcurrencyLimit;
+import com.banking.account.concurrency.ConcurrencyLimitFilter;
+import com.banking.account.concurrency.PriorityTier;
+import com.banking.account.concurrency.RequestPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adaptive concurrency limit with priority tiers in front of every endpoint.
+ * The limit and in-flight count are published as concurrency.limit and
+ * concurrency.inflight, rejections as concurrency.rejected tagged by priority.
+ */
+@Configuration
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(
+            MeterRegistry meterRegistry,
+            @Value("${concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${concurrency-limit.window:100ms}") Duration window) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+                initialLimit, minLimit, maxLimit, smoothing, window.toNanos());
+        Gauge.builder("concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .register(meterRegistry);
+        return limit;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AdaptiveConcurrencyLimit limit,
+            MeterRegistry meterRegistry,
+            @Value("${load-shedding.normal.limit-share:0.9}") double normalShare,
+            @Value("${load-shedding.normal.max-threads:0}") int normalThreads,
+            @Value("${load-shedding.low.limit-share:0.5}") double lowShare,
+            @Value("${load-shedding.low.max-threads:20}") int lowThreads) {
+        Map<RequestPriority, PriorityTier> tiers = new EnumMap<>(RequestPriority.class);
+        tiers.put(RequestPriority.CRITICAL, tier(RequestPriority.CRITICAL, 1.0, 0, meterRegistry));
+        tiers.put(RequestPriority.NORMAL, tier(RequestPriority.NORMAL, normalShare, normalThreads, meterRegistry));
+        tiers.put(RequestPriority.LOW, tier(RequestPriority.LOW, lowShare, lowThreads, meterRegistry));
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, tiers));
+        // Ahead of everything else, a rejected request should cost as little as possible
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static PriorityTier tier(RequestPriority priority, double share, int maxThreads, MeterRegistry meterRegistry) {
+        return new PriorityTier(share, maxThreads,
+                meterRegistry.counter("concurrency.rejected", "priority", priority.name().toLowerCase()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.banking.account.config;
+
+import com.banking.account.concurrency.PriorityRoutingDataSource;
+import com.banking.account.sharding.MovementSeqMigration;
+import com.banking.account.sharding.ShardDataSources;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import com.banking.account.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DataSources for the account shards (see ShardingProperties). Each shard has
+ * two connection pools: the main pool, sized by spring.datasource.hikari.*,
+ * serves critical and normal requests, and a small separate pool serves
+ * low-priority ones (see RequestPriority). The application DataSource routes
+ * each transaction to its shard, then to the pool for its priority. Shards
+ * whose movimientos predate seq are migrated (see MovementSeqMigration)
+ * before the application starts using them.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class DataSourceConfig {
+
+    private static final String SHARD_SCHEMA = "schema-shard.sql";
+
+    @Bean
+    public ShardDataSources shardDataSources(
+            DataSourceProperties properties,
+            ShardingProperties sharding,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${load-shedding.low.max-connections:3}") int lowMaxConnections,
+            @Value("${load-shedding.low.connection-timeout:2s}") Duration lowConnectionTimeout) {
+        List<ShardingProperties.Shard> shards = sharding.getShards().isEmpty()
+                ? List.of(unshardedDatabase(properties))
+                : sharding.getShards();
+
+        List<DataSource> shardDataSources = new ArrayList<>();
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            HikariDataSource main = pool(shards.get(shard), properties, meterRegistry);
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(main));
+            main.setPoolName("shard-" + shard + "-main");
+
+            HikariDataSource lowPriority = pool(shards.get(shard), properties, meterRegistry);
+            lowPriority.setPoolName("shard-" + shard + "-low-priority");
+            lowPriority.setMaximumPoolSize(lowMaxConnections);
+            lowPriority.setMinimumIdle(1);
+            // Give up quickly instead of queueing low-priority work behind a full pool
+            lowPriority.setConnectionTimeout(lowConnectionTimeout.toMillis());
+
+            pools.add(main);
+            pools.add(lowPriority);
+            shardDataSources.add(new PriorityRoutingDataSource(main, lowPriority));
+        }
+
+        ShardDataSources result = new ShardDataSources(shardDataSources, pools);
+        if (sharding.isInitializeSchema()) {
+            // Hibernate only sees shard 0, the schema of the others is created here
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(SHARD_SCHEMA));
+            result.getAll().forEach(populator::execute);
+        }
+        try {
+            // Before Hibernate validates or updates the schema and anything reads seq
+            result.getAll().forEach(shard -> new MovementSeqMigration(shard).migrate());
+        } catch (RuntimeException e) {
+            result.close();
+            throw e;
+        }
+        return result;
+    }
+
+    @Bean
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources));
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardDataSources shardDataSources,
+                                   ShardingProperties sharding,
+                                   PlatformTransactionManager transactionManager) {
+        ExecutorService scatterExecutor = null;
+        if (shardDataSources.size() > 1) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-scatter-");
+            threadFactory.setDaemon(true);
+            scatterExecutor = Executors.newFixedThreadPool(sharding.getScatterThreads(), threadFactory);
+        }
+        return new ShardRouter(shardDataSources.size(), transactionManager, scatterExecutor);
+    }
+
+    @Bean
+    public ShardIdGenerator shardIdGenerator(ShardDataSources shardDataSources, ShardingProperties sharding) {
+        return new ShardIdGenerator(shardDataSources, sharding.getIdBlockSize());
+    }
+
+    private static ShardingProperties.Shard unshardedDatabase(DataSourceProperties properties) {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard();
+        shard.setUrl(properties.determineUrl());
+        shard.setDriverClassName(properties.determineDriverClassName());
+        return shard;
+    }
+
+    private static HikariDataSource pool(ShardingProperties.Shard shard, DataSourceProperties properties,
+                                         MeterRegistry meterRegistry) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(shard.getUrl())
+                .username(shard.getUsername() != null ? shard.getUsername() : properties.determineUsername())
+                .password(shard.getPassword() != null ? shard.getPassword() : properties.determinePassword());
+        // Otherwise derived from the URL
+        if (shard.getDriverClassName() != null) {
+            builder.driverClassName(shard.getDriverClassName());
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
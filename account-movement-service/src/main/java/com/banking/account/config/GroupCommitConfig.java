@@ -0,0 +1,79 @@
+package com.banking.account.config;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.groupcommit.GroupCommitStore;
+import com.banking.account.groupcommit.GroupCommitter;
+import com.banking.account.groupcommit.JpaGroupCommitStore;
+import com.banking.account.limit.DailyWithdrawalLimits;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Group commit of postings (see GroupCommitter), off unless
+ * group-commit.enabled. Committed batches are counted as group-commit.commits
+ * (their rate is commits per second), the postings in them as
+ * group-commit.postings and batches that did not commit as
+ * group-commit.aborted; batch sizes are published as group-commit.batch-size,
+ * and the batch limit and wait each shard has adapted to as
+ * group-commit.batch-limit and group-commit.wait, tagged by shard.
+ */
+@Configuration
+@ConditionalOnProperty(name = "group-commit.enabled", havingValue = "true")
+public class GroupCommitConfig {
+
+    @Bean
+    public GroupCommitStore groupCommitStore(AccountRepository accountRepository,
+                                             MovementRepository movementRepository,
+                                             MovementArchive movementArchive,
+                                             ShardRouter shardRouter,
+                                             ShardIdGenerator shardIdGenerator,
+                                             DailyWithdrawalLimits dailyWithdrawalLimits,
+                                             PlatformTransactionManager transactionManager) {
+        return new JpaGroupCommitStore(accountRepository, movementRepository, movementArchive, shardRouter,
+                shardIdGenerator, dailyWithdrawalLimits, transactionManager);
+    }
+
+    @Bean
+    public GroupCommitter groupCommitter(
+            GroupCommitStore groupCommitStore,
+            ShardRouter shardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${group-commit.max-batch-size:64}") int maxBatchSize,
+            @Value("${group-commit.max-wait:500us}") Duration maxWait) {
+        DistributionSummary batchSize = DistributionSummary.builder("group-commit.batch-size")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        GroupCommitter committer = new GroupCommitter(groupCommitStore, shardRouter.getShardCount(),
+                maxBatchSize, maxWait, batchSize::record);
+        FunctionCounter.builder("group-commit.commits", committer, GroupCommitter::getCommitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("group-commit.postings", committer, GroupCommitter::getPostingCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("group-commit.aborted", committer, GroupCommitter::getAbortedCount)
+                .register(meterRegistry);
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int number = shard;
+            Gauge.builder("group-commit.batch-limit", committer, c -> c.getBatchLimit(number))
+                    .tag("shard", String.valueOf(number))
+                    .register(meterRegistry);
+            Gauge.builder("group-commit.wait", committer, c -> c.getWaitNanos(number) / 1_000.0)
+                    .tag("shard", String.valueOf(number))
+                    .baseUnit("microseconds")
+                    .register(meterRegistry);
+        }
+        return committer;
+    }
+}
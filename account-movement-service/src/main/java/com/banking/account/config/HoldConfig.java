@@ -0,0 +1,26 @@
+package com.banking.account.config;
+
+import com.banking.account.hold.HoldRegistry;
+import com.banking.account.repository.HoldRepository;
+import com.banking.account.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Authorization holds in memory (see HoldRegistry), loaded from every shard
+ * at startup. Active holds are published as holds.active.
+ */
+@Configuration
+public class HoldConfig {
+
+    @Bean
+    public HoldRegistry holdRegistry(HoldRepository holdRepository, ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        HoldRegistry registry = new HoldRegistry();
+        shardRouter.onEachShard(holdRepository::findAll).forEach(registry::add);
+        Gauge.builder("holds.active", registry, HoldRegistry::size)
+                .register(meterRegistry);
+        return registry;
+    }
+}
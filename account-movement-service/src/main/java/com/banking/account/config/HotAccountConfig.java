@@ -0,0 +1,62 @@
+package com.banking.account.config;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.hotaccount.HotAccountEngine;
+import com.banking.account.hotaccount.HotAccountStore;
+import com.banking.account.hotaccount.JpaHotAccountStore;
+import com.banking.account.report.StatementCache;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.repository.PendingMovementRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Split balances for hot accounts (see HotAccountEngine), off unless
+ * hot-accounts.enabled. Merges of staged movements are counted as
+ * hotaccount.merges, withdrawals that consolidated an account as
+ * hotaccount.consolidations. Merged movements drop the cached statements
+ * they belong in.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hot-accounts.enabled", havingValue = "true")
+@EnableConfigurationProperties(HotAccountProperties.class)
+public class HotAccountConfig {
+
+    @Bean
+    public HotAccountStore hotAccountStore(AccountRepository accountRepository,
+                                           MovementRepository movementRepository,
+                                           PendingMovementRepository pendingMovementRepository,
+                                           MovementArchive movementArchive,
+                                           ShardRouter shardRouter,
+                                           PlatformTransactionManager transactionManager,
+                                           ObjectProvider<StatementCache> statementCache) {
+        return new JpaHotAccountStore(accountRepository, movementRepository, pendingMovementRepository,
+                movementArchive, shardRouter, transactionManager,
+                movement -> statementCache.ifAvailable(cache -> cache.invalidate(movement.getCuentaId(), movement.getFecha())));
+    }
+
+    @Bean
+    public HotAccountEngine hotAccountEngine(HotAccountStore hotAccountStore,
+                                             HotAccountProperties properties,
+                                             ShardRouter shardRouter,
+                                             ShardIdGenerator shardIdGenerator,
+                                             MeterRegistry meterRegistry) {
+        HotAccountEngine engine = new HotAccountEngine(hotAccountStore,
+                cuentaId -> shardIdGenerator.nextId(ShardIdGenerator.Sequence.MOVIMIENTOS, shardRouter.shardFor(cuentaId)),
+                properties.getIds(), properties.getSlots(), properties.getMergeInterval());
+        FunctionCounter.builder("hotaccount.merges", engine, HotAccountEngine::getMergeCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("hotaccount.consolidations", engine, HotAccountEngine::getConsolidationCount)
+                .register(meterRegistry);
+        return engine;
+    }
+}
@@ -0,0 +1,53 @@
+package com.banking.account.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accounts posted through the HotAccountEngine and how their balances are split
+ */
+@ConfigurationProperties(prefix = "hot-accounts")
+public class HotAccountProperties {
+
+    /**
+     * Ids of the hot accounts
+     */
+    private List<Long> ids = new ArrayList<>();
+
+    /**
+     * Slots per hot account, the postings to one account that can run at once
+     */
+    private int slots = 16;
+
+    /**
+     * How often staged movements are merged into movimientos
+     */
+    private Duration mergeInterval = Duration.ofSeconds(1);
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    public Duration getMergeInterval() {
+        return mergeInterval;
+    }
+
+    public void setMergeInterval(Duration mergeInterval) {
+        this.mergeInterval = mergeInterval;
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.account.config;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.ledger.JpaLedgerStore;
+import com.banking.account.ledger.LedgerEngine;
+import com.banking.account.ledger.LedgerStore;
+import com.banking.account.report.StatementCache;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * In-memory ledger for postings (see LedgerEngine), off unless ledger.enabled.
+ * Movements waiting for the database are published as ledger.unpersisted.
+ * Persisted movements drop the cached statements they belong in.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ledger.enabled", havingValue = "true")
+public class LedgerConfig {
+
+    @Bean
+    public LedgerStore ledgerStore(AccountRepository accountRepository,
+                                   MovementRepository movementRepository,
+                                   MovementArchive movementArchive,
+                                   ShardRouter shardRouter,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectProvider<StatementCache> statementCache) {
+        return new JpaLedgerStore(accountRepository, movementRepository, movementArchive, shardRouter, transactionManager,
+                movement -> statementCache.ifAvailable(cache -> cache.invalidate(movement.getCuentaId(), movement.getFecha())));
+    }
+
+    @Bean
+    public LedgerEngine ledgerEngine(
+            LedgerStore ledgerStore,
+            ShardRouter shardRouter,
+            ShardIdGenerator shardIdGenerator,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.directory:ledger}") String directory,
+            @Value("${ledger.partitions:0}") int partitions,
+            @Value("${ledger.queue-capacity:10000}") int queueCapacity,
+            @Value("${ledger.batch-size:256}") int batchSize,
+            @Value("${ledger.segment-size:64MB}") DataSize segmentSize,
+            @Value("${ledger.max-unpersisted:100000}") int maxUnpersisted,
+            @Value("${ledger.post-timeout:5s}") Duration postTimeout,
+            @Value("${ledger.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        LedgerEngine engine = new LedgerEngine(ledgerStore,
+                cuentaId -> shardIdGenerator.nextId(ShardIdGenerator.Sequence.MOVIMIENTOS, shardRouter.shardFor(cuentaId)),
+                Paths.get(directory),
+                partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors(),
+                queueCapacity, batchSize, segmentSize.toBytes(), maxUnpersisted, postTimeout, shutdownTimeout);
+        Gauge.builder("ledger.unpersisted", engine, LedgerEngine::getUnpersistedCount)
+                .register(meterRegistry);
+        return engine;
+    }
+}
@@ -0,0 +1,40 @@
+package com.banking.account.config;
+
+import com.banking.account.concurrency.LockingMode;
+import com.banking.account.concurrency.PostingRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * How postings and account updates guard accounts against concurrent changes
+ * (account-locking.mode, see LockingMode), and how often the loser of a race
+ * is retried (see PostingRetry).
+ */
+@Configuration
+public class LockingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(LockingConfig.class);
+
+    @Bean
+    public PostingRetry postingRetry(
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${account-locking.mode:OPTIMISTIC}") LockingMode mode,
+            @Value("${account-locking.retry.max-attempts:5}") int maxAttempts,
+            @Value("${account-locking.retry.initial-backoff:5ms}") Duration initialBackoff,
+            @Value("${account-locking.retry.max-backoff:200ms}") Duration maxBackoff) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        log.info("Accounts locked {}, up to {} attempts per posting", mode.name().toLowerCase(), maxAttempts);
+        return new PostingRetry(transactions, mode, maxAttempts, initialBackoff, maxBackoff, meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.banking.account.config;
+
+import com.banking.account.dto.ClientInfoDto;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Hold;
+import com.banking.account.entity.Movement;
+import com.banking.account.entity.PendingMovement;
+import com.banking.account.feign.ClientFeignClient;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reachability metadata for the native image.
+ * Hibernate accesses entity fields and validation constraints reflectively, and
+ * the Feign client is a JDK proxy whose response is decoded into ClientInfoDto.
+ * The shard schema is read from the classpath at startup.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection()
+                .registerType(Account.class, MemberCategory.values())
+                .registerType(Movement.class, MemberCategory.values())
+                .registerType(PendingMovement.class, MemberCategory.values())
+                .registerType(Hold.class, MemberCategory.values());
+        hints.proxies().registerJdkProxy(ClientFeignClient.class);
+        hints.resources().registerPattern("schema-shard.sql");
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), ClientInfoDto.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.banking.account.config;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.feign.ClientFeignClient;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import com.banking.account.statement.JpaStatementSource;
+import com.banking.account.statement.StatementBatch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Paths;
+
+/**
+ * Month-end statement files (see StatementBatch), off unless
+ * statement-batch.enabled. Statements and rows written are counted as
+ * statement-batch.statements and statement-batch.rows; the running batch is
+ * published as statement-batch.progress (share of the accounts done),
+ * statement-batch.throughput (accounts per second) and statement-batch.eta
+ * (seconds left).
+ */
+@Configuration
+@ConditionalOnProperty(name = "statement-batch.enabled", havingValue = "true")
+public class StatementBatchConfig {
+
+    @Bean
+    public StatementBatch statementBatch(AccountRepository accountRepository,
+                                         MovementRepository movementRepository,
+                                         MovementArchive movementArchive,
+                                         ClientFeignClient clientFeignClient,
+                                         ShardRouter shardRouter,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${statement-batch.directory:statements}") String directory,
+                                         @Value("${statement-batch.partitions:64}") int partitions,
+                                         @Value("${statement-batch.threads:8}") int threads,
+                                         @Value("${statement-batch.chunk-size:1000}") int chunkSize,
+                                         @Value("${statement-batch.checkpoint-every:500}") int checkpointEvery) {
+        StatementBatch batch = new StatementBatch(
+                new JpaStatementSource(accountRepository, movementRepository, movementArchive, clientFeignClient,
+                        shardRouter, transactionManager),
+                Paths.get(directory), partitions, threads, chunkSize, checkpointEvery);
+        FunctionCounter.builder("statement-batch.statements", batch, StatementBatch::getStatementCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("statement-batch.rows", batch, StatementBatch::getRowCount)
+                .register(meterRegistry);
+        Gauge.builder("statement-batch.progress", batch, StatementBatch::getProgress)
+                .register(meterRegistry);
+        Gauge.builder("statement-batch.throughput", batch, StatementBatch::getThroughput)
+                .register(meterRegistry);
+        Gauge.builder("statement-batch.eta", batch, StatementBatch::getEtaSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return batch;
+    }
+}
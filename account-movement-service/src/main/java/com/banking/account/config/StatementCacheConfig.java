@@ -0,0 +1,45 @@
+package com.banking.account.config;
+
+import com.banking.account.report.StatementCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Account statements in memory (see StatementCache), on unless
+ * statement-cache.enabled is false. Lookups are counted as
+ * statement-cache.hits and statement-cache.misses, statements dropped by a
+ * movement or an account change as statement-cache.invalidations and those
+ * dropped to make room as statement-cache.evictions; cached statements and
+ * their rows are published as statement-cache.size and statement-cache.rows.
+ */
+@Configuration
+@ConditionalOnProperty(name = "statement-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementCacheConfig {
+
+    @Bean
+    public StatementCache statementCache(MeterRegistry meterRegistry,
+                                         @Value("${statement-cache.max-rows:200000}") long maxRows,
+                                         @Value("${statement-cache.ttl:10m}") Duration timeToLive) {
+        StatementCache cache = new StatementCache(maxRows, timeToLive);
+        FunctionCounter.builder("statement-cache.hits", cache, StatementCache::getHitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("statement-cache.misses", cache, StatementCache::getMissCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("statement-cache.invalidations", cache, StatementCache::getInvalidationCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("statement-cache.evictions", cache, StatementCache::getEvictionCount)
+                .register(meterRegistry);
+        Gauge.builder("statement-cache.size", cache, StatementCache::size)
+                .register(meterRegistry);
+        Gauge.builder("statement-cache.rows", cache, StatementCache::getRowCount)
+                .register(meterRegistry);
+        return cache;
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.account.config;
+
+import com.banking.account.velocity.BurstRule;
+import com.banking.account.velocity.UnusualAmountRule;
+import com.banking.account.velocity.VelocityDecision;
+import com.banking.account.velocity.VelocityEngine;
+import com.banking.account.velocity.VelocityRule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Velocity checks on withdrawals (see VelocityEngine), on unless
+ * velocity.enabled is false. The duration of every check is published as the
+ * velocity.evaluation timer, checked withdrawals as velocity.decisions tagged
+ * by decision, checks that ran out of budget as velocity.over-budget and the
+ * accounts with a window as velocity.accounts.
+ */
+@Configuration
+@ConditionalOnProperty(name = "velocity.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(VelocityProperties.class)
+public class VelocityConfig {
+
+    @Bean
+    public VelocityEngine velocityEngine(VelocityProperties properties, MeterRegistry meterRegistry) {
+        List<VelocityRule> rules = new ArrayList<>();
+        VelocityProperties.Burst burst = properties.getBurst();
+        if (burst.isEnabled()) {
+            rules.add(new BurstRule(burst.getMaxWithdrawals(), burst.getPeriod(), burst.getAction()));
+        }
+        VelocityProperties.UnusualAmount unusualAmount = properties.getUnusualAmount();
+        if (unusualAmount.isEnabled()) {
+            rules.add(new UnusualAmountRule(unusualAmount.getMinHistory(), unusualAmount.getDeviations(),
+                    unusualAmount.getMultiple(), unusualAmount.getAction()));
+        }
+        Timer evaluation = Timer.builder("velocity.evaluation")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        VelocityEngine engine = new VelocityEngine(rules, properties.getHistorySize(),
+                properties.getLatencyBudget(), properties.getIdleTimeout(),
+                nanos -> evaluation.record(nanos, TimeUnit.NANOSECONDS));
+        for (VelocityDecision decision : VelocityDecision.values()) {
+            FunctionCounter.builder("velocity.decisions", engine, e -> e.getDecisionCount(decision))
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("velocity.over-budget", engine, VelocityEngine::getOverBudgetCount)
+                .register(meterRegistry);
+        Gauge.builder("velocity.accounts", engine, VelocityEngine::getAccountCount)
+                .register(meterRegistry);
+        return engine;
+    }
+}
@@ -0,0 +1,175 @@
+package com.banking.account.config;
+
+import com.banking.account.velocity.VelocityDecision;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Velocity checks on withdrawals and their rules
+ */
+@ConfigurationProperties(prefix = "velocity")
+public class VelocityProperties {
+
+    /**
+     * Latest withdrawals kept per account
+     */
+    private int historySize = 32;
+
+    /**
+     * Longest a check may take before the withdrawal is let through unchecked
+     */
+    private Duration latencyBudget = Duration.ofNanos(500_000);
+
+    /**
+     * How long an account's withdrawals are kept after its latest one
+     */
+    private Duration idleTimeout = Duration.ofHours(24);
+
+    private Burst burst = new Burst();
+
+    private UnusualAmount unusualAmount = new UnusualAmount();
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public Duration getLatencyBudget() {
+        return latencyBudget;
+    }
+
+    public void setLatencyBudget(Duration latencyBudget) {
+        this.latencyBudget = latencyBudget;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Burst getBurst() {
+        return burst;
+    }
+
+    public void setBurst(Burst burst) {
+        this.burst = burst;
+    }
+
+    public UnusualAmount getUnusualAmount() {
+        return unusualAmount;
+    }
+
+    public void setUnusualAmount(UnusualAmount unusualAmount) {
+        this.unusualAmount = unusualAmount;
+    }
+
+    /**
+     * More than max-withdrawals withdrawals from an account within the period
+     */
+    public static class Burst {
+
+        private boolean enabled = true;
+
+        private int maxWithdrawals = 10;
+
+        private Duration period = Duration.ofMinutes(10);
+
+        private VelocityDecision action = VelocityDecision.BLOCK;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxWithdrawals() {
+            return maxWithdrawals;
+        }
+
+        public void setMaxWithdrawals(int maxWithdrawals) {
+            this.maxWithdrawals = maxWithdrawals;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+
+        public VelocityDecision getAction() {
+            return action;
+        }
+
+        public void setAction(VelocityDecision action) {
+            this.action = action;
+        }
+    }
+
+    /**
+     * A withdrawal over both mean + deviations x standard deviation and
+     * multiple x mean of the account's latest withdrawals
+     */
+    public static class UnusualAmount {
+
+        private boolean enabled = true;
+
+        private int minHistory = 5;
+
+        private double deviations = 4;
+
+        private double multiple = 5;
+
+        private VelocityDecision action = VelocityDecision.FLAG;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinHistory() {
+            return minHistory;
+        }
+
+        public void setMinHistory(int minHistory) {
+            this.minHistory = minHistory;
+        }
+
+        public double getDeviations() {
+            return deviations;
+        }
+
+        public void setDeviations(double deviations) {
+            this.deviations = deviations;
+        }
+
+        public double getMultiple() {
+            return multiple;
+        }
+
+        public void setMultiple(double multiple) {
+            this.multiple = multiple;
+        }
+
+        public VelocityDecision getAction() {
+            return action;
+        }
+
+        public void setAction(VelocityDecision action) {
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.banking.account.config;
+
+import com.banking.account.limit.DailyWithdrawalLimits;
+import com.banking.account.money.Money;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.repository.PendingMovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Daily withdrawal caps (see DailyWithdrawalLimits). With any cap configured,
+ * the counters are rebuilt at startup from today's withdrawals on every
+ * shard, those staged by hot accounts included.
+ */
+@Configuration
+@EnableConfigurationProperties(WithdrawalLimitProperties.class)
+public class WithdrawalLimitConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(WithdrawalLimitConfig.class);
+
+    @Bean
+    public DailyWithdrawalLimits dailyWithdrawalLimits(WithdrawalLimitProperties properties,
+                                                       MovementRepository movementRepository,
+                                                       PendingMovementRepository pendingMovementRepository,
+                                                       ShardRouter shardRouter) {
+        DailyWithdrawalLimits limits = new DailyWithdrawalLimits(properties.getDaily());
+        if (!limits.isEnabled()) {
+            return limits;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDateTime start = today.atStartOfDay();
+        // Staged first: one merged in between is counted twice, never missed
+        List<Object[]> staged = shardRouter.onEachShard(() -> pendingMovementRepository.sumWithdrawalsSince(start));
+        List<Object[]> posted = shardRouter.onEachShard(() -> movementRepository.sumWithdrawalsSince(start));
+        for (List<Object[]> rows : List.of(staged, posted)) {
+            for (Object[] row : rows) {
+                limits.record(((Number) row[0]).longValue(), today, Money.of((BigDecimal) row[1]).getCents());
+            }
+        }
+        log.info("Daily withdrawal caps {}, counters rebuilt from today's withdrawals", properties.getDaily());
+        return limits;
+    }
+}
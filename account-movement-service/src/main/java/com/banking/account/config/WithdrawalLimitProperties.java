@@ -0,0 +1,27 @@
+package com.banking.account.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Daily withdrawal caps by account type
+ */
+@ConfigurationProperties(prefix = "withdrawal-limits")
+public class WithdrawalLimitProperties {
+
+    /**
+     * Most an account of each tipoCuenta may withdraw per calendar day; types not listed have no cap
+     */
+    private Map<String, BigDecimal> daily = new LinkedHashMap<>();
+
+    public Map<String, BigDecimal> getDaily() {
+        return daily;
+    }
+
+    public void setDaily(Map<String, BigDecimal> daily) {
+        this.daily = daily;
+    }
+}
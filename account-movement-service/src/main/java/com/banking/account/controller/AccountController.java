@@ -1,15 +1,20 @@
 package com.banking.account.controller;
 
 import com.banking.account.dto.AccountDto;
+import com.banking.account.dto.BalanceDto;
 import com.banking.account.service.AccountService;
+import com.banking.account.service.MovementService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST Controller for Account operations
@@ -22,6 +27,9 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
     
+    @Autowired
+    private MovementService movementService;
+    
     /**
      * Create a new account
      * @param accountDto the account data
@@ -62,6 +70,39 @@ public class AccountController {
         }
     }
     
+    /**
+     * Get the current balance of an account, not to be cached on the way:
+     * a posting changes it through another route
+     * @param id the account ID
+     * @return the balance if the account is found
+     */
+    @GetMapping("/{id}/saldo")
+    public ResponseEntity<?> getBalance(@PathVariable Long id) {
+        Optional<BigDecimal> balance = movementService.getBalance(id);
+        if (balance.isPresent()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(new BalanceDto(id, balance.get()));
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Get the current balances of several accounts
+     * @param cuentaIds the account IDs
+     * @return the balances of the accounts found, in the order asked for
+     */
+    @PostMapping("/saldos")
+    public ResponseEntity<?> getBalances(@RequestBody List<Long> cuentaIds) {
+        try {
+            List<BalanceDto> balances = movementService.getBalances(cuentaIds).entrySet().stream()
+                    .map(entry -> new BalanceDto(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(balances);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
     /**
      * Get account by account number
      * @param numeroCuenta the account number
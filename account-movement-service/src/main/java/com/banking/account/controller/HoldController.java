@@ -0,0 +1,118 @@
+package com.banking.account.controller;
+
+import com.banking.account.dto.AvailableBalanceDto;
+import com.banking.account.dto.HoldDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.service.HoldService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * REST Controller for authorization holds on an account. Reads are sent
+ * with Cache-Control: no-store, as captures, releases and expiries change
+ * them without a write to the same path.
+ */
+@RestController
+@RequestMapping("/cuentas/{cuentaId}/retenciones")
+@CrossOrigin(origins = "*")
+public class HoldController {
+
+    @Autowired
+    private HoldService holdService;
+
+    /**
+     * Place a hold
+     * @param cuentaId the account ID
+     * @param holdDto the amount and optional expiration
+     * @return the created hold
+     */
+    @PostMapping
+    public ResponseEntity<?> createHold(@PathVariable Long cuentaId, @Valid @RequestBody HoldDto holdDto) {
+        try {
+            HoldDto createdHold = holdService.createHold(cuentaId, holdDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdHold);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the active holds of an account
+     * @param cuentaId the account ID
+     * @return list of active holds
+     */
+    @GetMapping
+    public ResponseEntity<List<HoldDto>> getHolds(@PathVariable Long cuentaId) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(holdService.getHolds(cuentaId));
+    }
+
+    /**
+     * Get the balance of an account net of its holds
+     * @param cuentaId the account ID
+     * @return balance, held amount and available balance
+     */
+    @GetMapping("/saldo-disponible")
+    public ResponseEntity<AvailableBalanceDto> getAvailableBalance(@PathVariable Long cuentaId) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(holdService.getAvailableBalance(cuentaId));
+    }
+
+    /**
+     * Capture a hold into a withdrawal
+     * @param cuentaId the account ID
+     * @param retencionId the hold ID
+     * @param valor the final amount, the whole hold if absent
+     * @return the withdrawal
+     */
+    @PostMapping("/{retencionId}/captura")
+    public ResponseEntity<?> captureHold(@PathVariable Long cuentaId, @PathVariable Long retencionId,
+                                         @RequestParam(required = false) BigDecimal valor) {
+        try {
+            MovementDto movement = holdService.captureHold(cuentaId, retencionId, valor);
+            return ResponseEntity.status(HttpStatus.CREATED).body(movement);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Release a hold
+     * @param cuentaId the account ID
+     * @param retencionId the hold ID
+     * @return no content if successful
+     */
+    @DeleteMapping("/{retencionId}")
+    public ResponseEntity<?> releaseHold(@PathVariable Long cuentaId, @PathVariable Long retencionId) {
+        try {
+            holdService.releaseHold(cuentaId, retencionId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Error response class
+     */
+    public static class ErrorResponse {
+        private String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
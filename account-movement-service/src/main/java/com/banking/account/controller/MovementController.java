@@ -60,6 +60,22 @@ public class MovementController {
         return ResponseEntity.ok(movements);
     }
     
+    /**
+     * Get a page of an account's movements, newest first
+     * @param cuentaId the account ID
+     * @param antesDe seq of the last movement of the previous page, absent for the first page
+     * @param limite the page size
+     * @return the movements of the page
+     */
+    @GetMapping("/cuenta/{cuentaId}/pagina")
+    public ResponseEntity<List<MovementDto>> getMovementPage(
+            @PathVariable Long cuentaId,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "50") int limite) {
+        List<MovementDto> movements = movementService.getMovementPage(cuentaId, antesDe, limite);
+        return ResponseEntity.ok(movements);
+    }
+    
     /**
      * Get movements by client ID
      * @param clienteId the client ID
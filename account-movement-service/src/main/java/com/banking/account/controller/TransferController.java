@@ -0,0 +1,55 @@
+package com.banking.account.controller;
+
+import com.banking.account.dto.TransferDto;
+import com.banking.account.service.MovementService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for transfers between accounts
+ */
+@RestController
+@RequestMapping("/transferencias")
+@CrossOrigin(origins = "*")
+public class TransferController {
+
+    @Autowired
+    private MovementService movementService;
+
+    /**
+     * Transfer between two accounts, both movements in one transaction
+     * @param transferDto the origin and destination accounts and the amount
+     * @return the transfer with the withdrawal and the deposit
+     */
+    @PostMapping
+    public ResponseEntity<?> createTransfer(@Valid @RequestBody TransferDto transferDto) {
+        try {
+            TransferDto transfer = movementService.transfer(transferDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(transfer);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Error response class
+     */
+    public static class ErrorResponse {
+        private String message;
+
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.banking.account.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance of an account next to what active holds keep from being spent
+ */
+public class AvailableBalanceDto {
+
+    private Long cuentaId;
+    private BigDecimal saldo;
+    private BigDecimal retenido;
+    private BigDecimal disponible;
+
+    // Constructors
+    public AvailableBalanceDto() {}
+
+    public AvailableBalanceDto(Long cuentaId, BigDecimal saldo, BigDecimal retenido, BigDecimal disponible) {
+        this.cuentaId = cuentaId;
+        this.saldo = saldo;
+        this.retenido = retenido;
+        this.disponible = disponible;
+    }
+
+    // Getters and Setters
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public void setCuentaId(Long cuentaId) {
+        this.cuentaId = cuentaId;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(BigDecimal saldo) {
+        this.saldo = saldo;
+    }
+
+    public BigDecimal getRetenido() {
+        return retenido;
+    }
+
+    public void setRetenido(BigDecimal retenido) {
+        this.retenido = retenido;
+    }
+
+    public BigDecimal getDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(BigDecimal disponible) {
+        this.disponible = disponible;
+    }
+}
@@ -0,0 +1,37 @@
+package com.banking.account.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Current balance of an account
+ */
+public class BalanceDto {
+
+    private Long cuentaId;
+    private BigDecimal saldo;
+
+    // Constructors
+    public BalanceDto() {}
+
+    public BalanceDto(Long cuentaId, BigDecimal saldo) {
+        this.cuentaId = cuentaId;
+        this.saldo = saldo;
+    }
+
+    // Getters and Setters
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public void setCuentaId(Long cuentaId) {
+        this.cuentaId = cuentaId;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(BigDecimal saldo) {
+        this.saldo = saldo;
+    }
+}
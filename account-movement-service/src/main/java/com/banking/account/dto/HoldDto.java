@@ -0,0 +1,75 @@
+package com.banking.account.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for an authorization hold
+ */
+public class HoldDto {
+
+    private Long retencionId;
+
+    private Long cuentaId;
+
+    @NotNull(message = "Value is required")
+    @DecimalMin(value = "0.01", message = "Value must be greater than 0")
+    private BigDecimal valor;
+
+    private LocalDateTime fecha;
+
+    // Optional when creating a hold, holds.default-ttl from now if absent
+    private LocalDateTime fechaExpiracion;
+
+    // Constructors
+    public HoldDto() {}
+
+    public HoldDto(BigDecimal valor, LocalDateTime fechaExpiracion) {
+        this.valor = valor;
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    // Getters and Setters
+    public Long getRetencionId() {
+        return retencionId;
+    }
+
+    public void setRetencionId(Long retencionId) {
+        this.retencionId = retencionId;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public void setCuentaId(Long cuentaId) {
+        this.cuentaId = cuentaId;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public void setValor(BigDecimal valor) {
+        this.valor = valor;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+}
@@ -31,6 +31,9 @@ public class MovementDto {
     
     @NotNull(message = "Account ID is required")
     private Long cuentaId;
+    
+    // Assigned when the movement is posted, the cursor for paging an account's history
+    private Long seq;
 
     // Constructors
     public MovementDto() {}
@@ -92,4 +95,12 @@ public class MovementDto {
     public void setCuentaId(Long cuentaId) {
         this.cuentaId = cuentaId;
     }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
 }
@@ -0,0 +1,77 @@
+package com.banking.account.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object for a transfer between two accounts
+ */
+public class TransferDto {
+
+    @NotNull(message = "Origin account ID is required")
+    private Long cuentaOrigenId;
+
+    @NotNull(message = "Destination account ID is required")
+    private Long cuentaDestinoId;
+
+    @NotNull(message = "Value is required")
+    @DecimalMin(value = "0.01", message = "Value must be greater than 0")
+    private BigDecimal valor;
+
+    // Set once the transfer is posted: the withdrawal from the origin and the deposit to the destination
+    private MovementDto retiro;
+
+    private MovementDto deposito;
+
+    // Constructors
+    public TransferDto() {}
+
+    public TransferDto(Long cuentaOrigenId, Long cuentaDestinoId, BigDecimal valor) {
+        this.cuentaOrigenId = cuentaOrigenId;
+        this.cuentaDestinoId = cuentaDestinoId;
+        this.valor = valor;
+    }
+
+    // Getters and Setters
+    public Long getCuentaOrigenId() {
+        return cuentaOrigenId;
+    }
+
+    public void setCuentaOrigenId(Long cuentaOrigenId) {
+        this.cuentaOrigenId = cuentaOrigenId;
+    }
+
+    public Long getCuentaDestinoId() {
+        return cuentaDestinoId;
+    }
+
+    public void setCuentaDestinoId(Long cuentaDestinoId) {
+        this.cuentaDestinoId = cuentaDestinoId;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public void setValor(BigDecimal valor) {
+        this.valor = valor;
+    }
+
+    public MovementDto getRetiro() {
+        return retiro;
+    }
+
+    public void setRetiro(MovementDto retiro) {
+        this.retiro = retiro;
+    }
+
+    public MovementDto getDeposito() {
+        return deposito;
+    }
+
+    public void setDeposito(MovementDto deposito) {
+        this.deposito = deposito;
+    }
+}
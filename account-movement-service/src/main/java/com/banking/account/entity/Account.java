@@ -5,6 +5,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 
@@ -13,10 +14,10 @@ import java.math.BigDecimal;
  */
 @Entity
 @Table(name = "cuentas")
-public class Account {
+public class Account implements Persistable<Long> {
     
+    // Assigned by ShardIdGenerator, the id encodes the shard
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "cuenta_id")
     private Long cuentaId;
     
@@ -43,6 +44,14 @@ public class Account {
     @Column(name = "cliente_id", nullable = false)
     private Long clienteId;
 
+    // Bumped by every posting and update, see LockingMode
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    @Transient
+    private boolean newEntity = true;
+    
     // Constructors
     public Account() {}
 
@@ -103,4 +112,25 @@ public class Account {
     public void setClienteId(Long clienteId) {
         this.clienteId = clienteId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+    
+    // Persistable: ids are assigned before saving, so they cannot tell a new row from an existing one
+    @Override
+    public Long getId() {
+        return cuentaId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
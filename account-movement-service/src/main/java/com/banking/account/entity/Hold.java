@@ -0,0 +1,85 @@
+package com.banking.account.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Authorization hold on part of an account's balance. Only active holds are
+ * stored: capturing, releasing or expiring a hold deletes its row.
+ */
+@Entity
+@Table(name = "retenciones")
+public class Hold implements Persistable<Long> {
+
+    // Assigned by ShardIdGenerator, the id encodes the shard
+    @Id
+    @Column(name = "retencion_id")
+    private Long retencionId;
+
+    @Column(name = "cuenta_id", nullable = false)
+    private Long cuentaId;
+
+    @Column(name = "valor", nullable = false, precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    @Transient
+    private boolean newEntity = true;
+
+    // Constructors
+    public Hold() {}
+
+    public Hold(Long retencionId, Long cuentaId, BigDecimal valor, LocalDateTime fecha, LocalDateTime fechaExpiracion) {
+        this.retencionId = retencionId;
+        this.cuentaId = cuentaId;
+        this.valor = valor;
+        this.fecha = fecha;
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    // Getters
+    public Long getRetencionId() {
+        return retencionId;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+
+    // Persistable: ids are assigned before saving, so they cannot tell a new row from an existing one
+    @Override
+    public Long getId() {
+        return retencionId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
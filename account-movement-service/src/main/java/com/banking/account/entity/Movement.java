@@ -5,6 +5,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,11 +14,12 @@ import java.time.LocalDateTime;
  * Movement entity representing account transactions
  */
 @Entity
-@Table(name = "movimientos")
-public class Movement {
+@Table(name = "movimientos", uniqueConstraints =
+        @UniqueConstraint(name = "uk_movimientos_cuenta_seq", columnNames = {"cuenta_id", "seq"}))
+public class Movement implements Persistable<Long> {
     
+    // Assigned by ShardIdGenerator, the id encodes the shard
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "movimiento_id")
     private Long movimientoId;
     
@@ -42,7 +44,15 @@ public class Movement {
     @NotNull(message = "Account ID is required")
     @Column(name = "cuenta_id", nullable = false)
     private Long cuentaId;
+    
+    // Position in the account's history, 1 for its first movement and one more for each
+    // following; null only for movements archived before movements were numbered
+    @Column(name = "seq", nullable = false)
+    private Long seq;
 
+    @Transient
+    private boolean newEntity = true;
+    
     // Constructors
     public Movement() {}
 
@@ -103,4 +113,29 @@ public class Movement {
     public void setCuentaId(Long cuentaId) {
         this.cuentaId = cuentaId;
     }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+    
+    // Persistable: ids are assigned before saving, so they cannot tell a new row from an existing one
+    @Override
+    public Long getId() {
+        return movimientoId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
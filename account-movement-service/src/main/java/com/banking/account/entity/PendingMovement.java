@@ -0,0 +1,104 @@
+package com.banking.account.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movement of a hot account that is accepted but not yet in movimientos.
+ * Each belongs to one of the account's sub-balance slots; merging writes them
+ * to movimientos slot by slot, in orden within a slot, and deletes them.
+ */
+@Entity
+@Table(name = "movimientos_pendientes", uniqueConstraints =
+        @UniqueConstraint(name = "uk_movimientos_pendientes_orden", columnNames = {"cuenta_id", "ranura", "orden"}))
+public class PendingMovement implements Persistable<Long> {
+
+    // The id the movement keeps in movimientos
+    @Id
+    @Column(name = "movimiento_id")
+    private Long movimientoId;
+
+    @Column(name = "cuenta_id", nullable = false)
+    private Long cuentaId;
+
+    @Column(name = "ranura", nullable = false)
+    private Integer ranura;
+
+    @Column(name = "orden", nullable = false)
+    private Long orden;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "tipo_movimiento", nullable = false, length = 20)
+    private String tipoMovimiento;
+
+    @Column(name = "valor", nullable = false, precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    @Transient
+    private boolean newEntity = true;
+
+    // Constructors
+    public PendingMovement() {}
+
+    public PendingMovement(Long movimientoId, Long cuentaId, Integer ranura, Long orden,
+                           LocalDateTime fecha, String tipoMovimiento, BigDecimal valor) {
+        this.movimientoId = movimientoId;
+        this.cuentaId = cuentaId;
+        this.ranura = ranura;
+        this.orden = orden;
+        this.fecha = fecha;
+        this.tipoMovimiento = tipoMovimiento;
+        this.valor = valor;
+    }
+
+    // Getters
+    public Long getMovimientoId() {
+        return movimientoId;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public Integer getRanura() {
+        return ranura;
+    }
+
+    public Long getOrden() {
+        return orden;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public String getTipoMovimiento() {
+        return tipoMovimiento;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    // Persistable: ids are assigned before saving, so they cannot tell a new row from an existing one
+    @Override
+    public Long getId() {
+        return movimientoId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
@@ -0,0 +1,13 @@
+package com.banking.account.exception;
+
+/**
+ * An account was changed by another transaction while this one was using it.
+ * Thrown as an IllegalArgumentException, a bad request, once
+ * {@link com.banking.account.concurrency.PostingRetry} has run out of attempts.
+ */
+public class ConcurrentUpdateException extends IllegalArgumentException {
+
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.banking.account.groupcommit;
+
+/**
+ * The batch a posting was in did not commit, or the group commit is shut
+ * down. Nothing of the posting was written; it can be posted on its own.
+ */
+public class GroupAbortedException extends RuntimeException {
+
+    public GroupAbortedException(String message) {
+        super(message);
+    }
+
+    public GroupAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package com.banking.account.groupcommit;
+
+import java.util.List;
+
+/**
+ * Where a batch of postings to accounts of one shard is written
+ */
+public interface GroupCommitStore {
+
+    /**
+     * Decide every posting of the batch, in order, each from the balance the
+     * postings before it left on its account, and write the movements of those
+     * accepted in one transaction. A posting that is refused is marked as such
+     * and does not stop the others.
+     * @param shard the shard of every account in the batch
+     * @param batch the postings, in the order they arrived
+     * @throws RuntimeException if the transaction did not commit, in which case nothing was written
+     */
+    void post(int shard, List<GroupPosting> batch);
+}
@@ -0,0 +1,232 @@
+package com.banking.account.groupcommit;
+
+import com.banking.account.entity.Movement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Group commit for postings (group-commit.enabled): instead of a transaction
+ * and a log flush per posting, concurrent postings to accounts of one shard
+ * are queued, written by that shard's committer thread in arrival order, and
+ * committed together; each poster then gets its own outcome. A batch starts
+ * with the first posting queued and takes what arrives within the wait, up
+ * to the batch limit. Both adapt to load: a batch that fills up raises the
+ * limit and a nearly empty one lowers it, while postings that find company
+ * lengthen the wait and one that commits alone halves it, so a lone posting
+ * is not held back waiting for others that do not come.
+ *
+ * A batch that does not commit writes nothing; its postings are handed back
+ * as {@link GroupAbortedException}s to be posted on their own.
+ */
+public class GroupCommitter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final GroupCommitStore store;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final IntConsumer batchSizes;
+    private final Shard[] shards;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong postings = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Start one committer thread per shard
+     * @param store writes and commits the batches
+     * @param shardCount number of shards, a batch never spans two
+     * @param maxBatchSize most postings per batch
+     * @param maxWait longest a batch waits for more postings after its first
+     * @param batchSizes receives the size of every committed batch
+     */
+    public GroupCommitter(GroupCommitStore store, int shardCount, int maxBatchSize, Duration maxWait,
+                          IntConsumer batchSizes) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("A batch needs room for at least one posting");
+        }
+        this.store = store;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.batchSizes = batchSizes;
+        this.shards = new Shard[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards[shard] = new Shard(shard);
+            shards[shard].thread.start();
+        }
+        log.info("Group commit of up to {} postings, waiting up to {} us", maxBatchSize, maxWait.toNanos() / 1_000);
+    }
+
+    /**
+     * Post through the next batch of the account's shard and wait for it to commit
+     * @param shard the account's shard
+     * @param posting the posting
+     * @return the committed movement
+     * @throws IllegalArgumentException if the posting was refused
+     * @throws GroupAbortedException if its batch did not commit or the group commit is shut down
+     */
+    public Movement post(int shard, GroupPosting posting) {
+        if (closed) {
+            throw new GroupAbortedException("Group commit is shut down");
+        }
+        BlockingQueue<GroupPosting> queue = shards[shard].queue;
+        queue.add(posting);
+        // Closed meanwhile: whoever took the posting from the queue completes it
+        if (closed && queue.remove(posting)) {
+            throw new GroupAbortedException("Group commit is shut down");
+        }
+        return posting.await();
+    }
+
+    /**
+     * @return batches committed so far
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * @return postings decided in committed batches so far
+     */
+    public long getPostingCount() {
+        return postings.get();
+    }
+
+    /**
+     * @return batches that did not commit so far
+     */
+    public long getAbortedCount() {
+        return aborted.get();
+    }
+
+    /**
+     * @param shard the shard
+     * @return most postings the shard's next batch takes
+     */
+    public int getBatchLimit(int shard) {
+        return shards[shard].batchLimit;
+    }
+
+    /**
+     * @param shard the shard
+     * @return longest the shard's next batch waits for more postings
+     */
+    public long getWaitNanos(int shard) {
+        return shards[shard].waitNanos;
+    }
+
+    /**
+     * Commit what is queued and stop the committer threads
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+
+    /**
+     * Queue and committer thread of one shard, with the batch limit and wait it has adapted to
+     */
+    private final class Shard {
+
+        private final int number;
+        private final BlockingQueue<GroupPosting> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        // Written by the committer thread only
+        private volatile int batchLimit;
+        private volatile long waitNanos;
+
+        Shard(int number) {
+            this.number = number;
+            this.batchLimit = Math.max(1, maxBatchSize / 8);
+            this.thread = new Thread(this::run, "group-commit-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            List<GroupPosting> batch = new ArrayList<>(maxBatchSize);
+            try {
+                while (!closed || !queue.isEmpty()) {
+                    GroupPosting first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    fill(batch);
+                    adapt(batch.size());
+                    commit(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                GroupAbortedException cause = new GroupAbortedException("Group commit was interrupted");
+                batch.forEach(posting -> posting.aborted(cause));
+                queue.forEach(posting -> posting.aborted(cause));
+            }
+        }
+
+        /**
+         * Take what is queued and what arrives within the wait, up to the batch limit
+         */
+        private void fill(List<GroupPosting> batch) throws InterruptedException {
+            int limit = batchLimit;
+            long deadline = System.nanoTime() + waitNanos;
+            queue.drainTo(batch, limit - batch.size());
+            while (batch.size() < limit && !closed) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return;
+                }
+                GroupPosting next = queue.poll(left, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+                queue.drainTo(batch, limit - batch.size());
+            }
+        }
+
+        private void commit(List<GroupPosting> batch) {
+            try {
+                store.post(number, batch);
+            } catch (RuntimeException e) {
+                aborted.incrementAndGet();
+                log.warn("A batch of {} postings on shard {} did not commit, posting them one by one: {}",
+                        batch.size(), number, e.getMessage());
+                GroupAbortedException cause = new GroupAbortedException("The batch did not commit", e);
+                batch.forEach(posting -> posting.aborted(cause));
+                return;
+            }
+            commits.incrementAndGet();
+            postings.addAndGet(batch.size());
+            batchSizes.accept(batch.size());
+            batch.forEach(GroupPosting::committed);
+        }
+
+        private void adapt(int size) {
+            if (size >= batchLimit) {
+                batchLimit = Math.min(maxBatchSize, batchLimit * 2);
+            } else if (size < batchLimit / 4) {
+                batchLimit = Math.max(1, batchLimit / 2);
+            }
+            if (size > 1) {
+                waitNanos = Math.min(maxWaitNanos, Math.max(waitNanos * 2, maxWaitNanos / 16));
+            } else {
+                waitNanos /= 2;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.banking.account.groupcommit;
+
+import com.banking.account.entity.Movement;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+
+/**
+ * One posting waiting in a group commit. The store decides it while writing
+ * the batch, the poster learns the outcome once the batch is committed.
+ */
+public final class GroupPosting {
+
+    private final Long cuentaId;
+    private final String tipoMovimiento;
+    private final BigDecimal valor;
+    private final LongSupplier held;
+    private final CompletableFuture<Movement> outcome = new CompletableFuture<>();
+    private Movement movement;
+    private IllegalArgumentException rejection;
+
+    /**
+     * @param cuentaId the account ID
+     * @param tipoMovimiento Deposito or Retiro
+     * @param valor the amount
+     * @param held cents held on the account that a withdrawal may not spend,
+     *             read by the store once it has locked the account
+     */
+    public GroupPosting(Long cuentaId, String tipoMovimiento, BigDecimal valor, LongSupplier held) {
+        this.cuentaId = cuentaId;
+        this.tipoMovimiento = tipoMovimiento;
+        this.valor = valor;
+        this.held = held;
+    }
+
+    public Long getCuentaId() {
+        return cuentaId;
+    }
+
+    public String getTipoMovimiento() {
+        return tipoMovimiento;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    /**
+     * @return cents held on the account right now
+     */
+    public long getHeld() {
+        return held.getAsLong();
+    }
+
+    /**
+     * The posting is part of the batch, with this movement
+     */
+    public void posted(Movement movement) {
+        this.movement = movement;
+    }
+
+    /**
+     * The posting was refused, the rest of the batch goes on
+     */
+    public void rejected(IllegalArgumentException rejection) {
+        this.rejection = rejection;
+    }
+
+    /**
+     * Hand the outcome to the poster once the batch is committed
+     */
+    void committed() {
+        if (rejection != null) {
+            outcome.completeExceptionally(rejection);
+        } else if (movement != null) {
+            outcome.complete(movement);
+        } else {
+            outcome.completeExceptionally(new GroupAbortedException("The posting was not decided by its batch"));
+        }
+    }
+
+    /**
+     * Tell the poster the batch was not committed
+     */
+    void aborted(GroupAbortedException cause) {
+        outcome.completeExceptionally(cause);
+    }
+
+    /**
+     * Wait for the outcome. Not interruptible: the batch may be committing the
+     * posting, the poster must not post it again elsewhere in the meantime.
+     * @return the committed movement
+     * @throws IllegalArgumentException if the posting was refused
+     * @throws GroupAbortedException if its batch was not committed
+     */
+    Movement await() {
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.banking.account.groupcommit;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import com.banking.account.limit.DailyWithdrawalLimits;
+import com.banking.account.money.Money;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * {@link GroupCommitStore} on the account shards: the batch's accounts are
+ * locked, lower id first as transfers do, and bumped once; each posting is
+ * decided from the balance and seq the postings before it left, without
+ * going back to movimientos, and the accepted movements are inserted in one
+ * transaction of their own. Withdrawals are counted against the daily cap as
+ * they are accepted and given back if the batch does not commit.
+ */
+public class JpaGroupCommitStore implements GroupCommitStore {
+
+    private static final String DEPOSITO = "Deposito";
+    private static final String RETIRO = "Retiro";
+
+    private final AccountRepository accountRepository;
+    private final MovementRepository movementRepository;
+    private final MovementArchive movementArchive;
+    private final ShardRouter shardRouter;
+    private final ShardIdGenerator shardIdGenerator;
+    private final DailyWithdrawalLimits dailyWithdrawalLimits;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaGroupCommitStore(AccountRepository accountRepository,
+                               MovementRepository movementRepository,
+                               MovementArchive movementArchive,
+                               ShardRouter shardRouter,
+                               ShardIdGenerator shardIdGenerator,
+                               DailyWithdrawalLimits dailyWithdrawalLimits,
+                               PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.movementArchive = movementArchive;
+        this.shardRouter = shardRouter;
+        this.shardIdGenerator = shardIdGenerator;
+        this.dailyWithdrawalLimits = dailyWithdrawalLimits;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void post(int shard, List<GroupPosting> batch) {
+        List<Reservation> reservations = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> shardRouter.onShard(shard,
+                    () -> movementRepository.saveAll(decide(batch, shard, reservations))));
+        } catch (RuntimeException e) {
+            for (Reservation reservation : reservations) {
+                dailyWithdrawalLimits.release(reservation.cuentaId, reservation.day, reservation.cents);
+            }
+            throw e;
+        }
+    }
+
+    private List<Movement> decide(List<GroupPosting> batch, int shard, List<Reservation> reservations) {
+        Map<Long, Balance> balances = new HashMap<>();
+        TreeSet<Long> cuentaIds = new TreeSet<>();
+        batch.forEach(posting -> cuentaIds.add(posting.getCuentaId()));
+        for (Long cuentaId : cuentaIds) {
+            accountRepository.findByIdForUpdate(cuentaId).ifPresent(account -> balances.put(cuentaId, load(account)));
+        }
+
+        List<Movement> movements = new ArrayList<>(batch.size());
+        for (GroupPosting posting : batch) {
+            try {
+                movements.add(decide(posting, balances.get(posting.getCuentaId()), shard, reservations));
+            } catch (IllegalArgumentException e) {
+                posting.rejected(e);
+            }
+        }
+        return movements;
+    }
+
+    /**
+     * Decide one posting and apply it to its account's balance
+     * @param balance the account's balance after the postings before it, null if not found
+     * @return the movement
+     * @throws IllegalArgumentException if the account is not found or inactive, the type is invalid or the balance is insufficient
+     */
+    private Movement decide(GroupPosting posting, Balance balance, int shard, List<Reservation> reservations) {
+        if (balance == null) {
+            throw new IllegalArgumentException("Account with ID " + posting.getCuentaId() + " not found");
+        }
+        Account account = balance.account;
+        if (!account.getEstado()) {
+            throw new IllegalArgumentException("Account is inactive");
+        }
+        Money valor;
+        Money newBalance;
+        try {
+            valor = Money.of(posting.getValor());
+            if (DEPOSITO.equals(posting.getTipoMovimiento())) {
+                newBalance = balance.saldo.plus(valor);
+            } else if (RETIRO.equals(posting.getTipoMovimiento())) {
+                newBalance = balance.saldo.minus(valor);
+                if (newBalance.minus(Money.ofCents(posting.getHeld())).isNegative()) {
+                    throw new IllegalArgumentException("Saldo no disponible");
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid movement type");
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance out of range");
+        }
+
+        if (RETIRO.equals(posting.getTipoMovimiento())) {
+            LocalDate day = LocalDate.now();
+            if (!dailyWithdrawalLimits.reserve(account.getCuentaId(), account.getTipoCuenta(), day, valor.getCents())) {
+                throw new IllegalArgumentException("Cupo diario excedido");
+            }
+            reservations.add(new Reservation(account.getCuentaId(), day, valor.getCents()));
+        }
+
+        Movement movement = new Movement(LocalDateTime.now(), posting.getTipoMovimiento(), valor.toBigDecimal(),
+                newBalance.toBigDecimal(), account.getCuentaId());
+        movement.setMovimientoId(shardIdGenerator.nextId(ShardIdGenerator.Sequence.MOVIMIENTOS, shard));
+        movement.setSeq(++balance.seq);
+        balance.saldo = newBalance;
+        posting.posted(movement);
+        return movement;
+    }
+
+    private Balance load(Account account) {
+        // No movement in the hot months, the last one may be archived
+        Optional<Movement> latest = movementRepository.findFirstByCuentaIdOrderBySeqDesc(account.getCuentaId())
+                .or(() -> movementArchive.findLatest(account.getCuentaId()));
+        return new Balance(account, Money.of(latest.map(Movement::getSaldo).orElse(account.getSaldoInicial())),
+                latest.map(Movement::getSeq).orElse(0L));
+    }
+
+    /**
+     * An account of the batch, with the balance and seq of its latest movement so far
+     */
+    private static final class Balance {
+
+        private final Account account;
+        private Money saldo;
+        private long seq;
+
+        Balance(Account account, Money saldo, long seq) {
+            this.account = account;
+            this.saldo = saldo;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * A withdrawal counted against the daily cap, given back if the batch does not commit
+     */
+    private static final class Reservation {
+
+        private final Long cuentaId;
+        private final LocalDate day;
+        private final long cents;
+
+        Reservation(Long cuentaId, LocalDate day, long cents) {
+            this.cuentaId = cuentaId;
+            this.day = day;
+            this.cents = cents;
+        }
+    }
+}
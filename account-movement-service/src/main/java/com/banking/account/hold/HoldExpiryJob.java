@@ -0,0 +1,77 @@
+package com.banking.account.hold;
+
+import com.banking.account.entity.Hold;
+import com.banking.account.repository.HoldRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Releases holds that were neither captured nor released before their
+ * fecha_expiracion, every holds.expiry-interval. Each hold is deleted in a
+ * transaction of its own; one that fails stays active and is tried again.
+ */
+@Component
+@EnableScheduling
+public class HoldExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryJob.class);
+
+    private final HoldRegistry holdRegistry;
+    private final HoldRepository holdRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    public HoldExpiryJob(HoldRegistry holdRegistry,
+                         HoldRepository holdRepository,
+                         ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager) {
+        this.holdRegistry = holdRegistry;
+        this.holdRepository = holdRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${holds.expiry-interval:PT10S}")
+    public void expireHolds() {
+        int expired = expireBefore(LocalDateTime.now());
+        if (expired > 0) {
+            log.info("Released {} expired holds", expired);
+        }
+    }
+
+    /**
+     * Release every hold that expired at or before the given time
+     * @param now the current time
+     * @return the number of holds released
+     */
+    int expireBefore(LocalDateTime now) {
+        int expired = 0;
+        for (Hold hold : holdRegistry.expired(now)) {
+            // Skipped if it is being captured or released right now
+            if (holdRegistry.claim(hold.getCuentaId(), hold.getRetencionId()).isEmpty()) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> shardRouter.onShard(
+                        shardRouter.shardFor(hold.getCuentaId()), () -> {
+                            holdRepository.deleteById(hold.getRetencionId());
+                            return null;
+                        }));
+                holdRegistry.settle(hold);
+                expired++;
+            } catch (RuntimeException e) {
+                holdRegistry.unclaim(hold);
+                log.warn("Could not release expired hold {}: {}", hold.getRetencionId(), e.getMessage());
+            }
+        }
+        return expired;
+    }
+}
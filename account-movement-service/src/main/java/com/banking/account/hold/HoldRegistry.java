@@ -0,0 +1,190 @@
+package com.banking.account.hold;
+
+import com.banking.account.entity.Hold;
+import com.banking.account.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Active authorization holds in memory, loaded from retenciones at startup.
+ * Per account it keeps the holds and their total in cents, so deciding on a
+ * new hold or a withdrawal is a map lookup next to the account's balance.
+ * A hold being captured, released or expired is claimed first: it still
+ * counts against the balance, but nothing else can settle it, until it is
+ * settled for good or unclaimed because the change was rolled back.
+ *
+ * Like the rest of the account state kept in memory, holds are only
+ * consistent if one instance takes the holds of an account.
+ */
+public class HoldRegistry {
+
+    private static final Comparator<Hold> BY_EXPIRATION =
+            Comparator.comparing(Hold::getFechaExpiracion).thenComparing(Hold::getRetencionId);
+
+    private final Map<Long, AccountHolds> accounts = new ConcurrentHashMap<>();
+    private final NavigableSet<Hold> byExpiration = new ConcurrentSkipListSet<>(BY_EXPIRATION);
+
+    /**
+     * Register a stored hold, without checking the balance
+     * @param hold the hold
+     */
+    public void add(Hold hold) {
+        AccountHolds holds = accountHolds(hold.getCuentaId());
+        synchronized (holds) {
+            holds.add(hold);
+        }
+        byExpiration.add(hold);
+    }
+
+    /**
+     * Register a new hold if the balance covers it on top of the account's active holds
+     * @param hold the hold
+     * @param balance the account's balance in cents
+     * @return false if the balance does not cover it
+     */
+    public boolean reserve(Hold hold, long balance) {
+        AccountHolds holds = accountHolds(hold.getCuentaId());
+        synchronized (holds) {
+            if (balance - holds.held < cents(hold)) {
+                return false;
+            }
+            holds.add(hold);
+        }
+        byExpiration.add(hold);
+        return true;
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @return cents held by the account's active holds, claimed ones included
+     */
+    public long held(Long cuentaId) {
+        AccountHolds holds = accounts.get(cuentaId);
+        if (holds == null) {
+            return 0;
+        }
+        synchronized (holds) {
+            return holds.held;
+        }
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @return the account's active holds, soonest to expire first
+     */
+    public List<Hold> holds(Long cuentaId) {
+        AccountHolds holds = accounts.get(cuentaId);
+        if (holds == null) {
+            return List.of();
+        }
+        List<Hold> active;
+        synchronized (holds) {
+            active = new ArrayList<>(holds.active.values());
+        }
+        active.sort(BY_EXPIRATION);
+        return active;
+    }
+
+    /**
+     * Claim a hold to capture, release or expire it
+     * @param cuentaId the account ID
+     * @param retencionId the hold ID
+     * @return the hold, empty if it is not active or already claimed
+     */
+    public Optional<Hold> claim(Long cuentaId, Long retencionId) {
+        AccountHolds holds = accounts.get(cuentaId);
+        if (holds == null) {
+            return Optional.empty();
+        }
+        synchronized (holds) {
+            Hold hold = holds.active.get(retencionId);
+            if (hold == null || !holds.claimed.add(retencionId)) {
+                return Optional.empty();
+            }
+            return Optional.of(hold);
+        }
+    }
+
+    /**
+     * Give a claimed hold back, the change that settled it was rolled back
+     * @param hold the hold
+     */
+    public void unclaim(Hold hold) {
+        AccountHolds holds = accountHolds(hold.getCuentaId());
+        synchronized (holds) {
+            holds.claimed.remove(hold.getRetencionId());
+        }
+    }
+
+    /**
+     * Remove a hold once it was captured, released or expired; does nothing if already removed
+     * @param hold the hold
+     */
+    public void settle(Hold hold) {
+        AccountHolds holds = accountHolds(hold.getCuentaId());
+        synchronized (holds) {
+            if (holds.active.remove(hold.getRetencionId()) != null) {
+                holds.held -= cents(hold);
+            }
+            holds.claimed.remove(hold.getRetencionId());
+        }
+        byExpiration.remove(hold);
+    }
+
+    /**
+     * @param now the current time
+     * @return the active holds that expired at or before now, oldest first
+     */
+    public List<Hold> expired(LocalDateTime now) {
+        List<Hold> expired = new ArrayList<>();
+        for (Hold hold : byExpiration) {
+            if (hold.getFechaExpiracion().isAfter(now)) {
+                break;
+            }
+            expired.add(hold);
+        }
+        return expired;
+    }
+
+    /**
+     * @return active holds across all accounts
+     */
+    public int size() {
+        return byExpiration.size();
+    }
+
+    private AccountHolds accountHolds(Long cuentaId) {
+        return accounts.computeIfAbsent(cuentaId, id -> new AccountHolds());
+    }
+
+    private static long cents(Hold hold) {
+        return Money.of(hold.getValor()).getCents();
+    }
+
+    /**
+     * Holds of one account, guarded by the instance's monitor
+     */
+    private static final class AccountHolds {
+
+        private final Map<Long, Hold> active = new HashMap<>();
+        private final Set<Long> claimed = new HashSet<>();
+        private long held;
+
+        void add(Hold hold) {
+            if (active.putIfAbsent(hold.getRetencionId(), hold) == null) {
+                held += cents(hold);
+            }
+        }
+    }
+}
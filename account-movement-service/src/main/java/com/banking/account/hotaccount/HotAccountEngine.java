@@ -0,0 +1,369 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.entity.PendingMovement;
+import com.banking.account.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Postings to hot accounts (hot-accounts.enabled), accounts that take more
+ * deposits than one posting at a time can carry. A hot account's balance is
+ * split over slots (see {@link SplitBalance}); a posting picks a slot at random
+ * and only waits for postings on the same slot, so up to as many run at once
+ * as there are slots. Accepted movements are staged in movimientos_pendientes,
+ * without reading the latest movement, and merged into movimientos, with their
+ * seq and saldo, every merge interval and whenever the account's history is
+ * read. A withdrawal its slot cannot cover consolidates the account: every
+ * slot is locked, everything staged is merged and the balance is handed out
+ * again, with the withdrawal reserved in its slot. So does a withdrawal from
+ * an account with holds, which must leave the held amount in the account as
+ * a whole; holds are placed through {@link #withBalance}, with every slot
+ * locked, so none comes in between.
+ *
+ * Like the ledger, the engine must be the only writer of its accounts: run a
+ * single instance with hot-accounts.enabled.
+ */
+public class HotAccountEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HotAccountEngine.class);
+
+    private static final String DEPOSITO = "Deposito";
+    private static final String RETIRO = "Retiro";
+
+    private final HotAccountStore store;
+    private final LongUnaryOperator movementIds;
+    private final Set<Long> hotAccounts;
+    private final int slotCount;
+    private final Map<Long, SplitBalance> accounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService merger;
+    private final AtomicLong merges = new AtomicLong();
+    private final AtomicLong consolidations = new AtomicLong();
+
+    /**
+     * Merge what the previous run left staged, load the hot accounts and start merging
+     * @param store stages and merges movements
+     * @param movementIds gives the id of a new movement of an account
+     * @param hotAccounts the accounts posted through the engine
+     * @param slotCount slots per account, the postings to one account that can run at once
+     * @param mergeInterval how often staged movements are merged into movimientos
+     */
+    public HotAccountEngine(HotAccountStore store, LongUnaryOperator movementIds, Collection<Long> hotAccounts,
+                            int slotCount, Duration mergeInterval) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("A hot account needs at least one slot");
+        }
+        this.store = store;
+        this.movementIds = movementIds;
+        this.hotAccounts = Set.copyOf(hotAccounts);
+        this.slotCount = slotCount;
+        // Accounts that are no longer hot are merged once and then posted as usual
+        for (Long cuentaId : store.findPendingAccounts()) {
+            if (!this.hotAccounts.contains(cuentaId)) {
+                store.merge(cuentaId);
+            }
+        }
+        for (Long cuentaId : this.hotAccounts) {
+            if (accounts.computeIfAbsent(cuentaId, this::load) == null) {
+                log.warn("Hot account {} does not exist yet, it is loaded on its first posting", cuentaId);
+            }
+        }
+        this.merger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-account-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = mergeInterval.toMillis();
+        merger.scheduleWithFixedDelay(this::mergeAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Hot accounts {} split over {} slots", this.hotAccounts, slotCount);
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @return true if postings to the account go through the engine
+     */
+    public boolean isHot(Long cuentaId) {
+        return hotAccounts.contains(cuentaId);
+    }
+
+    /**
+     * Post a deposit or withdrawal to a hot account. The movement gets its seq
+     * when it is merged; its saldo is the account's balance right after it was staged.
+     * @param cuentaId the account ID
+     * @param tipoMovimiento Deposito or Retiro
+     * @param valor the amount, rounded to cents
+     * @return the staged movement
+     * @throws IllegalArgumentException if the account is not found or inactive, the type is invalid or the balance is insufficient
+     */
+    public Movement post(Long cuentaId, String tipoMovimiento, BigDecimal valor) {
+        return post(cuentaId, tipoMovimiento, valor, () -> 0);
+    }
+
+    /**
+     * Post a deposit or withdrawal to a hot account that may have holds
+     * @param cuentaId the account ID
+     * @param tipoMovimiento Deposito or Retiro
+     * @param valor the amount, rounded to cents
+     * @param held cents a withdrawal must leave, read with the withdrawal's slot locked
+     * @return the staged movement
+     * @throws IllegalArgumentException if the account is not found or inactive, the type is invalid or the balance is insufficient
+     */
+    public Movement post(Long cuentaId, String tipoMovimiento, BigDecimal valor, LongSupplier held) {
+        long cents;
+        try {
+            cents = Money.of(valor).getCents();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance out of range");
+        }
+        SplitBalance account = account(cuentaId);
+        if (!account.isActive()) {
+            throw new IllegalArgumentException("Account is inactive");
+        }
+        if (DEPOSITO.equals(tipoMovimiento)) {
+            return deposit(account, cents);
+        }
+        if (RETIRO.equals(tipoMovimiento)) {
+            return withdraw(account, cents, held);
+        }
+        throw new IllegalArgumentException("Invalid movement type");
+    }
+
+    /**
+     * Balance of a hot account with every staged movement
+     * @param cuentaId the account ID
+     * @return the balance, empty if the account is not loaded, in which case movimientos is up to date
+     */
+    public Optional<BigDecimal> balance(Long cuentaId) {
+        SplitBalance account = accounts.get(cuentaId);
+        return account != null ? Optional.of(Money.ofCents(account.balance()).toBigDecimal()) : Optional.empty();
+    }
+
+    /**
+     * Run an action with a hot account's balance while no posting can change
+     * it: with every slot of the account locked
+     * @param cuentaId the account ID
+     * @param action takes the balance in cents; what it throws is thrown here
+     * @throws IllegalArgumentException if the account is not found
+     */
+    public void withBalance(Long cuentaId, LongConsumer action) {
+        SplitBalance account = account(cuentaId);
+        account.lockAll();
+        try {
+            action.accept(account.balance());
+        } finally {
+            account.unlockAll();
+        }
+    }
+
+    /**
+     * Merge an account's staged movements now, before its history is read
+     * @param cuentaId the account ID
+     */
+    public void merge(Long cuentaId) {
+        SplitBalance account = accounts.get(cuentaId);
+        if (account == null) {
+            return;
+        }
+        account.getMergeLock().lock();
+        try {
+            merge(account);
+        } finally {
+            account.getMergeLock().unlock();
+        }
+    }
+
+    /**
+     * Consolidate an account after it was changed, reloading its estado and
+     * balance (the saldo inicial may have changed), or drop it if deleted
+     * @param cuentaId the account ID
+     */
+    public void refresh(Long cuentaId) {
+        SplitBalance account = accounts.get(cuentaId);
+        if (account == null) {
+            return;
+        }
+        account.getMergeLock().lock();
+        account.lockAll();
+        try {
+            merge(account).ifPresent(merged -> account.distribute(merged.getBalance(), 0, 0));
+        } finally {
+            account.unlockAll();
+            account.getMergeLock().unlock();
+        }
+    }
+
+    /**
+     * @return merges of staged movements into movimientos so far
+     */
+    public long getMergeCount() {
+        return merges.get();
+    }
+
+    /**
+     * @return withdrawals that needed the whole account consolidated so far
+     */
+    public long getConsolidationCount() {
+        return consolidations.get();
+    }
+
+    /**
+     * Stop merging on schedule and merge what is staged one last time
+     */
+    @Override
+    public void close() throws InterruptedException {
+        merger.shutdown();
+        merger.awaitTermination(30, TimeUnit.SECONDS);
+        mergeAll();
+    }
+
+    private Movement deposit(SplitBalance account, long cents) {
+        int index = ThreadLocalRandom.current().nextInt(account.getSlotCount());
+        SplitBalance.Slot slot = account.slot(index);
+        slot.lock();
+        try {
+            if (!account.reserveDeposit(cents)) {
+                throw new IllegalArgumentException("Balance out of range");
+            }
+            try {
+                return stage(account, index, slot, DEPOSITO, cents);
+            } catch (RuntimeException e) {
+                account.releaseDeposit(cents);
+                throw e;
+            }
+        } finally {
+            slot.unlock();
+        }
+    }
+
+    private Movement withdraw(SplitBalance account, long cents, LongSupplier held) {
+        int index = ThreadLocalRandom.current().nextInt(account.getSlotCount());
+        SplitBalance.Slot slot = account.slot(index);
+        slot.lock();
+        try {
+            // A slot knows nothing of holds, only the whole balance can be checked against them
+            if (held.getAsLong() <= 0 && slot.getBalance() >= cents) {
+                Movement movement = stage(account, index, slot, RETIRO, cents);
+                account.withdrawn(cents);
+                return movement;
+            }
+        } finally {
+            slot.unlock();
+        }
+        return consolidateAndWithdraw(account, index, cents, held);
+    }
+
+    /**
+     * The slot cannot cover the withdrawal, or the account has holds: merge everything
+     * and give the slot the withdrawal on top of its share, if the whole balance covers
+     * it and what is held
+     */
+    private Movement consolidateAndWithdraw(SplitBalance account, int index, long cents, LongSupplier held) {
+        account.getMergeLock().lock();
+        account.lockAll();
+        try {
+            consolidations.incrementAndGet();
+            MergedAccount merged = merge(account).orElseThrow(() ->
+                    new IllegalArgumentException("Account with ID " + account.getCuentaId() + " not found"));
+            if (!merged.isActive()) {
+                throw new IllegalArgumentException("Account is inactive");
+            }
+            if (merged.getBalance() - cents < Math.max(held.getAsLong(), 0)) {
+                account.distribute(merged.getBalance(), index, 0);
+                throw new IllegalArgumentException("Saldo no disponible");
+            }
+            account.distribute(merged.getBalance(), index, cents);
+            Movement movement = stage(account, index, account.slot(index), RETIRO, cents);
+            account.withdrawn(cents);
+            return movement;
+        } finally {
+            account.unlockAll();
+            account.getMergeLock().unlock();
+        }
+    }
+
+    /**
+     * Stage a movement through a slot, with the slot locked
+     */
+    private Movement stage(SplitBalance account, int index, SplitBalance.Slot slot, String tipoMovimiento, long cents) {
+        long cuentaId = account.getCuentaId();
+        BigDecimal valor = Money.ofCents(cents).toBigDecimal();
+        PendingMovement pending = new PendingMovement(movementIds.applyAsLong(cuentaId), cuentaId, index,
+                slot.nextOrden(), LocalDateTime.now().truncatedTo(ChronoUnit.MICROS), tipoMovimiento, valor);
+        store.stage(pending);
+        slot.staged(DEPOSITO.equals(tipoMovimiento) ? cents : -cents);
+
+        Movement movement = new Movement(pending.getFecha(), tipoMovimiento, valor,
+                Money.ofCents(account.balance()).toBigDecimal(), cuentaId);
+        movement.setMovimientoId(pending.getMovimientoId());
+        return movement;
+    }
+
+    /**
+     * Merge with the account's merge lock held
+     * @return the merged account, empty if it no longer exists
+     */
+    private Optional<MergedAccount> merge(SplitBalance account) {
+        Optional<MergedAccount> merged = store.merge(account.getCuentaId());
+        merges.incrementAndGet();
+        if (merged.isEmpty()) {
+            // Deleted, its staged movements went with it
+            accounts.remove(account.getCuentaId(), account);
+            account.setActive(false);
+        } else {
+            account.setActive(merged.get().isActive());
+        }
+        return merged;
+    }
+
+    private void mergeAll() {
+        for (SplitBalance account : accounts.values()) {
+            // Skipped while a withdrawal consolidates the account, that merges it anyway
+            if (!account.getMergeLock().tryLock()) {
+                continue;
+            }
+            try {
+                merge(account);
+            } catch (RuntimeException e) {
+                log.warn("Could not merge the staged movements of hot account {}: {}",
+                        account.getCuentaId(), e.getMessage());
+            } finally {
+                account.getMergeLock().unlock();
+            }
+        }
+    }
+
+    private SplitBalance account(Long cuentaId) {
+        SplitBalance account = accounts.get(cuentaId);
+        if (account == null) {
+            account = accounts.computeIfAbsent(cuentaId, this::load);
+        }
+        if (account == null) {
+            throw new IllegalArgumentException("Account with ID " + cuentaId + " not found");
+        }
+        return account;
+    }
+
+    private SplitBalance load(Long cuentaId) {
+        return store.merge(cuentaId)
+                .map(merged -> new SplitBalance(cuentaId, slotCount, merged.isActive(), merged.getBalance()))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,34 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.entity.PendingMovement;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Where hot accounts stage their movements and merge them into movimientos
+ */
+public interface HotAccountStore {
+
+    /**
+     * Store an accepted movement of a hot account until it is merged
+     * @param movement the movement
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    void stage(PendingMovement movement);
+
+    /**
+     * Write an account's staged movements to movimientos, slot by slot and in
+     * orden within a slot, numbering them after its latest movement, and
+     * delete them from the staging table, in one transaction
+     * @param cuentaId the account ID
+     * @return the account with its balance after the merge, empty if it does not exist
+     * @throws IllegalStateException if the staged movements would overdraw the account
+     */
+    Optional<MergedAccount> merge(long cuentaId);
+
+    /**
+     * @return the accounts with staged movements, on every shard
+     */
+    Set<Long> findPendingAccounts();
+}
@@ -0,0 +1,121 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import com.banking.account.entity.PendingMovement;
+import com.banking.account.money.Money;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.repository.PendingMovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link HotAccountStore} on the account shards: movements are staged in
+ * movimientos_pendientes on their account's shard, each in its own
+ * transaction, and merged into movimientos in one transaction per account.
+ * Both run in a transaction of their own, apart from the caller's. Every
+ * movement merged is handed to a listener once the merge commits.
+ */
+public class JpaHotAccountStore implements HotAccountStore {
+
+    private static final String DEPOSITO = "Deposito";
+
+    private final AccountRepository accountRepository;
+    private final MovementRepository movementRepository;
+    private final PendingMovementRepository pendingMovementRepository;
+    private final MovementArchive movementArchive;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final Consumer<Movement> merged;
+
+    public JpaHotAccountStore(AccountRepository accountRepository,
+                              MovementRepository movementRepository,
+                              PendingMovementRepository pendingMovementRepository,
+                              MovementArchive movementArchive,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              Consumer<Movement> merged) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.pendingMovementRepository = pendingMovementRepository;
+        this.movementArchive = movementArchive;
+        this.shardRouter = shardRouter;
+        this.merged = merged;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void stage(PendingMovement movement) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> shardRouter.onShard(
+                    shardRouter.shardFor(movement.getCuentaId()), () -> pendingMovementRepository.save(movement)));
+        } catch (DataIntegrityViolationException e) {
+            // The foreign key to cuentas, the account was deleted
+            throw new IllegalArgumentException("Account with ID " + movement.getCuentaId() + " not found");
+        }
+    }
+
+    @Override
+    public Optional<MergedAccount> merge(long cuentaId) {
+        return transactionTemplate.execute(status -> shardRouter.onShard(shardRouter.shardFor(cuentaId),
+                () -> accountRepository.findById(cuentaId).map(this::merge)));
+    }
+
+    @Override
+    public Set<Long> findPendingAccounts() {
+        return new HashSet<>(shardRouter.onEachShard(pendingMovementRepository::findPendingCuentaIds));
+    }
+
+    private MergedAccount merge(Account account) {
+        Long cuentaId = account.getCuentaId();
+        Optional<Movement> latest = movementRepository.findFirstByCuentaIdOrderBySeqDesc(cuentaId)
+                .or(() -> movementArchive.findLatest(cuentaId));
+        Money balance = Money.of(latest.map(Movement::getSaldo).orElse(account.getSaldoInicial()));
+        long seq = latest.map(Movement::getSeq).orElse(0L);
+
+        List<PendingMovement> pending = pendingMovementRepository.findByCuentaIdOrderByRanuraAscOrdenAsc(cuentaId);
+        List<Movement> movements = new ArrayList<>(pending.size());
+        for (PendingMovement staged : pending) {
+            Money valor = Money.of(staged.getValor());
+            balance = DEPOSITO.equals(staged.getTipoMovimiento()) ? balance.plus(valor) : balance.minus(valor);
+            if (balance.isNegative()) {
+                throw new IllegalStateException("Staged movement " + staged.getMovimientoId()
+                        + " would overdraw account " + cuentaId);
+            }
+            Movement movement = new Movement(staged.getFecha(), staged.getTipoMovimiento(), staged.getValor(),
+                    balance.toBigDecimal(), cuentaId);
+            movement.setMovimientoId(staged.getMovimientoId());
+            movement.setSeq(++seq);
+            movements.add(movement);
+        }
+        if (!movements.isEmpty()) {
+            movementRepository.saveAll(movements);
+            pendingMovementRepository.deleteAllByIdInBatch(pending.stream()
+                    .map(PendingMovement::getMovimientoId)
+                    .collect(Collectors.toList()));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    movements.forEach(merged);
+                }
+            });
+        }
+        return new MergedAccount(account.getEstado(), balance.getCents(), movements.size());
+    }
+}
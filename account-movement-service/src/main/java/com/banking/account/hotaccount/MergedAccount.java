@@ -0,0 +1,34 @@
+package com.banking.account.hotaccount;
+
+/**
+ * State of a hot account right after its staged movements were merged
+ */
+public final class MergedAccount {
+
+    private final boolean active;
+    private final long balance;
+    private final int merged;
+
+    /**
+     * @param active the account's estado
+     * @param balance balance of its latest movement, or its saldo inicial, in cents
+     * @param merged movements written to movimientos by the merge
+     */
+    public MergedAccount(boolean active, long balance, int merged) {
+        this.active = active;
+        this.balance = balance;
+        this.merged = merged;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public int getMerged() {
+        return merged;
+    }
+}
@@ -0,0 +1,163 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.money.Money;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Balance of a hot account split over slots. Every slot holds a share of the
+ * balance that only movements staged through it change, under the slot's own
+ * lock: deposits add to it, and a withdrawal is taken from it only if the
+ * share covers it, so no slot ever goes below zero. Merging a slot's staged
+ * movements in their order after the shares of the slots before it therefore
+ * never overdraws the account, whatever the other slots did meanwhile.
+ */
+final class SplitBalance {
+
+    private final long cuentaId;
+    private final Slot[] slots;
+    // One merge of the account at a time; a consolidation also holds every slot
+    private final ReentrantLock mergeLock = new ReentrantLock();
+    // Balance plus the deposits being staged, keeps the merged balance within DECIMAL(10,2)
+    private final AtomicLong ceiling = new AtomicLong();
+    private volatile boolean active;
+
+    /**
+     * @param cuentaId the account ID
+     * @param slotCount number of slots
+     * @param active the account's estado
+     * @param balance current balance in cents, spread evenly over the slots
+     */
+    SplitBalance(long cuentaId, int slotCount, boolean active, long balance) {
+        this.cuentaId = cuentaId;
+        this.slots = new Slot[slotCount];
+        for (int index = 0; index < slotCount; index++) {
+            slots[index] = new Slot();
+        }
+        this.active = active;
+        distribute(balance, 0, 0);
+    }
+
+    long getCuentaId() {
+        return cuentaId;
+    }
+
+    int getSlotCount() {
+        return slots.length;
+    }
+
+    Slot slot(int index) {
+        return slots[index];
+    }
+
+    ReentrantLock getMergeLock() {
+        return mergeLock;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Sum of the slots, the balance with every staged movement
+     * @return the balance in cents
+     */
+    long balance() {
+        long balance = 0;
+        for (Slot slot : slots) {
+            balance += slot.balance;
+        }
+        return balance;
+    }
+
+    /**
+     * Make room for a deposit below the largest balance movimientos can hold
+     * @return false if the balance would go out of range
+     */
+    boolean reserveDeposit(long cents) {
+        if (ceiling.addAndGet(cents) > Money.MAX_CENTS) {
+            ceiling.addAndGet(-cents);
+            return false;
+        }
+        return true;
+    }
+
+    void releaseDeposit(long cents) {
+        ceiling.addAndGet(-cents);
+    }
+
+    void withdrawn(long cents) {
+        ceiling.addAndGet(-cents);
+    }
+
+    /**
+     * Hand out a freshly merged balance, with every slot locked: the slot
+     * a withdrawal is waiting on gets the withdrawal on top of its share
+     * @param balance the merged balance in cents
+     * @param slot the slot to reserve for
+     * @param reserve cents reserved in that slot, at most the balance
+     */
+    void distribute(long balance, int slot, long reserve) {
+        long rest = balance - reserve;
+        long share = rest / slots.length;
+        for (int index = 0; index < slots.length; index++) {
+            slots[index].balance = share;
+        }
+        slots[slot].balance += reserve + rest % slots.length;
+        ceiling.set(balance);
+    }
+
+    void lockAll() {
+        for (Slot slot : slots) {
+            slot.lock.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int index = slots.length - 1; index >= 0; index--) {
+            slots[index].lock.unlock();
+        }
+    }
+
+    /**
+     * One share of the balance and the order of the movements staged through it
+     */
+    static final class Slot {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Written under the lock, read without it for the balance
+        private volatile long balance;
+        // Orden of the last movement staged through the slot
+        private long orden;
+
+        void lock() {
+            lock.lock();
+        }
+
+        void unlock() {
+            lock.unlock();
+        }
+
+        long getBalance() {
+            return balance;
+        }
+
+        long nextOrden() {
+            return orden + 1;
+        }
+
+        /**
+         * Apply a movement once it is staged
+         * @param delta cents added, negative for a withdrawal
+         */
+        void staged(long delta) {
+            balance += delta;
+            orden++;
+        }
+    }
+}
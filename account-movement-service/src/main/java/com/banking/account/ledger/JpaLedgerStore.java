@@ -0,0 +1,121 @@
+package com.banking.account.ledger;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import com.banking.account.money.Money;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link LedgerStore} on the account shards: accounts are read from cuentas
+ * with the balance and seq of their latest movement, movements are inserted into
+ * movimientos on their account's shard, one transaction per shard and batch.
+ * Every movement stored is handed to a listener once its batch commits.
+ */
+public class JpaLedgerStore implements LedgerStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaLedgerStore.class);
+
+    private final AccountRepository accountRepository;
+    private final MovementRepository movementRepository;
+    private final MovementArchive movementArchive;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Consumer<Movement> stored;
+
+    public JpaLedgerStore(AccountRepository accountRepository,
+                          MovementRepository movementRepository,
+                          MovementArchive movementArchive,
+                          ShardRouter shardRouter,
+                          PlatformTransactionManager transactionManager,
+                          Consumer<Movement> stored) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.movementArchive = movementArchive;
+        this.shardRouter = shardRouter;
+        this.stored = stored;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public Optional<LedgerAccount> load(long cuentaId) {
+        return readOnlyTransaction.execute(status -> shardRouter.onShard(shardRouter.shardFor(cuentaId),
+                () -> accountRepository.findById(cuentaId).map(this::toLedgerAccount)));
+    }
+
+    @Override
+    public void persist(List<LedgerEntry> entries) {
+        byShard(entries).forEach((shard, movements) -> save(shard, movements, false));
+    }
+
+    @Override
+    public void persistMissing(List<LedgerEntry> entries) {
+        byShard(entries).forEach((shard, movements) -> save(shard, movements, true));
+    }
+
+    private LedgerAccount toLedgerAccount(Account account) {
+        Optional<Movement> latest = movementRepository.findFirstByCuentaIdOrderBySeqDesc(account.getCuentaId())
+                .or(() -> movementArchive.findLatest(account.getCuentaId()));
+        BigDecimal balance = latest.map(Movement::getSaldo).orElse(account.getSaldoInicial());
+        return new LedgerAccount(account.getEstado(), Money.of(balance).getCents(),
+                latest.map(Movement::getSeq).orElse(0L));
+    }
+
+    private Map<Integer, List<Movement>> byShard(List<LedgerEntry> entries) {
+        return entries.stream()
+                .map(LedgerEntry::toMovement)
+                .collect(Collectors.groupingBy(movement -> shardRouter.shardFor(movement.getCuentaId()),
+                        TreeMap::new, Collectors.toList()));
+    }
+
+    private void save(int shard, List<Movement> movements, boolean skipStored) {
+        try {
+            insert(shard, movements, skipStored);
+        } catch (DataIntegrityViolationException e) {
+            // An account deleted while its movements waited in the journal; store the others one by one
+            for (Movement movement : movements) {
+                try {
+                    insert(shard, List.of(movement), true);
+                } catch (DataIntegrityViolationException rejected) {
+                    log.error("Dropping ledger movement {} of account {}: {}", movement.getMovimientoId(),
+                            movement.getCuentaId(), rejected.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(int shard, List<Movement> movements, boolean skipStored) {
+        List<Movement> inserted = transactionTemplate.execute(status -> shardRouter.onShard(shard, () -> {
+            List<Movement> missing = movements;
+            if (skipStored) {
+                Set<Long> stored = new HashSet<>(movementRepository.findExistingIds(
+                        movements.stream().map(Movement::getMovimientoId).collect(Collectors.toList())));
+                missing = movements.stream()
+                        .filter(movement -> !stored.contains(movement.getMovimientoId()))
+                        .collect(Collectors.toList());
+            }
+            return movementRepository.saveAll(missing);
+        }));
+        inserted.forEach(stored);
+    }
+}
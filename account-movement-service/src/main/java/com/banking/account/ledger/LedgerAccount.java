@@ -0,0 +1,59 @@
+package com.banking.account.ledger;
+
+/**
+ * In-memory state of an account owned by a ledger partition. Only the
+ * partition's writer thread changes it; the balance is volatile so balance
+ * queries can read it from request threads.
+ */
+public final class LedgerAccount {
+
+    private volatile boolean active;
+    private volatile long balance;
+    // seq of the account's latest movement, 0 if it has none
+    private long seq;
+    // Sequence of the last entry posted to the account, 0 if none since it was loaded
+    private long lastSequence;
+
+    /**
+     * @param active the account's estado
+     * @param balance current balance in cents
+     * @param seq seq of the account's latest movement, 0 if it has none
+     */
+    public LedgerAccount(boolean active, long balance, long seq) {
+        this.active = active;
+        this.balance = balance;
+        this.seq = seq;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
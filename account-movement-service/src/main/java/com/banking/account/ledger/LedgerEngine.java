@@ -0,0 +1,259 @@
+package com.banking.account.ledger;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory posting engine (ledger.enabled). Accounts are split over
+ * partitions by {@code cuentaId % partitions}; each partition has one writer
+ * thread that owns its accounts' balances, so a posting is validated without
+ * locks or database reads and is confirmed once its journal batch is on disk.
+ * Movements reach movimientos asynchronously, in batches, through the
+ * {@link LedgerStore}; until then the journal holds them, and at startup
+ * whatever the journal holds that movimientos lacks is stored before the
+ * first posting is taken.
+ *
+ * The engine must be the only writer of the accounts it serves: run a single
+ * instance with ledger.enabled, or route each account to one instance.
+ */
+public class LedgerEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final String PARTITION_PREFIX = "partition-";
+
+    private final LedgerPartition[] partitions;
+    private final LedgerPersister persister;
+    private final int maxUnpersisted;
+    private final Duration postTimeout;
+    private final Duration shutdownTimeout;
+
+    /**
+     * Recover the journals left in the directory, then start the partitions
+     * @param store loads accounts and persists movements
+     * @param movementIds gives the id of a new movement of an account
+     * @param directory where the partitions keep their journals
+     * @param partitionCount number of partitions, one writer thread each
+     * @param queueCapacity postings that may wait for a partition's writer
+     * @param batchSize most postings per journal sync, and most movements per persisted batch
+     * @param segmentBytes size of a journal segment file
+     * @param maxUnpersisted postings are refused while more movements than this wait for the database
+     * @param postTimeout how long a posting may wait for the writer to take it
+     * @param shutdownTimeout how long closing may wait for the database
+     * @throws UncheckedIOException if the journals cannot be read or created
+     */
+    public LedgerEngine(LedgerStore store, LongUnaryOperator movementIds, Path directory,
+                        int partitionCount, int queueCapacity, int batchSize, long segmentBytes,
+                        int maxUnpersisted, Duration postTimeout, Duration shutdownTimeout) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("At least one ledger partition is required");
+        }
+        this.partitions = new LedgerPartition[partitionCount];
+        this.persister = new LedgerPersister(store, this::partitionOf, batchSize);
+        this.maxUnpersisted = maxUnpersisted;
+        this.postTimeout = postTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        try {
+            recover(store, directory, batchSize);
+            for (int index = 0; index < partitionCount; index++) {
+                // Everything recovered is persisted, sequences start over
+                LedgerJournal journal = LedgerJournal.open(
+                        directory.resolve(PARTITION_PREFIX + index), 1, batchSize, segmentBytes);
+                partitions[index] = new LedgerPartition(index, store, movementIds, journal, 1,
+                        persister::submit, queueCapacity, batchSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the ledger journal in " + directory, e);
+        }
+        persister.start();
+        for (LedgerPartition partition : partitions) {
+            partition.start();
+        }
+        log.info("Ledger started with {} partitions in {}", partitionCount, directory);
+    }
+
+    /**
+     * Post a deposit or withdrawal
+     * @param cuentaId the account ID
+     * @param tipoMovimiento Deposito or Retiro
+     * @param valor the amount, rounded to cents
+     * @return the movement, journaled and on its way to movimientos
+     * @throws IllegalArgumentException if the account is not found or inactive, the type is invalid or the balance is insufficient
+     * @throws IllegalStateException if the ledger is overloaded, shutting down or cannot write its journal, or
+     *         its writer did not take the posting within the post timeout; the posting is not made in any case
+     */
+    public Movement post(Long cuentaId, String tipoMovimiento, BigDecimal valor) {
+        return post(cuentaId, tipoMovimiento, valor, () -> 0);
+    }
+
+    /**
+     * Post a deposit or withdrawal to an account that may have holds
+     * @param cuentaId the account ID
+     * @param tipoMovimiento Deposito or Retiro
+     * @param valor the amount, rounded to cents
+     * @param held cents a withdrawal must leave, read by the partition's writer as it decides;
+     *             a hold placed through {@link #withBalance} cannot come in between
+     * @return the movement, journaled and on its way to movimientos
+     * @throws IllegalArgumentException if the account is not found or inactive, the type is invalid or the balance is insufficient
+     * @throws IllegalStateException as {@link #post(Long, String, BigDecimal)} does
+     */
+    public Movement post(Long cuentaId, String tipoMovimiento, BigDecimal valor, LongSupplier held) {
+        if (persister.getBacklog() >= maxUnpersisted) {
+            throw new IllegalStateException("Ledger persistence is behind, try again later");
+        }
+        long cents;
+        try {
+            cents = Money.of(valor).getCents();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance out of range");
+        }
+        return await(partitionOf(cuentaId).post(cuentaId, tipoMovimiento, cents, held)).toMovement();
+    }
+
+    /**
+     * Run an action with an account's balance while no posting can change
+     * it: on the account's writer thread, between two postings
+     * @param cuentaId the account ID
+     * @param action takes the balance in cents; what it throws is thrown here
+     * @throws IllegalArgumentException if the account is not found
+     * @throws IllegalStateException if the ledger is overloaded or shutting down, or its
+     *         writer did not take the action within the post timeout; it did not run then
+     */
+    public void withBalance(Long cuentaId, LongConsumer action) {
+        await(partitionOf(cuentaId).withBalance(cuentaId, action));
+    }
+
+    /**
+     * Current balance of an account held in memory
+     * @param cuentaId the account ID
+     * @return the balance, empty if no posting has loaded the account yet, in which case movimientos is up to date
+     */
+    public Optional<BigDecimal> balance(Long cuentaId) {
+        return partitionOf(cuentaId).balance(cuentaId).map(cents -> Money.ofCents(cents).toBigDecimal());
+    }
+
+    /**
+     * Reload an account after it was changed or deleted in the database, and
+     * wait until its partition has done so
+     * @param cuentaId the account ID
+     */
+    public void refresh(Long cuentaId) {
+        await(partitionOf(cuentaId).refresh(cuentaId));
+    }
+
+    /**
+     * @return movements journaled but not yet in movimientos
+     */
+    public int getUnpersistedCount() {
+        return persister.getBacklog();
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Finish the queued postings, persist what the database lacks and close the journals
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        if (!persister.stop(shutdownTimeout)) {
+            log.warn("Ledger stopped with {} movements only in its journal", persister.getBacklog());
+        }
+        for (LedgerPartition partition : partitions) {
+            try {
+                partition.close();
+            } catch (IOException e) {
+                log.warn("Could not close a ledger journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    LedgerPartition partitionOf(long cuentaId) {
+        return partitions[(int) Math.floorMod(cuentaId, (long) partitions.length)];
+    }
+
+    /**
+     * Store what every journal in the directory holds and movimientos may lack.
+     * Journals of all partitions are read, also when their number changed since they were written.
+     */
+    private static void recover(LedgerStore store, Path directory, int batchSize) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> journals;
+        try (Stream<Path> files = Files.list(directory)) {
+            journals = files.filter(Files::isDirectory)
+                    .filter(file -> file.getFileName().toString().startsWith(PARTITION_PREFIX))
+                    .collect(Collectors.toList());
+        }
+        for (Path journal : journals) {
+            List<LedgerEntry> entries = LedgerJournal.readAll(journal);
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                store.persistMissing(entries.subList(from, Math.min(from + batchSize, entries.size())));
+            }
+            if (!entries.isEmpty()) {
+                log.info("Recovered {} ledger movements from {}", entries.size(), journal);
+            }
+            LedgerJournal.delete(journal);
+        }
+    }
+
+    /**
+     * Wait for a command. One still queued after the post timeout is
+     * cancelled, so a failure reported is one for good; one the writer has
+     * already taken is being journaled and its outcome is waited for.
+     */
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(postTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw failure(e.getCause());
+        } catch (TimeoutException e) {
+            if (result.cancel(false)) {
+                throw new IllegalStateException("Ledger did not take the posting in time, it was not posted; try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (result.cancel(false)) {
+                throw new IllegalStateException("Interrupted waiting for the ledger, nothing was posted", e);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw failure(e.getCause());
+        }
+    }
+
+    private static RuntimeException failure(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException("Ledger posting failed", cause);
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking.account.ledger;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.money.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * A movement posted by the ledger: what is appended to the journal and later
+ * written to movimientos. Amounts are in cents, movimientos stores DECIMAL(10,2).
+ */
+public final class LedgerEntry {
+
+    static final String DEPOSITO = "Deposito";
+    static final String RETIRO = "Retiro";
+
+    private final long sequence;
+    private final long movimientoId;
+    private final long cuentaId;
+    private final long seq;
+    private final LocalDateTime fecha;
+    private final boolean deposit;
+    private final long valor;
+    private final long saldo;
+
+    /**
+     * @param sequence position in the partition's journal, grows by one per entry
+     * @param movimientoId id of the row in movimientos
+     * @param cuentaId the account
+     * @param seq the movement's seq in its account
+     * @param fecha when the movement was posted
+     * @param deposit true for a deposit, false for a withdrawal
+     * @param valor amount in cents
+     * @param saldo balance after the movement, in cents
+     */
+    LedgerEntry(long sequence, long movimientoId, long cuentaId, long seq, LocalDateTime fecha,
+                boolean deposit, long valor, long saldo) {
+        this.sequence = sequence;
+        this.movimientoId = movimientoId;
+        this.cuentaId = cuentaId;
+        this.seq = seq;
+        this.fecha = fecha;
+        this.deposit = deposit;
+        this.valor = valor;
+        this.saldo = saldo;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getMovimientoId() {
+        return movimientoId;
+    }
+
+    public long getCuentaId() {
+        return cuentaId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public boolean isDeposit() {
+        return deposit;
+    }
+
+    public long getValor() {
+        return valor;
+    }
+
+    public long getSaldo() {
+        return saldo;
+    }
+
+    public Movement toMovement() {
+        Movement movement = new Movement(fecha, deposit ? DEPOSITO : RETIRO,
+                Money.ofCents(valor).toBigDecimal(), Money.ofCents(saldo).toBigDecimal(), cuentaId);
+        movement.setMovimientoId(movimientoId);
+        movement.setSeq(seq);
+        return movement;
+    }
+}
@@ -0,0 +1,238 @@
+package com.banking.account.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of one ledger partition. Entries are appended as
+ * fixed-size records to segment files named after their first sequence,
+ * {@code <directory>/<first sequence>.journal}; a batch is written and forced
+ * to disk with one {@link #sync()} before any of its postings is confirmed.
+ * Once a segment is full a new one is started, and segments whose entries
+ * are all in movimientos are deleted, so the journal only holds what the
+ * database may still be missing. Only the partition's writer thread uses it.
+ *
+ * <pre>
+ * record  crc32c, sequence, movimiento_id, cuenta_id, seq, fecha (epoch micros, UTC),
+ *         tipo (1 = deposit), valor and saldo in cents
+ * </pre>
+ */
+final class LedgerJournal implements Closeable {
+
+    static final int RECORD_SIZE = 4 + 8 + 8 + 8 + 8 + 8 + 1 + 8 + 8;
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final String EXTENSION = ".journal";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    // Full segments, oldest first, with the last sequence they hold
+    private final Deque<Segment> closed = new ArrayDeque<>();
+    private Path currentFile;
+    private FileChannel channel;
+    private long lastSequence;
+
+    private LedgerJournal(Path directory, long nextSequence, int maxBatch, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.buffer = ByteBuffer.allocateDirect(RECORD_SIZE * maxBatch);
+        this.lastSequence = nextSequence - 1;
+        startSegment(nextSequence);
+    }
+
+    /**
+     * Start a journal in an empty directory, see {@link #delete} once it has been recovered
+     * @param directory the partition's journal directory
+     * @param nextSequence sequence of the first entry to be appended
+     * @param maxBatch most entries appended between two syncs
+     * @param segmentBytes size after which a new segment file is started
+     */
+    static LedgerJournal open(Path directory, long nextSequence, int maxBatch, long segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        return new LedgerJournal(directory, nextSequence, maxBatch, segmentBytes);
+    }
+
+    /**
+     * Delete a recovered journal directory
+     * @param directory the partition's journal directory
+     */
+    static void delete(Path directory) throws IOException {
+        for (Path file : segments(directory)) {
+            Files.delete(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Read every intact entry left in a journal directory, oldest first. A
+     * record torn by a crash ends its segment; it was never confirmed.
+     * @param directory the partition's journal directory
+     * @return the entries, empty if the directory does not exist
+     */
+    static List<LedgerEntry> readAll(Path directory) throws IOException {
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        CRC32C crc = new CRC32C();
+        for (Path file : segments(directory)) {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (content.remaining() >= RECORD_SIZE) {
+                int start = content.position();
+                int checksum = content.getInt();
+                crc.reset();
+                crc.update(content.slice(start + 4, RECORD_SIZE - 4));
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Journal {} has a damaged record at byte {}, ignoring the rest of the file", file, start);
+                    break;
+                }
+                entries.add(new LedgerEntry(content.getLong(), content.getLong(), content.getLong(),
+                        content.getLong(), fromMicros(content.getLong()), content.get() == 1, content.getLong(), content.getLong()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Add an entry to the current batch; it is not durable until {@link #sync()}
+     */
+    void append(LedgerEntry entry) throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            write();
+        }
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.putLong(entry.getSequence())
+                .putLong(entry.getMovimientoId())
+                .putLong(entry.getCuentaId())
+                .putLong(entry.getSeq())
+                .putLong(toMicros(entry.getFecha()))
+                .put((byte) (entry.isDeposit() ? 1 : 0))
+                .putLong(entry.getValor())
+                .putLong(entry.getSaldo());
+        crc.reset();
+        crc.update(buffer.slice(start + 4, RECORD_SIZE - 4));
+        buffer.putInt(start, (int) crc.getValue());
+        lastSequence = entry.getSequence();
+    }
+
+    /**
+     * Write the current batch and force it to disk, then start a new segment if this one is full
+     */
+    void sync() throws IOException {
+        write();
+        channel.force(false);
+        if (channel.size() >= segmentBytes) {
+            channel.close();
+            closed.addLast(new Segment(currentFile, lastSequence));
+            startSegment(lastSequence + 1);
+        }
+    }
+
+    /**
+     * Drop the batch appended since the last sync, after it failed
+     * @param size length of the current segment before the batch
+     */
+    void discard(long size) throws IOException {
+        buffer.clear();
+        channel.truncate(size);
+        channel.position(size);
+    }
+
+    /**
+     * Delete the full segments whose entries are all in movimientos
+     * @param persistedSequence every entry up to this sequence is in movimientos
+     */
+    void release(long persistedSequence) throws IOException {
+        while (!closed.isEmpty() && closed.peekFirst().lastSequence <= persistedSequence) {
+            Files.deleteIfExists(closed.removeFirst().file);
+        }
+    }
+
+    long size() throws IOException {
+        return channel.position();
+    }
+
+    int getSegmentCount() {
+        return closed.size() + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Close the journal, deleting it if every entry is in movimientos
+     * @param persistedSequence every entry up to this sequence is in movimientos
+     */
+    void close(long persistedSequence) throws IOException {
+        close();
+        release(persistedSequence);
+        if (lastSequence <= persistedSequence) {
+            Files.deleteIfExists(currentFile);
+        }
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        // Zero-padded so that names sort in sequence order
+        currentFile = directory.resolve(String.format("%020d%s", firstSequence, EXTENSION));
+        channel = FileChannel.open(currentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long toMicros(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + fecha.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final long lastSequence;
+
+        private Segment(Path file, long lastSequence) {
+            this.file = file;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
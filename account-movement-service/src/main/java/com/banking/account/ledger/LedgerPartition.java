@@ -0,0 +1,378 @@
+package com.banking.account.ledger;
+
+import com.banking.account.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A slice of the accounts, owned by a single writer thread. Postings are
+ * queued; the writer takes them in batches, validates each against the
+ * in-memory balance, appends the accepted ones to the journal, syncs it once
+ * for the whole batch and only then confirms them and hands them to the
+ * persister. An account is loaded from the {@link LedgerStore} the first time
+ * the partition sees it and stays in memory from then on. A posting cancelled
+ * by its poster before the writer takes it is skipped, never journaled.
+ */
+final class LedgerPartition {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartition.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final int index;
+    private final LedgerStore store;
+    private final LongUnaryOperator movementIds;
+    private final LedgerJournal journal;
+    private final Consumer<List<LedgerEntry>> persister;
+    private final int batchSize;
+    private final BlockingQueue<Command> queue;
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private long nextSequence;
+    private volatile long persistedSequence;
+    private volatile boolean stopping;
+    private volatile IOException failure;
+
+    /**
+     * @param index partition number, used in thread names and messages
+     * @param store loads the accounts
+     * @param movementIds gives the id of a new movement of an account
+     * @param journal the partition's journal, already recovered
+     * @param nextSequence sequence of the first entry to be posted
+     * @param persister receives every synced batch, in order
+     * @param queueCapacity postings that may wait for the writer
+     * @param batchSize most postings per journal sync
+     */
+    LedgerPartition(int index, LedgerStore store, LongUnaryOperator movementIds, LedgerJournal journal,
+                    long nextSequence, Consumer<List<LedgerEntry>> persister, int queueCapacity, int batchSize) {
+        this.index = index;
+        this.store = store;
+        this.movementIds = movementIds;
+        this.journal = journal;
+        this.nextSequence = nextSequence;
+        this.persistedSequence = nextSequence - 1;
+        this.persister = persister;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "ledger-partition-" + index);
+        this.writer.setDaemon(true);
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * Queue a posting
+     * @param held cents a withdrawal must leave, read by the writer as it decides
+     * @return the posted entry once it is in the journal; cancelling it succeeds only
+     *         while the writer has not taken the posting, which is then never posted
+     * @throws IllegalStateException if the partition is full, stopped or its journal failed
+     */
+    CompletableFuture<LedgerEntry> post(long cuentaId, String tipoMovimiento, long valor, LongSupplier held) {
+        Command command = new Command(cuentaId, tipoMovimiento, valor, held, null);
+        submit(command);
+        return command.result;
+    }
+
+    /**
+     * Reload an account after it was changed or deleted in the database
+     */
+    CompletableFuture<LedgerEntry> refresh(long cuentaId) {
+        Command command = new Command(cuentaId, null, 0, null, null);
+        submit(command);
+        return command.result;
+    }
+
+    /**
+     * Run an action with an account's balance on the writer thread, between postings
+     * @return completed with null once the action ran, or with what it threw
+     */
+    CompletableFuture<LedgerEntry> withBalance(long cuentaId, LongConsumer action) {
+        Command command = new Command(cuentaId, null, 0, null, action);
+        submit(command);
+        return command.result;
+    }
+
+    /**
+     * In-memory balance of an account, once the partition has loaded it
+     * @return the balance in cents, empty if the account is not loaded
+     */
+    Optional<Long> balance(long cuentaId) {
+        LedgerAccount account = accounts.get(cuentaId);
+        return account != null ? Optional.of(account.getBalance()) : Optional.empty();
+    }
+
+    /**
+     * Called by the persister once every entry up to a sequence is in movimientos
+     */
+    void persisted(long sequence) {
+        persistedSequence = sequence;
+    }
+
+    /**
+     * Stop taking postings, finish the queued ones and wait for the writer
+     */
+    void stop() throws InterruptedException {
+        stopping = true;
+        writer.join();
+    }
+
+    /**
+     * Close the journal once the persister is done, deleting it if it holds nothing the database lacks
+     */
+    void close() throws IOException {
+        journal.close(persistedSequence);
+    }
+
+    private void submit(Command command) {
+        if (stopping) {
+            throw new IllegalStateException("Ledger is shutting down");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Ledger partition " + index + " cannot write its journal", failure);
+        }
+        if (!queue.offer(command)) {
+            throw new IllegalStateException("Ledger partition " + index + " is full, try again later");
+        }
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(batchSize);
+        List<Command> posted = new ArrayList<>(batchSize);
+        List<LedgerEntry> entries = new ArrayList<>(batchSize);
+        while (true) {
+            Command first;
+            try {
+                first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (stopping) {
+                    return;
+                }
+                releaseJournal();
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            writeBatch(batch, posted, entries);
+            releaseJournal();
+            batch.clear();
+            posted.clear();
+            entries.clear();
+        }
+    }
+
+    private void writeBatch(List<Command> batch, List<Command> posted, List<LedgerEntry> entries) {
+        if (failure != null) {
+            batch.forEach(command -> command.result.completeExceptionally(
+                    new IllegalStateException("Ledger partition " + index + " cannot write its journal", failure)));
+            return;
+        }
+        long sizeBefore = 0;
+        long sequenceBefore = nextSequence;
+        try {
+            sizeBefore = journal.size();
+            for (Command command : batch) {
+                LedgerEntry entry = apply(command);
+                if (entry != null) {
+                    posted.add(command);
+                    entries.add(entry);
+                }
+            }
+            if (!entries.isEmpty()) {
+                journal.sync();
+            }
+        } catch (IOException e) {
+            failed(e, sizeBefore, sequenceBefore, batch);
+            return;
+        }
+        if (!entries.isEmpty()) {
+            persister.accept(new ArrayList<>(entries));
+        }
+        for (int i = 0; i < posted.size(); i++) {
+            posted.get(i).result.complete(entries.get(i));
+        }
+    }
+
+    /**
+     * Validate a command and apply it to the in-memory state
+     * @return the entry appended to the journal, null if nothing was posted
+     */
+    private LedgerEntry apply(Command command) throws IOException {
+        if (!command.result.take()) {
+            // Cancelled, the poster stopped waiting for it
+            return null;
+        }
+        try {
+            if (command.tipoMovimiento == null) {
+                if (command.action != null) {
+                    command.action.accept(loaded(command.cuentaId).getBalance());
+                } else {
+                    reload(command.cuentaId);
+                }
+                command.result.complete(null);
+                return null;
+            }
+            LedgerAccount account = loaded(command.cuentaId);
+            if (!account.isActive()) {
+                throw new IllegalArgumentException("Account is inactive");
+            }
+
+            Money current = Money.ofCents(account.getBalance());
+            Money amount = Money.ofCents(command.valor);
+            Money balance;
+            boolean deposit;
+            if (LedgerEntry.DEPOSITO.equals(command.tipoMovimiento)) {
+                deposit = true;
+                balance = current.plus(amount);
+            } else if (LedgerEntry.RETIRO.equals(command.tipoMovimiento)) {
+                deposit = false;
+                balance = current.minus(amount);
+                // Read here: holds are placed through withBalance, on this thread as well
+                long held = Math.max(command.held.getAsLong(), 0);
+                if (balance.minus(Money.ofCents(held)).isNegative()) {
+                    throw new IllegalArgumentException("Saldo no disponible");
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid movement type");
+            }
+
+            LedgerEntry entry = new LedgerEntry(nextSequence, movementIds.applyAsLong(command.cuentaId),
+                    command.cuentaId, account.getSeq() + 1, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS),
+                    deposit, command.valor, balance.getCents());
+            journal.append(entry);
+            nextSequence++;
+            account.setBalance(balance.getCents());
+            account.setSeq(entry.getSeq());
+            account.setLastSequence(entry.getSequence());
+            return entry;
+        } catch (ArithmeticException e) {
+            command.result.completeExceptionally(new IllegalArgumentException("Balance out of range"));
+        } catch (RuntimeException e) {
+            command.result.completeExceptionally(e);
+        }
+        return null;
+    }
+
+    /**
+     * An account of the partition, loaded the first time it is asked for
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    private LedgerAccount loaded(long cuentaId) {
+        LedgerAccount account = accounts.get(cuentaId);
+        if (account == null) {
+            account = store.load(cuentaId).orElseThrow(() ->
+                    new IllegalArgumentException("Account with ID " + cuentaId + " not found"));
+            accounts.put(cuentaId, account);
+        }
+        return account;
+    }
+
+    /**
+     * Take an account's state from the database again. While some of its
+     * movements are not persisted yet the database balance and seq are
+     * behind, so only the estado is taken.
+     */
+    private void reload(long cuentaId) {
+        long persisted = persistedSequence;
+        Optional<LedgerAccount> loaded = store.load(cuentaId);
+        LedgerAccount current = accounts.get(cuentaId);
+        if (loaded.isEmpty()) {
+            accounts.remove(cuentaId);
+        } else if (current == null || current.getLastSequence() <= persisted) {
+            accounts.put(cuentaId, loaded.get());
+        } else {
+            current.setActive(loaded.get().isActive());
+        }
+    }
+
+    /**
+     * The journal could not be written: the batch is dropped from it, the
+     * partition refuses further postings and the balances it holds are not
+     * trusted any more. A restart recovers from what the journal holds.
+     */
+    private void failed(IOException e, long sizeBefore, long sequenceBefore, List<Command> batch) {
+        log.error("Ledger partition {} cannot write its journal, refusing postings until restart", index, e);
+        failure = e;
+        accounts.clear();
+        nextSequence = sequenceBefore;
+        try {
+            journal.discard(sizeBefore);
+        } catch (IOException discardFailure) {
+            log.error("Ledger partition {} could not drop the failed batch from its journal", index, discardFailure);
+        }
+        IllegalStateException error = new IllegalStateException("Ledger partition " + index + " cannot write its journal", e);
+        // Postings rejected by validation are already complete
+        batch.forEach(command -> command.result.completeExceptionally(error));
+    }
+
+    private void releaseJournal() {
+        try {
+            journal.release(persistedSequence);
+        } catch (IOException e) {
+            log.warn("Ledger partition {} could not delete persisted journal segments: {}", index, e.getMessage());
+        }
+    }
+
+    /**
+     * A posting; when tipoMovimiento is null, an action on the account's
+     * balance, or a reload of the account if there is no action either
+     */
+    private static final class Command {
+
+        private final long cuentaId;
+        private final String tipoMovimiento;
+        private final long valor;
+        private final LongSupplier held;
+        private final LongConsumer action;
+        private final Outcome result = new Outcome();
+
+        private Command(long cuentaId, String tipoMovimiento, long valor, LongSupplier held, LongConsumer action) {
+            this.cuentaId = cuentaId;
+            this.tipoMovimiento = tipoMovimiento;
+            this.valor = valor;
+            this.held = held;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Outcome of a command, taken by whichever comes first: the writer, to run
+     * it, or the poster, cancelling it after waiting too long
+     */
+    private static final class Outcome extends CompletableFuture<LedgerEntry> {
+
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return take() && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
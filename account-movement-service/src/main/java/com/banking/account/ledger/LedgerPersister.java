@@ -0,0 +1,135 @@
+package com.banking.account.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * Writes journaled entries to movimientos in the background. Entries of every
+ * partition share one queue and are stored in batches, in the order they were
+ * posted; after each batch the partitions learn how far their entries are
+ * persisted, so they can delete those journal segments. A batch that fails is
+ * retried, skipping what an earlier attempt may already have stored, until it
+ * goes through or, at shutdown, the timeout runs out and the journal keeps it
+ * for the next start.
+ */
+final class LedgerPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPersister.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final LedgerStore store;
+    private final LongFunction<LedgerPartition> partitionOf;
+    private final int batchSize;
+    private final BlockingQueue<LedgerEntry> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final AtomicInteger backlog = new AtomicInteger();
+    private volatile boolean stopping;
+    private volatile long deadlineNanos;
+
+    /**
+     * @param store where the entries go
+     * @param partitionOf the partition an account's entries come from
+     * @param batchSize most entries stored per batch
+     */
+    LedgerPersister(LedgerStore store, LongFunction<LedgerPartition> partitionOf, int batchSize) {
+        this.store = store;
+        this.partitionOf = partitionOf;
+        this.batchSize = batchSize;
+        this.thread = new Thread(this::run, "ledger-persister");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queue a synced batch of one partition
+     */
+    void submit(List<LedgerEntry> entries) {
+        backlog.addAndGet(entries.size());
+        queue.addAll(entries);
+    }
+
+    /**
+     * @return entries journaled but not yet in movimientos
+     */
+    int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Store what is queued and stop, giving up after the timeout
+     * @return true if every queued entry was stored
+     */
+    boolean stop(Duration timeout) throws InterruptedException {
+        deadlineNanos = System.nanoTime() + timeout.toNanos();
+        stopping = true;
+        thread.join();
+        return getBacklog() == 0;
+    }
+
+    private void run() {
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        try {
+            while (!stopping || !queue.isEmpty()) {
+                LedgerEntry first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!store(batch)) {
+                    return;
+                }
+                for (LedgerEntry entry : batch) {
+                    partitionOf.apply(entry.getCuentaId()).persisted(entry.getSequence());
+                }
+                backlog.addAndGet(-batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false if the batch could not be stored before the shutdown timeout
+     */
+    private boolean store(List<LedgerEntry> batch) throws InterruptedException {
+        boolean retry = false;
+        long backoffMillis = POLL_MILLIS;
+        while (true) {
+            try {
+                if (retry) {
+                    store.persistMissing(batch);
+                } else {
+                    store.persist(batch);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                if (stopping && System.nanoTime() - deadlineNanos > 0) {
+                    log.error("Shutting down with {} ledger movements not persisted, they stay in the journal",
+                            getBacklog(), e);
+                    return false;
+                }
+                log.warn("Could not persist {} ledger movements, retrying in {} ms: {}",
+                        batch.size(), backoffMillis, e.getMessage());
+                retry = true;
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
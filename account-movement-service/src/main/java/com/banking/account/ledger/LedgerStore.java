@@ -0,0 +1,30 @@
+package com.banking.account.ledger;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where the ledger loads accounts from and persists its movements to
+ */
+public interface LedgerStore {
+
+    /**
+     * Load an account with its current balance
+     * @param cuentaId the account ID
+     * @return the account, empty if it does not exist
+     */
+    Optional<LedgerAccount> load(long cuentaId);
+
+    /**
+     * Store movements that have never been stored
+     * @param entries the movements, in posting order
+     */
+    void persist(List<LedgerEntry> entries);
+
+    /**
+     * Store movements of which some may already have been stored, by a batch
+     * that failed halfway or by a run that stopped before its journal was released
+     * @param entries the movements, in posting order
+     */
+    void persistMissing(List<LedgerEntry> entries);
+}
@@ -0,0 +1,137 @@
+package com.banking.account.limit;
+
+import com.banking.account.money.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Daily withdrawal cap per account type, enforced from counters in memory.
+ * Each account has the cents withdrawn on one calendar day; a withdrawal is
+ * reserved against the cap of its account's tipoCuenta in one atomic update
+ * of the account's counter, and given back if it is not posted after all. A
+ * counter from an earlier day counts as zero. Counters are rebuilt from the
+ * day's withdrawals at startup, so, like the ledger, the cap only holds if
+ * one instance posts an account's withdrawals.
+ */
+public class DailyWithdrawalLimits {
+
+    private final Map<String, Long> limits = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<Long, DailyTotal> totals = new ConcurrentHashMap<>();
+    // tipoCuenta of accounts posted through the ledger or as hot accounts, which do not load the account
+    private final Map<Long, String> tiposCuenta = new ConcurrentHashMap<>();
+
+    /**
+     * @param dailyLimits daily cap by tipoCuenta, case-insensitive; types not listed have no cap
+     */
+    public DailyWithdrawalLimits(Map<String, BigDecimal> dailyLimits) {
+        dailyLimits.forEach((tipoCuenta, limit) -> limits.put(tipoCuenta, Money.of(limit).getCents()));
+    }
+
+    /**
+     * @return true if any account type has a cap
+     */
+    public boolean isEnabled() {
+        return !limits.isEmpty();
+    }
+
+    /**
+     * Count a withdrawal against the account's cap for the day
+     * @param cuentaId the account ID
+     * @param tipoCuenta the account's type
+     * @param day the day the withdrawal is posted
+     * @param cents the amount
+     * @return false if it would exceed the cap, in which case nothing is counted
+     */
+    public boolean reserve(Long cuentaId, String tipoCuenta, LocalDate day, long cents) {
+        Long limit = tipoCuenta != null ? limits.get(tipoCuenta) : null;
+        if (limit == null) {
+            return true;
+        }
+        boolean[] reserved = new boolean[1];
+        totals.compute(cuentaId, (id, total) -> {
+            long withdrawn = total != null && total.day.equals(day) ? total.cents : 0;
+            if (withdrawn + cents > limit) {
+                return total;
+            }
+            reserved[0] = true;
+            return new DailyTotal(day, withdrawn + cents);
+        });
+        return reserved[0];
+    }
+
+    /**
+     * Give back a reserved withdrawal that was not posted
+     * @param cuentaId the account ID
+     * @param day the day it was reserved for
+     * @param cents the amount
+     */
+    public void release(Long cuentaId, LocalDate day, long cents) {
+        totals.computeIfPresent(cuentaId, (id, total) ->
+                total.day.equals(day) ? new DailyTotal(day, Math.max(0, total.cents - cents)) : total);
+    }
+
+    /**
+     * Count a withdrawal that was already posted, when rebuilding the counters
+     * @param cuentaId the account ID
+     * @param day the day it was posted
+     * @param cents the amount
+     */
+    public void record(Long cuentaId, LocalDate day, long cents) {
+        totals.merge(cuentaId, new DailyTotal(day, cents), (total, added) ->
+                total.day.equals(day) ? new DailyTotal(day, total.cents + cents) : added);
+    }
+
+    /**
+     * @param cuentaId the account ID
+     * @param day the day
+     * @return cents withdrawn from the account on that day
+     */
+    public long withdrawn(Long cuentaId, LocalDate day) {
+        DailyTotal total = totals.get(cuentaId);
+        return total != null && total.day.equals(day) ? total.cents : 0;
+    }
+
+    /**
+     * Type of an account that is posted without loading it, looked up once
+     * @param cuentaId the account ID
+     * @param lookup loads the type, empty if the account does not exist
+     * @return the type, empty if the account does not exist
+     */
+    public Optional<String> tipoCuenta(Long cuentaId, Function<Long, Optional<String>> lookup) {
+        String tipoCuenta = tiposCuenta.get(cuentaId);
+        if (tipoCuenta == null) {
+            Optional<String> loaded = lookup.apply(cuentaId);
+            loaded.ifPresent(tipo -> tiposCuenta.put(cuentaId, tipo));
+            return loaded;
+        }
+        return Optional.of(tipoCuenta);
+    }
+
+    /**
+     * Forget the type of an account after it was changed or deleted
+     * @param cuentaId the account ID
+     */
+    public void forget(Long cuentaId) {
+        tiposCuenta.remove(cuentaId);
+    }
+
+    /**
+     * Cents withdrawn from an account on one day
+     */
+    private static final class DailyTotal {
+
+        private final LocalDate day;
+        private final long cents;
+
+        DailyTotal(LocalDate day, long cents) {
+            this.day = day;
+            this.cents = cents;
+        }
+    }
+}
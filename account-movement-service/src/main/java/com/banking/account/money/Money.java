@@ -0,0 +1,92 @@
+package com.banking.account.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents, the way cuentas and
+ * movimientos store it (DECIMAL(10,2)). Balances are computed with it and
+ * converted to BigDecimal only for the API and JPA. Arithmetic is checked:
+ * a result the columns cannot hold throws an ArithmeticException instead of
+ * failing, or being truncated, when it is written.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    /**
+     * Largest amount a DECIMAL(10,2) column holds, in cents
+     */
+    public static final long MAX_CENTS = 9_999_999_999L;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    /**
+     * @param cents the amount in cents
+     * @throws ArithmeticException if DECIMAL(10,2) cannot hold it
+     */
+    public static Money ofCents(long cents) {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            throw new ArithmeticException("Amount out of range: " + BigDecimal.valueOf(cents, SCALE));
+        }
+        return new Money(cents);
+    }
+
+    /**
+     * @param amount the amount, rounded half up to cents as the columns do
+     * @throws ArithmeticException if DECIMAL(10,2) cannot hold it
+     */
+    public static Money of(BigDecimal amount) {
+        BigDecimal rounded = amount.setScale(SCALE, RoundingMode.HALF_UP);
+        if (rounded.precision() > 18) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return ofCents(rounded.unscaledValue().longValue());
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && money.cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,327 @@
+package com.banking.account.report;
+
+import com.banking.account.dto.ReportDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Account statements (GET /reportes) in memory, keyed by client and date
+ * range, so that reopening a statement is one lookup. A statement is dropped
+ * as soon as a movement dated within its range reaches one of the client's
+ * accounts, or an account of the client changes; the rest of the client's
+ * statements stay. The cache holds at most a number of report rows, dropping
+ * the least recently read statements to make room, and statements expire
+ * after a while, as client names come from the client service.
+ *
+ * A statement read while a movement was posted may miss it, so it is only
+ * cached if no invalidation reached its client or accounts since it was
+ * started: callers take {@link #clientVersion(long)} before reading the
+ * client's accounts and {@link #accountVersion(Collection)} before reading
+ * their movements, and pass the sum to {@link #put}.
+ */
+public class StatementCache {
+
+    private static final int VERSION_STRIPES = 4096;
+    // Keeps a client's stripe apart from the account with the same id
+    private static final long CLIENT_SALT = 0x9e3779b97f4a7c15L;
+
+    private final long maxRows;
+    private final long timeToLiveNanos;
+    // Bumped by every invalidation, compared by put
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    // Access order, least recently read first; guarded by this, as are the fields below
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<Key>> keysByClient = new HashMap<>();
+    private long rows;
+    // Read without the lock by invalidations, written under it
+    private final Map<Long, Long> clientByAccount = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxRows most report rows cached, over all statements
+     * @param timeToLive longest a statement is served from the cache
+     */
+    public StatementCache(long maxRows, Duration timeToLive) {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("The statement cache needs room for at least one row");
+        }
+        this.maxRows = maxRows;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * @param clienteId the client ID
+     * @param fechaInicio start date
+     * @param fechaFin end date
+     * @return the cached statement, empty if not cached or expired
+     */
+    public synchronized Optional<List<ReportDto>> get(long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        Key key = new Key(clienteId, fechaInicio, fechaFin);
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.cachedAt > timeToLiveNanos) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.report);
+    }
+
+    /**
+     * @param clienteId the client ID
+     * @return the client's version, taken before reading its accounts
+     */
+    public long clientVersion(long clienteId) {
+        return versions.get(stripe(clienteId ^ CLIENT_SALT));
+    }
+
+    /**
+     * @param cuentaIds the client's accounts
+     * @return their version, taken before reading their movements
+     */
+    public long accountVersion(Collection<Long> cuentaIds) {
+        long version = 0;
+        for (Long cuentaId : cuentaIds) {
+            version += versions.get(stripe(cuentaId));
+        }
+        return version;
+    }
+
+    /**
+     * Cache a statement, unless it was invalidated while it was read
+     * @param clienteId the client ID
+     * @param fechaInicio start date
+     * @param fechaFin end date
+     * @param cuentaIds the client's accounts, as read for the statement
+     * @param report the statement
+     * @param version client version plus account version, taken before reading
+     * @return true if cached
+     */
+    public synchronized boolean put(long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                    Collection<Long> cuentaIds, List<ReportDto> report, long version) {
+        long weight = Math.max(1, report.size());
+        if (weight > maxRows) {
+            return false;
+        }
+        Key key = new Key(clienteId, fechaInicio, fechaFin);
+        remove(key);
+        // Indexed before the versions are compared: an invalidation bumps the
+        // version before reading the index, so either it sees the account or put sees the bump
+        for (Long cuentaId : cuentaIds) {
+            clientByAccount.put(cuentaId, clienteId);
+        }
+        if (clientVersion(clienteId) + accountVersion(cuentaIds) != version) {
+            if (!keysByClient.containsKey(clienteId)) {
+                unindex(clienteId, cuentaIds);
+            }
+            return false;
+        }
+        entries.put(key, new Entry(List.copyOf(report), weight, List.copyOf(cuentaIds), System.nanoTime()));
+        keysByClient.computeIfAbsent(clienteId, id -> new HashSet<>()).add(key);
+        rows += weight;
+        while (rows > maxRows) {
+            remove(entries.keySet().iterator().next());
+            evictions.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Drop the statements a movement changes, those of its account's client
+     * whose range includes the movement's date
+     * @param cuentaId the movement's account
+     * @param fecha the movement's date
+     */
+    public void invalidate(long cuentaId, LocalDateTime fecha) {
+        versions.incrementAndGet(stripe(cuentaId));
+        Long clienteId = clientByAccount.get(cuentaId);
+        if (clienteId == null) {
+            return;
+        }
+        synchronized (this) {
+            for (Key key : keysOf(clienteId)) {
+                if (key.covers(fecha)) {
+                    remove(key);
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop every statement of an account's client, after the account was changed or deleted
+     * @param cuentaId the account ID
+     */
+    public void invalidateAccount(long cuentaId) {
+        versions.incrementAndGet(stripe(cuentaId));
+        Long clienteId = clientByAccount.get(cuentaId);
+        if (clienteId != null) {
+            removeClient(clienteId);
+        }
+    }
+
+    /**
+     * Drop every statement of a client, after an account was opened for it or moved to it
+     * @param clienteId the client ID
+     */
+    public void invalidateClient(long clienteId) {
+        versions.incrementAndGet(stripe(clienteId ^ CLIENT_SALT));
+        removeClient(clienteId);
+    }
+
+    /**
+     * @return statements cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return report rows cached, over all statements
+     */
+    public synchronized long getRowCount() {
+        return rows;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return statements dropped because a movement or an account changed them, so far
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return statements dropped to make room, so far
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private synchronized void removeClient(long clienteId) {
+        for (Key key : keysOf(clienteId)) {
+            remove(key);
+            invalidations.increment();
+        }
+    }
+
+    private List<Key> keysOf(long clienteId) {
+        Set<Key> keys = keysByClient.get(clienteId);
+        return keys != null ? new ArrayList<>(keys) : List.of();
+    }
+
+    /**
+     * Remove a statement; with its client's last one, the client's accounts leave the index
+     */
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        rows -= entry.weight;
+        Set<Key> keys = keysByClient.get(key.clienteId);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            keysByClient.remove(key.clienteId);
+            unindex(key.clienteId, entry.cuentaIds);
+        }
+    }
+
+    private void unindex(long clienteId, Collection<Long> cuentaIds) {
+        for (Long cuentaId : cuentaIds) {
+            clientByAccount.remove(cuentaId, clienteId);
+        }
+    }
+
+    private static int stripe(long id) {
+        // MurmurHash3's finalizer, consecutive ids land on different stripes
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & (VERSION_STRIPES - 1);
+    }
+
+    /**
+     * Client and date range of a statement; a null date leaves the range open on that side
+     */
+    private static final class Key {
+
+        private final long clienteId;
+        private final LocalDateTime fechaInicio;
+        private final LocalDateTime fechaFin;
+
+        Key(long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+            this.clienteId = clienteId;
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+        }
+
+        /**
+         * Whether a movement of this date belongs in the statement, bounds included as in the query
+         */
+        boolean covers(LocalDateTime fecha) {
+            return (fechaInicio == null || !fecha.isBefore(fechaInicio))
+                    && (fechaFin == null || !fecha.isAfter(fechaFin));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return clienteId == key.clienteId && Objects.equals(fechaInicio, key.fechaInicio)
+                    && Objects.equals(fechaFin, key.fechaFin);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clienteId, fechaInicio, fechaFin);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<ReportDto> report;
+        private final long weight;
+        private final List<Long> cuentaIds;
+        private final long cachedAt;
+
+        Entry(List<ReportDto> report, long weight, List<Long> cuentaIds, long cachedAt) {
+            this.report = report;
+            this.weight = weight;
+            this.cuentaIds = cuentaIds;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.banking.account.repository;
 
 import com.banking.account.entity.Account;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -51,4 +54,42 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     @Query("SELECT a FROM Account a WHERE a.clienteId = :clienteId AND a.tipoCuenta = :tipoCuenta")
     List<Account> findByClienteIdAndTipoCuenta(@Param("clienteId") Long clienteId, @Param("tipoCuenta") String tipoCuenta);
+    
+    /**
+     * Find the next accounts of a partition of clients, ordered by client and account
+     * @param particiones number of partitions
+     * @param particion the partition, clienteId modulo particiones
+     * @param clienteId client of the last account read
+     * @param cuentaId the last account read
+     * @param pageable the chunk size
+     * @return List of accounts after the last one read
+     */
+    @Query("SELECT a FROM Account a WHERE MOD(a.clienteId, :particiones) = :particion"
+            + " AND (a.clienteId > :clienteId OR (a.clienteId = :clienteId AND a.cuentaId > :cuentaId))"
+            + " ORDER BY a.clienteId, a.cuentaId")
+    List<Account> findStatementChunk(@Param("particiones") int particiones,
+                                     @Param("particion") int particion,
+                                     @Param("clienteId") Long clienteId,
+                                     @Param("cuentaId") Long cuentaId,
+                                     Pageable pageable);
+    
+    /**
+     * Find an account to post to, without locking it: its version is bumped
+     * on commit, and the commit fails if another transaction bumped it first
+     * @param cuentaId the account ID
+     * @return Optional containing the account if found
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT a FROM Account a WHERE a.cuentaId = :cuentaId")
+    Optional<Account> findByIdForPosting(@Param("cuentaId") Long cuentaId);
+    
+    /**
+     * Find an account, lock its row until the transaction ends (SELECT ... FOR UPDATE)
+     * and bump its version
+     * @param cuentaId the account ID
+     * @return Optional containing the account if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT a FROM Account a WHERE a.cuentaId = :cuentaId")
+    Optional<Account> findByIdForUpdate(@Param("cuentaId") Long cuentaId);
 }
@@ -0,0 +1,12 @@
+package com.banking.account.repository;
+
+import com.banking.account.entity.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for Hold entity
+ */
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+}
@@ -1,13 +1,17 @@
 package com.banking.account.repository;
 
 import com.banking.account.entity.Movement;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for Movement entity
@@ -16,11 +20,35 @@ import java.util.List;
 public interface MovementRepository extends JpaRepository<Movement, Long> {
     
     /**
-     * Find movements by account ID
+     * Find movements by account ID, newest first
      * @param cuentaId the account ID
      * @return List of movements for the account
      */
-    List<Movement> findByCuentaIdOrderByFechaDesc(Long cuentaId);
+    List<Movement> findByCuentaIdOrderBySeqDesc(Long cuentaId);
+    
+    /**
+     * Find the most recent movement of an account, one lookup on the (cuenta_id, seq) index
+     * @param cuentaId the account ID
+     * @return the movement, empty if the account has none
+     */
+    Optional<Movement> findFirstByCuentaIdOrderBySeqDesc(Long cuentaId);
+    
+    /**
+     * Find a page of an account's movements, newest first, older than a cursor
+     * @param cuentaId the account ID
+     * @param seq the cursor, only movements with a lower seq are returned
+     * @param pageable the page size
+     * @return List of movements, at most the page size
+     */
+    List<Movement> findByCuentaIdAndSeqLessThanOrderBySeqDesc(Long cuentaId, Long seq, Pageable pageable);
+    
+    /**
+     * Find which of the given movement IDs are stored
+     * @param movimientoIds the movement IDs
+     * @return the IDs that exist
+     */
+    @Query("SELECT m.movimientoId FROM Movement m WHERE m.movimientoId IN :movimientoIds")
+    List<Long> findExistingIds(@Param("movimientoIds") Collection<Long> movimientoIds);
     
     /**
      * Find movements by account ID and date range
@@ -53,4 +81,70 @@ public interface MovementRepository extends JpaRepository<Movement, Long> {
     List<Movement> findByClienteIdAndFechaBetween(@Param("clienteId") Long clienteId, 
                                                  @Param("fechaInicio") LocalDateTime fechaInicio, 
                                                  @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Find the movements of some accounts in a period, for their statements
+     * @param cuentaIds the account IDs
+     * @param fechaInicio start of the period, inclusive
+     * @param fechaFin end of the period, exclusive
+     * @return List of movements, by account and seq
+     */
+    @Query("SELECT m FROM Movement m WHERE m.cuentaId IN :cuentaIds AND m.fecha >= :fechaInicio AND m.fecha < :fechaFin ORDER BY m.cuentaId, m.seq")
+    List<Movement> findForStatements(@Param("cuentaIds") Collection<Long> cuentaIds,
+                                     @Param("fechaInicio") LocalDateTime fechaInicio,
+                                     @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Find the date of the oldest movement
+     * @return the oldest date, or null if there are no movements
+     */
+    @Query("SELECT MIN(m.fecha) FROM Movement m")
+    LocalDateTime findOldestFecha();
+    
+    /**
+     * Find the lowest and highest account ID with movements in a period
+     * @param fechaInicio start of the period, inclusive
+     * @param fechaFin end of the period, exclusive
+     * @return a single row with the lowest and highest account ID, null if there are no movements
+     */
+    @Query("SELECT MIN(m.cuentaId), MAX(m.cuentaId) FROM Movement m WHERE m.fecha >= :fechaInicio AND m.fecha < :fechaFin")
+    List<Object[]> findCuentaIdRange(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                     @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Find the movements of a range of accounts in a period, for archiving
+     * @param primeraCuentaId lowest account ID, inclusive
+     * @param ultimaCuentaId highest account ID, inclusive
+     * @param fechaInicio start of the period, inclusive
+     * @param fechaFin end of the period, exclusive
+     * @return List of movements in the period
+     */
+    @Query("SELECT m FROM Movement m WHERE m.cuentaId BETWEEN :primeraCuentaId AND :ultimaCuentaId AND m.fecha >= :fechaInicio AND m.fecha < :fechaFin")
+    List<Movement> findForArchive(@Param("primeraCuentaId") Long primeraCuentaId,
+                                  @Param("ultimaCuentaId") Long ultimaCuentaId,
+                                  @Param("fechaInicio") LocalDateTime fechaInicio,
+                                  @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Delete the movements of a range of accounts in a period once they are archived
+     * @param primeraCuentaId lowest account ID, inclusive
+     * @param ultimaCuentaId highest account ID, inclusive
+     * @param fechaInicio start of the period, inclusive
+     * @param fechaFin end of the period, exclusive
+     * @return the number of deleted movements
+     */
+    @Modifying
+    @Query("DELETE FROM Movement m WHERE m.cuentaId BETWEEN :primeraCuentaId AND :ultimaCuentaId AND m.fecha >= :fechaInicio AND m.fecha < :fechaFin")
+    int deleteArchived(@Param("primeraCuentaId") Long primeraCuentaId,
+                       @Param("ultimaCuentaId") Long ultimaCuentaId,
+                       @Param("fechaInicio") LocalDateTime fechaInicio,
+                       @Param("fechaFin") LocalDateTime fechaFin);
+    
+    /**
+     * Sum the withdrawals of every account since a point in time
+     * @param fechaInicio start of the period, inclusive
+     * @return rows of account ID and the sum of its withdrawals
+     */
+    @Query("SELECT m.cuentaId, SUM(m.valor) FROM Movement m WHERE m.tipoMovimiento = 'Retiro' AND m.fecha >= :fechaInicio GROUP BY m.cuentaId")
+    List<Object[]> sumWithdrawalsSince(@Param("fechaInicio") LocalDateTime fechaInicio);
 }
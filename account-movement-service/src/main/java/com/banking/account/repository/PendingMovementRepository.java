@@ -0,0 +1,39 @@
+package com.banking.account.repository;
+
+import com.banking.account.entity.PendingMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for PendingMovement entity
+ */
+@Repository
+public interface PendingMovementRepository extends JpaRepository<PendingMovement, Long> {
+
+    /**
+     * Find the pending movements of an account in merge order
+     * @param cuentaId the account ID
+     * @return List of pending movements, slot by slot and by orden within a slot
+     */
+    List<PendingMovement> findByCuentaIdOrderByRanuraAscOrdenAsc(Long cuentaId);
+
+    /**
+     * Find the accounts that have pending movements
+     * @return the account IDs
+     */
+    @Query("SELECT DISTINCT p.cuentaId FROM PendingMovement p")
+    List<Long> findPendingCuentaIds();
+
+    /**
+     * Sum the staged withdrawals of every account since a point in time
+     * @param fechaInicio start of the period, inclusive
+     * @return rows of account ID and the sum of its staged withdrawals
+     */
+    @Query("SELECT p.cuentaId, SUM(p.valor) FROM PendingMovement p WHERE p.tipoMovimiento = 'Retiro' AND p.fecha >= :fechaInicio GROUP BY p.cuentaId")
+    List<Object[]> sumWithdrawalsSince(@Param("fechaInicio") LocalDateTime fechaInicio);
+}
@@ -1,18 +1,32 @@
 package com.banking.account.service;
 
+import com.banking.account.balance.BalanceCache;
+import com.banking.account.concurrency.LockingMode;
+import com.banking.account.concurrency.PostingRetry;
 import com.banking.account.dto.AccountDto;
 import com.banking.account.entity.Account;
+import com.banking.account.hotaccount.HotAccountEngine;
+import com.banking.account.ledger.LedgerEngine;
+import com.banking.account.limit.DailyWithdrawalLimits;
 import com.banking.account.repository.AccountRepository;
+import com.banking.account.report.StatementCache;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
- * Service class for Account operations
+ * Service class for Account operations.
+ * Accounts live on the shard chosen by {@link ShardRouter}; lookups by id go to
+ * that shard, lookups by number or client are scattered to all of them.
  */
 @Service
 @Transactional
@@ -21,6 +35,30 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
     
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private ShardIdGenerator shardIdGenerator;
+    
+    @Autowired
+    private DailyWithdrawalLimits dailyWithdrawalLimits;
+    
+    @Autowired
+    private PostingRetry postingRetry;
+    
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+    
+    @Autowired(required = false)
+    private HotAccountEngine hotAccountEngine;
+    
+    @Autowired(required = false)
+    private BalanceCache balanceCache;
+    
+    @Autowired(required = false)
+    private StatementCache statementCache;
+    
     /**
      * Create a new account
      * @param accountDto the account data
@@ -28,10 +66,11 @@ public class AccountService {
      * @throws IllegalArgumentException if account with number already exists
      */
     public AccountDto createAccount(AccountDto accountDto) {
-        if (accountRepository.existsByNumeroCuenta(accountDto.getNumeroCuenta())) {
+        if (numeroCuentaExists(accountDto.getNumeroCuenta())) {
             throw new IllegalArgumentException("Account with number " + accountDto.getNumeroCuenta() + " already exists");
         }
         
+        int shard = shardRouter.shardForNewAccount(accountDto.getNumeroCuenta());
         Account account = new Account(
             accountDto.getNumeroCuenta(),
             accountDto.getTipoCuenta(),
@@ -39,9 +78,11 @@ public class AccountService {
             accountDto.getEstado(),
             accountDto.getClienteId()
         );
+        account.setCuentaId(shardIdGenerator.nextId(ShardIdGenerator.Sequence.CUENTAS, shard));
         
-        Account savedAccount = accountRepository.save(account);
-        return convertToDto(savedAccount);
+        AccountDto created = shardRouter.onShard(shard, () -> convertToDto(accountRepository.save(account)));
+        invalidateStatements(created.getClienteId());
+        return created;
     }
     
     /**
@@ -50,9 +91,9 @@ public class AccountService {
      */
     @Transactional(readOnly = true)
     public List<AccountDto> getAllAccounts() {
-        return accountRepository.findAll().stream()
+        return shardRouter.onAllShards(() -> accountRepository.findAll().stream()
                 .map(this::convertToDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -62,8 +103,8 @@ public class AccountService {
      */
     @Transactional(readOnly = true)
     public Optional<AccountDto> getAccountById(Long id) {
-        return accountRepository.findById(id)
-                .map(this::convertToDto);
+        return shardRouter.onShard(shardRouter.shardFor(id), () -> accountRepository.findById(id)
+                .map(this::convertToDto));
     }
     
     /**
@@ -73,8 +114,11 @@ public class AccountService {
      */
     @Transactional(readOnly = true)
     public Optional<AccountDto> getAccountByNumeroCuenta(String numeroCuenta) {
-        return accountRepository.findByNumeroCuenta(numeroCuenta)
-                .map(this::convertToDto);
+        List<AccountDto> matches = shardRouter.onAllShards(() -> accountRepository.findByNumeroCuenta(numeroCuenta)
+                .map(this::convertToDto)
+                .stream()
+                .collect(Collectors.toList()));
+        return matches.stream().findFirst();
     }
     
     /**
@@ -84,9 +128,9 @@ public class AccountService {
      */
     @Transactional(readOnly = true)
     public List<AccountDto> getAccountsByClienteId(Long clienteId) {
-        return accountRepository.findByClienteId(clienteId).stream()
+        return shardRouter.onAllShards(() -> accountRepository.findByClienteId(clienteId).stream()
                 .map(this::convertToDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -96,24 +140,32 @@ public class AccountService {
      * @return the updated account
      * @throws IllegalArgumentException if account not found
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public AccountDto updateAccount(Long id, AccountDto accountDto) {
-        Account existingAccount = accountRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Account with ID " + id + " not found"));
+        // A posting bumps the account's version, an update that read it before is retried
+        return postingRetry.execute("account-update", () -> shardRouter.onShard(shardRouter.shardFor(id), () -> {
+            Account existingAccount = (postingRetry.getMode() == LockingMode.PESSIMISTIC
+                    ? accountRepository.findByIdForUpdate(id)
+                    : accountRepository.findById(id))
+                    .orElseThrow(() -> new IllegalArgumentException("Account with ID " + id + " not found"));
         
-        // Check if account number is being changed and if new one already exists
-        if (!existingAccount.getNumeroCuenta().equals(accountDto.getNumeroCuenta()) &&
-            accountRepository.existsByNumeroCuenta(accountDto.getNumeroCuenta())) {
-            throw new IllegalArgumentException("Account with number " + accountDto.getNumeroCuenta() + " already exists");
-        }
+            // Check if account number is being changed and if new one already exists
+            if (!existingAccount.getNumeroCuenta().equals(accountDto.getNumeroCuenta()) &&
+                numeroCuentaExists(accountDto.getNumeroCuenta())) {
+                throw new IllegalArgumentException("Account with number " + accountDto.getNumeroCuenta() + " already exists");
+            }
         
-        existingAccount.setNumeroCuenta(accountDto.getNumeroCuenta());
-        existingAccount.setTipoCuenta(accountDto.getTipoCuenta());
-        existingAccount.setSaldoInicial(accountDto.getSaldoInicial());
-        existingAccount.setEstado(accountDto.getEstado());
-        existingAccount.setClienteId(accountDto.getClienteId());
+            existingAccount.setNumeroCuenta(accountDto.getNumeroCuenta());
+            existingAccount.setTipoCuenta(accountDto.getTipoCuenta());
+            existingAccount.setSaldoInicial(accountDto.getSaldoInicial());
+            existingAccount.setEstado(accountDto.getEstado());
+            existingAccount.setClienteId(accountDto.getClienteId());
         
-        Account updatedAccount = accountRepository.save(existingAccount);
-        return convertToDto(updatedAccount);
+            Account updatedAccount = accountRepository.save(existingAccount);
+            refreshEngines(id);
+            invalidateStatements(updatedAccount.getClienteId());
+            return convertToDto(updatedAccount);
+        }));
     }
     
     /**
@@ -122,10 +174,79 @@ public class AccountService {
      * @throws IllegalArgumentException if account not found
      */
     public void deleteAccount(Long id) {
-        if (!accountRepository.existsById(id)) {
-            throw new IllegalArgumentException("Account with ID " + id + " not found");
+        shardRouter.onShard(shardRouter.shardFor(id), () -> {
+            if (!accountRepository.existsById(id)) {
+                throw new IllegalArgumentException("Account with ID " + id + " not found");
+            }
+            accountRepository.deleteById(id);
+            refreshEngines(id);
+            return null;
+        });
+    }
+    
+    /**
+     * Have the ledger and the hot account engine reload an account once the
+     * change is committed, they keep estado and balance in memory, and drop
+     * its cached balance and its client's cached statements, the saldo
+     * inicial may have changed
+     * @param cuentaId the account ID
+     */
+    private void refreshEngines(Long cuentaId) {
+        if (ledgerEngine == null && hotAccountEngine == null && balanceCache == null && statementCache == null) {
+            return;
         }
-        accountRepository.deleteById(id);
+        afterCommit(() -> refreshNow(cuentaId));
+    }
+    
+    /**
+     * Drop a client's cached statements once an account opened for it or moved to it is committed
+     * @param clienteId the client ID
+     */
+    private void invalidateStatements(Long clienteId) {
+        if (statementCache == null || clienteId == null) {
+            return;
+        }
+        afterCommit(() -> statementCache.invalidateClient(clienteId));
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private void refreshNow(Long cuentaId) {
+        // The engines do not load the account, its tipoCuenta is cached for the daily withdrawal cap
+        dailyWithdrawalLimits.forget(cuentaId);
+        if (ledgerEngine != null) {
+            ledgerEngine.refresh(cuentaId);
+        }
+        if (hotAccountEngine != null) {
+            hotAccountEngine.refresh(cuentaId);
+        }
+        if (balanceCache != null) {
+            balanceCache.remove(cuentaId);
+        }
+        if (statementCache != null) {
+            statementCache.invalidateAccount(cuentaId);
+        }
+    }
+    
+    /**
+     * Check every shard for an account number, numbers are unique across shards
+     * @param numeroCuenta the account number
+     * @return true if an account with the number exists
+     */
+    private boolean numeroCuentaExists(String numeroCuenta) {
+        return shardRouter.onAllShards(() -> List.of(accountRepository.existsByNumeroCuenta(numeroCuenta)))
+                .contains(true);
     }
     
     /**
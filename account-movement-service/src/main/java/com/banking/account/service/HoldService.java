@@ -0,0 +1,241 @@
+package com.banking.account.service;
+
+import com.banking.account.dto.AvailableBalanceDto;
+import com.banking.account.dto.HoldDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Hold;
+import com.banking.account.hold.HoldRegistry;
+import com.banking.account.money.Money;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.HoldRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for authorization holds.
+ * A hold reserves part of an account's balance until it is captured into a
+ * withdrawal, released or expires; an expired hold can no longer be captured.
+ * A hold is reserved in the {@link HoldRegistry} against the balance read
+ * through {@link MovementService#withBalance}, while no withdrawal can change
+ * it; retenciones only stores the active holds so they survive a restart,
+ * and the registry follows it once a change is committed.
+ */
+@Service
+@Transactional
+public class HoldService {
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MovementService movementService;
+
+    @Autowired
+    private HoldRegistry holdRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardIdGenerator shardIdGenerator;
+
+    @Value("${holds.default-ttl:7d}")
+    private Duration defaultTtl;
+
+    @Value("${holds.max-ttl:30d}")
+    private Duration maxTtl;
+
+    /**
+     * Place a hold on an account
+     * @param cuentaId the account ID
+     * @param holdDto the amount and, optionally, when the hold expires
+     * @return the created hold
+     * @throws IllegalArgumentException if the account is not found or inactive, the expiration is out of range or the available balance is insufficient
+     */
+    public HoldDto createHold(Long cuentaId, HoldDto holdDto) {
+        int shard = shardRouter.shardFor(cuentaId);
+        return shardRouter.onShard(shard, () -> {
+            Account account = accountRepository.findById(cuentaId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account with ID " + cuentaId + " not found"));
+            if (!account.getEstado()) {
+                throw new IllegalArgumentException("Account is inactive");
+            }
+
+            LocalDateTime fecha = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            LocalDateTime fechaExpiracion = holdDto.getFechaExpiracion() != null
+                    ? holdDto.getFechaExpiracion() : fecha.plus(defaultTtl);
+            if (!fechaExpiracion.isAfter(fecha) || fechaExpiracion.isAfter(fecha.plus(maxTtl))) {
+                throw new IllegalArgumentException("Hold expiration must be in the future and at most "
+                        + maxTtl.toDays() + " days away");
+            }
+            Money valor;
+            try {
+                valor = Money.of(holdDto.getValor());
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Balance out of range");
+            }
+
+            Hold hold = new Hold(shardIdGenerator.nextId(ShardIdGenerator.Sequence.RETENCIONES, shard),
+                    cuentaId, valor.toBigDecimal(), fecha, fechaExpiracion);
+            // Reserved against the balance while no withdrawal can change it
+            movementService.withBalance(cuentaId, balance -> {
+                if (!holdRegistry.reserve(hold, balance)) {
+                    throw new IllegalArgumentException("Saldo no disponible");
+                }
+            });
+            afterCompletion(committed -> {
+                if (!committed) {
+                    holdRegistry.settle(hold);
+                }
+            });
+            try {
+                holdRepository.save(hold);
+            } catch (RuntimeException e) {
+                holdRegistry.settle(hold);
+                throw e;
+            }
+            return convertToDto(hold);
+        });
+    }
+
+    /**
+     * Capture a hold: withdraw the final amount, at most the held one, and end the hold
+     * @param cuentaId the account ID
+     * @param retencionId the hold ID
+     * @param valor the amount to withdraw, the whole hold if null
+     * @return the withdrawal
+     * @throws IllegalArgumentException if the hold is not active or has expired, the amount exceeds it or the withdrawal is refused
+     */
+    public MovementDto captureHold(Long cuentaId, Long retencionId, BigDecimal valor) {
+        Hold hold = claim(cuentaId, retencionId);
+        try {
+            // The expiry job may not have got to it yet
+            if (!hold.getFechaExpiracion().isAfter(LocalDateTime.now())) {
+                throw new IllegalArgumentException("Hold with ID " + retencionId + " has expired");
+            }
+            BigDecimal amount = valor != null ? valor : hold.getValor();
+            if (amount.signum() <= 0 || amount.compareTo(hold.getValor()) > 0) {
+                throw new IllegalArgumentException("Captured value must be greater than 0 and at most "
+                        + hold.getValor());
+            }
+            MovementDto retiro = new MovementDto(null, "Retiro", amount, null, cuentaId);
+            return shardRouter.onShard(shardRouter.shardFor(cuentaId), () -> {
+                // The hold itself does not count against its own capture
+                MovementDto movement = movementService.createMovement(retiro, Money.of(hold.getValor()).getCents());
+                holdRepository.deleteById(retencionId);
+                settleAfterCommit(hold);
+                return movement;
+            });
+        } catch (RuntimeException e) {
+            holdRegistry.unclaim(hold);
+            throw e;
+        }
+    }
+
+    /**
+     * Release a hold without withdrawing anything
+     * @param cuentaId the account ID
+     * @param retencionId the hold ID
+     * @throws IllegalArgumentException if the hold is not active
+     */
+    public void releaseHold(Long cuentaId, Long retencionId) {
+        Hold hold = claim(cuentaId, retencionId);
+        try {
+            shardRouter.onShard(shardRouter.shardFor(cuentaId), () -> {
+                holdRepository.deleteById(retencionId);
+                settleAfterCommit(hold);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            holdRegistry.unclaim(hold);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the active holds of an account
+     * @param cuentaId the account ID
+     * @return the holds, soonest to expire first
+     */
+    @Transactional(readOnly = true)
+    public List<HoldDto> getHolds(Long cuentaId) {
+        return holdRegistry.holds(cuentaId).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the balance of an account that is not held
+     * @param cuentaId the account ID
+     * @return the balance, the held amount and what is available
+     */
+    @Transactional(readOnly = true)
+    public AvailableBalanceDto getAvailableBalance(Long cuentaId) {
+        Money saldo = Money.of(movementService.getCurrentBalance(cuentaId));
+        Money retenido = Money.ofCents(holdRegistry.held(cuentaId));
+        return new AvailableBalanceDto(cuentaId, saldo.toBigDecimal(), retenido.toBigDecimal(),
+                saldo.minus(retenido).toBigDecimal());
+    }
+
+    private Hold claim(Long cuentaId, Long retencionId) {
+        return holdRegistry.claim(cuentaId, retencionId)
+                .orElseThrow(() -> new IllegalArgumentException("Hold with ID " + retencionId + " not found"));
+    }
+
+    /**
+     * Remove a claimed hold from the registry once its row is deleted for good,
+     * or give it back if the transaction rolls back
+     */
+    private void settleAfterCommit(Hold hold) {
+        afterCompletion(committed -> {
+            if (committed) {
+                holdRegistry.settle(hold);
+            } else {
+                holdRegistry.unclaim(hold);
+            }
+        });
+    }
+
+    /**
+     * Run an action when the current transaction completes, or right away without one
+     * @param action takes true if the transaction committed
+     */
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    private HoldDto convertToDto(Hold hold) {
+        HoldDto dto = new HoldDto(hold.getValor(), hold.getFechaExpiracion());
+        dto.setRetencionId(hold.getRetencionId());
+        dto.setCuentaId(hold.getCuentaId());
+        dto.setFecha(hold.getFecha());
+        return dto;
+    }
+}
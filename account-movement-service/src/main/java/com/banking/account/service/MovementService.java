@@ -1,29 +1,102 @@
 package com.banking.account.service;
 
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.balance.BalanceCache;
+import com.banking.account.balance.StoredBalance;
+import com.banking.account.concurrency.LockingMode;
+import com.banking.account.concurrency.PostingRetry;
 import com.banking.account.dto.MovementDto;
 import com.banking.account.dto.ReportDto;
+import com.banking.account.dto.TransferDto;
 import com.banking.account.entity.Account;
 import com.banking.account.entity.Movement;
+import com.banking.account.exception.ConcurrentUpdateException;
 import com.banking.account.feign.ClientFeignClient;
+import com.banking.account.groupcommit.GroupAbortedException;
+import com.banking.account.groupcommit.GroupCommitter;
+import com.banking.account.groupcommit.GroupPosting;
+import com.banking.account.hold.HoldRegistry;
+import com.banking.account.hotaccount.HotAccountEngine;
+import com.banking.account.limit.DailyWithdrawalLimits;
+import com.banking.account.ledger.LedgerEngine;
+import com.banking.account.money.Money;
 import com.banking.account.repository.AccountRepository;
 import com.banking.account.repository.MovementRepository;
+import com.banking.account.report.StatementCache;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import com.banking.account.velocity.VelocityDecision;
+import com.banking.account.velocity.VelocityEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
- * Service class for Movement operations
+ * Service class for Movement operations.
+ * Movements are stored on the shard of their account; per-client queries are
+ * scattered to all shards and merged newest first. Movements of closed months
+ * are moved to the {@link MovementArchive}; history, range and statement
+ * queries that reach back into archived months read it as well. With
+ * ledger.enabled, postings and balances go through the {@link LedgerEngine}
+ * and movements show up in the listings once it has persisted them. With
+ * hot-accounts.enabled, postings to the listed hot accounts go through the
+ * {@link HotAccountEngine} instead, and their staged movements are merged
+ * before the account's history is read. A withdrawal may not spend what the
+ * account's active holds (see {@link HoldRegistry}) keep reserved, nor go
+ * over its account type's daily cap (see {@link DailyWithdrawalLimits}), and
+ * withdrawals go through the velocity checks of the {@link VelocityEngine}
+ * before they are posted. A transfer posts its withdrawal and its deposit in
+ * one transaction, with both accounts locked in a fixed order.
+ * Every posting bumps its account's version. In the optimistic
+ * {@link LockingMode} the account is not locked and a posting that loses the
+ * race for it is retried by {@link PostingRetry}; in the pessimistic mode its
+ * row is locked for the whole posting. With group-commit.enabled, postings
+ * made outside a transaction are committed in batches by the
+ * {@link GroupCommitter}; one whose batch does not commit is posted on its own.
+ * The balance endpoints are served from the {@link BalanceCache}, which every
+ * posting to the database brings up to date once it commits and which goes
+ * back to the database after a short time to live, and repeated
+ * statements from the {@link StatementCache}, which drops those a movement
+ * changes once it reaches movimientos.
+ * Every movement gets the next seq of its account when it is posted; the
+ * unique (cuenta_id, seq) index makes the latest movement a point lookup and
+ * rejects a second movement computed from the same balance.
  */
 @Service
 @Transactional
 public class MovementService {
     
+    static final int MAX_PAGE_SIZE = 500;
+    
+    static final int MAX_BALANCE_BATCH = 500;
+    
+    static final String CLIENT_UNAVAILABLE = "Cliente no disponible";
+    
     @Autowired
     private MovementRepository movementRepository;
     
@@ -33,45 +106,256 @@ public class MovementService {
     @Autowired
     private ClientFeignClient clientFeignClient;
     
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private ShardIdGenerator shardIdGenerator;
+    
+    @Autowired
+    private MovementArchive movementArchive;
+    
+    @Autowired
+    private HoldRegistry holdRegistry;
+    
+    @Autowired
+    private DailyWithdrawalLimits dailyWithdrawalLimits;
+    
+    @Autowired
+    private PostingRetry postingRetry;
+    
+    @Autowired(required = false)
+    private VelocityEngine velocityEngine;
+    
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+    
+    @Autowired(required = false)
+    private HotAccountEngine hotAccountEngine;
+    
+    @Autowired(required = false)
+    private GroupCommitter groupCommitter;
+    
+    @Autowired(required = false)
+    private BalanceCache balanceCache;
+    
+    @Autowired(required = false)
+    private StatementCache statementCache;
+    
     /**
-     * Create a new movement
+     * Create a new movement, in a transaction of its own that is retried if
+     * another posting to the account gets in the way
      * @param movementDto the movement data
      * @return the created movement
      * @throws IllegalArgumentException if account not found or insufficient balance
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public MovementDto createMovement(MovementDto movementDto) {
-        Account account = accountRepository.findById(movementDto.getCuentaId())
-                .orElseThrow(() -> new IllegalArgumentException("Account with ID " + movementDto.getCuentaId() + " not found"));
+        if (!isGrouped(movementDto.getCuentaId())) {
+            return postingRetry.execute("movement", () -> createMovement(movementDto, 0));
+        }
+        return withinVelocity(movementDto, () -> postGrouped(movementDto)
+                // The batch did not commit, posted on its own
+                .orElseGet(() -> postingRetry.execute("movement", () -> post(movementDto, 0))));
+    }
+    
+    /**
+     * Create a new movement that settles holds of the account, as a capture does.
+     * A capture goes through the velocity checks like any other withdrawal:
+     * placing the hold did not.
+     * @param movementDto the movement data
+     * @param releasedCents cents of the account's holds the movement settles, not counted against it
+     * @return the created movement
+     * @throws IllegalArgumentException if account not found, insufficient balance or blocked by a velocity rule
+     */
+    public MovementDto createMovement(MovementDto movementDto, long releasedCents) {
+        return withinVelocity(movementDto, () -> post(movementDto, releasedCents));
+    }
+    
+    /**
+     * Post a movement through the hot account engine, the ledger or the database
+     */
+    private MovementDto post(MovementDto movementDto, long releasedCents) {
+        // Read where the balance is decided, a hold placed through withBalance cannot come in between
+        LongSupplier held = () -> holdRegistry.held(movementDto.getCuentaId()) - releasedCents;
+        if (isHot(movementDto.getCuentaId())) {
+            return withinDailyLimit(movementDto, () -> convertToDto(hotAccountEngine.post(
+                    movementDto.getCuentaId(), movementDto.getTipoMovimiento(), movementDto.getValor(), held)));
+        }
+        if (ledgerEngine != null) {
+            return withinDailyLimit(movementDto, () -> convertToDto(ledgerEngine.post(
+                    movementDto.getCuentaId(), movementDto.getTipoMovimiento(), movementDto.getValor(), held)));
+        }
+        int shard = shardRouter.shardFor(movementDto.getCuentaId());
+        return shardRouter.onShard(shard, () -> {
+            Account account = findForPosting(movementDto.getCuentaId())
+                    .orElseThrow(() -> new IllegalArgumentException("Account with ID " + movementDto.getCuentaId() + " not found"));
+            return postToAccount(account, movementDto, held.getAsLong(), shard);
+        });
+    }
+    
+    /**
+     * Run an action with an account's balance while no posting can change it:
+     * on the ledger's writer thread, with every slot of a hot account locked,
+     * or with the account's row locked until the transaction ends. Withdrawals
+     * read the account's holds the same way, so a hold reserved by the action
+     * is never spent by a withdrawal decided on the balance before it.
+     * @param cuentaId the account ID
+     * @param action takes the balance in cents; what it throws is thrown here
+     * @throws IllegalArgumentException if the account is not found
+     */
+    public void withBalance(Long cuentaId, LongConsumer action) {
+        if (isHot(cuentaId)) {
+            hotAccountEngine.withBalance(cuentaId, action);
+            return;
+        }
+        if (ledgerEngine != null) {
+            ledgerEngine.withBalance(cuentaId, action);
+            return;
+        }
+        shardRouter.onShard(shardRouter.shardFor(cuentaId), () -> {
+            Account account = accountRepository.findByIdForUpdate(cuentaId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account with ID " + cuentaId + " not found"));
+            BigDecimal saldo = findLatestMovement(cuentaId).map(Movement::getSaldo).orElse(account.getSaldoInicial());
+            action.accept(Money.of(saldo).getCents());
+            return null;
+        });
+    }
+    
+    /**
+     * Post a movement through the next batch of its account's shard
+     * @param movementDto the movement data
+     * @return the committed movement, empty if its batch did not commit
+     * @throws IllegalArgumentException if the movement was refused
+     */
+    private Optional<MovementDto> postGrouped(MovementDto movementDto) {
+        Long cuentaId = movementDto.getCuentaId();
+        GroupPosting posting = new GroupPosting(cuentaId, movementDto.getTipoMovimiento(), movementDto.getValor(),
+                () -> holdRegistry.held(cuentaId));
+        try {
+            Movement movement = groupCommitter.post(shardRouter.shardFor(cuentaId), posting);
+            updateCaches(movement);
+            return Optional.of(convertToDto(movement));
+        } catch (GroupAbortedException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Transfer between two accounts: the withdrawal from the origin account and
+     * the deposit to the destination account are posted in one transaction, so
+     * either both are posted or neither is. Both cuentas rows are locked, lower
+     * id first, so that transfers in opposite directions between the same
+     * accounts wait for each other instead of deadlocking.
+     * @param transferDto the accounts and the amount
+     * @return the transfer with both movements
+     * @throws IllegalArgumentException if an account is not found or inactive, they are the same account,
+     *         on different shards or posted through an engine, or the origin's balance is insufficient
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransferDto transfer(TransferDto transferDto) {
+        Long origenId = transferDto.getCuentaOrigenId();
+        Long destinoId = transferDto.getCuentaDestinoId();
+        if (origenId.equals(destinoId)) {
+            throw new IllegalArgumentException("Origin and destination accounts must be different");
+        }
+        if (ledgerEngine != null || isHot(origenId) || isHot(destinoId)) {
+            // The engines post one account at a time and could not undo the first leg
+            throw new IllegalArgumentException("Transfers are not available for accounts posted through the ledger or as hot accounts");
+        }
+        int shard = shardRouter.shardFor(origenId);
+        if (shardRouter.shardFor(destinoId) != shard) {
+            throw new IllegalArgumentException("Transfers between accounts on different shards are not supported");
+        }
+        MovementDto retiro = new MovementDto(null, "Retiro", transferDto.getValor(), null, origenId);
+        MovementDto deposito = new MovementDto(null, "Deposito", transferDto.getValor(), null, destinoId);
         
+        return withinVelocity(retiro, () -> postingRetry.execute("transfer", () -> shardRouter.onShard(shard, () -> {
+            Map<Long, Account> accounts = new HashMap<>();
+            for (Long cuentaId : List.of(Math.min(origenId, destinoId), Math.max(origenId, destinoId))) {
+                accounts.put(cuentaId, accountRepository.findByIdForUpdate(cuentaId)
+                        .orElseThrow(() -> new IllegalArgumentException("Account with ID " + cuentaId + " not found")));
+            }
+            TransferDto transfer = new TransferDto(origenId, destinoId, transferDto.getValor());
+            transfer.setRetiro(postToAccount(accounts.get(origenId), retiro, holdRegistry.held(origenId), shard));
+            transfer.setDeposito(postToAccount(accounts.get(destinoId), deposito, 0, shard));
+            return transfer;
+        })));
+    }
+    
+    /**
+     * Post a movement to an account in the database, on the account's shard
+     * @param account the account, loaded on its shard
+     * @param movementDto the movement data
+     * @param held cents held on the account that a withdrawal may not spend
+     * @param shard the account's shard
+     * @return the posted movement
+     * @throws IllegalArgumentException if the account is inactive, the type is invalid or the balance is insufficient
+     */
+    private MovementDto postToAccount(Account account, MovementDto movementDto, long held, int shard) {
         if (!account.getEstado()) {
             throw new IllegalArgumentException("Account is inactive");
         }
         
         // Calculate new balance
-        BigDecimal currentBalance = getCurrentBalance(account.getCuentaId());
-        BigDecimal newBalance;
+        Optional<Movement> latest = findLatestMovement(account.getCuentaId());
+        Money currentBalance = Money.of(latest.map(Movement::getSaldo).orElse(account.getSaldoInicial()));
+        Money valor;
+        Money newBalance;
         
-        if ("Deposito".equals(movementDto.getTipoMovimiento())) {
-            newBalance = currentBalance.add(movementDto.getValor());
-        } else if ("Retiro".equals(movementDto.getTipoMovimiento())) {
-            newBalance = currentBalance.subtract(movementDto.getValor());
-            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                throw new IllegalArgumentException("Saldo no disponible");
+        try {
+            valor = Money.of(movementDto.getValor());
+            if ("Deposito".equals(movementDto.getTipoMovimiento())) {
+                newBalance = currentBalance.plus(valor);
+            } else if ("Retiro".equals(movementDto.getTipoMovimiento())) {
+                newBalance = currentBalance.minus(valor);
+                if (newBalance.minus(Money.ofCents(held)).isNegative()) {
+                    throw new IllegalArgumentException("Saldo no disponible");
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid movement type");
             }
-        } else {
-            throw new IllegalArgumentException("Invalid movement type");
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance out of range");
+        }
+        
+        if ("Retiro".equals(movementDto.getTipoMovimiento())) {
+            LocalDate day = reserveDailyWithdrawal(account.getCuentaId(), account.getTipoCuenta(), valor.getCents());
+            releaseOnRollback(account.getCuentaId(), day, valor.getCents());
         }
         
         Movement movement = new Movement(
             LocalDateTime.now(),
             movementDto.getTipoMovimiento(),
-            movementDto.getValor(),
-            newBalance,
-            movementDto.getCuentaId()
+            valor.toBigDecimal(),
+            newBalance.toBigDecimal(),
+            account.getCuentaId()
         );
         
-        Movement savedMovement = movementRepository.save(movement);
-        return convertToDto(savedMovement);
+        movement.setMovimientoId(shardIdGenerator.nextId(ShardIdGenerator.Sequence.MOVIMIENTOS, shard));
+        movement.setSeq(latest.map(Movement::getSeq).orElse(0L) + 1);
+        
+        try {
+            // Flushed here so a movement posted concurrently from the same balance fails on the index now
+            Movement savedMovement = movementRepository.saveAndFlush(movement);
+            updateCaches(savedMovement);
+            return convertToDto(savedMovement);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcurrentUpdateException("Another movement was posted to account "
+                    + account.getCuentaId() + " at the same time, try again");
+        }
+    }
+    
+    /**
+     * Load an account to post to: locked in the pessimistic mode, to be
+     * checked on commit in the optimistic one. Either way its version is bumped.
+     * @param cuentaId the account ID
+     * @return the account, empty if not found
+     */
+    private Optional<Account> findForPosting(Long cuentaId) {
+        return postingRetry.getMode() == LockingMode.PESSIMISTIC
+                ? accountRepository.findByIdForUpdate(cuentaId)
+                : accountRepository.findByIdForPosting(cuentaId);
     }
     
     /**
@@ -80,9 +364,9 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public List<MovementDto> getAllMovements() {
-        return movementRepository.findAll().stream()
+        return shardRouter.onAllShards(() -> movementRepository.findAll().stream()
                 .map(this::convertToDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -92,7 +376,44 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public List<MovementDto> getMovementsByAccountId(Long cuentaId) {
-        return movementRepository.findByCuentaIdOrderByFechaDesc(cuentaId).stream()
+        mergeIfHot(cuentaId);
+        List<Movement> movements = shardRouter.onShard(shardRouter.shardFor(cuentaId),
+                () -> movementRepository.findByCuentaIdOrderBySeqDesc(cuentaId));
+        return withArchived(movements, () -> List.of(cuentaId), null, null).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Get a page of an account's movements, newest first. The seq of the last
+     * movement of a page is the cursor for the next one.
+     * @param cuentaId the account ID
+     * @param antesDe the cursor, only movements with a lower seq are returned; null for the first page
+     * @param limite the page size
+     * @return the movements of the page, fewer than the page size on the last one
+     * @throws IllegalArgumentException if the page size is out of range
+     */
+    @Transactional(readOnly = true)
+    public List<MovementDto> getMovementPage(Long cuentaId, Long antesDe, int limite) {
+        if (limite < 1 || limite > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        mergeIfHot(cuentaId);
+        long cursor = antesDe != null ? antesDe : Long.MAX_VALUE;
+        List<Movement> page = new ArrayList<>(shardRouter.onShard(shardRouter.shardFor(cuentaId),
+                () -> movementRepository.findByCuentaIdAndSeqLessThanOrderBySeqDesc(cuentaId, cursor,
+                        PageRequest.of(0, limite))));
+        if (page.size() < limite && movementArchive.covers(null)) {
+            // The database has nothing older, the rest of the page comes from the archived months
+            Set<Long> inDatabase = page.stream().map(Movement::getMovimientoId).collect(Collectors.toSet());
+            movementArchive.find(List.of(cuentaId), null, null).stream()
+                    .filter(movement -> movement.getSeq() != null && movement.getSeq() < cursor)
+                    .filter(movement -> !inDatabase.contains(movement.getMovimientoId()))
+                    .sorted(Comparator.comparing(Movement::getSeq).reversed())
+                    .limit(limite - page.size())
+                    .forEach(page::add);
+        }
+        return page.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -104,7 +425,8 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public List<MovementDto> getMovementsByClienteId(Long clienteId) {
-        return movementRepository.findByClienteId(clienteId).stream()
+        List<Movement> movements = shardRouter.onAllShards(() -> movementRepository.findByClienteId(clienteId));
+        return withArchived(movements, () -> getClientAccounts(clienteId).keySet(), null, null).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -118,13 +440,16 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public List<MovementDto> getMovementsByClienteIdAndDateRange(Long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        return movementRepository.findByClienteIdAndFechaBetween(clienteId, fechaInicio, fechaFin).stream()
+        List<Movement> movements = shardRouter.onAllShards(
+                () -> movementRepository.findByClienteIdAndFechaBetween(clienteId, fechaInicio, fechaFin));
+        return withArchived(movements, () -> getClientAccounts(clienteId).keySet(), fechaInicio, fechaFin).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
     /**
-     * Generate account statement report
+     * Generate account statement report, from the statement cache if it was
+     * generated before and no movement changed it since
      * @param clienteId the client ID
      * @param fechaInicio start date
      * @param fechaFin end date
@@ -132,41 +457,79 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public List<ReportDto> generateAccountStatementReport(Long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<Movement> movements = movementRepository.findByClienteIdAndFechaBetween(clienteId, fechaInicio, fechaFin);
-        
-        return movements.stream().map(movement -> {
-            try {
-                // Get client information from external service
-                var clientInfo = clientFeignClient.getClientById(clienteId);
-                
-                // Get account information
-                Account account = accountRepository.findById(movement.getCuentaId()).orElse(null);
-                
-                return new ReportDto(
-                    movement.getFecha(),
-                    clientInfo.getNombre(),
-                    account != null ? account.getNumeroCuenta() : "N/A",
-                    account != null ? account.getTipoCuenta() : "N/A",
-                    account != null ? account.getSaldoInicial() : BigDecimal.ZERO,
-                    account != null ? account.getEstado() : false,
-                    movement.getValor(),
-                    movement.getSaldo()
-                );
-            } catch (Exception e) {
-                // Fallback if client service is unavailable
-                Account account = accountRepository.findById(movement.getCuentaId()).orElse(null);
-                return new ReportDto(
-                    movement.getFecha(),
-                    "Cliente no disponible",
-                    account != null ? account.getNumeroCuenta() : "N/A",
-                    account != null ? account.getTipoCuenta() : "N/A",
-                    account != null ? account.getSaldoInicial() : BigDecimal.ZERO,
-                    account != null ? account.getEstado() : false,
-                    movement.getValor(),
-                    movement.getSaldo()
-                );
-            }
-        }).collect(Collectors.toList());
+        if (statementCache == null) {
+            Map<Long, Account> accounts = getClientAccounts(clienteId);
+            return buildStatement(clienteId, accounts, fechaInicio, fechaFin);
+        }
+        Optional<List<ReportDto>> cached = statementCache.get(clienteId, fechaInicio, fechaFin);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        // Taken before each read, a movement or account change meanwhile keeps the statement out of the cache
+        long version = statementCache.clientVersion(clienteId);
+        Map<Long, Account> accounts = getClientAccounts(clienteId);
+        version += statementCache.accountVersion(accounts.keySet());
+        List<ReportDto> report = buildStatement(clienteId, accounts, fechaInicio, fechaFin);
+        // Entries built while the client service was down would be served without the client's name
+        if (report.stream().noneMatch(entry -> CLIENT_UNAVAILABLE.equals(entry.getCliente()))) {
+            statementCache.put(clienteId, fechaInicio, fechaFin, accounts.keySet(), report, version);
+        }
+        return report;
+    }
+    
+    /**
+     * Build a statement from the database and the archive
+     * @param clienteId the client ID
+     * @param accounts the client's accounts by account ID
+     * @param fechaInicio start date
+     * @param fechaFin end date
+     * @return list of report entries
+     */
+    private List<ReportDto> buildStatement(Long clienteId, Map<Long, Account> accounts,
+                                           LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        List<Movement> movements = shardRouter.onAllShards(
+                () -> movementRepository.findByClienteIdAndFechaBetween(clienteId, fechaInicio, fechaFin));
+        // Every movement in the statement belongs to one of the client's accounts
+        return withArchived(movements, accounts::keySet, fechaInicio, fechaFin).stream()
+                .map(movement -> toReportEntry(clienteId, movement, accounts.get(movement.getCuentaId())))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Build a report entry for a movement
+     * @param clienteId the client ID
+     * @param movement the movement
+     * @param account the movement's account, or null if it no longer exists
+     * @return the report entry
+     */
+    private ReportDto toReportEntry(Long clienteId, Movement movement, Account account) {
+        try {
+            // Get client information from external service
+            var clientInfo = clientFeignClient.getClientById(clienteId);
+            
+            return new ReportDto(
+                movement.getFecha(),
+                clientInfo.getNombre(),
+                account != null ? account.getNumeroCuenta() : "N/A",
+                account != null ? account.getTipoCuenta() : "N/A",
+                account != null ? account.getSaldoInicial() : BigDecimal.ZERO,
+                account != null ? account.getEstado() : false,
+                movement.getValor(),
+                movement.getSaldo()
+            );
+        } catch (Exception e) {
+            // Fallback if client service is unavailable
+            return new ReportDto(
+                movement.getFecha(),
+                CLIENT_UNAVAILABLE,
+                account != null ? account.getNumeroCuenta() : "N/A",
+                account != null ? account.getTipoCuenta() : "N/A",
+                account != null ? account.getSaldoInicial() : BigDecimal.ZERO,
+                account != null ? account.getEstado() : false,
+                movement.getValor(),
+                movement.getSaldo()
+            );
+        }
     }
     
     /**
@@ -176,12 +539,367 @@ public class MovementService {
      */
     @Transactional(readOnly = true)
     public BigDecimal getCurrentBalance(Long cuentaId) {
-        List<Movement> movements = movementRepository.findByCuentaIdOrderByFechaDesc(cuentaId);
-        if (movements.isEmpty()) {
+        Optional<BigDecimal> engineBalance = findEngineBalance(cuentaId);
+        if (engineBalance.isPresent()) {
+            return engineBalance.get();
+        }
+        return shardRouter.onShard(shardRouter.shardFor(cuentaId), () -> {
+            Optional<Movement> latest = findLatestMovement(cuentaId);
+            if (latest.isPresent()) {
+                return latest.get().getSaldo();
+            }
             Account account = accountRepository.findById(cuentaId).orElse(null);
             return account != null ? account.getSaldoInicial() : BigDecimal.ZERO;
+        });
+    }
+    
+    /**
+     * Get the balance of an account for the balance endpoints: from the engine
+     * posting it, from the balance cache, or from the database, caching it
+     * @param cuentaId the account ID
+     * @return the balance, empty if the account is not found
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<BigDecimal> getBalance(Long cuentaId) {
+        Optional<BigDecimal> engineBalance = findEngineBalance(cuentaId);
+        if (engineBalance.isPresent()) {
+            return engineBalance;
+        }
+        if (balanceCache != null) {
+            OptionalLong cached = balanceCache.get(cuentaId);
+            if (cached.isPresent()) {
+                return Optional.of(Money.ofCents(cached.getAsLong()).toBigDecimal());
+            }
+        }
+        // Taken before reading: a posting committed meanwhile keeps the balance read out of the cache
+        long version = balanceCache != null ? balanceCache.version(cuentaId) : 0;
+        Optional<StoredBalance> stored = findStoredBalance(cuentaId);
+        stored.ifPresent(balance -> {
+            if (balanceCache != null && !isPostedByEngine(cuentaId)) {
+                balanceCache.put(cuentaId, balance.getCents(), balance.getSeq(), version);
+            }
+        });
+        return stored.map(balance -> Money.ofCents(balance.getCents()).toBigDecimal());
+    }
+    
+    /**
+     * Get the balances of several accounts, each as {@link #getBalance(Long)} does.
+     * Not run in one transaction, the accounts may be on different shards.
+     * @param cuentaIds the account IDs
+     * @return the balances by account ID, in the order asked for, without the accounts not found
+     * @throws IllegalArgumentException if an ID is missing or too many are asked for
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<Long, BigDecimal> getBalances(List<Long> cuentaIds) {
+        if (cuentaIds.size() > MAX_BALANCE_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_BALANCE_BATCH + " accounts per request");
+        }
+        // Not contains(null): immutable lists such as List.of throw on a null query
+        if (cuentaIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Account IDs are required");
+        }
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        for (Long cuentaId : cuentaIds) {
+            if (!balances.containsKey(cuentaId)) {
+                getBalance(cuentaId).ifPresent(balance -> balances.put(cuentaId, balance));
+            }
+        }
+        return balances;
+    }
+    
+    /**
+     * Compare the next cached balances with the database, correcting those that differ
+     * @param limit most accounts checked
+     * @return the number of cached balances that were wrong
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public int checkBalanceCache(int limit) {
+        if (balanceCache == null) {
+            return 0;
+        }
+        int mismatches = 0;
+        for (long cuentaId : balanceCache.nextToCheck(limit)) {
+            if (isPostedByEngine(cuentaId)) {
+                // Served from the engine, movimientos may lag behind it
+                continue;
+            }
+            Optional<StoredBalance> stored = findStoredBalance(cuentaId);
+            if (stored.isEmpty()) {
+                // Deleted by another instance
+                balanceCache.remove(cuentaId);
+                mismatches++;
+            } else if (!balanceCache.verify(cuentaId, stored.get().getCents(), stored.get().getSeq())) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+    
+    /**
+     * Balance of an account posted through the hot account engine or the ledger
+     * @param cuentaId the account ID
+     * @return the engine's balance, empty if neither engine holds the account
+     */
+    private Optional<BigDecimal> findEngineBalance(Long cuentaId) {
+        if (isHot(cuentaId)) {
+            // Includes the movements staged since the last merge
+            Optional<BigDecimal> balance = hotAccountEngine.balance(cuentaId);
+            if (balance.isPresent()) {
+                return balance;
+            }
+        }
+        if (ledgerEngine != null) {
+            // Ahead of movimientos while the ledger has movements to persist
+            return ledgerEngine.balance(cuentaId);
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Balance and seq of an account's latest movement in the database, on the account's shard
+     * @param cuentaId the account ID
+     * @return the balance, empty if the account is not found
+     */
+    private Optional<StoredBalance> findStoredBalance(Long cuentaId) {
+        return shardRouter.onShard(shardRouter.shardFor(cuentaId), () -> {
+            Optional<Movement> latest = findLatestMovement(cuentaId);
+            if (latest.isPresent()) {
+                return Optional.of(new StoredBalance(Money.of(latest.get().getSaldo()).getCents(),
+                        latest.map(Movement::getSeq).orElse(0L)));
+            }
+            return accountRepository.findById(cuentaId)
+                    .map(account -> new StoredBalance(Money.of(account.getSaldoInicial()).getCents(), 0));
+        });
+    }
+    
+    /**
+     * Bring the cached balance of a movement's account up to date, and drop
+     * the cached statements the movement belongs in, once the movement commits
+     * @param movement the posted movement, with its seq
+     */
+    private void updateCaches(Movement movement) {
+        if (balanceCache == null && statementCache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateCachesNow(movement);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                updateCachesNow(movement);
+            }
+        });
+    }
+    
+    private void updateCachesNow(Movement movement) {
+        if (balanceCache != null) {
+            balanceCache.update(movement.getCuentaId(), Money.of(movement.getSaldo()).getCents(), movement.getSeq());
+        }
+        if (statementCache != null) {
+            statementCache.invalidate(movement.getCuentaId(), movement.getFecha());
+        }
+    }
+    
+    /**
+     * Post a withdrawal within the velocity checks. It is reserved in its
+     * account's velocity window as it is checked, so that withdrawals checked
+     * at the same time count each other, and released again if it is not
+     * posted or its transaction rolls back.
+     * @param movementDto the movement data
+     * @param posting posts the movement
+     * @return what the posting returned
+     * @throws IllegalArgumentException if a velocity rule blocks it
+     */
+    private <T> T withinVelocity(MovementDto movementDto, Supplier<T> posting) {
+        if (velocityEngine == null || !"Retiro".equals(movementDto.getTipoMovimiento())) {
+            return posting.get();
+        }
+        long cents;
+        try {
+            cents = Money.of(movementDto.getValor()).getCents();
+        } catch (ArithmeticException e) {
+            // Refused when it is posted
+            return posting.get();
+        }
+        Long cuentaId = movementDto.getCuentaId();
+        long now = System.currentTimeMillis();
+        if (velocityEngine.evaluate(cuentaId, cents, now) == VelocityDecision.BLOCK) {
+            throw new IllegalArgumentException("Movimiento bloqueado por control de velocidad");
+        }
+        T posted;
+        try {
+            posted = posting.get();
+        } catch (RuntimeException e) {
+            velocityEngine.release(cuentaId, cents, now);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        velocityEngine.release(cuentaId, cents, now);
+                    }
+                }
+            });
+        }
+        return posted;
+    }
+    
+    /**
+     * Post a movement through the ledger or the hot account engine, which do
+     * not load the account, within the daily cap of its account type
+     * @param movementDto the movement data
+     * @param post posts the movement
+     * @return the posted movement
+     */
+    private MovementDto withinDailyLimit(MovementDto movementDto, Supplier<MovementDto> post) {
+        if (!"Retiro".equals(movementDto.getTipoMovimiento()) || !dailyWithdrawalLimits.isEnabled()) {
+            return post.get();
+        }
+        Long cuentaId = movementDto.getCuentaId();
+        String tipoCuenta = dailyWithdrawalLimits.tipoCuenta(cuentaId, id -> shardRouter.onShard(shardRouter.shardFor(id),
+                        () -> accountRepository.findById(id).map(Account::getTipoCuenta)))
+                .orElseThrow(() -> new IllegalArgumentException("Account with ID " + cuentaId + " not found"));
+        long cents;
+        try {
+            cents = Money.of(movementDto.getValor()).getCents();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance out of range");
+        }
+        LocalDate day = reserveDailyWithdrawal(cuentaId, tipoCuenta, cents);
+        try {
+            return post.get();
+        } catch (RuntimeException e) {
+            // Not posted: the ledger cancels a posting its writer did not take in time
+            dailyWithdrawalLimits.release(cuentaId, day, cents);
+            throw e;
+        }
+    }
+    
+    /**
+     * Count a withdrawal against the daily cap of its account type
+     * @return the day it was counted for
+     * @throws IllegalArgumentException if the cap would be exceeded
+     */
+    private LocalDate reserveDailyWithdrawal(Long cuentaId, String tipoCuenta, long cents) {
+        LocalDate day = LocalDate.now();
+        if (!dailyWithdrawalLimits.reserve(cuentaId, tipoCuenta, day, cents)) {
+            throw new IllegalArgumentException("Cupo diario excedido");
+        }
+        return day;
+    }
+    
+    /**
+     * Give a counted withdrawal back if the transaction posting it does not commit
+     */
+    private void releaseOnRollback(Long cuentaId, LocalDate day, long cents) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    dailyWithdrawalLimits.release(cuentaId, day, cents);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Find the latest movement of an account, on the account's shard
+     * @param cuentaId the account ID
+     * @return the movement with the highest seq, empty if the account has none
+     */
+    private Optional<Movement> findLatestMovement(Long cuentaId) {
+        // No movement in the hot months, the last one may be archived
+        return movementRepository.findFirstByCuentaIdOrderBySeqDesc(cuentaId)
+                .or(() -> movementArchive.findLatest(cuentaId));
+    }
+    
+    /**
+     * Whether postings to an account go through the hot account engine
+     * @param cuentaId the account ID
+     * @return true if the account is listed in hot-accounts.ids
+     */
+    private boolean isHot(Long cuentaId) {
+        return hotAccountEngine != null && hotAccountEngine.isHot(cuentaId);
+    }
+    
+    /**
+     * Whether a posting goes through the group commit: the database path, not
+     * within a caller's transaction, which the batch could not be part of
+     * @param cuentaId the account ID
+     * @return true if group-commit.enabled and the posting would go to the database on its own
+     */
+    private boolean isGrouped(Long cuentaId) {
+        return groupCommitter != null && ledgerEngine == null && !isHot(cuentaId)
+                && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+    
+    /**
+     * Whether an account's balance is kept by the hot account engine or the ledger
+     * @param cuentaId the account ID
+     * @return true if hot or ledger.enabled
+     */
+    private boolean isPostedByEngine(Long cuentaId) {
+        return ledgerEngine != null || isHot(cuentaId);
+    }
+    
+    /**
+     * Write a hot account's staged movements to movimientos before its history is read
+     * @param cuentaId the account ID
+     */
+    private void mergeIfHot(Long cuentaId) {
+        if (isHot(cuentaId)) {
+            hotAccountEngine.merge(cuentaId);
+        }
+    }
+    
+    /**
+     * Whether postings go through the in-memory ledger
+     * @return true if ledger.enabled
+     */
+    public boolean isLedgerEnabled() {
+        return ledgerEngine != null;
+    }
+    
+    /**
+     * Get a client's accounts from every shard
+     * @param clienteId the client ID
+     * @return the accounts by account ID
+     */
+    private Map<Long, Account> getClientAccounts(Long clienteId) {
+        return shardRouter.onAllShards(() -> accountRepository.findByClienteId(clienteId)).stream()
+                .collect(Collectors.toMap(Account::getCuentaId, Function.identity()));
+    }
+    
+    /**
+     * Add the archived movements of a range to those still in the database, newest first
+     * @param movements movements read from the database
+     * @param cuentaIds the accounts the range covers, only read if the archive is needed
+     * @param fechaInicio start date, or null for no lower bound
+     * @param fechaFin end date, or null for no upper bound
+     * @return all movements of the range
+     */
+    private List<Movement> withArchived(List<Movement> movements, Supplier<Collection<Long>> cuentaIds,
+                                        LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        List<Movement> result = new ArrayList<>(movements);
+        if (movementArchive.covers(fechaInicio)) {
+            // A range being archived can briefly be in both places
+            Set<Long> inDatabase = movements.stream().map(Movement::getMovimientoId).collect(Collectors.toSet());
+            movementArchive.find(cuentaIds.get(), fechaInicio, fechaFin).stream()
+                    .filter(movement -> !inDatabase.contains(movement.getMovimientoId()))
+                    .forEach(result::add);
         }
-        return movements.get(0).getSaldo();
+        // Movements of an account within the same clock tick are ordered by seq
+        result.sort(Comparator.comparing(Movement::getFecha)
+                .thenComparing(Movement::getSeq, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .reversed());
+        return result;
     }
     
     /**
@@ -197,6 +915,7 @@ public class MovementService {
         dto.setValor(movement.getValor());
         dto.setSaldo(movement.getSaldo());
         dto.setCuentaId(movement.getCuentaId());
+        dto.setSeq(movement.getSeq());
         return dto;
     }
 }
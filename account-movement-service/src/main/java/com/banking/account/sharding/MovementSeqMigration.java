@@ -0,0 +1,201 @@
+package com.banking.account.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the movimientos table of a database created before movements were
+ * numbered up to date, on one shard, before Hibernate or the services use
+ * seq: adds the seq column, numbers each account's movements by fecha and
+ * movimiento_id (1, 2, 3...), makes the column NOT NULL and adds the unique
+ * (cuenta_id, seq) index. Movements left with seq 0 by a start that let
+ * Hibernate add the column are numbered again. Each account is numbered in a
+ * transaction of its own, so a migration that stops is finished by the next
+ * start; a table already up to date is only inspected.
+ */
+public class MovementSeqMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(MovementSeqMigration.class);
+
+    private static final String TABLE = "movimientos";
+    private static final Set<String> INDEX_COLUMNS = Set.of("cuenta_id", "seq");
+    private static final int BATCH_SIZE = 500;
+
+    private final DataSource dataSource;
+
+    public MovementSeqMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return accounts whose movements were numbered
+     * @throws IllegalStateException if the table cannot be brought up to date;
+     *         the service must not start on movements without seq
+     */
+    public int migrate() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = identifier(metaData, TABLE);
+            if (!tableExists(connection, metaData, table)) {
+                // Created with seq by the schema script or Hibernate
+                return 0;
+            }
+            Boolean nullable = seqNullable(connection, metaData, table);
+            boolean indexed = hasSeqIndex(connection, metaData, table);
+            if (Boolean.FALSE.equals(nullable) && indexed) {
+                return 0;
+            }
+            if (nullable == null) {
+                execute(connection, "ALTER TABLE movimientos ADD COLUMN seq BIGINT NULL");
+            }
+            int accounts = number(connection);
+            if (!Boolean.FALSE.equals(nullable)) {
+                execute(connection, isMySql(metaData)
+                        ? "ALTER TABLE movimientos MODIFY seq BIGINT NOT NULL"
+                        : "ALTER TABLE movimientos ALTER COLUMN seq SET NOT NULL");
+            }
+            if (!indexed) {
+                execute(connection,
+                        "ALTER TABLE movimientos ADD CONSTRAINT uk_movimientos_cuenta_seq UNIQUE (cuenta_id, seq)");
+            }
+            log.info("Numbered the movements of {} accounts in movimientos", accounts);
+            return accounts;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not number the movements in movimientos", e);
+        }
+    }
+
+    /**
+     * Number the movements of every account with a movement without seq
+     * @return accounts numbered
+     */
+    private int number(Connection connection) throws SQLException {
+        List<Long> cuentaIds = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery(
+                     "SELECT DISTINCT cuenta_id FROM movimientos WHERE seq IS NULL OR seq < 1")) {
+            while (resultSet.next()) {
+                cuentaIds.add(resultSet.getLong(1));
+            }
+        }
+        connection.setAutoCommit(false);
+        try {
+            for (Long cuentaId : cuentaIds) {
+                numberAccount(connection, cuentaId);
+                connection.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return cuentaIds.size();
+    }
+
+    private void numberAccount(Connection connection, long cuentaId) throws SQLException {
+        // Out of the way of the numbers about to be given, should the index be there already
+        try (PreparedStatement clear = connection.prepareStatement(
+                "UPDATE movimientos SET seq = -movimiento_id WHERE cuenta_id = ?")) {
+            clear.setLong(1, cuentaId);
+            clear.executeUpdate();
+        }
+        List<Long> movimientoIds = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT movimiento_id FROM movimientos WHERE cuenta_id = ? ORDER BY fecha, movimiento_id")) {
+            select.setLong(1, cuentaId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    movimientoIds.add(resultSet.getLong(1));
+                }
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE movimientos SET seq = ? WHERE movimiento_id = ?")) {
+            for (int index = 0; index < movimientoIds.size(); index++) {
+                update.setLong(1, index + 1);
+                update.setLong(2, movimientoIds.get(index));
+                update.addBatch();
+                if ((index + 1) % BATCH_SIZE == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, DatabaseMetaData metaData, String table)
+            throws SQLException {
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), table,
+                new String[] {"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    /**
+     * @return whether seq accepts nulls, null if there is no seq column
+     */
+    private static Boolean seqNullable(Connection connection, DatabaseMetaData metaData, String table)
+            throws SQLException {
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table,
+                identifier(metaData, "seq"))) {
+            if (!columns.next()) {
+                return null;
+            }
+            return columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+        }
+    }
+
+    /**
+     * Whether a unique index covers exactly (cuenta_id, seq), whatever the database named it
+     */
+    private static boolean hasSeqIndex(Connection connection, DatabaseMetaData metaData, String table)
+            throws SQLException {
+        Map<String, Set<String>> columnsByIndex = new HashMap<>();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table,
+                true, false)) {
+            while (indexes.next()) {
+                String index = indexes.getString("INDEX_NAME");
+                String column = indexes.getString("COLUMN_NAME");
+                if (index != null && column != null) {
+                    columnsByIndex.computeIfAbsent(index, name -> new HashSet<>())
+                            .add(column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columnsByIndex.containsValue(INDEX_COLUMNS);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static boolean isMySql(DatabaseMetaData metaData) throws SQLException {
+        String product = metaData.getDatabaseProductName().toLowerCase(Locale.ROOT);
+        return product.contains("mysql") || product.contains("mariadb");
+    }
+
+    /**
+     * An unquoted identifier as the database stores it, for metadata lookups
+     */
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+}
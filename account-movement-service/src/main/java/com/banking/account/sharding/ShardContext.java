@@ -0,0 +1,85 @@
+package com.banking.account.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shard the current thread works on.
+ * Entered through {@link ShardRouter#onShard}. Inside a transaction the first
+ * shard entered is bound to the transaction until it completes, so statements
+ * Hibernate flushes at commit, after the routed block has returned, still go to
+ * that shard, and a transaction can never span two shards.
+ * Code outside any routed block works on shard 0.
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private static final Object TRANSACTION_SHARD_KEY = new Object();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return the shard bound to the current transaction, else the one entered on this thread, else 0
+     */
+    static int current() {
+        Integer shard = transactionShard();
+        if (shard == null) {
+            shard = CURRENT.get();
+        }
+        return shard != null ? shard : 0;
+    }
+
+    /**
+     * Enter a shard on this thread, binding it to the current transaction if there is one
+     * @return the shard entered before, to be restored with {@link #restore}
+     * @throws IllegalStateException if the current transaction is bound to another shard
+     */
+    static Integer enter(int shard) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Integer bound = transactionShard();
+            if (bound == null) {
+                bindToTransaction(shard);
+            } else if (bound != shard) {
+                throw new IllegalStateException(
+                        "Transaction is bound to shard " + bound + ", cannot access shard " + shard);
+            }
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static Integer transactionShard() {
+        return (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD_KEY);
+    }
+
+    private static void bindToTransaction(int shard) {
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD_KEY, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD_KEY);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD_KEY, shard);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD_KEY);
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.banking.account.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * The per-shard DataSources, indexed by shard number, together with the
+ * connection pools behind them. The pools are not beans of their own, so
+ * they are closed here when the context shuts down.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final List<HikariDataSource> pools;
+
+    public ShardDataSources(List<DataSource> shards, List<HikariDataSource> pools) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.pools = List.copyOf(pools);
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public DataSource get(int shard) {
+        return shards.get(shard);
+    }
+
+    public List<DataSource> getAll() {
+        return shards;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
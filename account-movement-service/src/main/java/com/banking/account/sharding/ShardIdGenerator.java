@@ -0,0 +1,140 @@
+package com.banking.account.sharding;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Hands out ids that encode the shard they were generated for:
+ * {@code id = sequenceValue * shardCount + shard}, so {@link ShardRouter#shardFor}
+ * finds the row again without a lookup. Sequence values are reserved in blocks
+ * from the {@code id_secuencias} table of the shard itself, in a short
+ * transaction of their own, so the common case is an in-memory increment and
+ * several instances can share a shard. Ids are unique and grow per shard, but
+ * are not contiguous: a block left over at shutdown is skipped.
+ */
+public class ShardIdGenerator {
+
+    /**
+     * Tables with generated ids
+     */
+    public enum Sequence {
+        CUENTAS("cuentas", "cuenta_id"),
+        MOVIMIENTOS("movimientos", "movimiento_id"),
+        RETENCIONES("retenciones", "retencion_id");
+
+        private final String table;
+        private final String idColumn;
+
+        Sequence(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+    }
+
+    private final ShardDataSources shards;
+    private final int blockSize;
+    private final Block[][] blocks;
+
+    public ShardIdGenerator(ShardDataSources shards, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.shards = shards;
+        this.blockSize = blockSize;
+        this.blocks = new Block[Sequence.values().length][shards.size()];
+        for (Block[] perShard : blocks) {
+            for (int shard = 0; shard < perShard.length; shard++) {
+                perShard[shard] = new Block();
+            }
+        }
+    }
+
+    /**
+     * Next id for a row to be written on a shard
+     * @param sequence the table the row goes to
+     * @param shard the shard the row goes to
+     * @return the id
+     * @throws IllegalStateException if a new block cannot be reserved
+     */
+    public long nextId(Sequence sequence, int shard) {
+        Block block = blocks[sequence.ordinal()][shard];
+        synchronized (block) {
+            if (block.next >= block.end) {
+                block.end = reserveBlock(sequence, shard);
+                block.next = block.end - blockSize;
+            }
+            return block.next++ * shards.size() + shard;
+        }
+    }
+
+    /**
+     * @return the end (exclusive) of the reserved block
+     */
+    private long reserveBlock(Sequence sequence, int shard) {
+        try (Connection connection = shards.get(shard).getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long end = advance(connection, sequence);
+                connection.commit();
+                return end;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "Could not reserve ids for " + sequence.table + " on shard " + shard, e);
+        }
+    }
+
+    private long advance(Connection connection, Sequence sequence) throws SQLException {
+        if (increment(connection, sequence) == 0) {
+            try {
+                seed(connection, sequence);
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Another instance seeded the row first
+                connection.rollback();
+                increment(connection, sequence);
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT siguiente FROM id_secuencias WHERE nombre = ?")) {
+            select.setString(1, sequence.table);
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private int increment(Connection connection, Sequence sequence) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_secuencias SET siguiente = siguiente + ? WHERE nombre = ?")) {
+            update.setLong(1, blockSize);
+            update.setString(2, sequence.table);
+            return update.executeUpdate();
+        }
+    }
+
+    /**
+     * First block of a shard: continue after the ids already in the table,
+     * rows written before sharding was enabled included
+     */
+    private void seed(Connection connection, Sequence sequence) throws SQLException {
+        // Only constants go into the statement; literals avoid untyped parameters in the select list
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO id_secuencias (nombre, siguiente) SELECT '" + sequence.table + "', FLOOR(COALESCE(MAX("
+                        + sequence.idColumn + "), 0) / " + shards.size() + ") + 1 + " + blockSize
+                        + " FROM " + sequence.table)) {
+            insert.executeUpdate();
+        }
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking.account.sharding;
+
+import com.banking.account.concurrency.RequestPriority;
+import com.banking.account.concurrency.RequestPriorityContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds an account and runs repository work there.
+ * Accounts are placed by a hash of their number when created, and every id
+ * handed out by {@link ShardIdGenerator} carries its shard in {@code id % shardCount},
+ * so an account, and each of its movements, can be located from its id alone.
+ * Queries that are not keyed by account (by client, by number, full listings)
+ * are scattered to every shard in parallel and the results gathered.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService scatterExecutor;
+
+    /**
+     * @param shardCount number of shards; fixed once data has been written, ids encode it
+     * @param transactionManager opens a read-only transaction per shard for scatter-gather
+     * @param scatterExecutor runs the per-shard queries of a scatter-gather
+     */
+    public ShardRouter(int shardCount, PlatformTransactionManager transactionManager, ExecutorService scatterExecutor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardCount = shardCount;
+        this.scatterExecutor = scatterExecutor;
+        if (transactionManager != null) {
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
+        } else {
+            this.readOnlyTransaction = null;
+        }
+    }
+
+    /**
+     * Router for an unsharded deployment: everything runs inline on shard 0
+     */
+    public static ShardRouter singleShard() {
+        return new ShardRouter(1, null, null);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard holding an account or movement
+     * @param id an account or movement id
+     * @return the shard number
+     */
+    public int shardFor(Long id) {
+        return (int) Math.floorMod(id, (long) shardCount);
+    }
+
+    /**
+     * Shard a new account is placed on
+     * @param numeroCuenta the account number
+     * @return the shard number
+     */
+    public int shardForNewAccount(String numeroCuenta) {
+        return Math.floorMod(numeroCuenta.hashCode(), shardCount);
+    }
+
+    /**
+     * Run work against one shard on the calling thread, inside its transaction if any
+     * @throws IllegalStateException if the transaction already works on another shard
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    /**
+     * Run a query on every shard and concatenate the results, in shard order.
+     * Each shard is queried in its own read-only transaction on a scatter thread,
+     * with the priority of the calling request; callers that need an order
+     * across shards sort the result themselves.
+     * @param query the per-shard query
+     * @return the results of all shards
+     */
+    public <T> List<T> onAllShards(Supplier<List<T>> query) {
+        if (shardCount == 1) {
+            return onShard(0, query);
+        }
+        RequestPriority priority = RequestPriorityContext.current();
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> queryShard(target, priority, query), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                results.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Run a query on every shard, one after the other on the calling thread, and
+     * concatenate the results in shard order. For work done while beans are being
+     * created: a scatter thread reaching for a bean there would wait on the
+     * singleton lock the caller holds while it waits for the scatter thread.
+     * @param query the per-shard query, run in the caller's transaction if any
+     * @return the results of all shards
+     */
+    public <T> List<T> onEachShard(Supplier<List<T>> query) {
+        List<T> results = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            results.addAll(onShard(shard, query));
+        }
+        return results;
+    }
+
+    /**
+     * Stop the scatter threads, called when the context shuts down
+     */
+    public void close() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    private <T> List<T> queryShard(int shard, RequestPriority priority, Supplier<List<T>> query) {
+        RequestPriorityContext.set(priority);
+        try {
+            return readOnlyTransaction.execute(status -> onShard(shard, query));
+        } finally {
+            RequestPriorityContext.clear();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking.account.statement;
+
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import com.banking.account.feign.ClientFeignClient;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.MovementRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StatementSource} on the account shards, one read-only transaction
+ * per query; months already archived are read from the {@link MovementArchive}
+ * as well. Client names come from the client service.
+ */
+public class JpaStatementSource implements StatementSource {
+
+    private final AccountRepository accountRepository;
+    private final MovementRepository movementRepository;
+    private final MovementArchive movementArchive;
+    private final ClientFeignClient clientFeignClient;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JpaStatementSource(AccountRepository accountRepository,
+                              MovementRepository movementRepository,
+                              MovementArchive movementArchive,
+                              ClientFeignClient clientFeignClient,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.movementArchive = movementArchive;
+        this.clientFeignClient = clientFeignClient;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardRouter.getShardCount();
+    }
+
+    @Override
+    public long countAccounts(int shard) {
+        return inTransaction(shard, accountRepository::count);
+    }
+
+    @Override
+    public List<Account> findAccounts(int shard, int partition, int partitions, long afterClienteId,
+                                      long afterCuentaId, int limit) {
+        return inTransaction(shard, () -> accountRepository.findStatementChunk(partitions, partition,
+                afterClienteId, afterCuentaId, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public List<Movement> findMovements(int shard, Collection<Long> cuentaIds, LocalDateTime fechaInicio,
+                                        LocalDateTime fechaFin) {
+        List<Movement> movements = new ArrayList<>(inTransaction(shard,
+                () -> movementRepository.findForStatements(cuentaIds, fechaInicio, fechaFin)));
+        if (movementArchive.covers(fechaInicio)) {
+            // A month being archived can briefly be in both places
+            Set<Long> inDatabase = movements.stream().map(Movement::getMovimientoId).collect(Collectors.toSet());
+            movementArchive.find(cuentaIds, fechaInicio, fechaFin.minusNanos(1)).stream()
+                    .filter(movement -> !inDatabase.contains(movement.getMovimientoId()))
+                    .forEach(movements::add);
+            movements.sort(Comparator.comparing(Movement::getCuentaId)
+                    .thenComparing(Movement::getSeq, Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+        return movements;
+    }
+
+    @Override
+    public String findClientName(long clienteId) {
+        try {
+            return clientFeignClient.getClientById(clienteId).getNombre();
+        } catch (Exception e) {
+            // As in GET /reportes while the client service is unavailable
+            return "Cliente no disponible";
+        }
+    }
+
+    private <T> T inTransaction(int shard, Supplier<T> work) {
+        return readOnlyTransaction.execute(status -> shardRouter.onShard(shard, work));
+    }
+}
@@ -0,0 +1,474 @@
+package com.banking.account.statement;
+
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Month-end statements for every client, written to local files. Clients are
+ * split into partitions by clienteId modulo the partition count, and the
+ * partitions are built in parallel on a fork-join pool, each into its own file
+ * {@code <directory>/<yyyy-MM>/part-<n>-of-<count>.csv}. A partition reads its
+ * accounts in chunks ordered by client, on every shard at once, and the
+ * month's movements of a whole chunk of accounts in one query; the shards are
+ * merged by client so each client's statement is written in one piece, with
+ * the same rows as GET /reportes.
+ *
+ * A partition is written to a temporary file and renamed when complete. Every
+ * so many clients the file is synced and a checkpoint records the last client
+ * written and the file's length, so a run that stops resumes each partition
+ * from its checkpoint; a month whose partitions are all complete gets a
+ * {@code _DONE} marker and is not built again. The partition count must not
+ * change between the runs of a month.
+ */
+public class StatementBatch {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementBatch.class);
+
+    static final String HEADER = "clienteId,cliente,numeroCuenta,tipo,saldoInicial,estado,fecha,"
+            + "tipoMovimiento,movimiento,saldoDisponible";
+    static final String DONE_MARKER = "_DONE";
+
+    private final StatementSource source;
+    private final Path directory;
+    private final int partitions;
+    private final int threads;
+    private final int chunkSize;
+    private final int checkpointEvery;
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    // Progress of the current or last run, in accounts
+    private final AtomicLong accountsDone = new AtomicLong();
+    private final AtomicLong accountsRead = new AtomicLong();
+    private volatile long accountsTotal;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile boolean running;
+
+    /**
+     * @param source accounts, movements and client names
+     * @param directory where the statement files are written
+     * @param partitions number of client partitions, one file each
+     * @param threads partitions built at once
+     * @param chunkSize accounts read per query
+     * @param checkpointEvery clients written between checkpoints
+     */
+    public StatementBatch(StatementSource source, Path directory, int partitions, int threads, int chunkSize,
+                          int checkpointEvery) {
+        if (partitions < 1 || threads < 1 || chunkSize < 1 || checkpointEvery < 1) {
+            throw new IllegalArgumentException("Partitions, threads, chunk size and checkpoint interval must be positive");
+        }
+        this.source = source;
+        this.directory = directory;
+        this.partitions = partitions;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    /**
+     * Write the statements of a month, resuming from the checkpoints of a previous run
+     * @param month the month
+     * @return true if every partition is complete, false if some failed and are left for the next run
+     */
+    public synchronized boolean run(YearMonth month) {
+        Path monthDirectory = directory.resolve(month.toString());
+        if (isComplete(month)) {
+            return true;
+        }
+        try {
+            Files.createDirectories(monthDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long total = 0;
+        for (int shard = 0; shard < source.getShardCount(); shard++) {
+            total += source.countAccounts(shard);
+        }
+        accountsTotal = total;
+        accountsDone.set(0);
+        accountsRead.set(0);
+        startNanos = System.nanoTime();
+        running = true;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        int failed = 0;
+        long written = 0;
+        try {
+            List<Future<Checkpoint>> tasks = new ArrayList<>(partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                PartitionRun run = new PartitionRun(month, monthDirectory, partition);
+                tasks.add(pool.submit(run::run));
+            }
+            for (int partition = 0; partition < partitions; partition++) {
+                try {
+                    written += tasks.get(partition).get().statements;
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.error("Statements of {} partition {} failed, it resumes from its checkpoint on the next run",
+                            month, partition, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            return false;
+        } finally {
+            pool.shutdown();
+            running = false;
+            endNanos = System.nanoTime();
+        }
+        if (failed > 0) {
+            return false;
+        }
+        try {
+            Files.writeString(monthDirectory.resolve(DONE_MARKER), written + " statements\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * @param month the month
+     * @return true if the month's statements are all written
+     */
+    public boolean isComplete(YearMonth month) {
+        return Files.exists(directory.resolve(month.toString()).resolve(DONE_MARKER));
+    }
+
+    /**
+     * @return statements written so far, over all runs
+     */
+    public long getStatementCount() {
+        return statements.get();
+    }
+
+    /**
+     * @return report rows written so far, over all runs
+     */
+    public long getRowCount() {
+        return rows.get();
+    }
+
+    /**
+     * @return share of the accounts done by the current or last run, checkpointed ones included
+     */
+    public double getProgress() {
+        long total = accountsTotal;
+        return total == 0 ? 0 : Math.min(1, (double) accountsDone.get() / total);
+    }
+
+    /**
+     * @return accounts read per second by the current or last run
+     */
+    public double getThroughput() {
+        long start = startNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long elapsed = (running ? System.nanoTime() : endNanos) - start;
+        return elapsed <= 0 ? 0 : accountsRead.get() * 1e9 / elapsed;
+    }
+
+    /**
+     * @return seconds left in the current run at its throughput so far, NaN if not running or not started yet
+     */
+    public double getEtaSeconds() {
+        double throughput = getThroughput();
+        if (!running || throughput == 0) {
+            return Double.NaN;
+        }
+        return Math.max(0, accountsTotal - accountsDone.get()) / throughput;
+    }
+
+    /**
+     * One partition's statements, written to its file from its checkpoint on
+     */
+    private final class PartitionRun {
+
+        private final LocalDateTime fechaInicio;
+        private final LocalDateTime fechaFin;
+        private final int partition;
+        private final Path file;
+        private final Path temporary;
+        private final Path checkpointFile;
+
+        PartitionRun(YearMonth month, Path monthDirectory, int partition) {
+            this.fechaInicio = month.atDay(1).atStartOfDay();
+            this.fechaFin = month.plusMonths(1).atDay(1).atStartOfDay();
+            this.partition = partition;
+            String name = String.format("part-%03d-of-%03d", partition, partitions);
+            this.file = monthDirectory.resolve(name + ".csv");
+            this.temporary = monthDirectory.resolve(name + ".csv.tmp");
+            this.checkpointFile = monthDirectory.resolve(name + ".checkpoint");
+        }
+
+        /**
+         * @return the partition's complete checkpoint
+         */
+        Checkpoint run() {
+            try {
+                return write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Checkpoint write() throws IOException {
+            Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+            accountsDone.addAndGet(checkpoint.accounts);
+            if (checkpoint.complete) {
+                // Stopped between the last checkpoint and the rename
+                if (Files.exists(temporary)) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return checkpoint;
+            }
+            List<ShardCursor> cursors = new ArrayList<>();
+            for (int shard = 0; shard < source.getShardCount(); shard++) {
+                cursors.add(new ShardCursor(shard, partition, fechaInicio, fechaFin, checkpoint.clienteId));
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Whatever was written after the checkpoint is written again
+                channel.truncate(checkpoint.bytes);
+                channel.position(checkpoint.bytes);
+                Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                        StandardCharsets.UTF_8), 1 << 16);
+                if (checkpoint.bytes == 0) {
+                    out.write(HEADER);
+                    out.write('\n');
+                }
+                int sinceCheckpoint = 0;
+                Long clienteId;
+                while ((clienteId = nextClient(cursors)) != null) {
+                    List<AccountMonth> accounts = new ArrayList<>();
+                    for (ShardCursor cursor : cursors) {
+                        while (cursor.peek() != null && cursor.peek().getClienteId().equals(clienteId)) {
+                            accounts.add(cursor.next());
+                        }
+                    }
+                    int written = writeStatement(out, clienteId, accounts);
+                    checkpoint = checkpoint.next(clienteId, accounts.size(), written);
+                    accountsDone.addAndGet(accounts.size());
+                    accountsRead.addAndGet(accounts.size());
+                    if (written > 0) {
+                        statements.incrementAndGet();
+                        rows.addAndGet(written);
+                    }
+                    if (++sinceCheckpoint == checkpointEvery) {
+                        checkpoint = save(out, channel, checkpoint, false);
+                        sinceCheckpoint = 0;
+                    }
+                }
+                checkpoint = save(out, channel, checkpoint, true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Statements of partition {} written to {}", partition, file);
+            return checkpoint;
+        }
+
+        /**
+         * @return the lowest client among the cursors' next accounts, null once all are read
+         */
+        private Long nextClient(List<ShardCursor> cursors) {
+            Long lowest = null;
+            for (ShardCursor cursor : cursors) {
+                Account next = cursor.peek();
+                if (next != null && (lowest == null || next.getClienteId() < lowest)) {
+                    lowest = next.getClienteId();
+                }
+            }
+            return lowest;
+        }
+
+        /**
+         * Write a client's rows, by account and seq; a client without movements in the month has none
+         * @return rows written
+         */
+        private int writeStatement(Writer out, long clienteId, List<AccountMonth> accounts) throws IOException {
+            accounts.sort(Comparator.comparing(accountMonth -> accountMonth.account.getCuentaId()));
+            if (accounts.stream().allMatch(accountMonth -> accountMonth.movements.isEmpty())) {
+                return 0;
+            }
+            String cliente = csv(source.findClientName(clienteId));
+            int written = 0;
+            for (AccountMonth accountMonth : accounts) {
+                Account account = accountMonth.account;
+                String accountColumns = csv(account.getNumeroCuenta()) + ',' + csv(account.getTipoCuenta()) + ','
+                        + account.getSaldoInicial().toPlainString() + ',' + account.getEstado();
+                for (Movement movement : accountMonth.movements) {
+                    out.write(clienteId + "," + cliente + ',' + accountColumns + ',' + movement.getFecha() + ','
+                            + csv(movement.getTipoMovimiento()) + ',' + movement.getValor().toPlainString() + ','
+                            + movement.getSaldo().toPlainString() + '\n');
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        /**
+         * Sync what is written and record it, the rename follows a complete checkpoint
+         */
+        private Checkpoint save(Writer out, FileChannel channel, Checkpoint checkpoint, boolean complete)
+                throws IOException {
+            out.flush();
+            channel.force(false);
+            Checkpoint saved = checkpoint.at(channel.position(), complete);
+            saved.write(checkpointFile);
+            return saved;
+        }
+    }
+
+    /**
+     * Accounts of one partition on one shard, read a chunk at a time with the
+     * month's movements of the whole chunk
+     */
+    private final class ShardCursor {
+
+        private final int shard;
+        private final int partition;
+        private final LocalDateTime fechaInicio;
+        private final LocalDateTime fechaFin;
+        private List<Account> chunk = List.of();
+        private Map<Long, List<Movement>> movements = Map.of();
+        private int index;
+        private boolean exhausted;
+        private long lastClienteId;
+        private long lastCuentaId = Long.MAX_VALUE;
+
+        ShardCursor(int shard, int partition, LocalDateTime fechaInicio, LocalDateTime fechaFin, long afterClienteId) {
+            this.shard = shard;
+            this.partition = partition;
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+            // Every account of a client after this one
+            this.lastClienteId = afterClienteId;
+        }
+
+        Account peek() {
+            if (index == chunk.size()) {
+                if (exhausted) {
+                    return null;
+                }
+                chunk = source.findAccounts(shard, partition, partitions, lastClienteId, lastCuentaId, chunkSize);
+                index = 0;
+                exhausted = chunk.size() < chunkSize;
+                if (chunk.isEmpty()) {
+                    return null;
+                }
+                movements = new HashMap<>(source.findMovements(shard,
+                        chunk.stream().map(Account::getCuentaId).collect(Collectors.toList()), fechaInicio, fechaFin)
+                        .stream()
+                        .collect(Collectors.groupingBy(Movement::getCuentaId)));
+            }
+            return chunk.get(index);
+        }
+
+        AccountMonth next() {
+            Account account = chunk.get(index++);
+            lastClienteId = account.getClienteId();
+            lastCuentaId = account.getCuentaId();
+            return new AccountMonth(account, movements.getOrDefault(account.getCuentaId(), List.of()));
+        }
+    }
+
+    private static final class AccountMonth {
+
+        private final Account account;
+        private final List<Movement> movements;
+
+        AccountMonth(Account account, List<Movement> movements) {
+            this.account = account;
+            this.movements = movements;
+        }
+    }
+
+    /**
+     * How far a partition's file got: the last client written, the file's
+     * length after it, and what was written up to it
+     */
+    static final class Checkpoint {
+
+        private final long clienteId;
+        private final long bytes;
+        private final long accounts;
+        private final long statements;
+        private final long rows;
+        private final boolean complete;
+
+        Checkpoint(long clienteId, long bytes, long accounts, long statements, long rows, boolean complete) {
+            this.clienteId = clienteId;
+            this.bytes = bytes;
+            this.accounts = accounts;
+            this.statements = statements;
+            this.rows = rows;
+            this.complete = complete;
+        }
+
+        static Checkpoint read(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return new Checkpoint(Long.MIN_VALUE, 0, 0, 0, 0, false);
+            }
+            String[] fields = Files.readString(file).trim().split(" ");
+            return new Checkpoint(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    Long.parseLong(fields[3]), Long.parseLong(fields[4]), Boolean.parseBoolean(fields[5]));
+        }
+
+        Checkpoint next(long clienteId, int accounts, int rows) {
+            return new Checkpoint(clienteId, bytes, this.accounts + accounts, statements + (rows > 0 ? 1 : 0),
+                    this.rows + rows, false);
+        }
+
+        Checkpoint at(long bytes, boolean complete) {
+            return new Checkpoint(clienteId, bytes, accounts, statements, rows, complete);
+        }
+
+        void write(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, clienteId + " " + bytes + " " + accounts + " " + statements + " " + rows
+                    + " " + complete + "\n", StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Quote a field holding a comma, quote or line break
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
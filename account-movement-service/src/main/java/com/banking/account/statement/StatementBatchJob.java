@@ -0,0 +1,44 @@
+package com.banking.account.statement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Writes last month's statements with the {@link StatementBatch}. It runs
+ * every day: the first run of a month writes them, a later one resumes a run
+ * that did not finish and otherwise finds the month complete. Only one
+ * instance should run it.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "statement-batch.enabled", havingValue = "true")
+public class StatementBatchJob {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementBatchJob.class);
+
+    private final StatementBatch statementBatch;
+
+    public StatementBatchJob(StatementBatch statementBatch) {
+        this.statementBatch = statementBatch;
+    }
+
+    @Scheduled(cron = "${statement-batch.cron:0 0 3 * * *}")
+    public void writeLastMonth() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        if (statementBatch.isComplete(month)) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (statementBatch.run(month)) {
+            log.info("Statements of {} written in {} s", month, (System.nanoTime() - start) / 1_000_000_000);
+        } else {
+            log.warn("Statements of {} are incomplete, the next run resumes them", month);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.banking.account.statement;
+
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where {@link StatementBatch} reads accounts, movements and client names from
+ */
+public interface StatementSource {
+
+    /**
+     * @return number of shards, read one at a time
+     */
+    int getShardCount();
+
+    /**
+     * @param shard the shard
+     * @return accounts on the shard, for progress
+     */
+    long countAccounts(int shard);
+
+    /**
+     * Next accounts of a partition of clients on a shard, ordered by client and account
+     * @param shard the shard
+     * @param partition the partition, clienteId modulo partitions
+     * @param partitions number of partitions
+     * @param afterClienteId client of the last account read
+     * @param afterCuentaId the last account read
+     * @param limit most accounts returned
+     * @return the accounts, fewer than the limit once the partition is read
+     */
+    List<Account> findAccounts(int shard, int partition, int partitions, long afterClienteId, long afterCuentaId,
+                               int limit);
+
+    /**
+     * Movements of some accounts in a period, ordered by account and seq
+     * @param shard the accounts' shard
+     * @param cuentaIds the accounts
+     * @param fechaInicio start of the period, inclusive
+     * @param fechaFin end of the period, exclusive
+     * @return the movements
+     */
+    List<Movement> findMovements(int shard, Collection<Long> cuentaIds, LocalDateTime fechaInicio,
+                                 LocalDateTime fechaFin);
+
+    /**
+     * @param clienteId the client ID
+     * @return the client's name as shown on the statement
+     */
+    String findClientName(long clienteId);
+}
@@ -0,0 +1,47 @@
+package com.banking.account.velocity;
+
+import java.time.Duration;
+
+/**
+ * Matches a withdrawal that would make more than a number of withdrawals from
+ * the account within a period, this one included
+ */
+public final class BurstRule implements VelocityRule {
+
+    private final int maxWithdrawals;
+    private final long periodMillis;
+    private final VelocityDecision action;
+
+    /**
+     * @param maxWithdrawals withdrawals allowed within the period, less than the window's capacity
+     * @param period the period, counting back from the withdrawal
+     * @param action what happens to a withdrawal over the limit
+     */
+    public BurstRule(int maxWithdrawals, Duration period, VelocityDecision action) {
+        if (maxWithdrawals < 1) {
+            throw new IllegalArgumentException("A burst is at least one withdrawal");
+        }
+        this.maxWithdrawals = maxWithdrawals;
+        this.periodMillis = period.toMillis();
+        this.action = action;
+    }
+
+    public int getMaxWithdrawals() {
+        return maxWithdrawals;
+    }
+
+    @Override
+    public String getName() {
+        return "burst";
+    }
+
+    @Override
+    public VelocityDecision getAction() {
+        return action;
+    }
+
+    @Override
+    public boolean matches(WithdrawalWindow window, long now, long cents) {
+        return window.size() >= maxWithdrawals && window.countSince(now - periodMillis) >= maxWithdrawals;
+    }
+}
@@ -0,0 +1,51 @@
+package com.banking.account.velocity;
+
+/**
+ * Matches a withdrawal far above what the account usually withdraws: more than
+ * a number of standard deviations over the mean of its latest withdrawals, and
+ * more than a multiple of that mean, so that an account that always withdraws
+ * the same amount is not flagged for a slightly larger one. Accounts with too
+ * short a history are not checked.
+ */
+public final class UnusualAmountRule implements VelocityRule {
+
+    private final int minHistory;
+    private final double deviations;
+    private final double multiple;
+    private final VelocityDecision action;
+
+    /**
+     * @param minHistory withdrawals the account needs before its amounts are checked
+     * @param deviations standard deviations over the mean an unusual amount exceeds
+     * @param multiple times the mean an unusual amount exceeds
+     * @param action what happens to an unusual withdrawal
+     */
+    public UnusualAmountRule(int minHistory, double deviations, double multiple, VelocityDecision action) {
+        if (minHistory < 2) {
+            throw new IllegalArgumentException("An account's history needs at least two withdrawals");
+        }
+        this.minHistory = minHistory;
+        this.deviations = deviations;
+        this.multiple = multiple;
+        this.action = action;
+    }
+
+    @Override
+    public String getName() {
+        return "unusual-amount";
+    }
+
+    @Override
+    public VelocityDecision getAction() {
+        return action;
+    }
+
+    @Override
+    public boolean matches(WithdrawalWindow window, long now, long cents) {
+        if (window.size() < minHistory) {
+            return false;
+        }
+        double mean = window.mean();
+        return cents > mean * multiple && cents > mean + deviations * window.deviation(mean);
+    }
+}
@@ -0,0 +1,24 @@
+package com.banking.account.velocity;
+
+/**
+ * Outcome of the velocity checks on a withdrawal, least severe first
+ */
+public enum VelocityDecision {
+
+    /** Posted as usual */
+    ALLOW,
+
+    /** Posted, and logged for review */
+    FLAG,
+
+    /** Refused */
+    BLOCK;
+
+    /**
+     * @param other another decision
+     * @return the more severe of the two
+     */
+    public VelocityDecision max(VelocityDecision other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
@@ -0,0 +1,272 @@
+package com.banking.account.velocity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Velocity checks on withdrawals as they are posted. Every account that
+ * withdraws has a {@link WithdrawalWindow} of its latest withdrawals in
+ * memory, and every withdrawal is checked against the rules with its window
+ * locked, before it is posted: the most severe action of the rules it matches
+ * decides whether it is refused (BLOCK), logged (FLAG) or simply posted.
+ * A withdrawal that is not refused is reserved in its window before the lock
+ * is let go, so withdrawals checked at the same time count each other; one
+ * that is then not posted is released again.
+ *
+ * The checks must not slow postings down: they read only the window, and
+ * a check that runs out of its latency budget skips the FLAG rules left and
+ * counts as over budget. BLOCK rules are never skipped: a check that cannot
+ * lock its window within the budget waits for it, which only takes as long
+ * as another check on the same account, without BLOCK rules it lets the
+ * withdrawal through unreserved. Windows idle for longer than the idle
+ * timeout are dropped. Like the daily caps, the windows only see the withdrawals of one
+ * instance: the checks hold if one instance posts an account's withdrawals.
+ */
+public class VelocityEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityEngine.class);
+
+    private final List<VelocityRule> rules;
+    private final boolean blocking;
+    private final int historySize;
+    private final long budgetNanos;
+    private final long idleMillis;
+    private final LongConsumer evaluationTimes;
+    private final Map<Long, WithdrawalWindow> windows = new ConcurrentHashMap<>();
+    private final Map<VelocityDecision, LongAdder> decisions = new EnumMap<>(VelocityDecision.class);
+    private final LongAdder overBudget = new LongAdder();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * @param rules the rules, checked in order
+     * @param historySize withdrawals kept per account
+     * @param latencyBudget longest a check may take before the withdrawal is let through
+     * @param idleTimeout how long an account's window is kept after its latest withdrawal
+     * @param evaluationTimes receives the duration of every check, in nanoseconds
+     */
+    public VelocityEngine(List<VelocityRule> rules, int historySize, Duration latencyBudget, Duration idleTimeout,
+                          LongConsumer evaluationTimes) {
+        for (VelocityRule rule : rules) {
+            if (rule instanceof BurstRule && ((BurstRule) rule).getMaxWithdrawals() > historySize) {
+                throw new IllegalArgumentException("The history must keep at least the withdrawals of a burst");
+            }
+        }
+        this.rules = List.copyOf(rules);
+        this.blocking = rules.stream().anyMatch(rule -> rule.getAction() == VelocityDecision.BLOCK);
+        this.historySize = historySize;
+        this.budgetNanos = latencyBudget.toNanos();
+        this.idleMillis = idleTimeout.toMillis();
+        this.evaluationTimes = evaluationTimes;
+        for (VelocityDecision decision : VelocityDecision.values()) {
+            decisions.put(decision, new LongAdder());
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "velocity-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1, Math.min(idleMillis, TimeUnit.MINUTES.toMillis(10)));
+        sweeper.scheduleWithFixedDelay(() -> sweep(System.currentTimeMillis()),
+                sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Check a withdrawal about to be posted, and reserve it in its account's
+     * window unless it is refused
+     * @param cuentaId the account ID
+     * @param cents the amount
+     * @param now the withdrawal's time in epoch milliseconds, to {@link #release} it with
+     * @return what to do with it
+     */
+    public VelocityDecision evaluate(Long cuentaId, long cents, long now) {
+        long start = System.nanoTime();
+        VelocityDecision decision = evaluate(cuentaId, cents, now, start);
+        decisions.get(decision).increment();
+        evaluationTimes.accept(System.nanoTime() - start);
+        return decision;
+    }
+
+    /**
+     * Release a withdrawal that was checked but not posted
+     * @param cuentaId the account ID
+     * @param cents the amount
+     * @param time the time it was checked with, in epoch milliseconds
+     */
+    public void release(Long cuentaId, long cents, long time) {
+        WithdrawalWindow window = windows.get(cuentaId);
+        if (window == null) {
+            return;
+        }
+        window.getLock().lock();
+        try {
+            window.remove(time, cents);
+        } finally {
+            window.getLock().unlock();
+        }
+    }
+
+    /**
+     * Add a withdrawal posted without a check to its account's window
+     * @param cuentaId the account ID
+     * @param cents the amount
+     * @param time when it was posted, in epoch milliseconds
+     */
+    public void record(Long cuentaId, long cents, long time) {
+        WithdrawalWindow window = lockWindow(cuentaId);
+        try {
+            window.record(time, cents);
+        } finally {
+            window.getLock().unlock();
+        }
+    }
+
+    /**
+     * @param decision a decision
+     * @return withdrawals checked with that outcome so far
+     */
+    public long getDecisionCount(VelocityDecision decision) {
+        return decisions.get(decision).sum();
+    }
+
+    /**
+     * @return checks that ran out of their latency budget
+     */
+    public long getOverBudgetCount() {
+        return overBudget.sum();
+    }
+
+    /**
+     * @return accounts with a window in memory
+     */
+    public int getAccountCount() {
+        return windows.size();
+    }
+
+    WithdrawalWindow window(Long cuentaId) {
+        return windows.get(cuentaId);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sweeper.shutdown();
+        sweeper.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private VelocityDecision evaluate(Long cuentaId, long cents, long now, long start) {
+        VelocityDecision decision = VelocityDecision.ALLOW;
+        WithdrawalWindow window;
+        try {
+            window = lockWindow(cuentaId, start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Refused rather than posted unchecked
+            return blocking ? VelocityDecision.BLOCK : decision;
+        }
+        if (window == null) {
+            overBudget.increment();
+            return decision;
+        }
+        VelocityRule matched = null;
+        boolean skipped = false;
+        try {
+            for (VelocityRule rule : rules) {
+                if (rule.getAction() != VelocityDecision.BLOCK && System.nanoTime() - start > budgetNanos) {
+                    skipped = true;
+                    continue;
+                }
+                if (rule.matches(window, now, cents) && rule.getAction().max(decision) != decision) {
+                    decision = rule.getAction();
+                    matched = rule;
+                    if (decision == VelocityDecision.BLOCK) {
+                        break;
+                    }
+                }
+            }
+            if (decision != VelocityDecision.BLOCK) {
+                window.record(now, cents);
+            }
+        } finally {
+            window.getLock().unlock();
+        }
+        if (skipped || System.nanoTime() - start > budgetNanos) {
+            overBudget.increment();
+        }
+        if (matched != null) {
+            log.warn("Withdrawal of {} cents from account {} matched velocity rule {}: {}",
+                    cents, cuentaId, matched.getName(), decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Lock an account's window within the latency budget, creating it if need be.
+     * Only waits for another check on the same account; with BLOCK rules it
+     * waits on past the budget rather than let the withdrawal through.
+     * @return the window, locked; null if it could not be locked in time
+     */
+    private WithdrawalWindow lockWindow(Long cuentaId, long start) throws InterruptedException {
+        while (true) {
+            WithdrawalWindow window = windows.computeIfAbsent(cuentaId, id -> new WithdrawalWindow(historySize));
+            ReentrantLock lock = window.getLock();
+            if (!lock.tryLock(budgetNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS)) {
+                if (!blocking) {
+                    return null;
+                }
+                lock.lockInterruptibly();
+            }
+            if (windows.get(cuentaId) == window) {
+                return window;
+            }
+            // Dropped by the sweeper in the meantime
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lock an account's window, creating it if need be
+     */
+    private WithdrawalWindow lockWindow(Long cuentaId) {
+        while (true) {
+            WithdrawalWindow window = windows.computeIfAbsent(cuentaId, id -> new WithdrawalWindow(historySize));
+            window.getLock().lock();
+            if (windows.get(cuentaId) == window) {
+                return window;
+            }
+            window.getLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the windows of accounts that have not withdrawn for the idle timeout.
+     * A window is only dropped with its lock held, and a check that locked it
+     * makes sure it is still the account's window.
+     * @param now epoch milliseconds
+     */
+    void sweep(long now) {
+        for (Map.Entry<Long, WithdrawalWindow> entry : windows.entrySet()) {
+            WithdrawalWindow window = entry.getValue();
+            if (window.latest() >= now - idleMillis || !window.getLock().tryLock()) {
+                continue;
+            }
+            try {
+                if (window.latest() < now - idleMillis) {
+                    windows.remove(entry.getKey(), window);
+                }
+            } finally {
+                window.getLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.banking.account.velocity;
+
+/**
+ * A check on a withdrawal against the account's recent withdrawals
+ */
+public interface VelocityRule {
+
+    /**
+     * @return the rule's name, as logged and in the velocity.decisions metric
+     */
+    String getName();
+
+    /**
+     * @return what happens to a withdrawal the rule matches
+     */
+    VelocityDecision getAction();
+
+    /**
+     * Called with the window locked; must not block
+     * @param window the account's recent withdrawals
+     * @param now the withdrawal's time in epoch milliseconds
+     * @param cents the withdrawal's amount
+     * @return true if the withdrawal matches
+     */
+    boolean matches(WithdrawalWindow window, long now, long cents);
+}
@@ -0,0 +1,137 @@
+package com.banking.account.velocity;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An account's latest withdrawals, in a ring buffer of primitive arrays: the
+ * time and amount of the newest ones, up to the window's capacity, with the
+ * oldest overwritten. A few hundred bytes per account, and no allocation to
+ * record or read a withdrawal. Read and written under the window's lock.
+ */
+public final class WithdrawalWindow {
+
+    private final long[] times;
+    private final long[] amounts;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Where the next withdrawal goes, and how many slots are filled
+    private int next;
+    private int size;
+    private volatile long latest;
+
+    /**
+     * @param capacity withdrawals kept
+     */
+    public WithdrawalWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A window keeps at least one withdrawal");
+        }
+        this.times = new long[capacity];
+        this.amounts = new long[capacity];
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * @param time the withdrawal's time in epoch milliseconds
+     * @param cents the withdrawal's amount
+     */
+    void record(long time, long cents) {
+        times[next] = time;
+        amounts[next] = cents;
+        next = (next + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+        latest = Math.max(latest, time);
+    }
+
+    /**
+     * Drop a withdrawal that was not posted after all: the newest one kept
+     * with that time and amount; the newer ones move down a slot
+     * @param time the withdrawal's time in epoch milliseconds
+     * @param cents the withdrawal's amount
+     * @return false if none is kept, it was overwritten already
+     */
+    boolean remove(long time, long cents) {
+        for (int age = 0; age < size; age++) {
+            if (times[slot(age)] == time && amounts[slot(age)] == cents) {
+                for (int newer = age; newer > 0; newer--) {
+                    times[slot(newer)] = times[slot(newer - 1)];
+                    amounts[slot(newer)] = amounts[slot(newer - 1)];
+                }
+                next = slot(0);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return withdrawals kept, at most the capacity
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return time of the newest withdrawal, 0 if none; readable without the lock
+     */
+    public long latest() {
+        return latest;
+    }
+
+    /**
+     * @param since epoch milliseconds
+     * @return withdrawals kept at or after that time
+     */
+    public int countSince(long since) {
+        int count = 0;
+        for (int age = 0; age < size; age++) {
+            if (times[slot(age)] >= since) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return mean amount of the withdrawals kept, in cents; 0 if none
+     */
+    public double mean() {
+        if (size == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int age = 0; age < size; age++) {
+            sum += amounts[slot(age)];
+        }
+        return (double) sum / size;
+    }
+
+    /**
+     * @param mean the mean amount
+     * @return standard deviation of the amounts kept, in cents; 0 if none
+     */
+    public double deviation(double mean) {
+        if (size == 0) {
+            return 0;
+        }
+        double squares = 0;
+        for (int age = 0; age < size; age++) {
+            double difference = amounts[slot(age)] - mean;
+            squares += difference * difference;
+        }
+        return Math.sqrt(squares / size);
+    }
+
+    /**
+     * @param age 0 for the newest withdrawal kept, up to size - 1 for the oldest
+     * @return where it is kept
+     */
+    private int slot(int age) {
+        return Math.floorMod(next - 1 - age, times.length);
+    }
+}
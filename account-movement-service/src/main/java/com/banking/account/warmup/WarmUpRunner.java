@@ -0,0 +1,198 @@
+package com.banking.account.warmup;
+
+import com.banking.account.dto.AccountDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.entity.Account;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.service.AccountService;
+import com.banking.account.service.MovementService;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warm-up run before the instance takes traffic.
+ * The instance registers with Eureka as STARTING (eureka.instance.initial-status)
+ * and the readiness probe keeps reporting REFUSING_TRAFFIC until the
+ * ApplicationReadyEvent listeners return. In between, the connection pool is
+ * filled and the account, posting, balance, report and client lookup paths are
+ * run against a throwaway account inside rollback-only transactions, so the JIT,
+ * Hibernate and the Feign client are warm when the first real request arrives.
+ */
+@Component
+public class WarmUpRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final AccountService accountService;
+    private final MovementService movementService;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    @Autowired
+    public WarmUpRunner(AccountService accountService,
+                        MovementService movementService,
+                        AccountRepository accountRepository,
+                        PlatformTransactionManager transactionManager,
+                        DataSource dataSource,
+                        ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                        @Value("${warmup.enabled:true}") boolean enabled,
+                        @Value("${warmup.iterations:200}") int iterations,
+                        @Value("${warmup.max-duration:30s}") Duration maxDuration) {
+        this.accountService = accountService;
+        this.movementService = movementService;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.applicationInfoManager = applicationInfoManager;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Warm up, then mark the instance UP in Eureka.
+     * Spring Boot switches readiness to ACCEPTING_TRAFFIC right after this returns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            long start = System.nanoTime();
+            fillConnectionPool();
+            int completed = exerciseCodePaths(start + maxDuration.toNanos());
+            log.info("Warm-up ran {} of {} iterations in {} ms", completed, iterations,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+        applicationInfoManager.ifAvailable(manager -> manager.setInstanceStatus(InstanceStatus.UP));
+    }
+
+    /**
+     * Hold as many connections as the pool keeps idle at the same time, so each is opened now
+     */
+    void fillConnectionPool() {
+        int size = 1;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                size = Math.max(dataSource.unwrap(HikariDataSource.class).getMinimumIdle(), 1);
+            }
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up opened {} of {} pool connections: {}", connections.size(), size, e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Could not return warm-up connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the request code paths until the iterations or the time budget run out
+     * @param deadlineNanos {@link System#nanoTime()} value after which no new iteration starts
+     * @return the number of iterations completed
+     */
+    int exerciseCodePaths(long deadlineNanos) {
+        String numeroCuenta = freeAccountNumber();
+        if (numeroCuenta == null) {
+            log.warn("Warm-up skipped, no free account number for the synthetic account");
+            return 0;
+        }
+        Long clienteId = existingClientId();
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() - deadlineNanos < 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    runIteration(numeroCuenta, clienteId);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Warm-up stopped after {} iterations: {}", completed, e.getMessage());
+                break;
+            }
+            completed++;
+        }
+        return completed;
+    }
+
+    private void runIteration(String numeroCuenta, Long clienteId) {
+        AccountDto account = accountService.createAccount(
+                new AccountDto(numeroCuenta, "Ahorro", AMOUNT, true, clienteId));
+        Long cuentaId = account.getCuentaId();
+
+        // Ledger postings are durable once journaled, they cannot be rolled back
+        if (!movementService.isLedgerEnabled()) {
+            movementService.createMovement(movement("Deposito", cuentaId));
+            movementService.createMovement(movement("Retiro", cuentaId));
+        }
+        movementService.getCurrentBalance(cuentaId);
+        movementService.getMovementsByAccountId(cuentaId);
+        accountService.getAccountsByClienteId(clienteId);
+
+        // The report looks the client up through Feign and the load balancer
+        LocalDateTime now = LocalDateTime.now();
+        movementService.generateAccountStatementReport(clienteId, now.minusDays(1), now.plusDays(1));
+    }
+
+    /**
+     * The synthetic account belongs to an existing client, since cuentas.cliente_id
+     * references clientes in the MySQL schema
+     */
+    private Long existingClientId() {
+        return accountRepository.findAll(PageRequest.of(0, 1)).stream()
+                .map(Account::getClienteId)
+                .findFirst()
+                .orElse(0L);
+    }
+
+    private String freeAccountNumber() {
+        for (int candidate = 999_999; candidate > 999_899; candidate--) {
+            String numeroCuenta = Integer.toString(candidate);
+            // Looked up on every shard, a number must be free on all of them
+            if (accountService.getAccountByNumeroCuenta(numeroCuenta).isEmpty()) {
+                return numeroCuenta;
+            }
+        }
+        return null;
+    }
+
+    private static MovementDto movement(String tipoMovimiento, Long cuentaId) {
+        MovementDto dto = new MovementDto();
+        dto.setTipoMovimiento(tipoMovimiento);
+        dto.setValor(AMOUNT);
+        dto.setCuentaId(cuentaId);
+        return dto;
+    }
+}
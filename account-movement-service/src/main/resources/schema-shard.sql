@@ -0,0 +1,55 @@
+-- Schema of one account shard, run on every shard at startup (sharding.initialize-schema).
+-- Portable between MySQL and H2. Ids are assigned by the service (see ShardIdGenerator),
+-- and clientes lives in another service's database, so cliente_id has no foreign key here.
+
+CREATE TABLE IF NOT EXISTS cuentas (
+    cuenta_id BIGINT PRIMARY KEY,
+    numero_cuenta VARCHAR(6) NOT NULL UNIQUE,
+    tipo_cuenta VARCHAR(20) NOT NULL,
+    saldo_inicial DECIMAL(10,2) NOT NULL,
+    estado BOOLEAN NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    -- Bumped by every posting and update, for optimistic locking (account-locking.mode)
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS movimientos (
+    movimiento_id BIGINT PRIMARY KEY,
+    fecha TIMESTAMP(6) NOT NULL,
+    tipo_movimiento VARCHAR(20) NOT NULL,
+    valor DECIMAL(10,2) NOT NULL,
+    saldo DECIMAL(10,2) NOT NULL,
+    cuenta_id BIGINT NOT NULL,
+    seq BIGINT NOT NULL,
+    -- Latest movement of an account and history pages are lookups on this index
+    CONSTRAINT uk_movimientos_cuenta_seq UNIQUE (cuenta_id, seq),
+    FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
+);
+
+-- Movements of hot accounts accepted but not yet merged into movimientos (hot-accounts.enabled)
+CREATE TABLE IF NOT EXISTS movimientos_pendientes (
+    movimiento_id BIGINT PRIMARY KEY,
+    cuenta_id BIGINT NOT NULL,
+    ranura INT NOT NULL,
+    orden BIGINT NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL,
+    tipo_movimiento VARCHAR(20) NOT NULL,
+    valor DECIMAL(10,2) NOT NULL,
+    CONSTRAINT uk_movimientos_pendientes_orden UNIQUE (cuenta_id, ranura, orden),
+    FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
+);
+
+-- Active authorization holds only, a hold's row is deleted when it is captured, released or expires
+CREATE TABLE IF NOT EXISTS retenciones (
+    retencion_id BIGINT PRIMARY KEY,
+    cuenta_id BIGINT NOT NULL,
+    valor DECIMAL(10,2) NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL,
+    fecha_expiracion TIMESTAMP(6) NOT NULL,
+    FOREIGN KEY (cuenta_id) REFERENCES cuentas(cuenta_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS id_secuencias (
+    nombre VARCHAR(50) PRIMARY KEY,
+    siguiente BIGINT NOT NULL
+);
@@ -0,0 +1,33 @@
+package com.banking.account;
+
+import com.banking.account.hold.HoldExpiryJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke test: the application context starts with the shipped application.yml,
+ * only the database swapped for an in-memory H2 one
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:smoke;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "eureka.client.enabled=false",
+        "warmup.enabled=false"
+})
+class AccountMovementServiceApplicationTest {
+
+    @Autowired
+    private HoldExpiryJob holdExpiryJob;
+
+    @Test
+    void contextLoads() {
+        assertNotNull(holdExpiryJob);
+    }
+}
@@ -0,0 +1,165 @@
+package com.banking.account.archive;
+
+import com.banking.account.entity.Movement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovementArchive and ArchiveSegment
+ */
+class MovementArchiveTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2020, 3);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void write_RoundTripsEveryColumn() {
+        // Given
+        MovementArchive archive = archive();
+        Movement movement = movement(7L, 41L, MONTH.atDay(5).atTime(10, 30, 15, 123_456_000), "Retiro", "575.25", "1425.75");
+
+        // When
+        archive.write(MONTH, 0, 0, 99, List.of(movement));
+        List<Movement> found = archive.find(Set.of(41L), null, null);
+
+        // Then
+        assertEquals(1, found.size());
+        Movement read = found.get(0);
+        assertEquals(7L, read.getMovimientoId());
+        assertEquals(41L, read.getCuentaId());
+        assertEquals(movement.getFecha(), read.getFecha());
+        assertEquals("Retiro", read.getTipoMovimiento());
+        assertEquals(new BigDecimal("575.25"), read.getValor());
+        assertEquals(new BigDecimal("1425.75"), read.getSaldo());
+        assertEquals(7L, read.getSeq());
+    }
+
+    @Test
+    void find_FiltersByAccountAndDateRange_NewestFirst() {
+        // Given
+        MovementArchive archive = archive();
+        List<Movement> movements = new ArrayList<>();
+        long id = 1;
+        for (long cuentaId = 10; cuentaId < 20; cuentaId++) {
+            for (int day = 1; day <= 28; day++) {
+                movements.add(movement(id++, cuentaId, MONTH.atDay(day).atStartOfDay(), "Deposito", "10.00", day + "0.00"));
+            }
+        }
+        archive.write(MONTH, 0, 0, 99, movements);
+
+        // When
+        List<Movement> found = archive.find(Set.of(12L, 15L),
+                MONTH.atDay(10).atStartOfDay(), MONTH.atDay(12).atStartOfDay());
+
+        // Then
+        assertEquals(6, found.size());
+        assertTrue(found.stream().allMatch(m -> m.getCuentaId() == 12L || m.getCuentaId() == 15L));
+        for (int i = 1; i < found.size(); i++) {
+            assertFalse(found.get(i).getFecha().isAfter(found.get(i - 1).getFecha()));
+        }
+    }
+
+    @Test
+    void find_OutsideSegmentRanges_ReadsNothing() {
+        // Given
+        MovementArchive archive = archive();
+        archive.write(MONTH, 0, 0, 99, List.of(
+                movement(1L, 10L, MONTH.atDay(1).atStartOfDay(), "Deposito", "10.00", "10.00")));
+
+        // When & Then
+        assertTrue(archive.find(Set.of(500L), null, null).isEmpty());
+        assertTrue(archive.find(Set.of(10L), MONTH.plusMonths(1).atDay(1).atStartOfDay(), null).isEmpty());
+        assertFalse(archive.covers(MONTH.plusMonths(1).atDay(1).atStartOfDay()));
+        assertTrue(archive.covers(MONTH.atDay(1).atStartOfDay()));
+    }
+
+    @Test
+    void findLatest_ReturnsLastMovementOfNewestMonth() {
+        // Given
+        MovementArchive archive = archive();
+        archive.write(MONTH, 0, 0, 99, List.of(
+                movement(1L, 10L, MONTH.atDay(3).atStartOfDay(), "Deposito", "10.00", "110.00")));
+        YearMonth next = MONTH.plusMonths(1);
+        archive.write(next, 0, 0, 99, List.of(
+                movement(2L, 10L, next.atDay(3).atStartOfDay(), "Deposito", "5.00", "115.00"),
+                movement(3L, 10L, next.atDay(9).atStartOfDay(), "Retiro", "15.00", "100.00")));
+
+        // When
+        Optional<Movement> latest = archive.findLatest(10L);
+
+        // Then
+        assertTrue(latest.isPresent());
+        assertEquals(3L, latest.get().getMovimientoId());
+        assertEquals(new BigDecimal("100.00"), latest.get().getSaldo());
+    }
+
+    @Test
+    void findLatest_SameInstant_ReturnsHighestSeq() {
+        // Given two movements posted within the same clock tick
+        MovementArchive archive = archive();
+        LocalDateTime fecha = MONTH.atDay(3).atStartOfDay();
+        Movement second = movement(4L, 10L, fecha, "Retiro", "5.00", "95.00");
+        second.setSeq(2L);
+        Movement first = movement(8L, 10L, fecha, "Deposito", "100.00", "100.00");
+        first.setSeq(1L);
+        archive.write(MONTH, 0, 0, 99, List.of(second, first));
+
+        // When
+        Optional<Movement> latest = archive.findLatest(10L);
+
+        // Then
+        assertTrue(latest.isPresent());
+        assertEquals(2L, latest.get().getSeq());
+        assertEquals(new BigDecimal("95.00"), latest.get().getSaldo());
+    }
+
+    @Test
+    void constructor_LoadsExistingSegments() {
+        // Given
+        archive().write(MONTH, 1, 100, 199, List.of(
+                movement(5L, 150L, MONTH.atDay(2).atStartOfDay(), "Deposito", "20.00", "20.00")));
+
+        // When
+        MovementArchive reopened = archive();
+
+        // Then
+        assertEquals(1, reopened.getSegmentCount());
+        assertEquals(1, reopened.find(Set.of(150L), null, null).size());
+    }
+
+    @Test
+    void covers_RangeInHotMonths_IsFalse() {
+        // Given
+        MovementArchive archive = archive();
+        archive.write(MONTH, 0, 0, 99, List.of(
+                movement(1L, 10L, MONTH.atDay(1).atStartOfDay(), "Deposito", "10.00", "10.00")));
+
+        // When & Then
+        assertFalse(archive.covers(LocalDateTime.now()));
+    }
+
+    private MovementArchive archive() {
+        return new MovementArchive(directory.toString(), 12, Duration.ofMinutes(1));
+    }
+
+    private static Movement movement(Long id, Long cuentaId, LocalDateTime fecha, String tipo, String valor, String saldo) {
+        Movement movement = new Movement(fecha, tipo, new BigDecimal(valor), new BigDecimal(saldo), cuentaId);
+        movement.setMovimientoId(id);
+        movement.setSeq(id);
+        return movement;
+    }
+}
@@ -0,0 +1,242 @@
+package com.banking.account.balance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BalanceCache
+ */
+class BalanceCacheTest {
+
+    @Test
+    void get_AfterPut_ReturnsTheBalance() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+
+        // When
+        load(cache, 7L, 150_00L, 3);
+
+        // Then
+        assertEquals(OptionalLong.of(150_00L), cache.get(7L));
+        assertEquals(OptionalLong.empty(), cache.get(8L));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void put_OlderBalance_DoesNotReplaceANewerOne() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        load(cache, 1L, 200_00L, 5);
+
+        // When
+        load(cache, 1L, 150_00L, 4);
+        cache.update(1L, 180_00L, 3);
+
+        // Then
+        assertEquals(OptionalLong.of(200_00L), cache.get(1L));
+    }
+
+    @Test
+    void update_AccountNotCached_StaysOut() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        load(cache, 1L, 100_00L, 1);
+
+        // When
+        cache.update(1L, 90_00L, 2);
+        cache.update(2L, 50_00L, 1);
+
+        // Then
+        assertEquals(OptionalLong.of(90_00L), cache.get(1L));
+        assertEquals(OptionalLong.empty(), cache.get(2L));
+    }
+
+    @Test
+    void put_PostingSeenWhileReading_IsNotCached() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        long version = cache.version(1L);
+
+        // When
+        cache.update(1L, 90_00L, 6);
+        cache.put(1L, 100_00L, 5, version);
+
+        // Then
+        assertEquals(OptionalLong.empty(), cache.get(1L));
+        load(cache, 1L, 90_00L, 6);
+        assertEquals(OptionalLong.of(90_00L), cache.get(1L));
+    }
+
+    @Test
+    void get_AfterTimeToLive_IsEmptyUntilReadAgain() throws InterruptedException {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMillis(1));
+        load(cache, 1L, 100_00L, 1);
+
+        // When
+        Thread.sleep(5);
+        OptionalLong expired = cache.get(1L);
+        load(cache, 1L, 100_00L, 1);
+
+        // Then
+        assertEquals(OptionalLong.empty(), expired);
+        assertEquals(OptionalLong.of(100_00L), cache.get(1L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void putAndRemove_ManyAccounts_MatchAMap() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000_000, Duration.ofMinutes(1));
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // When
+        for (int n = 0; n < 200_000; n++) {
+            long cuentaId = random.nextInt(20_000);
+            if (random.nextInt(4) == 0) {
+                cache.remove(cuentaId);
+                expected.remove(cuentaId);
+            } else {
+                load(cache, cuentaId, n, n);
+                expected.put(cuentaId, (long) n);
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), cache.size());
+        for (long cuentaId = 0; cuentaId < 20_000; cuentaId++) {
+            Long cents = expected.get(cuentaId);
+            assertEquals(cents == null ? OptionalLong.empty() : OptionalLong.of(cents), cache.get(cuentaId));
+        }
+    }
+
+    @Test
+    void put_CacheFull_LeavesNewAccountsOut() {
+        // Given
+        BalanceCache cache = new BalanceCache(64, Duration.ofMinutes(1));
+
+        // When
+        for (long cuentaId = 0; cuentaId < 10_000; cuentaId++) {
+            load(cache, cuentaId, cuentaId, 0);
+        }
+
+        // Then
+        assertTrue(cache.size() <= 64);
+        assertTrue(cache.size() > 0);
+    }
+
+    @Test
+    void verify_DifferentBalance_IsCorrected() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        load(cache, 1L, 100_00L, 2);
+        load(cache, 2L, 100_00L, 2);
+        load(cache, 3L, 100_00L, 6);
+
+        // When
+        boolean sameSeqOtherBalance = cache.verify(1L, 120_00L, 2);
+        boolean missedAMovement = cache.verify(2L, 80_00L, 3);
+        boolean postedSinceRead = cache.verify(3L, 90_00L, 5);
+
+        // Then
+        assertFalse(sameSeqOtherBalance);
+        assertFalse(missedAMovement);
+        assertTrue(postedSinceRead);
+        assertEquals(OptionalLong.of(120_00L), cache.get(1L));
+        assertEquals(OptionalLong.of(80_00L), cache.get(2L));
+        assertEquals(OptionalLong.of(100_00L), cache.get(3L));
+        assertEquals(2, cache.getMismatchCount());
+    }
+
+    @Test
+    void nextToCheck_DropsEntriesNotReadSinceTheLastCheck() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        for (long cuentaId = 1; cuentaId <= 10; cuentaId++) {
+            load(cache, cuentaId, 100L, 1);
+        }
+        long[] firstRound = cache.nextToCheck(100);
+        cache.get(3L);
+        cache.get(4L);
+
+        // When
+        long[] secondRound = cache.nextToCheck(100);
+
+        // Then
+        assertEquals(10, firstRound.length);
+        Arrays.sort(secondRound);
+        assertArrayEquals(new long[] {3L, 4L}, secondRound);
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.getEvictionCount());
+    }
+
+    @Test
+    void nextToCheck_GoesRoundInSteps() {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000, Duration.ofMinutes(1));
+        for (long cuentaId = 1; cuentaId <= 25; cuentaId++) {
+            load(cache, cuentaId, 100L, 1);
+        }
+
+        // When
+        long[] first = cache.nextToCheck(10);
+        long[] second = cache.nextToCheck(10);
+        long[] third = cache.nextToCheck(10);
+
+        // Then
+        assertEquals(10, first.length);
+        assertEquals(10, second.length);
+        assertEquals(5, third.length);
+        long[] all = new long[25];
+        System.arraycopy(first, 0, all, 0, 10);
+        System.arraycopy(second, 0, all, 10, 10);
+        System.arraycopy(third, 0, all, 20, 5);
+        Arrays.sort(all);
+        for (int n = 0; n < 25; n++) {
+            assertEquals(n + 1, all[n]);
+        }
+    }
+
+    @Test
+    void get_WhileOtherAccountsAreWritten_NeverSeesAWrongBalance() throws InterruptedException {
+        // Given
+        BalanceCache cache = new BalanceCache(1_000_000, Duration.ofMinutes(1));
+        load(cache, 1L, 777L, 1);
+        AtomicBoolean wrong = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (long cuentaId = 2; cuentaId < 200_000; cuentaId++) {
+                load(cache, cuentaId, cuentaId, 1);
+                if (cuentaId % 3 == 0) {
+                    cache.remove(cuentaId - 1);
+                }
+            }
+        });
+
+        // When
+        writer.start();
+        while (writer.isAlive()) {
+            if (cache.get(1L).orElse(-1) != 777L) {
+                wrong.set(true);
+            }
+        }
+        writer.join();
+
+        // Then
+        assertFalse(wrong.get());
+    }
+
+    private static void load(BalanceCache cache, long cuentaId, long cents, long seq) {
+        cache.put(cuentaId, cents, seq, cache.version(cuentaId));
+    }
+}
@@ -0,0 +1,131 @@
+package com.banking.account.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimit
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long WINDOW = 100 * MILLI;
+
+    @Test
+    void tryAcquire_RejectsAtLimitUntilReleased() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0.2, WINDOW);
+
+        // When & Then
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.release(MILLI, false, 0);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_SmallerShareIsTurnedAwayFirst() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.2, WINDOW);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(0.5));
+        }
+
+        // When & Then
+        assertFalse(limit.tryAcquire(0.5));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+        }
+        assertFalse(limit.tryAcquire(1.0));
+    }
+
+    @Test
+    void release_SaturatedWithSteadyLatency_GrowsLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0.5, WINDOW);
+
+        // When
+        long now = 0;
+        for (int window = 0; window < 5; window++) {
+            now = runSaturatedWindow(limit, 5 * MILLI, false, now);
+        }
+
+        // Then
+        assertTrue(limit.getLimit() > 10, "limit was " + limit.getLimit());
+    }
+
+    @Test
+    void release_LatencyRises_ShrinksLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 1, 100, 0.5, WINDOW);
+        long now = runSaturatedWindow(limit, 5 * MILLI, false, 0);
+        int before = limit.getLimit();
+
+        // When
+        for (int window = 0; window < 5; window++) {
+            now = runSaturatedWindow(limit, 50 * MILLI, false, now);
+        }
+
+        // Then
+        assertTrue(limit.getLimit() < before, "limit went from " + before + " to " + limit.getLimit());
+    }
+
+    @Test
+    void release_DroppedRequests_BackOff() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100, 0.5, WINDOW);
+
+        // When
+        runSaturatedWindow(limit, 5 * MILLI, true, 0);
+
+        // Then
+        assertEquals(45, limit.getLimit());
+    }
+
+    @Test
+    void release_NeverBelowMinimum() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(5, 4, 100, 0.5, WINDOW);
+
+        // When
+        long now = 0;
+        for (int window = 0; window < 10; window++) {
+            now = runSaturatedWindow(limit, 5 * MILLI, true, now);
+        }
+
+        // Then
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void constructor_InvalidLimits_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(0, 1, 10, 0.2, WINDOW));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(20, 1, 10, 0.2, WINDOW));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 1, 10, 0, WINDOW));
+    }
+
+    /**
+     * Fill the limit, then complete every admitted request with the given latency
+     * @return the time at the end of the window
+     */
+    private static long runSaturatedWindow(AdaptiveConcurrencyLimit limit, long rttNanos, boolean dropped, long startNanos) {
+        int admitted = 0;
+        while (limit.tryAcquire()) {
+            admitted++;
+        }
+        // Spread the completions so the first and last are a full window apart
+        long step = WINDOW / Math.max(admitted - 1, 1) + 1;
+        long now = startNanos;
+        for (int i = 0; i < admitted; i++) {
+            now = startNanos + i * step;
+            limit.release(rttNanos, dropped, now);
+        }
+        return now + step;
+    }
+}
@@ -0,0 +1,100 @@
+package com.banking.account.concurrency;
+
+import com.banking.account.exception.ConcurrentUpdateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PostingRetry
+ */
+class PostingRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PostingRetry retry = new PostingRetry(TransactionOperations.withoutTransaction(),
+            LockingMode.OPTIMISTIC, 3, Duration.ofMillis(1), Duration.ofMillis(5), meterRegistry);
+
+    @Test
+    void execute_VersionCheckFailedOnce_IsRetried() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = retry.execute("movement", () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "posted";
+        });
+
+        // Then
+        assertEquals("posted", result);
+        assertEquals(2, calls.get());
+        assertEquals(2, count("locking.attempts"));
+        assertEquals(1, count("locking.retries"));
+        assertEquals(0, count("locking.exhausted"));
+    }
+
+    @Test
+    void execute_LosesEveryRace_GivesUpAfterTheLastAttempt() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        ConcurrentUpdateException exception = assertThrows(ConcurrentUpdateException.class,
+                () -> retry.execute("movement", () -> {
+                    calls.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+
+        // Then
+        assertEquals("The account was changed at the same time, try again", exception.getMessage());
+        assertEquals(3, calls.get());
+        assertEquals(2, count("locking.retries"));
+        assertEquals(1, count("locking.exhausted"));
+    }
+
+    @Test
+    void execute_OtherFailure_IsNotRetried() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> retry.execute("movement", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Saldo no disponible");
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(0, count("locking.retries"));
+    }
+
+    @Test
+    void execute_WithinCallersTransaction_RunsOnce() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When & Then
+        try {
+            assertThrows(ConcurrentUpdateException.class, () -> retry.execute("movement", () -> {
+                calls.incrementAndGet();
+                throw new ConcurrentUpdateException("Another movement was posted to account 1 at the same time, try again");
+            }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertEquals(1, calls.get());
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", "movement", "mode", "optimistic").count();
+    }
+}
@@ -0,0 +1,44 @@
+package com.banking.account.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RequestPriority
+ */
+class RequestPriorityTest {
+
+    @Test
+    void classify_PostingMovement_IsCritical() {
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.classify("POST", "/movimientos"));
+    }
+
+    @Test
+    void classify_PlacingOrCapturingHold_IsCritical() {
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.classify("POST", "/cuentas/1/retenciones"));
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.classify("POST", "/cuentas/1/retenciones/4/captura"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.classify("GET", "/cuentas/1/retenciones"));
+    }
+
+    @Test
+    void classify_Transfer_IsCritical() {
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.classify("POST", "/transferencias"));
+    }
+
+    @Test
+    void classify_ReportsAndFullListings_AreLow() {
+        assertEquals(RequestPriority.LOW, RequestPriority.classify("GET", "/reportes"));
+        assertEquals(RequestPriority.LOW, RequestPriority.classify("GET", "/movimientos"));
+        assertEquals(RequestPriority.LOW, RequestPriority.classify("GET", "/cuentas"));
+        assertEquals(RequestPriority.LOW, RequestPriority.classify("GET", "/movimientos/cliente/1/fechas"));
+    }
+
+    @Test
+    void classify_SingleEntityAndMaintenance_AreNormal() {
+        assertEquals(RequestPriority.NORMAL, RequestPriority.classify("GET", "/cuentas/1"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.classify("GET", "/movimientos/cuenta/1"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.classify("POST", "/cuentas"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.classify("PUT", "/cuentas/1"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.banking.account.controller;
+
+import com.banking.account.dto.AvailableBalanceDto;
+import com.banking.account.dto.HoldDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for HoldController
+ */
+@WebMvcTest(HoldController.class)
+class HoldControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HoldService holdService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HoldDto holdDto;
+
+    @BeforeEach
+    void setUp() {
+        holdDto = new HoldDto(new BigDecimal("60.00"), LocalDateTime.now().plusDays(1));
+        holdDto.setRetencionId(7L);
+        holdDto.setCuentaId(1L);
+        holdDto.setFecha(LocalDateTime.now());
+    }
+
+    @Test
+    void createHold_Success() throws Exception {
+        // Given
+        when(holdService.createHold(eq(1L), any(HoldDto.class))).thenReturn(holdDto);
+
+        // When & Then
+        mockMvc.perform(post("/cuentas/1/retenciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(holdDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.retencionId").value(7L))
+                .andExpect(jsonPath("$.valor").value(60.00));
+    }
+
+    @Test
+    void createHold_InsufficientBalance() throws Exception {
+        // Given
+        when(holdService.createHold(eq(1L), any(HoldDto.class)))
+                .thenThrow(new IllegalArgumentException("Saldo no disponible"));
+
+        // When & Then
+        mockMvc.perform(post("/cuentas/1/retenciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(holdDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Saldo no disponible"));
+    }
+
+    @Test
+    void createHold_ValidationError() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/cuentas/1/retenciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new HoldDto())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getHolds_NotCached() throws Exception {
+        // Given
+        when(holdService.getHolds(1L)).thenReturn(List.of(holdDto));
+
+        // When & Then
+        mockMvc.perform(get("/cuentas/1/retenciones"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$[0].retencionId").value(7L));
+    }
+
+    @Test
+    void getAvailableBalance_Success() throws Exception {
+        // Given
+        when(holdService.getAvailableBalance(1L)).thenReturn(new AvailableBalanceDto(1L,
+                new BigDecimal("100.00"), new BigDecimal("60.00"), new BigDecimal("40.00")));
+
+        // When & Then
+        mockMvc.perform(get("/cuentas/1/retenciones/saldo-disponible"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.disponible").value(40.00));
+    }
+
+    @Test
+    void captureHold_WholeHold() throws Exception {
+        // Given
+        MovementDto retiro = new MovementDto(LocalDateTime.now(), "Retiro", new BigDecimal("60.00"),
+                new BigDecimal("40.00"), 1L);
+        when(holdService.captureHold(eq(1L), eq(7L), isNull())).thenReturn(retiro);
+
+        // When & Then
+        mockMvc.perform(post("/cuentas/1/retenciones/7/captura"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.tipoMovimiento").value("Retiro"))
+                .andExpect(jsonPath("$.valor").value(60.00));
+    }
+
+    @Test
+    void captureHold_Expired() throws Exception {
+        // Given
+        when(holdService.captureHold(1L, 7L, new BigDecimal("10.00")))
+                .thenThrow(new IllegalArgumentException("Hold with ID 7 has expired"));
+
+        // When & Then
+        mockMvc.perform(post("/cuentas/1/retenciones/7/captura").param("valor", "10.00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Hold with ID 7 has expired"));
+    }
+
+    @Test
+    void releaseHold_Success() throws Exception {
+        // When & Then
+        mockMvc.perform(delete("/cuentas/1/retenciones/7"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void releaseHold_NotFound() throws Exception {
+        // Given
+        doThrow(new IllegalArgumentException("Hold with ID 9 not found")).when(holdService).releaseHold(1L, 9L);
+
+        // When & Then
+        mockMvc.perform(delete("/cuentas/1/retenciones/9"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Hold with ID 9 not found"));
+    }
+}
@@ -0,0 +1,248 @@
+package com.banking.account.groupcommit;
+
+import com.banking.account.entity.Movement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GroupCommitter
+ */
+class GroupCommitterTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private GroupCommitter committer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (committer != null) {
+            committer.close();
+        }
+    }
+
+    @Test
+    void post_ConcurrentPostings_CommittedTogetherInOrder() throws InterruptedException {
+        // Given
+        store.balances.put(1L, 0L);
+        committer = new GroupCommitter(store, 1, 64, Duration.ofMillis(2), batchSizes::add);
+        Thread[] posters = new Thread[16];
+        List<Movement> results = new CopyOnWriteArrayList<>();
+
+        // When
+        for (int i = 0; i < posters.length; i++) {
+            posters[i] = new Thread(() -> {
+                for (int n = 0; n < 50; n++) {
+                    results.add(committer.post(0, deposit(1L, "1.00")));
+                }
+            });
+            posters[i].start();
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+
+        // Then
+        assertEquals(800, results.size());
+        assertEquals(LongStream.rangeClosed(1, 800).boxed().collect(Collectors.toList()),
+                store.committed.stream().map(Movement::getSeq).collect(Collectors.toList()));
+        assertEquals(800, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(committer.getCommitCount() < 800, "Postings should share commits");
+        assertEquals(committer.getCommitCount(), batchSizes.size());
+        assertEquals(800, committer.getPostingCount());
+    }
+
+    @Test
+    void post_EachPosterGetsItsOwnMovement() {
+        // Given
+        store.balances.put(1L, 10_000L);
+        committer = new GroupCommitter(store, 1, 8, Duration.ZERO, batchSizes::add);
+
+        // When
+        Movement movement = committer.post(0, deposit(1L, "25.00"));
+
+        // Then
+        assertEquals(1L, movement.getCuentaId());
+        assertEquals(new BigDecimal("125.00"), movement.getSaldo());
+        assertEquals(1L, movement.getSeq());
+    }
+
+    @Test
+    void post_RefusedPosting_DoesNotStopTheBatch() throws InterruptedException {
+        // Given
+        store.balances.put(1L, 1_000L);
+        committer = new GroupCommitter(store, 1, 64, Duration.ZERO, batchSizes::add);
+        store.hold();
+        Thread first = new Thread(() -> post(deposit(1L, "5.00")));
+        first.start();
+        Thread.sleep(20);
+        List<Object> outcomes = Collections.synchronizedList(new ArrayList<>());
+        Thread withdrawal = new Thread(() -> outcomes.add(post(withdrawal(1L, "50.00"))));
+        Thread deposit = new Thread(() -> outcomes.add(post(deposit(1L, "5.00"))));
+
+        // When
+        withdrawal.start();
+        deposit.start();
+        // Both queued behind the first batch
+        Thread.sleep(20);
+        store.release();
+        first.join();
+        withdrawal.join();
+        deposit.join();
+
+        // Then
+        assertEquals(List.of(1, 2), batchSizes);
+        assertTrue(outcomes.stream().anyMatch(outcome -> outcome instanceof IllegalArgumentException
+                && "Saldo no disponible".equals(((IllegalArgumentException) outcome).getMessage())));
+        assertTrue(outcomes.stream().anyMatch(outcome -> outcome instanceof Movement));
+        assertEquals(2_000L, store.balances.get(1L));
+    }
+
+    @Test
+    void post_BatchDoesNotCommit_EveryPostingIsAborted() {
+        // Given
+        store.balances.put(1L, 0L);
+        store.failing = true;
+        committer = new GroupCommitter(store, 1, 8, Duration.ZERO, batchSizes::add);
+
+        // When & Then
+        GroupAbortedException exception = assertThrows(GroupAbortedException.class,
+                () -> committer.post(0, deposit(1L, "1.00")));
+        assertEquals("Commit failed", exception.getCause().getMessage());
+        assertEquals(1, committer.getAbortedCount());
+        assertEquals(0, committer.getCommitCount());
+        assertTrue(store.committed.isEmpty());
+    }
+
+    @Test
+    void post_LonePostings_StopWaitingForCompany() throws InterruptedException {
+        // Given
+        store.balances.put(1L, 0L);
+        committer = new GroupCommitter(store, 1, 64, Duration.ofMillis(1), batchSizes::add);
+        List<Thread> posters = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            posters.add(new Thread(() -> {
+                for (int n = 0; n < 20; n++) {
+                    committer.post(0, deposit(1L, "1.00"));
+                }
+            }));
+        }
+        posters.forEach(Thread::start);
+        for (Thread poster : posters) {
+            poster.join();
+        }
+
+        // When
+        for (int n = 0; n < 20; n++) {
+            committer.post(0, deposit(1L, "1.00"));
+        }
+
+        // Then
+        assertEquals(0, committer.getWaitNanos(0));
+        assertEquals(180, store.committed.size());
+    }
+
+    @Test
+    void post_AfterClose_IsAborted() throws InterruptedException {
+        // Given
+        committer = new GroupCommitter(store, 1, 8, Duration.ZERO, batchSizes::add);
+        committer.close();
+
+        // When & Then
+        assertThrows(GroupAbortedException.class, () -> committer.post(0, deposit(1L, "1.00")));
+    }
+
+    private Object post(GroupPosting posting) {
+        try {
+            return committer.post(0, posting);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    private static GroupPosting deposit(Long cuentaId, String valor) {
+        return new GroupPosting(cuentaId, "Deposito", new BigDecimal(valor), () -> 0);
+    }
+
+    private static GroupPosting withdrawal(Long cuentaId, String valor) {
+        return new GroupPosting(cuentaId, "Retiro", new BigDecimal(valor), () -> 0);
+    }
+
+    /**
+     * Balances in cents, decided posting by posting and kept only if the batch commits
+     */
+    private static final class InMemoryStore implements GroupCommitStore {
+
+        private final Map<Long, Long> balances = new HashMap<>();
+        private final Map<Long, Long> seqs = new HashMap<>();
+        private final List<Movement> committed = new CopyOnWriteArrayList<>();
+        private final AtomicLong ids = new AtomicLong();
+        private volatile CountDownLatch gate;
+        private volatile boolean failing;
+
+        /**
+         * Hold the next batch until released, so that postings pile up behind it
+         */
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        public synchronized void post(int shard, List<GroupPosting> batch) {
+            CountDownLatch held = gate;
+            if (held != null) {
+                try {
+                    held.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new IllegalStateException("Commit failed");
+            }
+            Map<Long, Long> balancesAfter = new HashMap<>(balances);
+            Map<Long, Long> seqsAfter = new HashMap<>(seqs);
+            List<Movement> movements = new ArrayList<>();
+            for (GroupPosting posting : batch) {
+                long cents = posting.getValor().movePointRight(2).longValueExact();
+                long balance = balancesAfter.get(posting.getCuentaId());
+                long after = "Deposito".equals(posting.getTipoMovimiento()) ? balance + cents : balance - cents;
+                if (after < 0) {
+                    posting.rejected(new IllegalArgumentException("Saldo no disponible"));
+                    continue;
+                }
+                long seq = seqsAfter.merge(posting.getCuentaId(), 1L, Long::sum);
+                balancesAfter.put(posting.getCuentaId(), after);
+                Movement movement = new Movement(LocalDateTime.now(), posting.getTipoMovimiento(), posting.getValor(),
+                        BigDecimal.valueOf(after, 2), posting.getCuentaId());
+                movement.setMovimientoId(ids.incrementAndGet());
+                movement.setSeq(seq);
+                posting.posted(movement);
+                movements.add(movement);
+            }
+            balances.putAll(balancesAfter);
+            seqs.putAll(seqsAfter);
+            committed.addAll(movements);
+        }
+    }
+}
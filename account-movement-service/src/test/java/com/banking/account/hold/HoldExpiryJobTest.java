@@ -0,0 +1,86 @@
+package com.banking.account.hold;
+
+import com.banking.account.entity.Hold;
+import com.banking.account.repository.HoldRepository;
+import com.banking.account.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for HoldExpiryJob
+ */
+class HoldExpiryJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final HoldRegistry registry = new HoldRegistry();
+    private final HoldRepository holdRepository = mock(HoldRepository.class);
+    private HoldExpiryJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new HoldExpiryJob(registry, holdRepository, ShardRouter.singleShard(),
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void expireBefore_ReleasesOnlyExpiredHolds() {
+        // Given
+        registry.add(hold(1L, NOW.minusMinutes(1)));
+        registry.add(hold(2L, NOW));
+        registry.add(hold(3L, NOW.plusMinutes(1)));
+
+        // When
+        int expired = job.expireBefore(NOW);
+
+        // Then
+        assertEquals(2, expired);
+        verify(holdRepository).deleteById(1L);
+        verify(holdRepository).deleteById(2L);
+        verify(holdRepository, never()).deleteById(3L);
+        assertEquals(1_000, registry.held(1L));
+    }
+
+    @Test
+    void expireBefore_ClaimedHold_IsLeftToItsCapture() {
+        // Given
+        registry.add(hold(1L, NOW.minusMinutes(1)));
+        registry.claim(1L, 1L);
+
+        // When
+        int expired = job.expireBefore(NOW);
+
+        // Then
+        assertEquals(0, expired);
+        verify(holdRepository, never()).deleteById(1L);
+        assertEquals(1_000, registry.held(1L));
+    }
+
+    @Test
+    void expireBefore_DeleteFails_HoldStaysActiveAndIsTriedAgain() {
+        // Given
+        registry.add(hold(1L, NOW.minusMinutes(1)));
+        doThrow(new IllegalStateException("Database unavailable")).doNothing()
+                .when(holdRepository).deleteById(1L);
+
+        // When
+        int first = job.expireBefore(NOW);
+        int second = job.expireBefore(NOW);
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(0, registry.held(1L));
+    }
+
+    private static Hold hold(Long retencionId, LocalDateTime fechaExpiracion) {
+        return new Hold(retencionId, 1L, new BigDecimal("10.00"), NOW.minusDays(1), fechaExpiracion);
+    }
+}
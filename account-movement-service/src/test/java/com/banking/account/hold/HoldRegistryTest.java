@@ -0,0 +1,105 @@
+package com.banking.account.hold;
+
+import com.banking.account.entity.Hold;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HoldRegistry
+ */
+class HoldRegistryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final HoldRegistry registry = new HoldRegistry();
+
+    @Test
+    void reserve_WithinAvailableBalance_AddsToHeld() {
+        // Given
+        registry.add(hold(1L, "60.00", 1));
+
+        // When
+        boolean reserved = registry.reserve(hold(2L, "40.00", 1), 10_000);
+
+        // Then
+        assertTrue(reserved);
+        assertEquals(10_000, registry.held(1L));
+        assertEquals(2, registry.holds(1L).size());
+    }
+
+    @Test
+    void reserve_BeyondAvailableBalance_IsRefused() {
+        // Given
+        registry.add(hold(1L, "60.00", 1));
+
+        // When
+        boolean reserved = registry.reserve(hold(2L, "40.01", 1), 10_000);
+
+        // Then
+        assertFalse(reserved);
+        assertEquals(6_000, registry.held(1L));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void claim_AlreadyClaimed_ReturnsEmptyUntilUnclaimed() {
+        // Given
+        Hold hold = hold(1L, "10.00", 1);
+        registry.add(hold);
+
+        // When
+        Optional<Hold> first = registry.claim(1L, 1L);
+        Optional<Hold> second = registry.claim(1L, 1L);
+        registry.unclaim(hold);
+        Optional<Hold> third = registry.claim(1L, 1L);
+
+        // Then
+        assertTrue(first.isPresent());
+        assertFalse(second.isPresent());
+        assertTrue(third.isPresent());
+        // Claimed holds still count against the balance
+        assertEquals(1_000, registry.held(1L));
+    }
+
+    @Test
+    void settle_ClaimedHold_ReleasesItsAmount() {
+        // Given
+        Hold hold = hold(1L, "10.00", 1);
+        registry.add(hold);
+        registry.claim(1L, 1L);
+
+        // When
+        registry.settle(hold);
+        registry.settle(hold);
+
+        // Then
+        assertEquals(0, registry.held(1L));
+        assertEquals(0, registry.size());
+        assertFalse(registry.claim(1L, 1L).isPresent());
+    }
+
+    @Test
+    void expired_ReturnsHoldsPastTheirExpirationOldestFirst() {
+        // Given
+        registry.add(hold(1L, "10.00", 3));
+        registry.add(hold(2L, "10.00", -1));
+        registry.add(hold(3L, "10.00", -2));
+
+        // When
+        List<Hold> expired = registry.expired(NOW);
+
+        // Then
+        assertEquals(List.of(3L, 2L), expired.stream().map(Hold::getRetencionId).collect(Collectors.toList()));
+    }
+
+    private static Hold hold(Long retencionId, String valor, int expiresInHours) {
+        return new Hold(retencionId, 1L, new BigDecimal(valor), NOW.minusHours(4), NOW.plusHours(expiresInHours));
+    }
+}
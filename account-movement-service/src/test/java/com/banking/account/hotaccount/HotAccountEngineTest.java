@@ -0,0 +1,294 @@
+package com.banking.account.hotaccount;
+
+import com.banking.account.entity.Movement;
+import com.banking.account.entity.PendingMovement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HotAccountEngine
+ */
+class HotAccountEngineTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final AtomicLong ids = new AtomicLong();
+    private HotAccountEngine engine;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void post_ConcurrentDeposits_AllMergedInSeqOrder() throws InterruptedException {
+        // Given
+        store.accounts.put(1L, 0L);
+        engine = engine(4);
+        Thread[] posters = new Thread[8];
+
+        // When
+        for (int i = 0; i < posters.length; i++) {
+            posters[i] = new Thread(() -> {
+                for (int n = 0; n < 100; n++) {
+                    engine.post(1L, "Deposito", BigDecimal.ONE);
+                }
+            });
+            posters[i].start();
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+        engine.merge(1L);
+
+        // Then
+        assertEquals(Optional.of(new BigDecimal("800.00")), engine.balance(1L));
+        assertEquals(LongStream.rangeClosed(1, 800).boxed().collect(Collectors.toList()),
+                store.merged.stream().map(Movement::getSeq).collect(Collectors.toList()));
+        assertEquals(new BigDecimal("800.00"), store.merged.get(799).getSaldo());
+        assertTrue(store.staged.isEmpty());
+    }
+
+    @Test
+    void post_WithdrawalItsSlotCovers_DoesNotConsolidate() {
+        // Given
+        store.accounts.put(1L, 40_000L);
+        engine = engine(4);
+
+        // When
+        Movement movement = engine.post(1L, "Retiro", new BigDecimal("50.00"));
+
+        // Then
+        assertEquals(new BigDecimal("350.00"), movement.getSaldo());
+        assertNull(movement.getSeq());
+        assertEquals(0, engine.getConsolidationCount());
+        assertEquals(Optional.of(new BigDecimal("350.00")), engine.balance(1L));
+    }
+
+    @Test
+    void post_WithdrawalLargerThanItsSlot_ConsolidatesAccount() {
+        // Given
+        store.accounts.put(1L, 40_000L);
+        engine = engine(4);
+        engine.post(1L, "Deposito", new BigDecimal("10.00"));
+
+        // When
+        engine.post(1L, "Retiro", new BigDecimal("300.00"));
+
+        // Then
+        assertEquals(1, engine.getConsolidationCount());
+        assertEquals(Optional.of(new BigDecimal("110.00")), engine.balance(1L));
+        engine.merge(1L);
+        assertEquals(List.of(new BigDecimal("410.00"), new BigDecimal("110.00")),
+                store.merged.stream().map(Movement::getSaldo).collect(Collectors.toList()));
+    }
+
+    @Test
+    void post_InsufficientBalance_ThrowsAndKeepsBalance() {
+        // Given
+        store.accounts.put(1L, 40_000L);
+        engine = engine(4);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("400.01")));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        assertEquals(Optional.of(new BigDecimal("400.00")), engine.balance(1L));
+        assertTrue(store.staged.isEmpty());
+    }
+
+    @Test
+    void post_WithdrawalIntoHeldBalance_IsRefused() {
+        // Given
+        store.accounts.put(1L, 40_000L);
+        engine = engine(4);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("0.01"), () -> 40_000));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        engine.post(1L, "Retiro", new BigDecimal("50.00"), () -> 30_000);
+        assertEquals(Optional.of(new BigDecimal("350.00")), engine.balance(1L));
+        // Both checked against the whole balance, not their slot
+        assertEquals(2, engine.getConsolidationCount());
+    }
+
+    @Test
+    void withBalance_HoldPlacedThere_IsLeftByLaterWithdrawals() {
+        // Given
+        store.accounts.put(1L, 40_000L);
+        engine = engine(4);
+        engine.post(1L, "Deposito", new BigDecimal("100.00"));
+        AtomicLong held = new AtomicLong();
+
+        // When
+        engine.withBalance(1L, held::set);
+
+        // Then
+        assertEquals(50_000, held.get());
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("0.01"), held::get));
+        assertEquals(Optional.of(new BigDecimal("500.00")), engine.balance(1L));
+    }
+
+    @Test
+    void post_ConcurrentWithdrawals_NeverOverdraw() throws InterruptedException {
+        // Given
+        store.accounts.put(1L, 10_000L);
+        engine = engine(4);
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] posters = new Thread[8];
+
+        // When
+        for (int i = 0; i < posters.length; i++) {
+            posters[i] = new Thread(() -> {
+                for (int n = 0; n < 50; n++) {
+                    try {
+                        engine.post(1L, "Retiro", BigDecimal.ONE);
+                        accepted.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        assertEquals("Saldo no disponible", e.getMessage());
+                    }
+                    engine.merge(1L);
+                }
+            });
+            posters[i].start();
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+        engine.merge(1L);
+
+        // Then
+        assertEquals(100, accepted.get());
+        assertEquals(Optional.of(new BigDecimal("0.00")), engine.balance(1L));
+        assertEquals(100, store.merged.size());
+        assertTrue(store.merged.stream().noneMatch(movement -> movement.getSaldo().signum() < 0));
+    }
+
+    @Test
+    void post_AccountNotFound_ThrowsException() {
+        // Given
+        engine = engine(4);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Deposito", BigDecimal.TEN));
+        assertEquals("Account with ID 1 not found", exception.getMessage());
+    }
+
+    @Test
+    void refresh_DeactivatedAccount_RejectsPostings() {
+        // Given
+        store.accounts.put(1L, 0L);
+        engine = engine(4);
+        store.inactive.add(1L);
+
+        // When
+        engine.refresh(1L);
+
+        // Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Deposito", BigDecimal.TEN));
+        assertEquals("Account is inactive", exception.getMessage());
+    }
+
+    @Test
+    void start_MovementsStagedByThePreviousRun_AreMerged() {
+        // Given
+        store.accounts.put(1L, 0L);
+        store.accounts.put(2L, 0L);
+        store.staged.add(new PendingMovement(100L, 1L, 0, 1L, LocalDateTime.now(), "Deposito", BigDecimal.TEN));
+        store.staged.add(new PendingMovement(101L, 2L, 3, 1L, LocalDateTime.now(), "Deposito", BigDecimal.ONE));
+
+        // When
+        engine = engine(4);
+
+        // Then
+        assertTrue(store.staged.isEmpty());
+        assertEquals(Optional.of(new BigDecimal("10.00")), engine.balance(1L));
+        // Account 2 is no longer hot, it is merged but not loaded
+        assertEquals(Optional.empty(), engine.balance(2L));
+        assertEquals(2, store.merged.size());
+    }
+
+    private HotAccountEngine engine(int slots) {
+        return new HotAccountEngine(store, cuentaId -> ids.incrementAndGet(), List.of(1L), slots, Duration.ofHours(1));
+    }
+
+    /**
+     * Accounts and movements in memory; merging fails if it would overdraw, like the real store
+     */
+    private static final class InMemoryStore implements HotAccountStore {
+
+        private final Map<Long, Long> accounts = new ConcurrentHashMap<>();
+        private final Map<Long, Long> seqs = new ConcurrentHashMap<>();
+        private final Set<Long> inactive = ConcurrentHashMap.newKeySet();
+        private final List<PendingMovement> staged = new CopyOnWriteArrayList<>();
+        private final List<Movement> merged = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void stage(PendingMovement movement) {
+            if (!accounts.containsKey(movement.getCuentaId())) {
+                throw new IllegalArgumentException("Account with ID " + movement.getCuentaId() + " not found");
+            }
+            staged.add(movement);
+        }
+
+        @Override
+        public synchronized Optional<MergedAccount> merge(long cuentaId) {
+            Long balance = accounts.get(cuentaId);
+            if (balance == null) {
+                return Optional.empty();
+            }
+            List<PendingMovement> pending = staged.stream()
+                    .filter(movement -> movement.getCuentaId() == cuentaId)
+                    .sorted(Comparator.comparing(PendingMovement::getRanura).thenComparing(PendingMovement::getOrden))
+                    .collect(Collectors.toList());
+            long seq = seqs.getOrDefault(cuentaId, 0L);
+            List<Movement> movements = new ArrayList<>();
+            for (PendingMovement movement : pending) {
+                long cents = movement.getValor().movePointRight(2).longValueExact();
+                balance += "Deposito".equals(movement.getTipoMovimiento()) ? cents : -cents;
+                if (balance < 0) {
+                    throw new IllegalStateException("Staged movement " + movement.getMovimientoId()
+                            + " would overdraw account " + cuentaId);
+                }
+                Movement merge = new Movement(movement.getFecha(), movement.getTipoMovimiento(), movement.getValor(),
+                        BigDecimal.valueOf(balance, 2), cuentaId);
+                merge.setMovimientoId(movement.getMovimientoId());
+                merge.setSeq(++seq);
+                movements.add(merge);
+            }
+            merged.addAll(movements);
+            staged.removeAll(pending);
+            accounts.put(cuentaId, balance);
+            seqs.put(cuentaId, seq);
+            return Optional.of(new MergedAccount(!inactive.contains(cuentaId), balance, movements.size()));
+        }
+
+        @Override
+        public Set<Long> findPendingAccounts() {
+            return staged.stream().map(PendingMovement::getCuentaId).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.banking.account.ledger;
+
+import com.banking.account.entity.Movement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LedgerEngine
+ */
+class LedgerEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final AtomicLong ids = new AtomicLong();
+    private LedgerEngine engine;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void post_Deposit_UpdatesBalanceAndPersists() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("2000.00"));
+        engine = engine(store);
+
+        // When
+        Movement movement = engine.post(1L, "Deposito", new BigDecimal("500.00"));
+
+        // Then
+        assertEquals("Deposito", movement.getTipoMovimiento());
+        assertEquals(new BigDecimal("500.00"), movement.getValor());
+        assertEquals(new BigDecimal("2500.00"), movement.getSaldo());
+        assertEquals(Optional.of(new BigDecimal("2500.00")), engine.balance(1L));
+        awaitPersisted(store, 1);
+        assertEquals(movement.getMovimientoId(), store.persisted.get(0).getMovimientoId());
+    }
+
+    @Test
+    void post_InsufficientBalance_ThrowsAndKeepsBalance() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("100.00"));
+        engine = engine(store);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("100.01")));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        assertEquals(Optional.of(new BigDecimal("100.00")), engine.balance(1L));
+    }
+
+    @Test
+    void post_WithdrawalIntoHeldBalance_IsRefused() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("100.00"));
+        engine = engine(store);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("40.01"), () -> 6_000));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        engine.post(1L, "Retiro", new BigDecimal("40.00"), () -> 6_000);
+        assertEquals(Optional.of(new BigDecimal("60.00")), engine.balance(1L));
+    }
+
+    @Test
+    void withBalance_HoldPlacedThere_IsLeftByLaterWithdrawals() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("100.00"));
+        engine = engine(store);
+        engine.post(1L, "Retiro", new BigDecimal("30.00"));
+        AtomicLong held = new AtomicLong();
+
+        // When
+        engine.withBalance(1L, held::set);
+
+        // Then
+        assertEquals(7_000, held.get());
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Retiro", new BigDecimal("0.01"), held::get));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.withBalance(1L, balance -> {
+                    throw new IllegalArgumentException("Saldo no disponible");
+                }));
+        assertEquals("Saldo no disponible", exception.getMessage());
+    }
+
+    @Test
+    void post_AccountNotFound_ThrowsException() {
+        // Given
+        engine = engine(store);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(9L, "Deposito", BigDecimal.TEN));
+        assertEquals("Account with ID 9 not found", exception.getMessage());
+    }
+
+    @Test
+    void post_InvalidType_ThrowsException() {
+        // Given
+        store.accounts.put(1L, BigDecimal.ZERO);
+        engine = engine(store);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Transferencia", BigDecimal.TEN));
+        assertEquals("Invalid movement type", exception.getMessage());
+    }
+
+    @Test
+    void post_ConcurrentPostings_AllApplied() throws InterruptedException {
+        // Given
+        for (long cuentaId = 0; cuentaId < 8; cuentaId++) {
+            store.accounts.put(cuentaId, BigDecimal.ZERO);
+        }
+        engine = engine(store);
+        Thread[] posters = new Thread[8];
+
+        // When
+        for (int i = 0; i < posters.length; i++) {
+            posters[i] = new Thread(() -> {
+                for (int n = 0; n < 96; n++) {
+                    engine.post((long) (n % 8), "Deposito", BigDecimal.ONE);
+                }
+            });
+            posters[i].start();
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+
+        // Then
+        for (long cuentaId = 0; cuentaId < 8; cuentaId++) {
+            assertEquals(Optional.of(new BigDecimal("96.00")), engine.balance(cuentaId));
+        }
+        awaitPersisted(store, 768);
+    }
+
+    @Test
+    void post_NumbersMovementsAfterTheAccountsLatest() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("100.00"));
+        store.seqs.put(1L, 41L);
+        engine = engine(store);
+
+        // When
+        Movement first = engine.post(1L, "Deposito", BigDecimal.ONE);
+        Movement second = engine.post(1L, "Retiro", BigDecimal.ONE);
+
+        // Then
+        assertEquals(42L, first.getSeq());
+        assertEquals(43L, second.getSeq());
+        awaitPersisted(store, 2);
+        assertEquals(List.of(42L, 43L), store.persisted.stream().map(Movement::getSeq).collect(Collectors.toList()));
+    }
+
+    @Test
+    void post_NotTakenWithinTimeout_IsNeverPosted() throws InterruptedException {
+        // Given a writer stuck loading account 2, with account 4 queued behind it on the same partition
+        store.accounts.put(2L, BigDecimal.ZERO);
+        store.accounts.put(4L, BigDecimal.ZERO);
+        CountDownLatch gate = new CountDownLatch(1);
+        store.slowLoad = gate;
+        engine = engine(store, Duration.ofMillis(100));
+        Thread first = new Thread(() -> engine.post(2L, "Deposito", BigDecimal.ONE));
+        first.start();
+        store.loading.await();
+
+        // When
+        IllegalStateException exception;
+        try {
+            exception = assertThrows(IllegalStateException.class, () -> engine.post(4L, "Deposito", BigDecimal.TEN));
+        } finally {
+            gate.countDown();
+        }
+        first.join();
+
+        // Then
+        assertTrue(exception.getMessage().contains("it was not posted"));
+        awaitPersisted(store, 1);
+        assertEquals(Optional.empty(), engine.balance(4L));
+        assertEquals(2L, store.persisted.get(0).getCuentaId());
+    }
+
+    @Test
+    void refresh_DeactivatedAccount_RejectsPostings() {
+        // Given
+        store.accounts.put(1L, new BigDecimal("50.00"));
+        engine = engine(store);
+        engine.post(1L, "Deposito", BigDecimal.TEN);
+        store.inactive.add(1L);
+
+        // When
+        engine.refresh(1L);
+
+        // Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.post(1L, "Deposito", BigDecimal.TEN));
+        assertEquals("Account is inactive", exception.getMessage());
+    }
+
+    @Test
+    void restart_MovementsOnlyInJournal_AreRecovered() throws InterruptedException {
+        // Given a database that is down until the engine is closed
+        store.accounts.put(1L, BigDecimal.ZERO);
+        store.failing = true;
+        engine = engine(store);
+        engine.post(1L, "Deposito", new BigDecimal("10.00"));
+        engine.post(1L, "Deposito", new BigDecimal("20.00"));
+        engine.close();
+        engine = null;
+        assertTrue(store.persisted.isEmpty());
+
+        // When
+        store.failing = false;
+        engine = engine(store);
+
+        // Then
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("30.00")),
+                store.persisted.stream().map(Movement::getSaldo).collect(Collectors.toList()));
+    }
+
+    @Test
+    void persist_FailedBatch_IsRetriedWithoutDuplicates() {
+        // Given
+        store.accounts.put(1L, BigDecimal.ZERO);
+        store.failAfterStoring = true;
+        engine = engine(store);
+
+        // When
+        engine.post(1L, "Deposito", BigDecimal.ONE);
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (engine.getUnpersistedCount() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, engine.getUnpersistedCount());
+        assertEquals(1, store.persisted.size());
+    }
+
+    private LedgerEngine engine(LedgerStore ledgerStore) {
+        return engine(ledgerStore, Duration.ofSeconds(5));
+    }
+
+    private LedgerEngine engine(LedgerStore ledgerStore, Duration postTimeout) {
+        return new LedgerEngine(ledgerStore, cuentaId -> ids.incrementAndGet(), directory, 2, 1000, 16,
+                1024 * LedgerJournal.RECORD_SIZE, 10_000, postTimeout, Duration.ofMillis(200));
+    }
+
+    private static void awaitPersisted(InMemoryStore store, int count) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (store.persisted.size() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(count, store.persisted.size());
+    }
+
+    /**
+     * Accounts and movements in memory; can fail like a database that is down
+     */
+    private static final class InMemoryStore implements LedgerStore {
+
+        private final Map<Long, BigDecimal> accounts = new ConcurrentHashMap<>();
+        private final Map<Long, Long> seqs = new ConcurrentHashMap<>();
+        private final List<Long> inactive = new CopyOnWriteArrayList<>();
+        private final List<Movement> persisted = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+        private volatile boolean failAfterStoring;
+        // The first account loaded waits for it, as a slow database would
+        private volatile CountDownLatch slowLoad;
+        private final CountDownLatch loading = new CountDownLatch(1);
+
+        @Override
+        public Optional<LedgerAccount> load(long cuentaId) {
+            CountDownLatch latch = slowLoad;
+            if (latch != null) {
+                slowLoad = null;
+                loading.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            BigDecimal balance = accounts.get(cuentaId);
+            if (balance == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new LedgerAccount(!inactive.contains(cuentaId), balance.movePointRight(2).longValueExact(),
+                    seqs.getOrDefault(cuentaId, 0L)));
+        }
+
+        @Override
+        public void persist(List<LedgerEntry> entries) {
+            if (failing) {
+                throw new IllegalStateException("Database is down");
+            }
+            entries.forEach(entry -> persisted.add(entry.toMovement()));
+            if (failAfterStoring) {
+                failAfterStoring = false;
+                throw new IllegalStateException("Connection lost before the commit was acknowledged");
+            }
+        }
+
+        @Override
+        public void persistMissing(List<LedgerEntry> entries) {
+            if (failing) {
+                throw new IllegalStateException("Database is down");
+            }
+            entries.stream()
+                    .filter(entry -> persisted.stream().noneMatch(m -> m.getMovimientoId() == entry.getMovimientoId()))
+                    .forEach(entry -> persisted.add(entry.toMovement()));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking.account.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LedgerJournal
+ */
+class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sync_ReadAll_RoundTripsEveryField() throws IOException {
+        // Given
+        LedgerEntry entry = new LedgerEntry(1, 42, 7, 3, LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000),
+                false, 57_525, 142_575);
+        LedgerJournal journal = LedgerJournal.open(directory, 1, 16, 1024);
+
+        // When
+        journal.append(entry);
+        journal.sync();
+        journal.close();
+        List<LedgerEntry> read = LedgerJournal.readAll(directory);
+
+        // Then
+        assertEquals(1, read.size());
+        LedgerEntry result = read.get(0);
+        assertEquals(1, result.getSequence());
+        assertEquals(42, result.getMovimientoId());
+        assertEquals(7, result.getCuentaId());
+        assertEquals(3, result.getSeq());
+        assertEquals(entry.getFecha(), result.getFecha());
+        assertFalse(result.isDeposit());
+        assertEquals(57_525, result.getValor());
+        assertEquals(142_575, result.getSaldo());
+    }
+
+    @Test
+    void readAll_TornLastRecord_ReturnsTheRecordsBeforeIt() throws IOException {
+        // Given
+        LedgerJournal journal = LedgerJournal.open(directory, 1, 16, 1024);
+        journal.append(entry(1));
+        journal.append(entry(2));
+        journal.sync();
+        journal.close();
+        Path file = onlySegment();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        // When
+        List<LedgerEntry> read = LedgerJournal.readAll(directory);
+
+        // Then
+        assertEquals(1, read.size());
+        assertEquals(1, read.get(0).getSequence());
+    }
+
+    @Test
+    void readAll_DamagedRecord_StopsThere() throws IOException {
+        // Given
+        LedgerJournal journal = LedgerJournal.open(directory, 1, 16, 1024);
+        journal.append(entry(1));
+        journal.append(entry(2));
+        journal.append(entry(3));
+        journal.sync();
+        journal.close();
+        try (RandomAccessFile raf = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            raf.seek(LedgerJournal.RECORD_SIZE + 20);
+            raf.write(0xFF);
+        }
+
+        // When
+        List<LedgerEntry> read = LedgerJournal.readAll(directory);
+
+        // Then
+        assertEquals(1, read.size());
+    }
+
+    @Test
+    void release_PersistedFullSegments_AreDeleted() throws IOException {
+        // Given two records per segment
+        LedgerJournal journal = LedgerJournal.open(directory, 1, 16, 2L * LedgerJournal.RECORD_SIZE);
+        journal.append(entry(1));
+        journal.append(entry(2));
+        journal.sync();
+        journal.append(entry(3));
+        journal.sync();
+
+        // When
+        journal.release(1);
+        int beforePersisted = journal.getSegmentCount();
+        journal.release(2);
+
+        // Then
+        assertEquals(2, beforePersisted);
+        assertEquals(1, journal.getSegmentCount());
+        journal.close();
+        List<LedgerEntry> read = LedgerJournal.readAll(directory);
+        assertEquals(1, read.size());
+        assertEquals(3, read.get(0).getSequence());
+    }
+
+    @Test
+    void close_EverythingPersisted_LeavesNoSegments() throws IOException {
+        // Given
+        LedgerJournal journal = LedgerJournal.open(directory, 5, 16, 1024);
+        journal.append(entry(5));
+        journal.sync();
+
+        // When
+        journal.close(5);
+
+        // Then
+        assertTrue(LedgerJournal.readAll(directory).isEmpty());
+    }
+
+    @Test
+    void discard_FailedBatch_IsNotRead() throws IOException {
+        // Given
+        LedgerJournal journal = LedgerJournal.open(directory, 1, 16, 1024);
+        journal.append(entry(1));
+        journal.sync();
+        long size = journal.size();
+        journal.append(entry(2));
+
+        // When
+        journal.discard(size);
+        journal.close();
+
+        // Then
+        assertEquals(1, LedgerJournal.readAll(directory).size());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private static LedgerEntry entry(long sequence) {
+        return new LedgerEntry(sequence, sequence * 10, 1, sequence, LocalDateTime.of(2024, 1, 1, 0, 0), true, 100, sequence * 100);
+    }
+}
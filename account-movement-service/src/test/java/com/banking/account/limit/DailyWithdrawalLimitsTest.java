@@ -0,0 +1,111 @@
+package com.banking.account.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DailyWithdrawalLimits
+ */
+class DailyWithdrawalLimitsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private final DailyWithdrawalLimits limits =
+            new DailyWithdrawalLimits(Map.of("Ahorro", new BigDecimal("500.00")));
+
+    @Test
+    void reserve_UpToTheCap_IsAccepted() {
+        // When
+        boolean first = limits.reserve(1L, "Ahorro", TODAY, 30_000);
+        boolean second = limits.reserve(1L, "ahorro", TODAY, 20_000);
+        boolean third = limits.reserve(1L, "Ahorro", TODAY, 1);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(50_000, limits.withdrawn(1L, TODAY));
+    }
+
+    @Test
+    void reserve_NextDay_StartsFromZero() {
+        // Given
+        limits.record(1L, TODAY, 50_000);
+
+        // When
+        boolean reserved = limits.reserve(1L, "Ahorro", TODAY.plusDays(1), 50_000);
+
+        // Then
+        assertTrue(reserved);
+        assertEquals(0, limits.withdrawn(1L, TODAY));
+        assertEquals(50_000, limits.withdrawn(1L, TODAY.plusDays(1)));
+    }
+
+    @Test
+    void reserve_TypeWithoutCap_IsAlwaysAccepted() {
+        // When & Then
+        assertTrue(limits.reserve(1L, "Corriente", TODAY, 1_000_000));
+        assertEquals(0, limits.withdrawn(1L, TODAY));
+    }
+
+    @Test
+    void release_ReservedWithdrawal_FreesTheCap() {
+        // Given
+        limits.reserve(1L, "Ahorro", TODAY, 50_000);
+
+        // When
+        limits.release(1L, TODAY, 50_000);
+
+        // Then
+        assertTrue(limits.reserve(1L, "Ahorro", TODAY, 50_000));
+    }
+
+    @Test
+    void reserve_Concurrently_NeverExceedsTheCap() throws InterruptedException {
+        // Given
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] withdrawers = new Thread[8];
+
+        // When
+        for (int i = 0; i < withdrawers.length; i++) {
+            withdrawers[i] = new Thread(() -> {
+                for (int n = 0; n < 100; n++) {
+                    if (limits.reserve(1L, "Ahorro", TODAY, 100)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            withdrawers[i].start();
+        }
+        for (Thread withdrawer : withdrawers) {
+            withdrawer.join();
+        }
+
+        // Then
+        assertEquals(500, accepted.get());
+        assertEquals(50_000, limits.withdrawn(1L, TODAY));
+    }
+
+    @Test
+    void tipoCuenta_LooksTheAccountUpOnceUntilForgotten() {
+        // Given
+        AtomicInteger lookups = new AtomicInteger();
+
+        // When
+        limits.tipoCuenta(1L, id -> { lookups.incrementAndGet(); return Optional.of("Ahorro"); });
+        Optional<String> cached = limits.tipoCuenta(1L, id -> { lookups.incrementAndGet(); return Optional.of("Ahorro"); });
+        limits.forget(1L);
+        limits.tipoCuenta(1L, id -> { lookups.incrementAndGet(); return Optional.of("Corriente"); });
+
+        // Then
+        assertEquals(Optional.of("Ahorro"), cached);
+        assertEquals(2, lookups.get());
+    }
+}
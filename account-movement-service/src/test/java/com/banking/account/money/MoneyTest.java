@@ -0,0 +1,59 @@
+package com.banking.account.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Money
+ */
+class MoneyTest {
+
+    @Test
+    void of_RoundsHalfUpToCents() {
+        // When & Then
+        assertEquals(123_457, Money.of(new BigDecimal("1234.565")).getCents());
+        assertEquals(-123_457, Money.of(new BigDecimal("-1234.565")).getCents());
+        assertEquals(50_000, Money.of(new BigDecimal("500")).getCents());
+    }
+
+    @Test
+    void toBigDecimal_HasTwoDecimals() {
+        // When & Then
+        assertEquals(new BigDecimal("2500.00"), Money.ofCents(250_000).toBigDecimal());
+        assertEquals(new BigDecimal("0.05"), Money.ofCents(5).toBigDecimal());
+    }
+
+    @Test
+    void plusAndMinus_ComputeInCents() {
+        // Given
+        Money balance = Money.of(new BigDecimal("2000.00"));
+
+        // When
+        Money result = balance.plus(Money.of(new BigDecimal("500.25"))).minus(Money.of(new BigDecimal("2500.50")));
+
+        // Then
+        assertEquals(Money.ofCents(-25), result);
+        assertTrue(result.isNegative());
+        assertTrue(result.compareTo(Money.ZERO) < 0);
+    }
+
+    @Test
+    void plus_BeyondDecimal10_2_Throws() {
+        // Given
+        Money max = Money.ofCents(Money.MAX_CENTS);
+
+        // When & Then
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(-Money.MAX_CENTS).minus(Money.ofCents(1)));
+    }
+
+    @Test
+    void of_AmountTooLarge_Throws() {
+        // When & Then
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("100000000.00")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+30")));
+    }
+}
@@ -0,0 +1,175 @@
+package com.banking.account.report;
+
+import com.banking.account.dto.ReportDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StatementCache
+ */
+class StatementCacheTest {
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private final StatementCache cache = new StatementCache(100, Duration.ofMinutes(10));
+
+    @Test
+    void get_AfterPut_ReturnsTheStatement() {
+        // Given
+        List<ReportDto> report = rows(3);
+
+        // When
+        boolean cached = put(1L, JANUARY, FEBRUARY, List.of(10L, 11L), report);
+
+        // Then
+        assertTrue(cached);
+        assertEquals(Optional.of(report), cache.get(1L, JANUARY, FEBRUARY));
+        assertEquals(Optional.empty(), cache.get(1L, JANUARY, MARCH));
+        assertEquals(Optional.empty(), cache.get(2L, JANUARY, FEBRUARY));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(3, cache.getRowCount());
+    }
+
+    @Test
+    void invalidate_MovementWithinRange_DropsOnlyThoseStatements() {
+        // Given
+        put(1L, JANUARY, FEBRUARY, List.of(10L, 11L), rows(2));
+        put(1L, FEBRUARY.plusSeconds(1), MARCH, List.of(10L, 11L), rows(2));
+        put(2L, JANUARY, MARCH, List.of(20L), rows(2));
+
+        // When
+        cache.invalidate(11L, JANUARY.plusDays(10));
+
+        // Then
+        assertEquals(Optional.empty(), cache.get(1L, JANUARY, FEBRUARY));
+        assertTrue(cache.get(1L, FEBRUARY.plusSeconds(1), MARCH).isPresent());
+        assertTrue(cache.get(2L, JANUARY, MARCH).isPresent());
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(4, cache.getRowCount());
+    }
+
+    @Test
+    void invalidate_MovementOnTheRangeBound_DropsTheStatement() {
+        // Given
+        put(1L, JANUARY, FEBRUARY, List.of(10L), rows(1));
+
+        // When
+        cache.invalidate(10L, FEBRUARY);
+
+        // Then
+        assertEquals(Optional.empty(), cache.get(1L, JANUARY, FEBRUARY));
+    }
+
+    @Test
+    void put_MovementPostedWhileTheStatementWasRead_IsNotCached() {
+        // Given
+        long version = cache.clientVersion(1L) + cache.accountVersion(List.of(10L));
+        cache.invalidate(10L, MARCH);
+
+        // When
+        boolean cached = cache.put(1L, JANUARY, FEBRUARY, List.of(10L), rows(1), version);
+
+        // Then
+        assertFalse(cached);
+        assertEquals(Optional.empty(), cache.get(1L, JANUARY, FEBRUARY));
+    }
+
+    @Test
+    void put_AccountOpenedWhileTheStatementWasRead_IsNotCached() {
+        // Given
+        long version = cache.clientVersion(1L) + cache.accountVersion(List.of(10L));
+        cache.invalidateClient(1L);
+
+        // When
+        boolean cached = cache.put(1L, JANUARY, FEBRUARY, List.of(10L), rows(1), version);
+
+        // Then
+        assertFalse(cached);
+    }
+
+    @Test
+    void invalidateAccount_DropsEveryStatementOfItsClient() {
+        // Given
+        put(1L, JANUARY, FEBRUARY, List.of(10L, 11L), rows(1));
+        put(1L, FEBRUARY, MARCH, List.of(10L, 11L), rows(1));
+        put(2L, JANUARY, FEBRUARY, List.of(20L), rows(1));
+
+        // When
+        cache.invalidateAccount(10L);
+
+        // Then
+        assertEquals(1, cache.size());
+        assertTrue(cache.get(2L, JANUARY, FEBRUARY).isPresent());
+    }
+
+    @Test
+    void put_OverMaxRows_DropsTheLeastRecentlyRead() {
+        // Given
+        put(1L, JANUARY, FEBRUARY, List.of(10L), rows(40));
+        put(2L, JANUARY, FEBRUARY, List.of(20L), rows(40));
+        cache.get(1L, JANUARY, FEBRUARY);
+
+        // When
+        put(3L, JANUARY, FEBRUARY, List.of(30L), rows(40));
+
+        // Then
+        assertTrue(cache.get(1L, JANUARY, FEBRUARY).isPresent());
+        assertEquals(Optional.empty(), cache.get(2L, JANUARY, FEBRUARY));
+        assertTrue(cache.get(3L, JANUARY, FEBRUARY).isPresent());
+        assertEquals(80, cache.getRowCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void put_LargerThanTheCache_IsNotCached() {
+        // Given
+        put(1L, JANUARY, FEBRUARY, List.of(10L), rows(10));
+
+        // When
+        boolean cached = put(2L, JANUARY, FEBRUARY, List.of(20L), rows(101));
+
+        // Then
+        assertFalse(cached);
+        assertTrue(cache.get(1L, JANUARY, FEBRUARY).isPresent());
+    }
+
+    @Test
+    void get_AfterTimeToLive_IsEmpty() throws InterruptedException {
+        // Given
+        StatementCache shortLived = new StatementCache(100, Duration.ofMillis(1));
+        shortLived.put(1L, JANUARY, FEBRUARY, List.of(10L), rows(1), 0);
+
+        // When
+        Thread.sleep(5);
+
+        // Then
+        assertEquals(Optional.empty(), shortLived.get(1L, JANUARY, FEBRUARY));
+        assertEquals(0, shortLived.getRowCount());
+    }
+
+    private boolean put(long clienteId, LocalDateTime fechaInicio, LocalDateTime fechaFin, List<Long> cuentaIds,
+                        List<ReportDto> report) {
+        long version = cache.clientVersion(clienteId) + cache.accountVersion(cuentaIds);
+        return cache.put(clienteId, fechaInicio, fechaFin, cuentaIds, report, version);
+    }
+
+    private static List<ReportDto> rows(int count) {
+        List<ReportDto> rows = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            rows.add(new ReportDto(JANUARY.plusHours(n), "Jose Lema", "478758", "Ahorro",
+                    new BigDecimal("2000.00"), true, new BigDecimal("1.00"), new BigDecimal("2001.00")));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,191 @@
+package com.banking.account.service;
+
+import com.banking.account.dto.HoldDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Hold;
+import com.banking.account.hold.HoldRegistry;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.repository.HoldRepository;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for HoldService
+ */
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private MovementService movementService;
+
+    @Mock
+    private ShardIdGenerator shardIdGenerator;
+
+    @Spy
+    private HoldRegistry holdRegistry = new HoldRegistry();
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.singleShard();
+
+    @InjectMocks
+    private HoldService holdService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(holdService, "defaultTtl", Duration.ofDays(7));
+        ReflectionTestUtils.setField(holdService, "maxTtl", Duration.ofDays(30));
+
+        account = new Account();
+        account.setCuentaId(1L);
+        account.setNumeroCuenta("478758");
+        account.setTipoCuenta("Ahorro");
+        account.setSaldoInicial(new BigDecimal("100.00"));
+        account.setEstado(true);
+        account.setClienteId(1L);
+    }
+
+    @Test
+    void createHold_WithinAvailableBalance_IsReservedWithTheBalanceLocked() {
+        // Given
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(shardIdGenerator.nextId(any(), anyInt())).thenReturn(7L);
+        givenBalance(10_000);
+
+        // When
+        HoldDto created = holdService.createHold(1L, new HoldDto(new BigDecimal("60.00"), null));
+
+        // Then
+        assertEquals(7L, created.getRetencionId());
+        assertEquals(6_000, holdRegistry.held(1L));
+        verify(holdRegistry).reserve(any(Hold.class), eq(10_000L));
+        verify(holdRepository).save(any(Hold.class));
+    }
+
+    @Test
+    void createHold_BeyondAvailableBalance_IsRefused() {
+        // Given
+        holdRegistry.add(hold(3L, "60.00", LocalDateTime.now().plusDays(1)));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(shardIdGenerator.nextId(any(), anyInt())).thenReturn(7L);
+        givenBalance(10_000);
+
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> holdService.createHold(1L, new HoldDto(new BigDecimal("40.01"), null)));
+
+        // Then
+        assertEquals("Saldo no disponible", exception.getMessage());
+        assertEquals(6_000, holdRegistry.held(1L));
+        verify(holdRepository, never()).save(any(Hold.class));
+    }
+
+    @Test
+    void createHold_InactiveAccount_IsRefusedWithoutReadingTheBalance() {
+        // Given
+        account.setEstado(false);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> holdService.createHold(1L, new HoldDto(new BigDecimal("10.00"), null)));
+        verify(movementService, never()).withBalance(anyLong(), any());
+    }
+
+    @Test
+    void captureHold_ActiveHold_WithdrawsWithoutCountingItselfAndSettles() {
+        // Given
+        holdRegistry.add(hold(7L, "60.00", LocalDateTime.now().plusDays(1)));
+        MovementDto retiro = new MovementDto(LocalDateTime.now(), "Retiro", new BigDecimal("50.00"),
+                new BigDecimal("50.00"), 1L);
+        when(movementService.createMovement(any(MovementDto.class), eq(6_000L))).thenReturn(retiro);
+
+        // When
+        MovementDto captured = holdService.captureHold(1L, 7L, new BigDecimal("50.00"));
+
+        // Then
+        assertSame(retiro, captured);
+        assertEquals(0, holdRegistry.held(1L));
+        verify(holdRepository).deleteById(7L);
+    }
+
+    @Test
+    void captureHold_ExpiredHold_IsRefusedAndLeftToTheExpiryJob() {
+        // Given
+        holdRegistry.add(hold(7L, "60.00", LocalDateTime.now().minusSeconds(1)));
+
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> holdService.captureHold(1L, 7L, null));
+
+        // Then
+        assertEquals("Hold with ID 7 has expired", exception.getMessage());
+        verify(movementService, never()).createMovement(any(MovementDto.class), anyLong());
+        // Unclaimed, so the expiry job can release it
+        assertTrue(holdRegistry.claim(1L, 7L).isPresent());
+    }
+
+    @Test
+    void captureHold_MoreThanHeld_IsRefused() {
+        // Given
+        holdRegistry.add(hold(7L, "60.00", LocalDateTime.now().plusDays(1)));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> holdService.captureHold(1L, 7L, new BigDecimal("60.01")));
+        assertEquals(6_000, holdRegistry.held(1L));
+        assertTrue(holdRegistry.claim(1L, 7L).isPresent());
+    }
+
+    @Test
+    void releaseHold_UnknownHold_IsRefused() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> holdService.releaseHold(1L, 9L));
+        assertEquals("Hold with ID 9 not found", exception.getMessage());
+        verify(holdRepository, never()).deleteById(anyLong());
+    }
+
+    /**
+     * The account's balance as withBalance hands it to its action
+     */
+    private void givenBalance(long cents) {
+        doAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(1).accept(cents);
+            return null;
+        }).when(movementService).withBalance(eq(1L), any());
+    }
+
+    private static Hold hold(Long retencionId, String valor, LocalDateTime fechaExpiracion) {
+        return new Hold(retencionId, 1L, new BigDecimal(valor), LocalDateTime.now(), fechaExpiracion);
+    }
+}
@@ -1,27 +1,59 @@
 package com.banking.account.service;
 
+import com.banking.account.archive.MovementArchive;
+import com.banking.account.balance.BalanceCache;
+import com.banking.account.concurrency.LockingMode;
+import com.banking.account.concurrency.PostingRetry;
+import com.banking.account.dto.ClientInfoDto;
 import com.banking.account.dto.MovementDto;
+import com.banking.account.dto.ReportDto;
+import com.banking.account.dto.TransferDto;
 import com.banking.account.entity.Account;
+import com.banking.account.entity.Hold;
 import com.banking.account.entity.Movement;
 import com.banking.account.feign.ClientFeignClient;
+import com.banking.account.hold.HoldRegistry;
+import com.banking.account.limit.DailyWithdrawalLimits;
 import com.banking.account.repository.AccountRepository;
 import com.banking.account.repository.MovementRepository;
+import com.banking.account.report.StatementCache;
+import com.banking.account.sharding.ShardIdGenerator;
+import com.banking.account.sharding.ShardRouter;
+import com.banking.account.velocity.BurstRule;
+import com.banking.account.velocity.VelocityDecision;
+import com.banking.account.velocity.VelocityEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -39,6 +71,39 @@ class MovementServiceTest {
     @Mock
     private ClientFeignClient clientFeignClient;
 
+    @Mock
+    private ShardIdGenerator shardIdGenerator;
+
+    @Mock
+    private MovementArchive movementArchive;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.singleShard();
+
+    @Spy
+    private HoldRegistry holdRegistry = new HoldRegistry();
+
+    @Spy
+    private DailyWithdrawalLimits dailyWithdrawalLimits =
+            new DailyWithdrawalLimits(Map.of("Ahorro", new BigDecimal("2000.00")));
+
+    @Spy
+    private VelocityEngine velocityEngine = new VelocityEngine(List.of(
+            new BurstRule(3, Duration.ofMinutes(10), VelocityDecision.BLOCK)),
+            8, Duration.ofSeconds(1), Duration.ofHours(24), nanos -> { });
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PostingRetry postingRetry = new PostingRetry(TransactionOperations.withoutTransaction(),
+            LockingMode.OPTIMISTIC, 3, Duration.ofMillis(1), Duration.ofMillis(5), meterRegistry);
+
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(1_000, Duration.ofMinutes(1));
+
+    @Spy
+    private StatementCache statementCache = new StatementCache(1_000, Duration.ofMinutes(10));
+
     @InjectMocks
     private MovementService movementService;
 
@@ -68,14 +133,15 @@ class MovementServiceTest {
         movement.setValor(new BigDecimal("500.00"));
         movement.setSaldo(new BigDecimal("2500.00"));
         movement.setCuentaId(1L);
+        movement.setSeq(1L);
     }
 
     @Test
     void createMovement_Deposito_Success() {
         // Given
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList());
-        when(movementRepository.save(any(Movement.class))).thenReturn(movement);
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenReturn(movement);
 
         // When
         MovementDto result = movementService.createMovement(movementDto);
@@ -98,9 +164,9 @@ class MovementServiceTest {
         movement.setValor(new BigDecimal("200.00"));
         movement.setSaldo(new BigDecimal("1800.00"));
         
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList());
-        when(movementRepository.save(any(Movement.class))).thenReturn(movement);
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenReturn(movement);
 
         // When
         MovementDto result = movementService.createMovement(movementDto);
@@ -111,14 +177,234 @@ class MovementServiceTest {
         assertEquals(new BigDecimal("200.00"), result.getValor());
     }
 
+    @Test
+    void createMovement_WithdrawalIntoHeldBalance_ThrowsException() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("200.00"));
+        holdRegistry.add(new Hold(7L, 1L, new BigDecimal("1900.00"), LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.createMovement(movementDto));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void createMovement_CaptureOfTheHold_SpendsHeldBalance() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("1900.00"));
+        holdRegistry.add(new Hold(7L, 1L, new BigDecimal("1900.00"), LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        MovementDto result = movementService.createMovement(movementDto, 190_000);
+
+        // Then
+        assertEquals(new BigDecimal("100.00"), result.getSaldo());
+    }
+
+    @Test
+    void withBalance_ReadsTheBalanceWithTheAccountRowLocked() {
+        // Given
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        AtomicLong balance = new AtomicLong();
+
+        // When
+        movementService.withBalance(1L, balance::set);
+
+        // Then
+        assertEquals(200_000, balance.get());
+        verify(accountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void createMovement_WithdrawalOverTheDailyCap_ThrowsException() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("200.00"));
+        dailyWithdrawalLimits.record(1L, LocalDate.now(), 190_000);
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.createMovement(movementDto));
+        assertEquals("Cupo diario excedido", exception.getMessage());
+        assertEquals(190_000, dailyWithdrawalLimits.withdrawn(1L, LocalDate.now()));
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void createMovement_WithdrawalWithinTheDailyCap_IsCounted() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("200.00"));
+        dailyWithdrawalLimits.record(1L, LocalDate.now(), 100_000);
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        movementService.createMovement(movementDto);
+
+        // Then
+        assertEquals(120_000, dailyWithdrawalLimits.withdrawn(1L, LocalDate.now()));
+    }
+
+    @Test
+    void createMovement_BurstOfWithdrawals_IsBlocked() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("20.00"));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            velocityEngine.record(1L, 2_000, now - i * 1000);
+        }
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.createMovement(movementDto));
+        assertEquals("Movimiento bloqueado por control de velocidad", exception.getMessage());
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void createMovement_CaptureInABurstOfWithdrawals_IsBlocked() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("20.00"));
+        holdRegistry.add(new Hold(7L, 1L, new BigDecimal("20.00"), LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            velocityEngine.record(1L, 2_000, now - i * 1000);
+        }
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.createMovement(movementDto, 2_000));
+        assertEquals("Movimiento bloqueado por control de velocidad", exception.getMessage());
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void createMovement_PostedWithdrawals_CountForTheVelocityChecks() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("200.00"));
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            movementService.createMovement(movementDto);
+        }
+
+        // Then
+        verify(velocityEngine, times(3)).evaluate(eq(1L), eq(20_000L), anyLong());
+        verify(velocityEngine, never()).release(anyLong(), anyLong(), anyLong());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.createMovement(movementDto));
+        assertEquals("Movimiento bloqueado por control de velocidad", exception.getMessage());
+    }
+
+    @Test
+    void createMovement_RefusedWithdrawal_IsReleasedFromTheVelocityWindow() {
+        // Given
+        movementDto.setTipoMovimiento("Retiro");
+        movementDto.setValor(new BigDecimal("100.00"));
+        account.setEstado(false);
+
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> movementService.createMovement(movementDto));
+            // Not blocked by the refused ones before it
+            assertEquals("Account is inactive", exception.getMessage());
+        }
+
+        // Then
+        verify(velocityEngine, times(4)).release(eq(1L), eq(10_000L), anyLong());
+    }
+
+    @Test
+    void transfer_PostsBothMovements_LockingTheLowerIdFirst() {
+        // Given
+        Account origen = origenAccount();
+        TransferDto transferDto = new TransferDto(2L, 1L, new BigDecimal("100.00"));
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(origen));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(anyLong())).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TransferDto result = movementService.transfer(transferDto);
+
+        // Then
+        assertEquals("Retiro", result.getRetiro().getTipoMovimiento());
+        assertEquals(2L, result.getRetiro().getCuentaId());
+        assertEquals(new BigDecimal("400.00"), result.getRetiro().getSaldo());
+        assertEquals("Deposito", result.getDeposito().getTipoMovimiento());
+        assertEquals(1L, result.getDeposito().getCuentaId());
+        assertEquals(new BigDecimal("2100.00"), result.getDeposito().getSaldo());
+        InOrder locks = inOrder(accountRepository);
+        locks.verify(accountRepository).findByIdForUpdate(1L);
+        locks.verify(accountRepository).findByIdForUpdate(2L);
+    }
+
+    @Test
+    void transfer_InsufficientBalance_PostsNothing() {
+        // Given
+        Account origen = origenAccount();
+        TransferDto transferDto = new TransferDto(2L, 1L, new BigDecimal("600.00"));
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(origen));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(2L)).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.transfer(transferDto));
+        assertEquals("Saldo no disponible", exception.getMessage());
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void transfer_SameAccount_ThrowsException() {
+        // Given
+        TransferDto transferDto = new TransferDto(1L, 1L, new BigDecimal("100.00"));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.transfer(transferDto));
+        assertEquals("Origin and destination accounts must be different", exception.getMessage());
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+    }
+
     @Test
     void createMovement_InsufficientBalance_ThrowsException() {
         // Given
         movementDto.setTipoMovimiento("Retiro");
         movementDto.setValor(new BigDecimal("3000.00")); // More than available balance
         
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList());
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -130,7 +416,7 @@ class MovementServiceTest {
     @Test
     void createMovement_AccountNotFound_ThrowsException() {
         // Given
-        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.empty());
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -143,7 +429,7 @@ class MovementServiceTest {
     void createMovement_AccountInactive_ThrowsException() {
         // Given
         account.setEstado(false);
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
 
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
@@ -152,10 +438,82 @@ class MovementServiceTest {
         assertEquals("Account is inactive", exception.getMessage());
     }
 
+    @Test
+    void createMovement_BalanceBeyondColumnRange_ThrowsException() {
+        // Given
+        account.setSaldoInicial(new BigDecimal("99999999.50"));
+        movementDto.setValor(new BigDecimal("1.00"));
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
+            () -> movementService.createMovement(movementDto));
+        
+        assertEquals("Balance out of range", exception.getMessage());
+        verify(movementRepository, never()).saveAndFlush(any(Movement.class));
+    }
+
+    @Test
+    void createMovement_AfterLatestMovement_AssignsNextSeq() {
+        // Given
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.of(movement));
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        MovementDto result = movementService.createMovement(movementDto);
+
+        // Then
+        assertEquals(2L, result.getSeq());
+        assertEquals(new BigDecimal("3000.00"), result.getSaldo());
+    }
+
+    @Test
+    void createMovement_ConcurrentMovementTookTheSeq_ThrowsException() {
+        // Given
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.of(movement));
+        when(movementRepository.saveAndFlush(any(Movement.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_movimientos_cuenta_seq"));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
+            () -> movementService.createMovement(movementDto));
+        
+        assertEquals("Another movement was posted to account 1 at the same time, try again", exception.getMessage());
+        verify(movementRepository, times(3)).saveAndFlush(any(Movement.class));
+        assertEquals(2, meterRegistry.counter("locking.retries", "operation", "movement", "mode", "optimistic").count());
+        assertEquals(1, meterRegistry.counter("locking.exhausted", "operation", "movement", "mode", "optimistic").count());
+    }
+
+    @Test
+    void createMovement_LostTheRaceOnce_IsRetriedFromTheNewBalance() {
+        // Given
+        Movement concurrent = new Movement(LocalDateTime.now(), "Deposito", new BigDecimal("100.00"),
+                new BigDecimal("2600.00"), 1L);
+        concurrent.setSeq(2L);
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L))
+                .thenReturn(Optional.of(movement), Optional.of(concurrent));
+        when(movementRepository.saveAndFlush(any(Movement.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_movimientos_cuenta_seq"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        MovementDto result = movementService.createMovement(movementDto);
+
+        // Then
+        assertEquals(3L, result.getSeq());
+        assertEquals(new BigDecimal("3100.00"), result.getSaldo());
+        assertEquals(2, meterRegistry.counter("locking.attempts", "operation", "movement", "mode", "optimistic").count());
+        assertEquals(1, meterRegistry.counter("locking.retries", "operation", "movement", "mode", "optimistic").count());
+    }
+
     @Test
     void getCurrentBalance_WithMovements() {
         // Given
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList(movement));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.of(movement));
 
         // When
         BigDecimal result = movementService.getCurrentBalance(1L);
@@ -167,7 +525,7 @@ class MovementServiceTest {
     @Test
     void getCurrentBalance_NoMovements() {
         // Given
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList());
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
 
         // When
@@ -177,6 +535,247 @@ class MovementServiceTest {
         assertEquals(new BigDecimal("2000.00"), result);
     }
 
+    @Test
+    void getBalance_NotCached_IsLoadedOnceAndCached() {
+        // Given
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.of(movement));
+
+        // When
+        Optional<BigDecimal> first = movementService.getBalance(1L);
+        Optional<BigDecimal> second = movementService.getBalance(1L);
+
+        // Then
+        assertEquals(Optional.of(new BigDecimal("2500.00")), first);
+        assertEquals(Optional.of(new BigDecimal("2500.00")), second);
+        verify(movementRepository, times(1)).findFirstByCuentaIdOrderBySeqDesc(1L);
+        assertEquals(1, balanceCache.getHitCount());
+    }
+
+    @Test
+    void getBalance_PostingCommittedWhileReading_IsNotCached() {
+        // Given
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenAnswer(invocation -> {
+            // A posting commits after the read saw seq 1
+            balanceCache.update(1L, 2600_00L, 2);
+            return Optional.of(movement);
+        });
+
+        // When
+        movementService.getBalance(1L);
+        movementService.getBalance(1L);
+
+        // Then
+        verify(movementRepository, times(2)).findFirstByCuentaIdOrderBySeqDesc(1L);
+        assertEquals(0, balanceCache.getHitCount());
+    }
+
+    @Test
+    void getBalance_AccountNotFound_IsEmptyAndNotCached() {
+        // Given
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(99L)).thenReturn(Optional.empty());
+        when(movementArchive.findLatest(99L)).thenReturn(Optional.empty());
+        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // When
+        Optional<BigDecimal> result = movementService.getBalance(99L);
+
+        // Then
+        assertEquals(Optional.empty(), result);
+        assertEquals(0, balanceCache.size());
+    }
+
+    @Test
+    void getBalances_SkipsAccountsNotFound() {
+        // Given
+        balanceCache.put(1L, 2500_00L, 1, balanceCache.version(1L));
+        balanceCache.put(3L, 10_00L, 7, balanceCache.version(3L));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(2L)).thenReturn(Optional.empty());
+        when(movementArchive.findLatest(2L)).thenReturn(Optional.empty());
+        when(accountRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // When
+        Map<Long, BigDecimal> result = movementService.getBalances(List.of(3L, 2L, 1L));
+
+        // Then
+        assertEquals(List.of(3L, 1L), List.copyOf(result.keySet()));
+        assertEquals(new BigDecimal("10.00"), result.get(3L));
+        assertEquals(new BigDecimal("2500.00"), result.get(1L));
+    }
+
+    @Test
+    void getBalances_NullAccountId_ThrowsException() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> movementService.getBalances(Arrays.asList(1L, null)));
+        assertEquals("Account IDs are required", exception.getMessage());
+        verify(accountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void createMovement_CachedAccount_UpdatesTheCachedBalance() {
+        // Given
+        balanceCache.put(1L, 2000_00L, 0, balanceCache.version(1L));
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenReturn(movement);
+
+        // When
+        movementService.createMovement(movementDto);
+
+        // Then
+        assertEquals(OptionalLong.of(2500_00L), balanceCache.get(1L));
+    }
+
+    @Test
+    void checkBalanceCache_BalancePostedElsewhere_IsCorrected() {
+        // Given
+        balanceCache.put(1L, 2000_00L, 0, balanceCache.version(1L));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.of(movement));
+
+        // When
+        int mismatches = movementService.checkBalanceCache(10);
+
+        // Then
+        assertEquals(1, mismatches);
+        assertEquals(OptionalLong.of(2500_00L), balanceCache.get(1L));
+    }
+
+    @Test
+    void generateAccountStatementReport_SameRangeAgain_IsServedFromTheCache() {
+        // Given
+        LocalDateTime fechaInicio = movement.getFecha().minusDays(1);
+        LocalDateTime fechaFin = movement.getFecha().plusDays(1);
+        ClientInfoDto client = new ClientInfoDto();
+        client.setNombre("Jose Lema");
+        when(accountRepository.findByClienteId(1L)).thenReturn(List.of(account));
+        when(movementRepository.findByClienteIdAndFechaBetween(1L, fechaInicio, fechaFin)).thenReturn(List.of(movement));
+        when(clientFeignClient.getClientById(1L)).thenReturn(client);
+
+        // When
+        List<ReportDto> first = movementService.generateAccountStatementReport(1L, fechaInicio, fechaFin);
+        List<ReportDto> second = movementService.generateAccountStatementReport(1L, fechaInicio, fechaFin);
+
+        // Then
+        assertEquals(1, first.size());
+        assertEquals("Jose Lema", first.get(0).getCliente());
+        assertEquals(first, second);
+        verify(movementRepository, times(1)).findByClienteIdAndFechaBetween(1L, fechaInicio, fechaFin);
+    }
+
+    @Test
+    void generateAccountStatementReport_AfterAMovementWithinTheRange_IsBuiltAgain() {
+        // Given
+        LocalDateTime fechaInicio = LocalDateTime.now().minusDays(1);
+        LocalDateTime fechaFin = LocalDateTime.now().plusDays(1);
+        ClientInfoDto client = new ClientInfoDto();
+        client.setNombre("Jose Lema");
+        when(accountRepository.findByClienteId(1L)).thenReturn(List.of(account));
+        when(movementRepository.findByClienteIdAndFechaBetween(1L, fechaInicio, fechaFin))
+                .thenReturn(List.of(), List.of(movement));
+        when(clientFeignClient.getClientById(1L)).thenReturn(client);
+        when(accountRepository.findByIdForPosting(1L)).thenReturn(Optional.of(account));
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementRepository.saveAndFlush(any(Movement.class))).thenReturn(movement);
+        movementService.generateAccountStatementReport(1L, fechaInicio, fechaFin);
+
+        // When
+        movementService.createMovement(movementDto);
+        List<ReportDto> report = movementService.generateAccountStatementReport(1L, fechaInicio, fechaFin);
+
+        // Then
+        assertEquals(1, report.size());
+        assertEquals(1, statementCache.getInvalidationCount());
+    }
+
+    @Test
+    void generateAccountStatementReport_ClientServiceDown_IsNotCached() {
+        // Given
+        LocalDateTime fechaInicio = movement.getFecha().minusDays(1);
+        LocalDateTime fechaFin = movement.getFecha().plusDays(1);
+        when(accountRepository.findByClienteId(1L)).thenReturn(List.of(account));
+        when(movementRepository.findByClienteIdAndFechaBetween(1L, fechaInicio, fechaFin)).thenReturn(List.of(movement));
+        when(clientFeignClient.getClientById(1L)).thenThrow(new IllegalStateException("Connection refused"));
+
+        // When
+        List<ReportDto> report = movementService.generateAccountStatementReport(1L, fechaInicio, fechaFin);
+
+        // Then
+        assertEquals(MovementService.CLIENT_UNAVAILABLE, report.get(0).getCliente());
+        assertEquals(0, statementCache.size());
+    }
+
+    @Test
+    void getCurrentBalance_OnlyArchivedMovements_UsesArchivedBalance() {
+        // Given
+        Movement archived = new Movement(LocalDateTime.now().minusYears(2), "Retiro",
+                new BigDecimal("100.00"), new BigDecimal("1900.00"), 1L);
+        when(movementRepository.findFirstByCuentaIdOrderBySeqDesc(1L)).thenReturn(Optional.empty());
+        when(movementArchive.findLatest(1L)).thenReturn(Optional.of(archived));
+
+        // When
+        BigDecimal result = movementService.getCurrentBalance(1L);
+
+        // Then
+        assertEquals(new BigDecimal("1900.00"), result);
+        verify(accountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getMovementsByAccountId_ArchivedMonths_MergesNewestFirstWithoutDuplicates() {
+        // Given
+        Movement archived = new Movement(LocalDateTime.now().minusYears(2), "Deposito",
+                new BigDecimal("100.00"), new BigDecimal("2100.00"), 1L);
+        archived.setMovimientoId(2L);
+        Movement alsoInDatabase = new Movement(movement.getFecha(), "Deposito",
+                new BigDecimal("500.00"), new BigDecimal("2500.00"), 1L);
+        alsoInDatabase.setMovimientoId(1L);
+        when(movementRepository.findByCuentaIdOrderBySeqDesc(1L)).thenReturn(Arrays.asList(movement));
+        when(movementArchive.covers(null)).thenReturn(true);
+        when(movementArchive.find(List.of(1L), null, null)).thenReturn(Arrays.asList(alsoInDatabase, archived));
+
+        // When
+        List<MovementDto> result = movementService.getMovementsByAccountId(1L);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getMovimientoId());
+        assertEquals(2L, result.get(1).getMovimientoId());
+    }
+
+    @Test
+    void getMovementPage_FromCursor_ContinuesIntoArchivedMonths() {
+        // Given
+        Movement archived = new Movement(LocalDateTime.now().minusYears(2), "Deposito",
+                new BigDecimal("100.00"), new BigDecimal("2000.00"), 1L);
+        archived.setMovimientoId(7L);
+        archived.setSeq(2L);
+        Movement older = new Movement(LocalDateTime.now().minusYears(2), "Deposito",
+                new BigDecimal("1900.00"), new BigDecimal("1900.00"), 1L);
+        older.setMovimientoId(6L);
+        older.setSeq(1L);
+        movement.setSeq(3L);
+        when(movementRepository.findByCuentaIdAndSeqLessThanOrderBySeqDesc(1L, 4L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(movement));
+        when(movementArchive.covers(null)).thenReturn(true);
+        when(movementArchive.find(List.of(1L), null, null)).thenReturn(Arrays.asList(older, archived));
+
+        // When
+        List<MovementDto> result = movementService.getMovementPage(1L, 4L, 2);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(3L, result.get(0).getSeq());
+        assertEquals(2L, result.get(1).getSeq());
+    }
+
+    @Test
+    void getMovementPage_PageSizeOutOfRange_ThrowsException() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> movementService.getMovementPage(1L, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> movementService.getMovementPage(1L, null, MovementService.MAX_PAGE_SIZE + 1));
+    }
+
     @Test
     void getAllMovements_Success() {
         // Given
@@ -194,7 +793,7 @@ class MovementServiceTest {
     @Test
     void getMovementsByAccountId_Success() {
         // Given
-        when(movementRepository.findByCuentaIdOrderByFechaDesc(1L)).thenReturn(Arrays.asList(movement));
+        when(movementRepository.findByCuentaIdOrderBySeqDesc(1L)).thenReturn(Arrays.asList(movement));
 
         // When
         List<MovementDto> result = movementService.getMovementsByAccountId(1L);
@@ -204,4 +803,15 @@ class MovementServiceTest {
         assertEquals(1, result.size());
         assertEquals(1L, result.get(0).getCuentaId());
     }
+
+    private Account origenAccount() {
+        Account origen = new Account();
+        origen.setCuentaId(2L);
+        origen.setNumeroCuenta("225487");
+        origen.setTipoCuenta("Corriente");
+        origen.setSaldoInicial(new BigDecimal("500.00"));
+        origen.setEstado(true);
+        origen.setClienteId(2L);
+        return origen;
+    }
 }
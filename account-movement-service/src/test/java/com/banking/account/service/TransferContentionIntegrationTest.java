@@ -0,0 +1,141 @@
+package com.banking.account.service;
+
+import com.banking.account.dto.AccountDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.dto.TransferDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contention benchmark for transfers, on an in-memory H2 database: many
+ * threads transfer at random, in both directions, among a few accounts. Every
+ * transfer has to finish (no deadlock), none may fail on a concurrent posting,
+ * and the accounts must hold the same total afterwards. Transfers per second
+ * and latency percentiles are logged; the load is set with the
+ * transfers.threads, transfers.accounts and transfers.per-thread system
+ * properties, see benchmark-transfers.sh. Tagged "benchmark", so it only
+ * runs with -Pbenchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfers;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "withdrawal-limits.daily.Corriente=99999999.99",
+        "velocity.enabled=false",
+        "concurrency-limit.enabled=false",
+        "logging.level.com.banking.account=INFO",
+        "logging.level.org.springframework.web=INFO",
+        "eureka.client.enabled=false",
+        "warmup.enabled=false"
+})
+class TransferContentionIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferContentionIntegrationTest.class);
+
+    private static final BigDecimal INITIAL = new BigDecimal("100000.00");
+
+    private final int threads = Integer.getInteger("transfers.threads", 16);
+    private final int accountCount = Integer.getInteger("transfers.accounts", 4);
+    private final int perThread = Integer.getInteger("transfers.per-thread", 100);
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private MovementService movementService;
+
+    @Test
+    void concurrentOppositeTransfers_AllCompleteAndKeepTheTotal() throws Exception {
+        // Given
+        List<Long> accounts = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(accountService.createAccount(
+                    new AccountDto(Integer.toString(700_000 + i), "Corriente", INITIAL, true, 70L)).getCuentaId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong refused = new AtomicLong();
+        long[][] latencies = new long[threads][perThread];
+
+        // When
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            long[] times = latencies[thread];
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int origen = random.nextInt(accountCount);
+                    int destino = (origen + 1 + random.nextInt(accountCount - 1)) % accountCount;
+                    BigDecimal valor = BigDecimal.valueOf(1 + random.nextInt(10_000), 2);
+                    long begin = System.nanoTime();
+                    try {
+                        movementService.transfer(new TransferDto(accounts.get(origen), accounts.get(destino), valor));
+                    } catch (IllegalArgumentException e) {
+                        // Only an origin running dry may refuse a transfer, never a concurrent posting
+                        assertEquals("Saldo no disponible", e.getMessage());
+                        refused.incrementAndGet();
+                    }
+                    times[i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        // Then
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long cuentaId : accounts) {
+            long[] seqs = movementService.getMovementsByAccountId(cuentaId).stream()
+                    .mapToLong(MovementDto::getSeq)
+                    .sorted()
+                    .toArray();
+            for (int i = 0; i < seqs.length; i++) {
+                // No gap and no repeat in the account's seq
+                assertEquals(i + 1L, seqs[i]);
+            }
+            total = total.add(movementService.getCurrentBalance(cuentaId));
+        }
+        assertEquals(0, INITIAL.multiply(BigDecimal.valueOf(accountCount)).compareTo(total));
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        log.info(String.format("Transfers: %d threads, %d accounts, %d transfers (%d refused), %.0f transfers/s, "
+                        + "p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                threads, accountCount, all.length, refused.get(), all.length / (elapsed / 1e9),
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(quantile * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,100 @@
+package com.banking.account.sharding;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovementSeqMigration, on an in-memory H2 database
+ */
+class MovementSeqMigrationTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void migrate_TableWithoutSeq_NumbersEachAccountByDate() {
+        // Given
+        jdbc.execute("CREATE TABLE movimientos (movimiento_id BIGINT PRIMARY KEY, fecha TIMESTAMP(6) NOT NULL,"
+                + " cuenta_id BIGINT NOT NULL)");
+        insertLegacy(1, "2024-01-03 10:00:00", 10);
+        insertLegacy(2, "2024-01-01 10:00:00", 10);
+        insertLegacy(3, "2024-01-02 10:00:00", 20);
+        insertLegacy(4, "2024-01-02 10:00:00", 10);
+
+        // When
+        int accounts = new MovementSeqMigration(dataSource).migrate();
+
+        // Then
+        assertEquals(2, accounts);
+        assertEquals(List.of(2L, 4L, 1L), jdbc.queryForList(
+                "SELECT movimiento_id FROM movimientos WHERE cuenta_id = 10 ORDER BY seq", Long.class));
+        assertEquals(List.of(1L, 2L, 3L), jdbc.queryForList(
+                "SELECT seq FROM movimientos WHERE cuenta_id = 10 ORDER BY seq", Long.class));
+        assertEquals(1L, jdbc.queryForObject("SELECT seq FROM movimientos WHERE movimiento_id = 3", Long.class));
+        assertThrows(Exception.class, () -> jdbc.update(
+                "INSERT INTO movimientos VALUES (5, TIMESTAMP '2024-01-04 10:00:00', 10, NULL)"));
+        assertThrows(Exception.class, () -> jdbc.update(
+                "INSERT INTO movimientos VALUES (5, TIMESTAMP '2024-01-04 10:00:00', 10, 3)"));
+    }
+
+    @Test
+    void migrate_SeqAddedAsZeroByHibernate_NumbersTheMovements() {
+        // Given
+        jdbc.execute("CREATE TABLE movimientos (movimiento_id BIGINT PRIMARY KEY, fecha TIMESTAMP(6) NOT NULL,"
+                + " cuenta_id BIGINT NOT NULL, seq BIGINT DEFAULT 0 NOT NULL)");
+        insertLegacy(1, "2024-01-01 10:00:00", 10);
+        insertLegacy(2, "2024-01-02 10:00:00", 10);
+
+        // When
+        int accounts = new MovementSeqMigration(dataSource).migrate();
+
+        // Then
+        assertEquals(1, accounts);
+        assertEquals(List.of(1L, 2L), jdbc.queryForList(
+                "SELECT seq FROM movimientos ORDER BY movimiento_id", Long.class));
+        assertThrows(Exception.class, () -> jdbc.update(
+                "INSERT INTO movimientos VALUES (3, TIMESTAMP '2024-01-03 10:00:00', 10, 2)"));
+    }
+
+    @Test
+    void migrate_TableUpToDate_ChangesNothing() {
+        // Given
+        jdbc.execute("CREATE TABLE movimientos (movimiento_id BIGINT PRIMARY KEY, fecha TIMESTAMP(6) NOT NULL,"
+                + " cuenta_id BIGINT NOT NULL, seq BIGINT NOT NULL,"
+                + " CONSTRAINT uk_movimientos_cuenta_seq UNIQUE (cuenta_id, seq))");
+        jdbc.update("INSERT INTO movimientos VALUES (1, TIMESTAMP '2024-01-02 10:00:00', 10, 1)");
+        jdbc.update("INSERT INTO movimientos VALUES (2, TIMESTAMP '2024-01-01 10:00:00', 10, 2)");
+
+        // When
+        int accounts = new MovementSeqMigration(dataSource).migrate();
+
+        // Then
+        assertEquals(0, accounts);
+        assertEquals(List.of(1L, 2L), jdbc.queryForList(
+                "SELECT seq FROM movimientos ORDER BY movimiento_id", Long.class));
+    }
+
+    @Test
+    void migrate_NoTableYet_DoesNothing() {
+        assertEquals(0, new MovementSeqMigration(dataSource).migrate());
+    }
+
+    private void insertLegacy(long movimientoId, String fecha, long cuentaId) {
+        jdbc.update("INSERT INTO movimientos (movimiento_id, fecha, cuenta_id) VALUES (?, TIMESTAMP '" + fecha
+                + "', ?)", movimientoId, cuentaId);
+    }
+}
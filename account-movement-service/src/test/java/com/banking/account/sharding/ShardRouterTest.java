@@ -0,0 +1,143 @@
+package com.banking.account.sharding;
+
+import com.banking.account.concurrency.RequestPriority;
+import com.banking.account.concurrency.RequestPriorityContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ShardRouter
+ */
+@ExtendWith(MockitoExtension.class)
+class ShardRouterTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+    private ShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+        router = new ShardRouter(3, transactionManager, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+        RequestPriorityContext.clear();
+    }
+
+    @Test
+    void shardFor_DecodesShardFromId() {
+        assertEquals(0, router.shardFor(9L));
+        assertEquals(1, router.shardFor(10L));
+        assertEquals(2, router.shardFor(302L));
+    }
+
+    @Test
+    void onShard_RestoresPreviousShard() {
+        // When
+        int inner = router.onShard(2, () -> router.onShard(1, ShardContext::current));
+        int after = router.onShard(2, ShardContext::current);
+
+        // Then
+        assertEquals(1, inner);
+        assertEquals(2, after);
+        assertEquals(0, ShardContext.current());
+    }
+
+    @Test
+    void onEachShard_QueriesEveryShardOnTheCallingThread() {
+        // Given
+        Thread caller = Thread.currentThread();
+
+        // When
+        List<Integer> shards = router.onEachShard(() -> {
+            assertSame(caller, Thread.currentThread());
+            return List.of(ShardContext.current());
+        });
+
+        // Then
+        assertEquals(List.of(0, 1, 2), shards);
+        assertEquals(0, ShardContext.current());
+    }
+
+    @Test
+    void onShard_TransactionStaysOnFirstShard() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            router.onShard(1, () -> null);
+
+            // When & Then
+            assertEquals(1, ShardContext.current());
+            assertEquals(1, router.onShard(1, ShardContext::current));
+            assertThrows(IllegalStateException.class, () -> router.onShard(2, () -> null));
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, ShardContext.current());
+    }
+
+    @Test
+    void onAllShards_QueriesEveryShardWithCallerPriority() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        RequestPriorityContext.set(RequestPriority.LOW);
+
+        // When
+        List<String> results = router.onAllShards(
+                () -> List.of(ShardContext.current() + ":" + RequestPriorityContext.current()));
+
+        // Then
+        assertEquals(List.of("0:LOW", "1:LOW", "2:LOW"), results);
+    }
+
+    @Test
+    void onAllShards_FailingShard_RethrowsCause() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> router.onAllShards(() -> {
+            if (ShardContext.current() == 1) {
+                throw new IllegalArgumentException("shard down");
+            }
+            return List.of(ShardContext.current());
+        }));
+        assertEquals("shard down", exception.getMessage());
+    }
+
+    @Test
+    void singleShard_RunsInline() {
+        // Given
+        ShardRouter single = ShardRouter.singleShard();
+        Thread caller = Thread.currentThread();
+
+        // When
+        List<Boolean> results = single.onAllShards(() -> List.of(Thread.currentThread() == caller));
+
+        // Then
+        assertEquals(List.of(true), results);
+    }
+}
@@ -0,0 +1,128 @@
+package com.banking.account.sharding;
+
+import com.banking.account.dto.AccountDto;
+import com.banking.account.dto.MovementDto;
+import com.banking.account.service.AccountService;
+import com.banking.account.service.MovementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for sharding, with three in-memory H2 databases as shards
+ */
+@SpringBootTest(properties = {
+        "sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "sharding.id-block-size=5",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "eureka.client.enabled=false",
+        "warmup.enabled=false"
+})
+class ShardingIntegrationTest {
+
+    private static final BigDecimal INITIAL = new BigDecimal("100.00");
+    private static final BigDecimal DEPOSIT = new BigDecimal("10.00");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private MovementService movementService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Test
+    void accountsAndMovements_AreStoredOnTheirShardAndGatheredByClient() {
+        // Given
+        List<AccountDto> accounts = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            accounts.add(accountService.createAccount(
+                    new AccountDto(Integer.toString(100_000 + i), "Ahorro", INITIAL, true, 7L)));
+        }
+
+        // When
+        for (AccountDto account : accounts) {
+            movementService.createMovement(deposit(account.getCuentaId()));
+        }
+
+        // Then
+        Set<Integer> shardsUsed = accounts.stream()
+                .map(account -> shardRouter.shardFor(account.getCuentaId()))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(0, 1, 2), shardsUsed);
+        for (AccountDto account : accounts) {
+            int shard = shardRouter.shardFor(account.getCuentaId());
+            for (int other = 0; other < shardDataSources.size(); other++) {
+                assertEquals(other == shard ? 1 : 0, countRows(other, "cuentas", "cuenta_id", account.getCuentaId()));
+                assertEquals(other == shard ? 1 : 0, countRows(other, "movimientos", "cuenta_id", account.getCuentaId()));
+            }
+            assertEquals(0, INITIAL.add(DEPOSIT).compareTo(movementService.getCurrentBalance(account.getCuentaId())));
+        }
+
+        assertEquals(12, accountService.getAccountsByClienteId(7L).size());
+        List<MovementDto> movements = movementService.getMovementsByClienteId(7L);
+        assertEquals(12, movements.size());
+        for (int i = 1; i < movements.size(); i++) {
+            assertFalse(movements.get(i).getFecha().isAfter(movements.get(i - 1).getFecha()));
+        }
+    }
+
+    @Test
+    void createAccount_NumberTakenOnAnotherShard_ThrowsException() {
+        // Given
+        AccountDto existing = accountService.createAccount(new AccountDto("200000", "Corriente", INITIAL, true, 8L));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> accountService.createAccount(
+                new AccountDto("200000", "Ahorro", INITIAL, true, 9L)));
+        assertEquals(existing.getCuentaId(), accountService.getAccountByNumeroCuenta("200000").orElseThrow().getCuentaId());
+    }
+
+    @Test
+    void idGenerator_IdsAreUniqueAcrossBlocks() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 9; i++) {
+            ids.add(accountService.createAccount(
+                    new AccountDto(Integer.toString(300_000 + i * 3), "Ahorro", INITIAL, true, 10L)).getCuentaId());
+        }
+
+        // Then
+        assertEquals(ids.size(), Set.copyOf(ids).size());
+        assertTrue(ids.stream().allMatch(id -> shardRouter.shardFor(id) == shardRouter.shardForNewAccount("300000")));
+    }
+
+    private long countRows(int shard, String table, String column, Long id) {
+        Long count = new JdbcTemplate(shardDataSources.get(shard))
+                .queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?", Long.class, id);
+        return count != null ? count : 0;
+    }
+
+    private static MovementDto deposit(Long cuentaId) {
+        MovementDto dto = new MovementDto();
+        dto.setTipoMovimiento("Deposito");
+        dto.setValor(DEPOSIT);
+        dto.setCuentaId(cuentaId);
+        return dto;
+    }
+}
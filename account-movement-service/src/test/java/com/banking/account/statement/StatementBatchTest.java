@@ -0,0 +1,220 @@
+package com.banking.account.statement;
+
+import com.banking.account.entity.Account;
+import com.banking.account.entity.Movement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StatementBatch
+ */
+class StatementBatchTest {
+
+    private static final YearMonth MAY = YearMonth.of(2024, 5);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void run_WritesEachClientsStatementInOnePiece() throws IOException {
+        // Given
+        InMemorySource source = new InMemorySource(2);
+        for (long clienteId = 1; clienteId <= 20; clienteId++) {
+            // Every client has an account on each shard
+            source.account(0, clienteId * 10, clienteId, 3);
+            source.account(1, clienteId * 10 + 1, clienteId, 2);
+        }
+        StatementBatch batch = new StatementBatch(source, directory, 4, 2, 3, 2);
+
+        // When
+        boolean complete = batch.run(MAY);
+
+        // Then
+        assertTrue(complete);
+        assertTrue(batch.isComplete(MAY));
+        List<String> rows = new ArrayList<>();
+        for (int n = 0; n < 4; n++) {
+            int partition = n;
+            List<String> lines = Files.readAllLines(directory.resolve("2024-05")
+                    .resolve(String.format("part-%03d-of-004.csv", partition)));
+            assertEquals(StatementBatch.HEADER, lines.get(0));
+            List<String> partitionRows = lines.subList(1, lines.size());
+            assertTrue(partitionRows.stream().allMatch(row -> Long.parseLong(row.split(",")[0]) % 4 == partition));
+            assertEquals(partitionRows.stream().sorted(Comparator.comparing(row -> Long.parseLong(row.split(",")[0])))
+                    .collect(Collectors.toList()), partitionRows);
+            rows.addAll(partitionRows);
+        }
+        assertEquals(100, rows.size());
+        assertEquals(20, batch.getStatementCount());
+        assertEquals(100, batch.getRowCount());
+        assertEquals(1.0, batch.getProgress());
+        assertTrue(rows.contains("7,Cliente 7,000070,Ahorro,100.00,true,2024-05-03T10:00,Deposito,1.00,102.00"));
+        assertFalse(Files.exists(directory.resolve("2024-05").resolve("part-003-of-004.csv.tmp")));
+    }
+
+    @Test
+    void run_ClientWithoutMovements_HasNoRows() throws IOException {
+        // Given
+        InMemorySource source = new InMemorySource(1);
+        source.account(0, 10L, 1L, 2);
+        source.account(0, 20L, 2L, 0);
+        StatementBatch batch = new StatementBatch(source, directory, 1, 1, 10, 10);
+
+        // When
+        batch.run(MAY);
+
+        // Then
+        List<String> lines = Files.readAllLines(directory.resolve("2024-05").resolve("part-000-of-001.csv"));
+        assertEquals(3, lines.size());
+        assertEquals(1, batch.getStatementCount());
+        assertEquals(List.of(1L), source.namesLookedUp);
+    }
+
+    @Test
+    void run_AfterAFailure_ResumesFromTheCheckpoint() throws IOException {
+        // Given
+        InMemorySource source = new InMemorySource(2);
+        for (long clienteId = 1; clienteId <= 30; clienteId++) {
+            source.account((int) (clienteId % 2), clienteId * 10, clienteId, 2);
+        }
+        Path expected = directory.resolve("expected");
+        new StatementBatch(source, expected, 1, 1, 4, 5).run(MAY);
+        source.namesLookedUp.clear();
+        source.failAfter = 12;
+        Path resumed = directory.resolve("resumed");
+        StatementBatch batch = new StatementBatch(source, resumed, 1, 1, 4, 5);
+
+        // When
+        boolean first = batch.run(MAY);
+        source.failAfter = Integer.MAX_VALUE;
+        boolean second = batch.run(MAY);
+
+        // Then
+        assertFalse(first);
+        assertTrue(second);
+        assertEquals(Files.readString(expected.resolve("2024-05").resolve("part-000-of-001.csv")),
+                Files.readString(resumed.resolve("2024-05").resolve("part-000-of-001.csv")));
+        // Clients 1 to 10 were checkpointed, 11 and 12 are written again
+        assertEquals(12 + 20, source.namesLookedUp.size());
+    }
+
+    @Test
+    void run_MonthComplete_IsNotBuiltAgain() {
+        // Given
+        InMemorySource source = new InMemorySource(1);
+        source.account(0, 10L, 1L, 1);
+        StatementBatch batch = new StatementBatch(source, directory, 2, 1, 10, 10);
+        batch.run(MAY);
+        source.namesLookedUp.clear();
+
+        // When
+        boolean complete = batch.run(MAY);
+
+        // Then
+        assertTrue(complete);
+        assertTrue(source.namesLookedUp.isEmpty());
+    }
+
+    @Test
+    void csv_FieldWithCommaOrQuote_IsQuoted() {
+        assertEquals("Jose Lema", StatementBatch.csv("Jose Lema"));
+        assertEquals("\"Lema, Jose\"", StatementBatch.csv("Lema, Jose"));
+        assertEquals("\"Jose \"\"Pepe\"\" Lema\"", StatementBatch.csv("Jose \"Pepe\" Lema"));
+    }
+
+    /**
+     * Accounts per shard with a few May deposits each, plus one in April and one in June
+     */
+    private static final class InMemorySource implements StatementSource {
+
+        private final List<List<Account>> accounts = new ArrayList<>();
+        private final List<Movement> movements = new ArrayList<>();
+        private final List<Long> namesLookedUp = new ArrayList<>();
+        private final AtomicInteger nextMovementId = new AtomicInteger();
+        private volatile int failAfter = Integer.MAX_VALUE;
+
+        InMemorySource(int shards) {
+            for (int shard = 0; shard < shards; shard++) {
+                accounts.add(new ArrayList<>());
+            }
+        }
+
+        void account(int shard, long cuentaId, long clienteId, int mayMovements) {
+            Account account = new Account(String.format("%06d", cuentaId), "Ahorro", new BigDecimal("100.00"), true,
+                    clienteId);
+            account.setCuentaId(cuentaId);
+            accounts.get(shard).add(account);
+            BigDecimal saldo = new BigDecimal("100.00");
+            List<LocalDateTime> fechas = new ArrayList<>();
+            fechas.add(LocalDateTime.of(2024, 4, 30, 23, 59));
+            for (int day = 0; day < mayMovements; day++) {
+                fechas.add(LocalDateTime.of(2024, 5, 3 + day, 10, 0));
+            }
+            fechas.add(LocalDateTime.of(2024, 6, 1, 0, 0));
+            long seq = 0;
+            for (LocalDateTime fecha : fechas) {
+                saldo = saldo.add(BigDecimal.ONE);
+                Movement movement = new Movement(fecha, "Deposito", new BigDecimal("1.00"), saldo, cuentaId);
+                movement.setMovimientoId((long) nextMovementId.incrementAndGet());
+                movement.setSeq(++seq);
+                movements.add(movement);
+            }
+        }
+
+        @Override
+        public int getShardCount() {
+            return accounts.size();
+        }
+
+        @Override
+        public long countAccounts(int shard) {
+            return accounts.get(shard).size();
+        }
+
+        @Override
+        public List<Account> findAccounts(int shard, int partition, int partitions, long afterClienteId,
+                                          long afterCuentaId, int limit) {
+            return accounts.get(shard).stream()
+                    .filter(account -> account.getClienteId() % partitions == partition)
+                    .filter(account -> account.getClienteId() > afterClienteId
+                            || (account.getClienteId() == afterClienteId && account.getCuentaId() > afterCuentaId))
+                    .sorted(Comparator.comparing(Account::getClienteId).thenComparing(Account::getCuentaId))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<Movement> findMovements(int shard, Collection<Long> cuentaIds, LocalDateTime fechaInicio,
+                                            LocalDateTime fechaFin) {
+            return movements.stream()
+                    .filter(movement -> cuentaIds.contains(movement.getCuentaId()))
+                    .filter(movement -> !movement.getFecha().isBefore(fechaInicio) && movement.getFecha().isBefore(fechaFin))
+                    .sorted(Comparator.comparing(Movement::getCuentaId).thenComparing(Movement::getSeq))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public synchronized String findClientName(long clienteId) {
+            if (namesLookedUp.size() == failAfter) {
+                throw new IllegalStateException("Connection refused");
+            }
+            namesLookedUp.add(clienteId);
+            return "Cliente " + clienteId;
+        }
+    }
+}
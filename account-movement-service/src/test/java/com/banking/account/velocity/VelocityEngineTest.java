@@ -0,0 +1,274 @@
+package com.banking.account.velocity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VelocityEngine
+ */
+class VelocityEngineTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000L;
+
+    private final List<Long> evaluationTimes = new ArrayList<>();
+
+    private final VelocityEngine engine = new VelocityEngine(List.of(
+            new BurstRule(3, Duration.ofMinutes(10), VelocityDecision.BLOCK),
+            new UnusualAmountRule(5, 4, 5, VelocityDecision.FLAG)),
+            8, Duration.ofSeconds(1), Duration.ofHours(24), evaluationTimes::add);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    @Test
+    void evaluate_AccountWithoutWithdrawals_IsAllowed() {
+        // When
+        VelocityDecision decision = engine.evaluate(1L, 10_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.ALLOW, decision);
+        assertEquals(1, engine.getDecisionCount(VelocityDecision.ALLOW));
+        assertEquals(1, evaluationTimes.size());
+    }
+
+    @Test
+    void evaluate_MoreWithdrawalsThanTheBurstAllows_IsBlocked() {
+        // Given
+        engine.record(1L, 10_000, NOW - 3 * MINUTE);
+        engine.record(1L, 10_000, NOW - 2 * MINUTE);
+        engine.record(1L, 10_000, NOW - MINUTE);
+
+        // When
+        VelocityDecision decision = engine.evaluate(1L, 10_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.BLOCK, decision);
+        assertEquals(1, engine.getDecisionCount(VelocityDecision.BLOCK));
+    }
+
+    @Test
+    void evaluate_WithdrawalsOutsideThePeriod_AreNotCounted() {
+        // Given
+        engine.record(1L, 10_000, NOW - 30 * MINUTE);
+        engine.record(1L, 10_000, NOW - 20 * MINUTE);
+        engine.record(1L, 10_000, NOW - MINUTE);
+
+        // When
+        VelocityDecision decision = engine.evaluate(1L, 10_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.ALLOW, decision);
+    }
+
+    @Test
+    void evaluate_AmountFarAboveTheAccountsHistory_IsFlagged() {
+        // Given
+        long[] amounts = {9_000, 10_000, 11_000, 10_000, 10_500};
+        for (int i = 0; i < amounts.length; i++) {
+            engine.record(1L, amounts[i], NOW - (60 - i) * MINUTE);
+        }
+
+        // When
+        VelocityDecision usual = engine.evaluate(1L, 12_000, NOW);
+        VelocityDecision unusual = engine.evaluate(1L, 80_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.ALLOW, usual);
+        assertEquals(VelocityDecision.FLAG, unusual);
+    }
+
+    @Test
+    void evaluate_ShortHistory_AmountIsNotChecked() {
+        // Given
+        engine.record(1L, 1_000, NOW - 60 * MINUTE);
+        engine.record(1L, 1_000, NOW - 50 * MINUTE);
+
+        // When
+        VelocityDecision decision = engine.evaluate(1L, 1_000_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.ALLOW, decision);
+    }
+
+    @Test
+    void evaluate_AllowedWithdrawals_AreReservedAndCountEachOther() {
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertEquals(VelocityDecision.ALLOW, engine.evaluate(1L, 10_000, NOW));
+        }
+        VelocityDecision fourth = engine.evaluate(1L, 10_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.BLOCK, fourth);
+        assertEquals(3, engine.window(1L).size());
+    }
+
+    @Test
+    void evaluate_ConcurrentWithdrawals_NeverGetPastTheBurst() throws InterruptedException {
+        // Given
+        AtomicInteger allowed = new AtomicInteger();
+        Thread[] checks = new Thread[16];
+
+        // When
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = new Thread(() -> {
+                if (engine.evaluate(1L, 10_000, NOW) != VelocityDecision.BLOCK) {
+                    allowed.incrementAndGet();
+                }
+            });
+            checks[i].start();
+        }
+        for (Thread check : checks) {
+            check.join();
+        }
+
+        // Then
+        assertEquals(3, allowed.get());
+    }
+
+    @Test
+    void release_WithdrawalNotPosted_NoLongerCounts() {
+        // Given
+        engine.record(1L, 10_000, NOW - 2 * MINUTE);
+        engine.record(1L, 10_000, NOW - MINUTE);
+        engine.evaluate(1L, 20_000, NOW);
+
+        // When
+        engine.release(1L, 20_000, NOW);
+
+        // Then
+        assertEquals(2, engine.window(1L).size());
+        assertEquals(10_000, engine.window(1L).mean(), 0.001);
+        assertEquals(VelocityDecision.ALLOW, engine.evaluate(1L, 10_000, NOW));
+    }
+
+    @Test
+    void release_FromAFullWindow_KeepsTheOthers() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            engine.record(1L, 1_000 * (i + 1), NOW - (100 - i) * MINUTE);
+        }
+
+        // When
+        engine.release(1L, 8_000, NOW - 93 * MINUTE);
+
+        // Then
+        WithdrawalWindow window = engine.window(1L);
+        assertEquals(7, window.size());
+        assertEquals((3 + 4 + 5 + 6 + 7 + 9 + 10) * 1_000 / 7.0, window.mean(), 0.001);
+        engine.record(1L, 11_000, NOW - 90 * MINUTE);
+        assertEquals(8, window.size());
+        assertEquals(1, window.countSince(NOW - 90 * MINUTE));
+    }
+
+    @Test
+    void evaluate_WindowLockedPastTheBudget_WaitsForTheBlockRules() throws InterruptedException {
+        // Given
+        VelocityEngine strict = new VelocityEngine(List.of(
+                new BurstRule(1, Duration.ofMinutes(10), VelocityDecision.BLOCK)),
+                8, Duration.ofMillis(1), Duration.ofHours(24), nanos -> { });
+        strict.record(1L, 10_000, NOW - MINUTE);
+        Thread holder = new Thread(() -> {
+            WithdrawalWindow window = strict.window(1L);
+            window.getLock().lock();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                window.getLock().unlock();
+            }
+        });
+        holder.start();
+        Thread.sleep(50);
+
+        // When
+        VelocityDecision decision = strict.evaluate(1L, 10_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.BLOCK, decision);
+        assertEquals(1, strict.getOverBudgetCount());
+        holder.join();
+        strict.close();
+    }
+
+    @Test
+    void evaluate_WindowLockedPastTheBudget_FlagRulesAreSkipped() throws InterruptedException {
+        // Given
+        VelocityEngine lenient = new VelocityEngine(List.of(
+                new UnusualAmountRule(2, 0, 1, VelocityDecision.FLAG)),
+                8, Duration.ofMillis(1), Duration.ofHours(24), nanos -> { });
+        lenient.record(1L, 10_000, NOW - 2 * MINUTE);
+        lenient.record(1L, 10_000, NOW - MINUTE);
+        Thread holder = new Thread(() -> {
+            WithdrawalWindow window = lenient.window(1L);
+            window.getLock().lock();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                window.getLock().unlock();
+            }
+        });
+        holder.start();
+        Thread.sleep(50);
+
+        // When
+        VelocityDecision decision = lenient.evaluate(1L, 1_000_000, NOW);
+
+        // Then
+        assertEquals(VelocityDecision.ALLOW, decision);
+        assertEquals(1, lenient.getOverBudgetCount());
+        holder.join();
+        lenient.close();
+    }
+
+    @Test
+    void record_OldestWithdrawalsAreOverwritten() {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            engine.record(1L, 10_000, NOW - (100 - i) * MINUTE);
+        }
+
+        // When
+        WithdrawalWindow window = engine.window(1L);
+
+        // Then
+        assertEquals(8, window.size());
+        assertEquals(0, window.countSince(NOW - 60 * MINUTE));
+        assertEquals(NOW - 81 * MINUTE, window.latest());
+    }
+
+    @Test
+    void sweep_IdleWindows_AreDropped() {
+        // Given
+        engine.record(1L, 10_000, NOW - 25 * 60 * MINUTE);
+        engine.record(2L, 10_000, NOW - MINUTE);
+
+        // When
+        engine.sweep(NOW);
+
+        // Then
+        assertEquals(1, engine.getAccountCount());
+        assertNull(engine.window(1L));
+    }
+
+    @Test
+    void constructor_BurstLongerThanTheHistory_ThrowsException() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new VelocityEngine(List.of(
+                new BurstRule(10, Duration.ofMinutes(10), VelocityDecision.BLOCK)),
+                8, Duration.ofMillis(1), Duration.ofHours(24), nanos -> { }));
+    }
+}
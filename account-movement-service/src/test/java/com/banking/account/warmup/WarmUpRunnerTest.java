@@ -0,0 +1,150 @@
+package com.banking.account.warmup;
+
+import com.banking.account.dto.AccountDto;
+import com.banking.account.repository.AccountRepository;
+import com.banking.account.service.AccountService;
+import com.banking.account.service.MovementService;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WarmUpRunner
+ */
+@ExtendWith(MockitoExtension.class)
+class WarmUpRunnerTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private MovementService movementService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private ObjectProvider<ApplicationInfoManager> applicationInfoManagerProvider;
+
+    @Mock
+    private ApplicationInfoManager applicationInfoManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            Consumer<ApplicationInfoManager> consumer = invocation.getArgument(0);
+            consumer.accept(applicationInfoManager);
+            return null;
+        }).when(applicationInfoManagerProvider).ifAvailable(any());
+    }
+
+    @Test
+    void onApplicationReady_RunsIterationsInRollbackOnlyTransactionsThenMarksUp() throws Exception {
+        // Given
+        AccountDto account = new AccountDto();
+        account.setCuentaId(10L);
+        when(dataSource.isWrapperFor(any())).thenReturn(false);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(accountService.getAccountByNumeroCuenta(anyString())).thenReturn(Optional.empty());
+        when(accountRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+        when(accountService.createAccount(any(AccountDto.class))).thenReturn(account);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        WarmUpRunner runner = runner(true, 3);
+
+        // When
+        runner.onApplicationReady();
+
+        // Then
+        ArgumentCaptor<TransactionStatus> statuses = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager, times(3)).commit(statuses.capture());
+        assertTrue(statuses.getAllValues().stream().allMatch(TransactionStatus::isRollbackOnly));
+        verify(movementService, times(6)).createMovement(any());
+        verify(connection).close();
+        verify(applicationInfoManager).setInstanceStatus(InstanceStatus.UP);
+    }
+
+    @Test
+    void onApplicationReady_FailingIterationStillMarksUp() throws Exception {
+        // Given
+        when(dataSource.isWrapperFor(any())).thenReturn(false);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(accountService.getAccountByNumeroCuenta(anyString())).thenReturn(Optional.empty());
+        when(accountRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+        when(accountService.createAccount(any(AccountDto.class))).thenThrow(new IllegalArgumentException("boom"));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        WarmUpRunner runner = runner(true, 3);
+
+        // When
+        runner.onApplicationReady();
+
+        // Then
+        verify(transactionManager).rollback(any());
+        verify(movementService, never()).createMovement(any());
+        verify(applicationInfoManager).setInstanceStatus(InstanceStatus.UP);
+    }
+
+    @Test
+    void onApplicationReady_Disabled_OnlyMarksUp() {
+        // Given
+        WarmUpRunner runner = runner(false, 3);
+
+        // When
+        runner.onApplicationReady();
+
+        // Then
+        verifyNoInteractions(transactionManager, dataSource, accountService, movementService);
+        verify(applicationInfoManager).setInstanceStatus(InstanceStatus.UP);
+    }
+
+    @Test
+    void exerciseCodePaths_NoFreeAccountNumber_SkipsWarmUp() {
+        // Given
+        when(accountService.getAccountByNumeroCuenta(anyString())).thenReturn(Optional.of(new AccountDto()));
+        WarmUpRunner runner = runner(true, 3);
+
+        // When
+        int completed = runner.exerciseCodePaths(System.nanoTime() + Duration.ofSeconds(10).toNanos());
+
+        // Then
+        assertEquals(0, completed);
+        verifyNoInteractions(transactionManager);
+    }
+
+    private WarmUpRunner runner(boolean enabled, int iterations) {
+        return new WarmUpRunner(accountService, movementService, accountRepository, transactionManager,
+                dataSource, applicationInfoManagerProvider, enabled, iterations, Duration.ofSeconds(10));
+    }
+}
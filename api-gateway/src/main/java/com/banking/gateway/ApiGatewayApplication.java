@@ -1,13 +1,16 @@
 package com.banking.gateway;
 
+import com.banking.gateway.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * API Gateway Application
  * Central gateway for routing requests to microservices
  */
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class ApiGatewayApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,51 @@
+package com.banking.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Immutable snapshot of a downstream GET response held by the gateway cache
+ */
+public class CachedResponse {
+
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    private final long expiresAtNanos;
+
+    public CachedResponse(HttpHeaders headers, byte[] body, String etag, long expiresAtNanos) {
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = etag;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Copy of this entry with a new expiry, used after a successful revalidation
+     * @param expiresAtNanos new expiry as a {@link System#nanoTime()} value
+     * @return the refreshed entry
+     */
+    public CachedResponse withExpiry(long expiresAtNanos) {
+        return new CachedResponse(headers, body, etag, expiresAtNanos);
+    }
+
+    /**
+     * Check whether the entry can be served without asking the service
+     * @param nowNanos current {@link System#nanoTime()} value
+     * @return true if the entry has not expired
+     */
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - expiresAtNanos < 0;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
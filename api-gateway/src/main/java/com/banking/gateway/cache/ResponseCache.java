@@ -0,0 +1,148 @@
+package com.banking.gateway.cache;
+
+import org.springframework.util.DigestUtils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of GET responses keyed by route and request path.
+ * Each resource collection of a route has a generation, advanced by every
+ * invalidation; a response is only stored if the generation it was requested
+ * under is still current, so a read that overlapped a write cannot put the
+ * old body back after the write invalidated it.
+ */
+public class ResponseCache {
+
+    private static final char KEY_SEPARATOR = ' ';
+
+    private final Map<String, CachedResponse> entries;
+    // Only collections that were written to have an entry, bounded by the routes' paths
+    private final Map<String, Long> generations = new HashMap<>();
+
+    public ResponseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Build the cache key for a request
+     * @param routeId the gateway route ID
+     * @param path the request path
+     * @param query the raw query string, may be null
+     * @return the cache key
+     */
+    public static String key(String routeId, String path, String query) {
+        StringBuilder key = new StringBuilder(routeId).append(KEY_SEPARATOR).append(path);
+        if (query != null && !query.isEmpty()) {
+            key.append('?').append(query);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Compute a strong ETag for a body the service did not tag itself
+     * @param body the response body
+     * @return the quoted ETag value
+     */
+    public static String etagFor(byte[] body) {
+        return "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /**
+     * Check an If-None-Match header value against an ETag using weak comparison
+     * @param ifNoneMatch the If-None-Match header value, may be null
+     * @param etag the current ETag, may be null
+     * @return true if the client already holds the current representation
+     */
+    public static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String current = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || stripWeak(trimmed).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    /**
+     * Current generation of a resource collection, taken before forwarding a GET
+     * @param routeId the gateway route ID
+     * @param resourcePath the collection path of the request, e.g. /api/clientes
+     * @return the generation to hand back to {@link #put(String, CachedResponse, String, String, long)}
+     */
+    public synchronized long generation(String routeId, String resourcePath) {
+        return generations.getOrDefault(routeId + KEY_SEPARATOR + resourcePath, 0L);
+    }
+
+    /**
+     * Store a response unless its collection was invalidated since the request was forwarded
+     * @param key the cache key
+     * @param response the response to store
+     * @param routeId the gateway route ID
+     * @param resourcePath the collection path of the request
+     * @param generation the generation taken before forwarding the request
+     * @return true if the response was stored
+     */
+    public synchronized boolean put(String key, CachedResponse response, String routeId, String resourcePath,
+                                    long generation) {
+        if (generation(routeId, resourcePath) != generation) {
+            return false;
+        }
+        entries.put(key, response);
+        return true;
+    }
+
+    /**
+     * Drop every entry of a route whose path starts with the given resource path
+     * and advance the collection's generation, so responses to GETs already in
+     * flight are not stored
+     * @param routeId the gateway route ID
+     * @param resourcePath the collection path touched by a write, e.g. /api/clientes
+     * @return number of entries removed
+     */
+    public synchronized int invalidate(String routeId, String resourcePath) {
+        String prefix = routeId + KEY_SEPARATOR + resourcePath;
+        generations.merge(prefix, 1L, Long::sum);
+        int removed = 0;
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith(prefix) && isBoundary(key, prefix.length())) {
+                keys.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isBoundary(String key, int index) {
+        return index == key.length() || key.charAt(index) == '/' || key.charAt(index) == '?';
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,29 @@
+package com.banking.gateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Downstream HTTP client settings for the gateway.
+ * With H2C first, calls to the services are upgraded to cleartext HTTP/2 and
+ * multiplexed over a few pooled connections; HTTP11 stays as the fallback for
+ * instances that do not accept the upgrade.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClientCustomizer protocolHttpClientCustomizer(
+            @Value("${gateway.httpclient.protocols:H2C,HTTP11}") String protocols) {
+        HttpProtocol[] supported = Arrays.stream(protocols.split(","))
+                .map(protocol -> HttpProtocol.valueOf(protocol.trim().toUpperCase(Locale.ROOT)))
+                .toArray(HttpProtocol[]::new);
+        return httpClient -> httpClient.protocol(supported);
+    }
+}
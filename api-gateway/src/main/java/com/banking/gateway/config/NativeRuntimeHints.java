@@ -0,0 +1,24 @@
+package com.banking.gateway.config;
+
+import com.banking.gateway.filter.HedgingGatewayFilterFactory;
+import com.banking.gateway.filter.ResponseCacheGatewayFilterFactory;
+import com.banking.gateway.filter.TokenBucketRateLimiterGatewayFilterFactory;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reachability metadata for the native image.
+ * Route filter arguments are bound onto the filter factories' Config classes by
+ * reflection; Spring Cloud Gateway only registers hints for its own factories.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection()
+                .registerType(ResponseCacheGatewayFilterFactory.Config.class, MemberCategory.values())
+                .registerType(TokenBucketRateLimiterGatewayFilterFactory.Config.class, MemberCategory.values())
+                .registerType(HedgingGatewayFilterFactory.Config.class, MemberCategory.values());
+    }
+}
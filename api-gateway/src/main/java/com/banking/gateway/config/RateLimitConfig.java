@@ -0,0 +1,25 @@
+package com.banking.gateway.config;
+
+import com.banking.gateway.ratelimit.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The callers' token buckets, shared by the TokenBucketRateLimiter route
+ * filters and the endpoints the gateway serves itself.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(
+            @Value("${gateway.rate-limit.max-buckets:100000}") int maxBuckets,
+            @Value("${gateway.rate-limit.api-keys:}") List<String> apiKeys,
+            @Value("${gateway.rate-limit.sweep-interval:60s}") Duration sweepInterval) {
+        return new RateLimiter(maxBuckets, apiKeys, sweepInterval);
+    }
+}
@@ -0,0 +1,63 @@
+package com.banking.gateway.controller;
+
+import com.banking.gateway.dto.ClientOverviewDto;
+import com.banking.gateway.ratelimit.RateLimiter;
+import com.banking.gateway.service.ClientOverviewService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST Controller for aggregated client views.
+ * Handler mappings take precedence over gateway routes, so this path is served
+ * here even though it falls under the client-person-service route; it skips
+ * that route's filters, so callers are rate limited here with the same
+ * token buckets.
+ */
+@RestController
+@RequestMapping("/api/clientes")
+@CrossOrigin(origins = "*")
+public class ClientOverviewController {
+
+    static final String ROUTE_ID = "client-overview";
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    @Autowired
+    private ClientOverviewService clientOverviewService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Value("${gateway.aggregation.rate-limit.replenish-rate:100}")
+    private double replenishRate;
+
+    @Value("${gateway.aggregation.rate-limit.burst-capacity:200}")
+    private int burstCapacity;
+
+    /**
+     * Get client, accounts, current balances and movements in one call
+     * @param clienteId the client ID
+     * @param request the request, to identify the caller
+     * @return the client overview, flagged as partial if a source was unavailable,
+     *         or 429 with Retry-After if the caller is over its rate limit
+     */
+    @GetMapping("/{clienteId}/resumen")
+    public Mono<ResponseEntity<ClientOverviewDto>> getClientOverview(@PathVariable Long clienteId,
+                                                                     ServerHttpRequest request) {
+        long waitNanos = rateLimiter.tryAcquire(ROUTE_ID, rateLimiter.callerOf(request, API_KEY_HEADER),
+                replenishRate, burstCapacity, System.nanoTime());
+        if (waitNanos > 0) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(RateLimiter.retryAfterSeconds(waitNanos)))
+                    .build());
+        }
+        return clientOverviewService.getClientOverview(clienteId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
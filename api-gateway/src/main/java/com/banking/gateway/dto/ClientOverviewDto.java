@@ -0,0 +1,73 @@
+package com.banking.gateway.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the aggregated client page.
+ * Service payloads are passed through as JSON so the gateway does not need
+ * to track every field of the downstream DTOs.
+ */
+public class ClientOverviewDto {
+
+    private JsonNode cliente;
+    private List<JsonNode> cuentas = new ArrayList<>();
+    private Map<Long, BigDecimal> saldos = new LinkedHashMap<>();
+    private List<JsonNode> movimientos = new ArrayList<>();
+    private boolean parcial;
+    private List<String> fuentesNoDisponibles = new ArrayList<>();
+
+    // Getters and Setters
+    public JsonNode getCliente() {
+        return cliente;
+    }
+
+    public void setCliente(JsonNode cliente) {
+        this.cliente = cliente;
+    }
+
+    public List<JsonNode> getCuentas() {
+        return cuentas;
+    }
+
+    public void setCuentas(List<JsonNode> cuentas) {
+        this.cuentas = cuentas;
+    }
+
+    public Map<Long, BigDecimal> getSaldos() {
+        return saldos;
+    }
+
+    public void setSaldos(Map<Long, BigDecimal> saldos) {
+        this.saldos = saldos;
+    }
+
+    public List<JsonNode> getMovimientos() {
+        return movimientos;
+    }
+
+    public void setMovimientos(List<JsonNode> movimientos) {
+        this.movimientos = movimientos;
+    }
+
+    public boolean isParcial() {
+        return parcial;
+    }
+
+    public void setParcial(boolean parcial) {
+        this.parcial = parcial;
+    }
+
+    public List<String> getFuentesNoDisponibles() {
+        return fuentesNoDisponibles;
+    }
+
+    public void setFuentesNoDisponibles(List<String> fuentesNoDisponibles) {
+        this.fuentesNoDisponibles = fuentesNoDisponibles;
+    }
+}
@@ -0,0 +1,259 @@
+package com.banking.gateway.filter;
+
+import com.banking.gateway.loadbalancer.HedgeRequestContext;
+import com.banking.gateway.loadbalancer.InstanceLatencyTracker;
+import com.banking.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Hedged requests for idempotent GETs on lb:// routes, limited to the paths
+ * listed for the route (small single-resource lookups; other requests go
+ * through the route as usual).
+ * The primary call goes to the instance picked by the load balancer; if it has
+ * not answered within the service's recent p95 latency, a second call is sent to
+ * a different instance and whichever answers first is returned, the other one is
+ * cancelled. The race is decided on the response status and headers, and the
+ * winner's body is streamed to the client without being buffered. Place it after
+ * StripPrefix so the downstream path is already rewritten and matched.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    // Hop-by-hop headers, plus the stream id Netty adds to HTTP/2 upstream responses
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.HOST.toLowerCase(),
+            "keep-alive", HttpHeaders.UPGRADE.toLowerCase(), "x-http2-stream-id");
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final LoadBalancerClientFactory clientFactory;
+    private final InstanceLatencyTracker tracker;
+    private final MeterRegistry meterRegistry;
+    private final WebClient webClient;
+
+    public HedgingGatewayFilterFactory(LoadBalancerClientFactory clientFactory, InstanceLatencyTracker tracker,
+                                       MeterRegistry meterRegistry, WebClient.Builder webClientBuilder,
+                                       HttpClient gatewayHttpClient) {
+        super(Config.class);
+        this.clientFactory = clientFactory;
+        this.tracker = tracker;
+        this.meterRegistry = meterRegistry;
+        // Share the routing client so hedged calls use the same pool and protocols
+        this.webClient = webClientBuilder.clientConnector(new ReactorClientHttpConnector(gatewayHttpClient)).build();
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "minDelay", "maxDelay");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> paths = config.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .collect(Collectors.toList());
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || route == null
+                    || !"lb".equalsIgnoreCase(route.getUri().getScheme())
+                    || !matches(paths, exchange.getRequest())) {
+                return chain.filter(exchange);
+            }
+            String serviceId = route.getUri().getHost();
+            ReactiveLoadBalancer<ServiceInstance> loadBalancer = clientFactory.getInstance(serviceId);
+            if (loadBalancer == null) {
+                return chain.filter(exchange);
+            }
+
+            return Mono.from(loadBalancer.choose(new DefaultRequest<>(new DefaultRequestContext(exchange.getRequest()))))
+                    .filter(Response::hasServer)
+                    .flatMap(primary -> race(exchange, loadBalancer, primary.getServer(), route.getId(), config))
+                    .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()))
+                    .flatMap(entity -> write(exchange.getResponse(), entity));
+        };
+    }
+
+    private static boolean matches(List<PathPattern> paths, ServerHttpRequest request) {
+        return paths.stream().anyMatch(path -> path.matches(request.getPath().pathWithinApplication()));
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> race(ServerWebExchange exchange,
+                                                         ReactiveLoadBalancer<ServiceInstance> loadBalancer,
+                                                         ServiceInstance primary, String routeId, Config config) {
+        Duration delay = hedgeDelay(primary.getServiceId(), config);
+        HedgeRequestContext hedgeContext =
+                new HedgeRequestContext(exchange.getRequest(), LatencyAwareLoadBalancer.instanceKey(primary));
+
+        Mono<Outcome> first = send(exchange.getRequest(), primary).map(entity -> new Outcome(entity, false));
+        Mono<Outcome> hedge = Mono.delay(delay)
+                .then(Mono.from(loadBalancer.choose(new DefaultRequest<>(hedgeContext))))
+                .filter(Response::hasServer)
+                .flatMap(response -> {
+                    meterRegistry.counter("gateway.hedge.issued", "route", routeId).increment();
+                    return send(exchange.getRequest(), response.getServer());
+                })
+                .map(entity -> new Outcome(entity, true));
+
+        return Mono.firstWithValue(first, hedge)
+                .doOnNext(outcome -> {
+                    if (outcome.hedged()) {
+                        meterRegistry.counter("gateway.hedge.won", "route", routeId).increment();
+                    }
+                })
+                .map(Outcome::entity);
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> send(ServerHttpRequest request, ServiceInstance instance) {
+        URI uri = UriComponentsBuilder.fromUri(instance.getUri())
+                .path(request.getPath().value())
+                .query(request.getURI().getRawQuery())
+                .build(true)
+                .toUri();
+        return Mono.defer(() -> {
+            long start = tracker.begin(instance);
+            return webClient.get()
+                    .uri(uri)
+                    .headers(headers -> request.getHeaders().forEach((name, values) -> {
+                        if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                            headers.put(name, values);
+                        }
+                    }))
+                    .retrieve()
+                    // Any status is an answer to pass on, not an error
+                    .onStatus(status -> true, response -> Mono.empty())
+                    // Emits once the status and headers arrive; the body streams when written
+                    .toEntityFlux(DataBuffer.class)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            tracker.cancel(instance);
+                        } else {
+                            tracker.end(instance, start);
+                        }
+                    });
+        });
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, ResponseEntity<Flux<DataBuffer>> entity) {
+        response.setStatusCode(entity.getStatusCode());
+        entity.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                response.getHeaders().put(name, values);
+            }
+        });
+        return entity.getBody() != null ? response.writeWith(entity.getBody()) : response.setComplete();
+    }
+
+    /**
+     * Delay before hedging: the service's recent percentile latency, clamped to the configured bounds
+     */
+    private Duration hedgeDelay(String serviceId, Config config) {
+        var window = tracker.window(serviceId);
+        if (window.count() < MIN_SAMPLES) {
+            return config.getMaxDelay();
+        }
+        long percentile = window.percentile(config.getPercentile(), System.nanoTime());
+        Duration delay = Duration.ofNanos(percentile);
+        if (delay.compareTo(config.getMinDelay()) < 0) {
+            return config.getMinDelay();
+        }
+        return delay.compareTo(config.getMaxDelay()) > 0 ? config.getMaxDelay() : delay;
+    }
+
+    private record Outcome(ResponseEntity<Flux<DataBuffer>> entity, boolean hedged) {
+    }
+
+    /**
+     * Per-route configuration
+     */
+    public static class Config {
+
+        /**
+         * Latency percentile of the service after which the hedge is sent
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Lower bound for the hedge delay, avoids doubling load when the service is very fast
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * Upper bound for the hedge delay, also used until enough latency samples exist
+         */
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        /**
+         * Downstream path patterns hedged, e.g. /clientes/{id:[0-9]+}; none by default
+         */
+        private List<String> paths = new ArrayList<>();
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
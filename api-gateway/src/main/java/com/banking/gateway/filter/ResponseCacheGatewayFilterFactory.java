@@ -0,0 +1,293 @@
+package com.banking.gateway.filter;
+
+import com.banking.gateway.cache.CachedResponse;
+import com.banking.gateway.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Gateway filter that caches GET responses per route and path, limited to the
+ * paths listed for the route (lookups that rarely change; other GETs go
+ * through the route as usual).
+ * Fresh entries are served without calling the service, stale entries are
+ * revalidated with If-None-Match, and writes through the same route drop
+ * the cached entries of the resource collection they touch, both before they
+ * are forwarded and once they finish. A GET answered while a write was in
+ * flight is passed on but not stored.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    private final ResponseCache cache;
+    private final int maxBodyBytes;
+
+    public ResponseCacheGatewayFilterFactory(
+            @Value("${gateway.response-cache.max-entries:1000}") int maxEntries,
+            @Value("${gateway.response-cache.max-body-bytes:262144}") int maxBodyBytes) {
+        super(Config.class);
+        this.cache = new ResponseCache(maxEntries);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeToLive");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> paths = config.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .collect(Collectors.toList());
+        // Must decorate the response before NettyWriteResponseFilter writes the body
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String routeId = routeId(exchange);
+            HttpMethod method = request.getMethod();
+
+            if (HttpMethod.GET.equals(method)) {
+                if (!matches(paths, request)) {
+                    return chain.filter(exchange);
+                }
+                return handleGet(exchange, chain, routeId, config);
+            }
+            if (isWrite(method)) {
+                String resourcePath = resourcePath(request.getPath().value());
+                cache.invalidate(routeId, resourcePath);
+                return chain.filter(exchange)
+                        .doFinally(signal -> {
+                            int removed = cache.invalidate(routeId, resourcePath);
+                            log.debug("Invalidated {} cached responses for {} {}", removed, routeId, resourcePath);
+                        });
+            }
+            return chain.filter(exchange);
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> handleGet(ServerWebExchange exchange, GatewayFilterChain chain,
+                                 String routeId, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        String key = ResponseCache.key(routeId, path, request.getURI().getRawQuery());
+        String resourcePath = resourcePath(path);
+        // Taken before forwarding, so a write that overlaps this request keeps its response out
+        long generation = cache.generation(routeId, resourcePath);
+        String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        CachedResponse cached = cache.get(key);
+
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            return writeCached(exchange.getResponse(), cached, ifNoneMatch);
+        }
+
+        ServerWebExchange forwarded = exchange;
+        if (cached != null && cached.getEtag() != null) {
+            forwarded = exchange.mutate()
+                    .request(builder -> builder.headers(headers -> headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag())))
+                    .build();
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        ServerHttpResponseDecorator decorated = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpHeaders headers = getHeaders();
+
+                if (cached != null && HttpStatus.NOT_MODIFIED.equals(getStatusCode())) {
+                    long ttl = timeToLiveSeconds(headers.getCacheControl(), config);
+                    CachedResponse refreshed = cached.withExpiry(expiresAt(Math.max(ttl, 0)));
+                    cache.put(key, refreshed, routeId, resourcePath, generation);
+                    return Flux.from(body)
+                            .doOnNext(DataBufferUtils::release)
+                            .then(Mono.defer(() -> writeCached(getDelegate(), refreshed, ifNoneMatch)));
+                }
+
+                long ttl = timeToLiveSeconds(headers.getCacheControl(), config);
+                if (!HttpStatus.OK.equals(getStatusCode()) || ttl < 0 || headers.getContentLength() > maxBodyBytes) {
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(Flux.from(body)).flatMap(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+
+                    String etag = headers.getETag();
+                    if (etag == null) {
+                        etag = ResponseCache.etagFor(bytes);
+                        headers.setETag(etag);
+                    }
+                    if (bytes.length <= maxBodyBytes) {
+                        cache.put(key, new CachedResponse(cacheableHeaders(headers), bytes, etag, expiresAt(ttl)),
+                                routeId, resourcePath, generation);
+                    }
+                    if (ResponseCache.etagMatches(ifNoneMatch, etag)) {
+                        return notModified(getDelegate());
+                    }
+                    headers.setContentLength(bytes.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(forwarded.mutate().response(decorated).build());
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch) {
+        response.getHeaders().putAll(cached.getHeaders());
+        if (ResponseCache.etagMatches(ifNoneMatch, cached.getEtag())) {
+            return notModified(response);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private Mono<Void> notModified(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        return response.setComplete();
+    }
+
+    /**
+     * Resolve how long a response may be served from cache
+     * @param cacheControl the Cache-Control header sent by the service
+     * @param config the route configuration
+     * @return seconds to keep the entry fresh, 0 to always revalidate, -1 to not cache
+     */
+    static long timeToLiveSeconds(String cacheControl, Config config) {
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return config.getTimeToLive().toSeconds();
+        }
+        long maxAge = -1;
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String value = directive.trim();
+            if (value.equals("no-store") || value.equals("private")) {
+                return -1;
+            }
+            if (value.equals("no-cache")) {
+                return 0;
+            }
+            if (value.startsWith("s-maxage=")) {
+                return parseSeconds(value.substring("s-maxage=".length()));
+            }
+            if (value.startsWith("max-age=")) {
+                maxAge = parseSeconds(value.substring("max-age=".length()));
+            }
+        }
+        return maxAge >= 0 ? maxAge : config.getTimeToLive().toSeconds();
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(Long.parseLong(value.trim()), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long expiresAt(long ttlSeconds) {
+        return System.nanoTime() + Duration.ofSeconds(ttlSeconds).toNanos();
+    }
+
+    private static HttpHeaders cacheableHeaders(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        copy.remove(HttpHeaders.TRANSFER_ENCODING);
+        copy.remove(HttpHeaders.CONNECTION);
+        copy.remove(HttpHeaders.CONTENT_LENGTH);
+        copy.remove(HttpHeaders.DATE);
+        return copy;
+    }
+
+    private static boolean matches(List<PathPattern> paths, ServerHttpRequest request) {
+        return paths.stream().anyMatch(path -> path.matches(request.getPath().pathWithinApplication()));
+    }
+
+    private static boolean isWrite(HttpMethod method) {
+        return HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method);
+    }
+
+    /**
+     * Collection path a write belongs to, e.g. /api/clientes/5 becomes /api/clientes
+     */
+    static String resourcePath(String path) {
+        int first = path.indexOf('/', 1);
+        if (first < 0) {
+            return path;
+        }
+        int second = path.indexOf('/', first + 1);
+        return second < 0 ? path : path.substring(0, second);
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "";
+    }
+
+    /**
+     * Per-route configuration
+     */
+    public static class Config {
+
+        /**
+         * Freshness used when the service sends no Cache-Control max-age
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        /**
+         * Request path patterns cached, e.g. /api/cuentas/numero/{numeroCuenta}; none by default
+         */
+        private List<String> paths = new ArrayList<>();
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
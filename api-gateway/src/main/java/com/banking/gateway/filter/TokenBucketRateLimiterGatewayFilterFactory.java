@@ -0,0 +1,105 @@
+package com.banking.gateway.filter;
+
+import com.banking.gateway.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * In-process rate limiter keyed by route and caller: the client IP, or the
+ * API key header if it carries one of gateway.rate-limit.api-keys (see
+ * {@link RateLimiter}). Rejected requests get a 429 with Retry-After.
+ */
+@Component
+public class TokenBucketRateLimiterGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<TokenBucketRateLimiterGatewayFilterFactory.Config> {
+
+    private final RateLimiter rateLimiter;
+
+    public TokenBucketRateLimiterGatewayFilterFactory(RateLimiter rateLimiter) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String caller = rateLimiter.callerOf(exchange.getRequest(), config.getKeyHeader());
+            long waitNanos = rateLimiter.tryAcquire(routeId(exchange), caller,
+                    config.getReplenishRate(), config.getBurstCapacity(), System.nanoTime());
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(RateLimiter.retryAfterSeconds(waitNanos)));
+            return response.setComplete();
+        };
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "";
+    }
+
+    /**
+     * Per-route configuration
+     */
+    public static class Config {
+
+        /**
+         * Tokens added to each caller's bucket per second
+         */
+        private double replenishRate = 100;
+
+        /**
+         * Maximum requests a caller can send in a burst
+         */
+        private int burstCapacity = 200;
+
+        /**
+         * Header carrying the caller's API key; the client IP is used unless
+         * it is one of gateway.rate-limit.api-keys
+         */
+        private String keyHeader = "X-API-Key";
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public String getKeyHeader() {
+            return keyHeader;
+        }
+
+        public void setKeyHeader(String keyHeader) {
+            this.keyHeader = keyHeader;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.banking.gateway.loadbalancer;
+
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+
+/**
+ * Load balancer request context for a hedged call, which must not go to the
+ * instance already serving the primary call
+ */
+public class HedgeRequestContext extends DefaultRequestContext {
+
+    private final String excludedInstance;
+
+    public HedgeRequestContext(Object clientRequest, String excludedInstance) {
+        super(clientRequest);
+        this.excludedInstance = excludedInstance;
+    }
+
+    public String getExcludedInstance() {
+        return excludedInstance;
+    }
+}
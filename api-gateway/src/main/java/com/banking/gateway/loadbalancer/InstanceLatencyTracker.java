@@ -0,0 +1,113 @@
+package com.banking.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects per-instance load and latency for every load-balanced request.
+ * Registered as a {@link LoadBalancerLifecycle}, so the gateway's load balancer
+ * client filter reports each routed request; the hedging filter reports its own
+ * calls through {@link #begin} and {@link #end}, or {@link #cancel} for the call
+ * that lost the race, whose truncated latency would flatter a slow instance.
+ */
+@Component
+public class InstanceLatencyTracker implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private static final int WINDOW_SIZE = 512;
+
+    private final ConcurrentHashMap<String, InstanceStats> instances = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyWindow> services = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public InstanceLatencyTracker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // Nothing to record until an instance has been chosen
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext timed && lbResponse.hasServer()) {
+            timed.setRequestStartTime(begin(lbResponse.getServer()));
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        Object context = completionContext.getLoadBalancerRequest() != null
+                ? completionContext.getLoadBalancerRequest().getContext() : null;
+        if (lbResponse == null || !lbResponse.hasServer() || !(context instanceof TimedRequestContext timed)
+                || timed.getRequestStartTime() == 0) {
+            return;
+        }
+        end(lbResponse.getServer(), timed.getRequestStartTime());
+    }
+
+    /**
+     * Mark a request to an instance as started
+     * @param instance the chosen instance
+     * @return start time to pass to {@link #end}
+     */
+    public long begin(ServiceInstance instance) {
+        stats(instance).requestStarted();
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark a request to an instance as finished and record its latency
+     * @param instance the chosen instance
+     * @param startNanos value returned by {@link #begin}
+     */
+    public void end(ServiceInstance instance, long startNanos) {
+        long now = System.nanoTime();
+        long latency = now - startNanos;
+        stats(instance).requestFinished(latency, now);
+        window(instance.getServiceId()).record(latency);
+    }
+
+    /**
+     * Mark a request to an instance as abandoned, without recording its latency
+     * @param instance the chosen instance
+     */
+    public void cancel(ServiceInstance instance) {
+        stats(instance).requestCancelled();
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        String key = LatencyAwareLoadBalancer.instanceKey(instance);
+        InstanceStats stats = instances.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        return instances.computeIfAbsent(key, k -> {
+            InstanceStats created = new InstanceStats();
+            Gauge.builder("gateway.loadbalancer.outstanding", created, InstanceStats::getOutstanding)
+                    .tag("service", instance.getServiceId())
+                    .tag("instance", k)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.loadbalancer.ewma.seconds", created, s -> s.getEwmaNanos() / 1e9)
+                    .tag("service", instance.getServiceId())
+                    .tag("instance", k)
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    public LatencyWindow window(String serviceId) {
+        return services.computeIfAbsent(serviceId.toLowerCase(Locale.ROOT), k -> new LatencyWindow(WINDOW_SIZE));
+    }
+}
@@ -0,0 +1,75 @@
+package com.banking.gateway.loadbalancer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outstanding requests and time-decayed latency average for one service instance.
+ * The average decays towards new samples faster the longer the instance has been
+ * quiet, and jumps straight to a sample that is slower than the current average
+ * (peak EWMA), so a pausing instance is penalised on its first slow response.
+ */
+public class InstanceStats {
+
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private double ewmaNanos;
+    private long lastUpdateNanos;
+
+    public void requestStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Record a request abandoned before it finished, such as the losing call
+     * of a hedge: its elapsed time says nothing about the instance's latency
+     */
+    public void requestCancelled() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Record a finished request
+     * @param latencyNanos elapsed time of the request
+     * @param nowNanos current {@link System#nanoTime()} value
+     */
+    public synchronized void requestFinished(long latencyNanos, long nowNanos) {
+        outstanding.decrementAndGet();
+        if (lastUpdateNanos == 0 || latencyNanos > ewmaNanos) {
+            ewmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-(nowNanos - lastUpdateNanos) / DECAY_NANOS);
+            ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastUpdateNanos = nowNanos;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public synchronized double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * Expected cost of sending one more request to this instance
+     * @param strategy the balancing strategy
+     * @param neutralEwmaNanos latency assumed while the instance has no samples yet,
+     *                         e.g. that of the instance it is compared with
+     * @return a comparable cost, lower is better
+     */
+    public double cost(LoadBalancingStrategy strategy, double neutralEwmaNanos) {
+        int pending = outstanding.get();
+        if (strategy == LoadBalancingStrategy.LEAST_OUTSTANDING) {
+            return pending;
+        }
+        double ewma;
+        synchronized (this) {
+            ewma = lastUpdateNanos != 0 ? ewmaNanos : neutralEwmaNanos;
+        }
+        // At least a nanosecond, so instances that have no latency to go by still compare by queued work
+        return Math.max(ewma, 1) * (pending + 1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.banking.gateway.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load balancer that picks the cheaper of two random instances ("power of two
+ * choices"), where cost comes from {@link InstanceStats}. Sampling two instances
+ * instead of scanning all avoids every gateway thread stampeding onto the single
+ * best instance, while still steering traffic away from slow ones.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLatencyTracker tracker;
+    private final LoadBalancingStrategy strategy;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                    InstanceLatencyTracker tracker, LoadBalancingStrategy strategy) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.tracker = tracker;
+        this.strategy = strategy;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String excluded = request.getContext() instanceof HedgeRequestContext hedge ? hedge.getExcludedInstance() : null;
+        return supplier.get(request).next().map(instances -> choose(instances, excluded));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, String excluded) {
+        List<ServiceInstance> candidates = instances;
+        if (excluded != null) {
+            candidates = new ArrayList<>(instances.size());
+            for (ServiceInstance instance : instances) {
+                if (!excluded.equals(instanceKey(instance))) {
+                    candidates.add(instance);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            if (excluded == null) {
+                log.warn("No servers available for service: {}", serviceId);
+            }
+            return new EmptyResponse();
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        InstanceStats statsA = tracker.stats(a);
+        InstanceStats statsB = tracker.stats(b);
+        // An instance without samples is priced at the other's latency, not at zero
+        double neutral = Math.max(statsA.getEwmaNanos(), statsB.getEwmaNanos());
+        double costA = statsA.cost(strategy, neutral);
+        double costB = statsB.cost(strategy, neutral);
+        return new DefaultResponse(costA <= costB ? a : b);
+    }
+
+    /**
+     * Identity used to exclude an instance when hedging
+     * @param instance the service instance
+     * @return host and port of the instance
+     */
+    public static String instanceKey(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
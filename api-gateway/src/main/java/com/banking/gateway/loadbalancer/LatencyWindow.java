@@ -0,0 +1,56 @@
+package com.banking.gateway.loadbalancer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ring buffer of the most recent request latencies of a service, used to derive
+ * the hedging delay. Percentiles are recomputed at most once per second.
+ */
+public class LatencyWindow {
+
+    private static final long RECOMPUTE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long[] samples;
+    private final AtomicLong written = new AtomicLong();
+    private volatile long cachedPercentile = -1;
+    private volatile double cachedQuantile = -1;
+    private volatile long computedAtNanos;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    public void record(long latencyNanos) {
+        long index = written.getAndIncrement();
+        samples[(int) (index % samples.length)] = latencyNanos;
+    }
+
+    public long count() {
+        return Math.min(written.get(), samples.length);
+    }
+
+    /**
+     * Latency below which the given share of recent requests completed
+     * @param quantile value between 0 and 1, e.g. 0.95
+     * @param nowNanos current {@link System#nanoTime()} value
+     * @return the percentile in nanoseconds, or -1 when there are no samples
+     */
+    public long percentile(double quantile, long nowNanos) {
+        if (quantile == cachedQuantile && nowNanos - computedAtNanos < RECOMPUTE_NANOS) {
+            return cachedPercentile;
+        }
+        int n = (int) count();
+        if (n == 0) {
+            return -1;
+        }
+        long[] copy = Arrays.copyOf(samples, n);
+        Arrays.sort(copy);
+        long value = copy[Math.max(0, Math.min(n - 1, (int) Math.ceil(quantile * n) - 1))];
+        cachedPercentile = value;
+        cachedQuantile = quantile;
+        computedAtNanos = nowNanos;
+        return value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.gateway.loadbalancer;
+
+/**
+ * How the latency-aware load balancer ranks instances
+ */
+public enum LoadBalancingStrategy {
+
+    /**
+     * Fewest requests in flight from this gateway
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Peak EWMA latency weighted by requests in flight
+     */
+    PEAK_EWMA
+}
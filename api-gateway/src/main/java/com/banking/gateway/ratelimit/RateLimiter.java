@@ -0,0 +1,146 @@
+package com.banking.gateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Token buckets of the gateway's callers, one per route and caller.
+ * A caller is its client address, or its API key if the key is one of the
+ * configured ones: any other key could be made up, so one client sending a
+ * new key with every request does not get a bucket of its own for each.
+ * The buckets are capped; once the cap is reached, callers without a bucket
+ * share one per route until the sweeper, which drops the buckets that
+ * refilled completely, makes room again. The sweeper runs on a thread of its
+ * own, never on a request.
+ */
+public class RateLimiter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final int maxBuckets;
+    private final Set<String> apiKeys;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // Bounded by the routes
+    private final ConcurrentHashMap<String, TokenBucket> overflow = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * @param maxBuckets buckets kept at most, give or take the requests racing for the last ones
+     * @param apiKeys the API keys that identify a caller
+     * @param sweepInterval how often buckets that refilled completely are dropped
+     */
+    public RateLimiter(int maxBuckets, Collection<String> apiKeys, Duration sweepInterval) {
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("At least one bucket is required");
+        }
+        this.maxBuckets = maxBuckets;
+        this.apiKeys = apiKeys.stream()
+                .filter(key -> !key.isBlank())
+                .collect(Collectors.toUnmodifiableSet());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limiter-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepNanos = sweepInterval.toNanos();
+        sweeper.scheduleWithFixedDelay(() -> sweep(System.nanoTime()), sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Identify the caller of a request
+     * @param request the request
+     * @param keyHeader the header that carries the caller's API key
+     * @return the key of the caller's bucket
+     */
+    public String callerOf(ServerHttpRequest request, String keyHeader) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String address;
+        if (remote == null) {
+            address = "unknown";
+        } else {
+            address = remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+        }
+        return callerKey(request.getHeaders().getFirst(keyHeader), address);
+    }
+
+    /**
+     * Identify a caller
+     * @param apiKey the API key the request carries, may be null
+     * @param remoteAddress the client address
+     * @return the key of the caller's bucket
+     */
+    public String callerKey(String apiKey, String remoteAddress) {
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + remoteAddress;
+    }
+
+    /**
+     * Try to take a token from a caller's bucket on a route
+     * @param routeId the route
+     * @param caller the caller, from {@link #callerOf} or {@link #callerKey}
+     * @param replenishRate tokens added per second, for a new bucket
+     * @param burstCapacity maximum tokens, for a new bucket
+     * @param nowNanos current {@link System#nanoTime()} value
+     * @return 0 if the token was granted, otherwise nanoseconds until one is available
+     */
+    public long tryAcquire(String routeId, String caller, double replenishRate, int burstCapacity, long nowNanos) {
+        String key = routeId + '|' + caller;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                bucket = overflow.computeIfAbsent(routeId,
+                        id -> new TokenBucket(replenishRate, burstCapacity, nowNanos));
+            } else {
+                bucket = buckets.computeIfAbsent(key,
+                        k -> new TokenBucket(replenishRate, burstCapacity, nowNanos));
+            }
+        }
+        return bucket.tryAcquire(nowNanos);
+    }
+
+    /**
+     * Retry-After value for a refused request
+     * @param waitNanos nanoseconds until a token is available, from {@link #tryAcquire}
+     * @return whole seconds to wait, at least 1
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * @return buckets of callers, the shared ones not included
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drop the buckets that refilled completely; they are recreated full when needed
+     * @param nowNanos current {@link System#nanoTime()} value
+     */
+    void sweep(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(nowNanos));
+        overflow.values().removeIf(bucket -> bucket.isIdle(nowNanos));
+        log.debug("Rate limiter sweep removed {} idle buckets", before - buckets.size());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sweeper.shutdown();
+        sweeper.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.banking.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ * Implemented as the generic cell rate algorithm: the whole bucket state is a
+ * single "theoretical arrival time" updated with CAS, so acquiring a token is
+ * one volatile read and one compare-and-set on the uncontended path.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param replenishRate tokens added per second
+     * @param burstCapacity maximum tokens the bucket can hold
+     * @param nowNanos current {@link System#nanoTime()} value; the bucket starts full
+     */
+    public TokenBucket(double replenishRate, int burstCapacity, long nowNanos) {
+        if (replenishRate <= 0 || burstCapacity < 1) {
+            throw new IllegalArgumentException("Replenish rate and burst capacity must be positive");
+        }
+        this.emissionIntervalNanos = Math.max((long) (1_000_000_000L / replenishRate), 1L);
+        this.burstToleranceNanos = emissionIntervalNanos * (burstCapacity - 1L);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Try to take one token
+     * @param nowNanos current {@link System#nanoTime()} value
+     * @return 0 if the token was granted, otherwise nanoseconds until one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = Math.max(tat, nowNanos);
+            long wait = start - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Check whether the bucket is full again, so it can be dropped and recreated lazily
+     * @param nowNanos current {@link System#nanoTime()} value
+     * @return true if no request has consumed capacity that is still being refilled
+     */
+    public boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,193 @@
+package com.banking.gateway.service;
+
+import com.banking.gateway.dto.ClientOverviewDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for the client overview aggregation.
+ * The client and its accounts are requested in parallel, then the accounts'
+ * balances, in one call to the batch endpoint, and the latest page of
+ * movements of each account, never the whole history. Each source has its own
+ * timeout, so the page costs the slowest calls instead of the sum; a source
+ * that fails or times out is reported as unavailable instead of failing the
+ * whole response.
+ */
+@Service
+public class ClientOverviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientOverviewService.class);
+
+    static final String CLIENTE = "cliente";
+    static final String CUENTAS = "cuentas";
+    static final String SALDOS = "saldos";
+    static final String MOVIMIENTOS = "movimientos";
+
+    // Movement pages requested at once for one overview
+    private static final int PAGE_CONCURRENCY = 8;
+
+    private final WebClient webClient;
+    private final Duration callTimeout;
+    private final int movementsPerAccount;
+
+    @Autowired
+    public ClientOverviewService(WebClient.Builder webClientBuilder,
+                                 LoadBalancedExchangeFilterFunction loadBalancerFunction,
+                                 HttpClient gatewayHttpClient,
+                                 @Value("${gateway.aggregation.call-timeout:2s}") Duration callTimeout,
+                                 @Value("${gateway.aggregation.movements-per-account:20}") int movementsPerAccount) {
+        this(webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(gatewayHttpClient))
+                .filter(loadBalancerFunction)
+                .build(), callTimeout, movementsPerAccount);
+    }
+
+    ClientOverviewService(WebClient webClient, Duration callTimeout, int movementsPerAccount) {
+        this.webClient = webClient;
+        this.callTimeout = callTimeout;
+        this.movementsPerAccount = movementsPerAccount;
+    }
+
+    /**
+     * Get the client overview
+     * @param clienteId the client ID
+     * @return the merged overview, or empty if the client does not exist
+     */
+    public Mono<ClientOverviewDto> getClientOverview(Long clienteId) {
+        Mono<Fetch<JsonNode>> cliente = fetch(CLIENTE,
+                webClient.get().uri("http://client-person-service/clientes/{id}", clienteId)
+                        .retrieve().bodyToMono(JsonNode.class));
+        Mono<Fetch<List<JsonNode>>> cuentas = fetch(CUENTAS,
+                webClient.get().uri("http://account-movement-service/cuentas/cliente/{id}", clienteId)
+                        .retrieve().bodyToFlux(JsonNode.class).collectList());
+
+        return Mono.zip(cliente, cuentas)
+                .filter(results -> !results.getT1().notFound())
+                .flatMap(results -> {
+                    Fetch<List<JsonNode>> accounts = results.getT2();
+                    if (!accounts.available()) {
+                        return Mono.just(merge(results.getT1(), accounts, Fetch.unavailable(), Fetch.unavailable()));
+                    }
+                    List<Long> cuentaIds = accounts.value().stream()
+                            .map(cuenta -> cuenta.path("cuentaId").asLong())
+                            .toList();
+                    return Mono.zip(balances(cuentaIds), latestMovements(cuentaIds))
+                            .map(details -> merge(results.getT1(), accounts, details.getT1(), details.getT2()));
+                });
+    }
+
+    private Mono<Fetch<Map<Long, BigDecimal>>> balances(List<Long> cuentaIds) {
+        if (cuentaIds.isEmpty()) {
+            return Mono.just(Fetch.of(new LinkedHashMap<>()));
+        }
+        return fetch(SALDOS,
+                webClient.post().uri("http://account-movement-service/cuentas/saldos")
+                        .bodyValue(cuentaIds)
+                        .retrieve().bodyToFlux(JsonNode.class).collectList()
+                        .map(ClientOverviewService::currentBalances));
+    }
+
+    private Mono<Fetch<List<JsonNode>>> latestMovements(List<Long> cuentaIds) {
+        if (cuentaIds.isEmpty()) {
+            return Mono.just(Fetch.of(new ArrayList<>()));
+        }
+        return fetch(MOVIMIENTOS,
+                Flux.fromIterable(cuentaIds)
+                        .flatMapSequential(cuentaId -> webClient.get()
+                                .uri("http://account-movement-service/movimientos/cuenta/{id}/pagina?limite={limite}",
+                                        cuentaId, movementsPerAccount)
+                                .retrieve().bodyToFlux(JsonNode.class), PAGE_CONCURRENCY)
+                        .collectList());
+    }
+
+    private <T> Mono<Fetch<T>> fetch(String source, Mono<T> call) {
+        return call.timeout(callTimeout)
+                .map(Fetch::of)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Fetch.notFoundResult()))
+                .onErrorResume(e -> {
+                    log.warn("Overview source {} unavailable: {}", source, e.toString());
+                    return Mono.just(Fetch.unavailable());
+                });
+    }
+
+    private ClientOverviewDto merge(Fetch<JsonNode> cliente, Fetch<List<JsonNode>> cuentas,
+                                    Fetch<Map<Long, BigDecimal>> saldos, Fetch<List<JsonNode>> movimientos) {
+        ClientOverviewDto overview = new ClientOverviewDto();
+        if (cliente.available()) {
+            overview.setCliente(cliente.value());
+        } else {
+            overview.getFuentesNoDisponibles().add(CLIENTE);
+        }
+        if (cuentas.available()) {
+            overview.setCuentas(cuentas.value());
+        } else {
+            overview.getFuentesNoDisponibles().add(CUENTAS);
+        }
+        if (saldos.available()) {
+            overview.setSaldos(saldos.value());
+        } else {
+            overview.getFuentesNoDisponibles().add(SALDOS);
+        }
+        if (movimientos.available()) {
+            overview.setMovimientos(movimientos.value());
+        } else {
+            overview.getFuentesNoDisponibles().add(MOVIMIENTOS);
+        }
+        overview.setParcial(!overview.getFuentesNoDisponibles().isEmpty());
+        return overview;
+    }
+
+    /**
+     * Current balance per account
+     * @param saldos the balances returned by the batch endpoint
+     * @return balances keyed by account ID, in the order returned
+     */
+    static Map<Long, BigDecimal> currentBalances(List<JsonNode> saldos) {
+        Map<Long, BigDecimal> result = new LinkedHashMap<>();
+        for (JsonNode saldo : saldos) {
+            result.put(saldo.path("cuentaId").asLong(), money(saldo.path("saldo")));
+        }
+        return result;
+    }
+
+    private static BigDecimal money(JsonNode value) {
+        return value.decimalValue().setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Outcome of one downstream call
+     */
+    private record Fetch<T>(T value, boolean available, boolean notFound) {
+
+        static <T> Fetch<T> of(T value) {
+            return new Fetch<>(value, true, false);
+        }
+
+        static <T> Fetch<T> unavailable() {
+            return new Fetch<>(null, false, false);
+        }
+
+        static <T> Fetch<T> notFoundResult() {
+            return new Fetch<>(null, false, true);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.banking.gateway.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ResponseCache
+ */
+class ResponseCacheTest {
+
+    private CachedResponse entry(String etag) {
+        return new CachedResponse(new HttpHeaders(), new byte[] {1, 2, 3}, etag, System.nanoTime() + 1_000_000_000L);
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsed() {
+        // Given
+        ResponseCache cache = new ResponseCache(2);
+        cache.put("a", entry("\"1\""));
+        cache.put("b", entry("\"2\""));
+        cache.get("a");
+
+        // When
+        cache.put("c", entry("\"3\""));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void invalidate_RemovesResourceAndChildrenOnly() {
+        // Given
+        ResponseCache cache = new ResponseCache(10);
+        cache.put(ResponseCache.key("account-service", "/api/cuentas", null), entry("\"1\""));
+        cache.put(ResponseCache.key("account-service", "/api/cuentas/numero/478758", null), entry("\"2\""));
+        cache.put(ResponseCache.key("account-service", "/api/cuentasx/1", null), entry("\"3\""));
+        cache.put(ResponseCache.key("client-person-service", "/api/cuentas/1", null), entry("\"4\""));
+
+        // When
+        int removed = cache.invalidate("account-service", "/api/cuentas");
+
+        // Then
+        assertEquals(2, removed);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void put_InvalidatedWhileInFlight_IsNotStored() {
+        // Given
+        ResponseCache cache = new ResponseCache(10);
+        String key = ResponseCache.key("account-service", "/api/cuentas/numero/478758", null);
+        long generation = cache.generation("account-service", "/api/cuentas");
+        cache.invalidate("account-service", "/api/cuentas");
+
+        // When
+        boolean stored = cache.put(key, entry("\"1\""), "account-service", "/api/cuentas", generation);
+
+        // Then
+        assertFalse(stored);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void put_OtherCollectionInvalidated_IsStored() {
+        // Given
+        ResponseCache cache = new ResponseCache(10);
+        String key = ResponseCache.key("client-person-service", "/api/clientes/1", null);
+        long generation = cache.generation("client-person-service", "/api/clientes");
+        cache.invalidate("client-person-service", "/api/personas");
+        cache.invalidate("account-service", "/api/clientes");
+
+        // When
+        boolean stored = cache.put(key, entry("\"1\""), "client-person-service", "/api/clientes", generation);
+
+        // Then
+        assertTrue(stored);
+        assertNotNull(cache.get(key));
+    }
+
+    @Test
+    void etagMatches_HandlesWeakListsAndWildcard() {
+        assertTrue(ResponseCache.etagMatches("\"a\", W/\"b\"", "\"b\""));
+        assertTrue(ResponseCache.etagMatches("*", "\"b\""));
+        assertFalse(ResponseCache.etagMatches("\"a\"", "\"b\""));
+        assertFalse(ResponseCache.etagMatches(null, "\"b\""));
+    }
+
+    @Test
+    void isFresh_FalseAfterExpiry() {
+        CachedResponse expired = entry("\"1\"").withExpiry(System.nanoTime() - 1);
+        assertFalse(expired.isFresh(System.nanoTime()));
+        assertTrue(entry("\"1\"").isFresh(System.nanoTime()));
+    }
+}
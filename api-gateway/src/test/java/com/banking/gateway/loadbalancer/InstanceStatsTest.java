@@ -0,0 +1,104 @@
+package com.banking.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InstanceStats and LatencyWindow
+ */
+class InstanceStatsTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void cost_SlowInstanceCostsMoreThanFastOne() {
+        // Given
+        InstanceStats fast = new InstanceStats();
+        InstanceStats slow = new InstanceStats();
+        fast.requestStarted();
+        fast.requestFinished(5 * MILLI, 1);
+        slow.requestStarted();
+        slow.requestFinished(800 * MILLI, 1);
+
+        // When & Then
+        assertTrue(slow.cost(LoadBalancingStrategy.PEAK_EWMA, 0) > fast.cost(LoadBalancingStrategy.PEAK_EWMA, 0));
+        assertEquals(0, slow.cost(LoadBalancingStrategy.LEAST_OUTSTANDING, 0));
+    }
+
+    @Test
+    void cost_InstanceWithoutSamples_IsPricedAtTheNeutralLatency() {
+        // Given
+        InstanceStats known = new InstanceStats();
+        InstanceStats unknown = new InstanceStats();
+        known.requestStarted();
+        known.requestFinished(50 * MILLI, 1);
+        unknown.requestStarted();
+        unknown.requestStarted();
+        double neutral = Math.max(known.getEwmaNanos(), unknown.getEwmaNanos());
+
+        // When
+        double knownCost = known.cost(LoadBalancingStrategy.PEAK_EWMA, neutral);
+        double unknownCost = unknown.cost(LoadBalancingStrategy.PEAK_EWMA, neutral);
+
+        // Then
+        // Two queued requests and this one at 50 ms each, not a few nanoseconds
+        assertEquals(150.0 * MILLI, unknownCost, 1);
+        assertTrue(unknownCost > knownCost);
+    }
+
+    @Test
+    void requestCancelled_ReleasesTheRequestWithoutASample() {
+        // Given
+        InstanceStats stats = new InstanceStats();
+        stats.requestStarted();
+        stats.requestFinished(400 * MILLI, 1);
+        stats.requestStarted();
+
+        // When
+        stats.requestCancelled();
+
+        // Then
+        assertEquals(0, stats.getOutstanding());
+        assertEquals(400 * MILLI, stats.getEwmaNanos(), 1);
+    }
+
+    @Test
+    void requestFinished_PeakIsTakenImmediatelyAndDecaysOverTime() {
+        // Given
+        InstanceStats stats = new InstanceStats();
+        stats.requestStarted();
+        stats.requestFinished(10 * MILLI, 1);
+        stats.requestStarted();
+        stats.requestFinished(500 * MILLI, 2);
+        assertEquals(500 * MILLI, stats.getEwmaNanos(), 1);
+
+        // When
+        stats.requestStarted();
+        stats.requestFinished(10 * MILLI, TimeUnit.SECONDS.toNanos(60));
+
+        // Then
+        assertTrue(stats.getEwmaNanos() < 20 * MILLI);
+        assertEquals(0, stats.getOutstanding());
+    }
+
+    @Test
+    void percentile_ReturnsRecentP95() {
+        // Given
+        LatencyWindow window = new LatencyWindow(100);
+        for (int i = 1; i <= 100; i++) {
+            window.record(i * MILLI);
+        }
+
+        // When & Then
+        assertEquals(95 * MILLI, window.percentile(0.95, 0));
+        assertEquals(100, window.count());
+    }
+
+    @Test
+    void percentile_EmptyWindow() {
+        assertEquals(-1, new LatencyWindow(10).percentile(0.95, 0));
+    }
+}
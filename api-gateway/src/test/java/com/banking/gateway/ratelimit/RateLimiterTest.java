@@ -0,0 +1,97 @@
+package com.banking.gateway.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateLimiter
+ */
+class RateLimiterTest {
+
+    private final RateLimiter limiter = new RateLimiter(2, List.of("partner-key", ""), Duration.ofHours(1));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        limiter.close();
+    }
+
+    @Test
+    void callerKey_UnknownApiKey_FallsBackToTheClientAddress() {
+        // When & Then
+        assertEquals("ip:10.0.0.1", limiter.callerKey("made-up", "10.0.0.1"));
+        assertEquals("ip:10.0.0.1", limiter.callerKey(null, "10.0.0.1"));
+        assertEquals("ip:10.0.0.1", limiter.callerKey("", "10.0.0.1"));
+    }
+
+    @Test
+    void callerKey_ConfiguredApiKey_IdentifiesTheCaller() {
+        // When & Then
+        assertEquals("key:partner-key", limiter.callerKey("partner-key", "10.0.0.1"));
+    }
+
+    @Test
+    void tryAcquire_OneAddressWithManyKeys_SharesOneBucket() {
+        // Given
+        String first = limiter.callerKey("key-1", "10.0.0.1");
+        String second = limiter.callerKey("key-2", "10.0.0.1");
+
+        // When
+        long granted = limiter.tryAcquire("route", first, 1, 1, 0);
+        long refused = limiter.tryAcquire("route", second, 1, 1, 0);
+
+        // Then
+        assertEquals(0, granted);
+        assertTrue(refused > 0);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void tryAcquire_BeyondMaxBuckets_NewCallersShareTheRoutesBucket() {
+        // Given
+        limiter.tryAcquire("route", "ip:10.0.0.1", 1, 1, 0);
+        limiter.tryAcquire("route", "ip:10.0.0.2", 1, 1, 0);
+
+        // When
+        long third = limiter.tryAcquire("route", "ip:10.0.0.3", 1, 1, 0);
+        long fourth = limiter.tryAcquire("route", "ip:10.0.0.4", 1, 1, 0);
+
+        // Then
+        assertEquals(0, third);
+        assertTrue(fourth > 0);
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void sweep_RefilledBuckets_MakeRoomForNewCallers() {
+        // Given
+        limiter.tryAcquire("route", "ip:10.0.0.1", 1, 1, 0);
+        limiter.tryAcquire("route", "ip:10.0.0.2", 1, 1, 0);
+        long later = Duration.ofSeconds(2).toNanos();
+
+        // When
+        limiter.sweep(later);
+
+        // Then
+        assertEquals(0, limiter.size());
+        assertEquals(0, limiter.tryAcquire("route", "ip:10.0.0.3", 1, 1, later));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void retryAfterSeconds_RoundsUpToWholeSeconds() {
+        // When
+        long nearlyNow = RateLimiter.retryAfterSeconds(1);
+        long oneSecond = RateLimiter.retryAfterSeconds(Duration.ofSeconds(1).toNanos());
+        long justOverOneSecond = RateLimiter.retryAfterSeconds(Duration.ofMillis(1001).toNanos());
+
+        // Then
+        assertEquals(1, nearlyNow);
+        assertEquals(1, oneSecond);
+        assertEquals(2, justOverOneSecond);
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenBucket
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_AllowsBurstThenRejects() {
+        // Given
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(10, 5, now);
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(now));
+        }
+        long wait = bucket.tryAcquire(now);
+        assertEquals(SECOND / 10, wait);
+    }
+
+    @Test
+    void tryAcquire_RefillsAtReplenishRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0) > 0);
+
+        // When & Then
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));
+        assertFalse(bucket.isIdle(SECOND / 10));
+        assertTrue(bucket.isIdle(SECOND));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallersNeverExceedBurst() throws InterruptedException {
+        // Given
+        TokenBucket bucket = new TokenBucket(0.001, 100, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (bucket.tryAcquire(0) == 0) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void constructor_InvalidRate_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10, 0));
+    }
+}
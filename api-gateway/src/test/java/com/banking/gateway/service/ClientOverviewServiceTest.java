@@ -0,0 +1,165 @@
+package com.banking.gateway.service;
+
+import com.banking.gateway.dto.ClientOverviewDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ClientOverviewService
+ */
+class ClientOverviewServiceTest {
+
+    private static final String CLIENTE = "{\"clienteId\":1,\"nombre\":\"Jose Lema\"}";
+    private static final String CUENTAS = "[{\"cuentaId\":10,\"saldoInicial\":2000.00},{\"cuentaId\":11,\"saldoInicial\":100.00}]";
+    private static final String SALDOS = "[{\"cuentaId\":10,\"saldo\":1425.00},{\"cuentaId\":11,\"saldo\":100.00}]";
+    private static final String MOVIMIENTOS = "[{\"cuentaId\":10,\"saldo\":1425.00},{\"cuentaId\":10,\"saldo\":2000.00}]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.just(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private static Mono<ClientResponse> source(ClientRequest request) {
+        String path = request.url().getPath();
+        if (path.startsWith("/clientes")) {
+            return json(HttpStatus.OK, CLIENTE);
+        }
+        if (path.equals("/cuentas/saldos")) {
+            return json(HttpStatus.OK, SALDOS);
+        }
+        if (path.startsWith("/cuentas")) {
+            return json(HttpStatus.OK, CUENTAS);
+        }
+        return json(HttpStatus.OK, path.equals("/movimientos/cuenta/10/pagina") ? MOVIMIENTOS : "[]");
+    }
+
+    private ClientOverviewService service(ExchangeFunction exchange) {
+        return new ClientOverviewService(WebClient.builder().exchangeFunction(exchange).build(),
+                Duration.ofMillis(200), 20);
+    }
+
+    @Test
+    void getClientOverview_MergesAllSources() {
+        // Given
+        ClientOverviewService service = service(ClientOverviewServiceTest::source);
+
+        // When
+        ClientOverviewDto result = service.getClientOverview(1L).block();
+
+        // Then
+        assertNotNull(result);
+        assertFalse(result.isParcial());
+        assertEquals("Jose Lema", result.getCliente().path("nombre").asText());
+        assertEquals(2, result.getCuentas().size());
+        assertEquals(2, result.getMovimientos().size());
+        assertEquals(new BigDecimal("1425.00"), result.getSaldos().get(10L));
+        assertEquals(new BigDecimal("100.00"), result.getSaldos().get(11L));
+    }
+
+    @Test
+    void getClientOverview_AsksForBalancesInOneBatchAndOnePageOfMovementsPerAccount() {
+        // Given
+        List<String> requests = new CopyOnWriteArrayList<>();
+        ClientOverviewService service = service(request -> {
+            requests.add(request.method() + " " + request.url().getPath()
+                    + (request.url().getQuery() != null ? "?" + request.url().getQuery() : ""));
+            return source(request);
+        });
+
+        // When
+        service.getClientOverview(1L).block();
+
+        // Then
+        assertEquals(5, requests.size());
+        assertTrue(requests.contains("POST /cuentas/saldos"));
+        assertTrue(requests.contains("GET /movimientos/cuenta/10/pagina?limite=20"));
+        assertTrue(requests.contains("GET /movimientos/cuenta/11/pagina?limite=20"));
+        assertTrue(requests.stream().noneMatch(request -> request.startsWith("GET /movimientos/cliente")));
+    }
+
+    @Test
+    void getClientOverview_SlowSource_ReturnsPartialWithinTimeout() {
+        // Given
+        ClientOverviewService service = service(request -> request.url().getPath().startsWith("/movimientos")
+                ? source(request).delayElement(Duration.ofSeconds(5))
+                : source(request));
+
+        // When
+        long start = System.nanoTime();
+        ClientOverviewDto result = service.getClientOverview(1L).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertNotNull(result);
+        assertTrue(result.isParcial());
+        assertEquals(List.of(ClientOverviewService.MOVIMIENTOS), result.getFuentesNoDisponibles());
+        assertEquals(2, result.getCuentas().size());
+        assertEquals(new BigDecimal("1425.00"), result.getSaldos().get(10L));
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0);
+    }
+
+    @Test
+    void getClientOverview_AccountsUnavailable_ReportsBalancesAndMovementsUnavailable() {
+        // Given
+        ClientOverviewService service = service(request -> request.url().getPath().startsWith("/clientes")
+                ? json(HttpStatus.OK, CLIENTE)
+                : json(HttpStatus.SERVICE_UNAVAILABLE, "{}"));
+
+        // When
+        ClientOverviewDto result = service.getClientOverview(1L).block();
+
+        // Then
+        assertNotNull(result);
+        assertEquals(List.of(ClientOverviewService.CUENTAS, ClientOverviewService.SALDOS,
+                ClientOverviewService.MOVIMIENTOS), result.getFuentesNoDisponibles());
+    }
+
+    @Test
+    void getClientOverview_ClientNotFound_ReturnsEmpty() {
+        // Given
+        ClientOverviewService service = service(request -> request.url().getPath().startsWith("/clientes")
+                ? json(HttpStatus.NOT_FOUND, "{}")
+                : json(HttpStatus.OK, "[]"));
+
+        // When
+        ClientOverviewDto result = service.getClientOverview(99L).block();
+
+        // Then
+        assertNull(result);
+    }
+
+    @Test
+    void currentBalances_KeysTheBatchBalancesByAccount() throws Exception {
+        // Given
+        JsonNode saldos = objectMapper.readTree(SALDOS);
+
+        // When
+        Map<Long, BigDecimal> result = ClientOverviewService.currentBalances(List.of(saldos.get(0), saldos.get(1)));
+
+        // Then
+        assertEquals(List.of(10L, 11L), List.copyOf(result.keySet()));
+        assertEquals(new BigDecimal("1425.00"), result.get(10L));
+        assertEquals(new BigDecimal("100.00"), result.get(11L));
+    }
+}
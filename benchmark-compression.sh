@@ -0,0 +1,55 @@
+#!/bin/bash
+
+# Compression / HTTP2 Benchmark Script for Banking Microservices
+# Measures bytes on the wire and latency percentiles of large listing
+# responses through the API Gateway, with and without gzip at the edge.
+#
+# Usage: ./benchmark-compression.sh [gateway-url] [path] [requests]
+
+GATEWAY_URL=${1:-http://localhost:8080}
+ENDPOINT=${2:-/api/clientes}
+REQUESTS=${3:-200}
+
+echo "📏 Benchmarking ${GATEWAY_URL}${ENDPOINT} (${REQUESTS} requests per mode)"
+echo "======================================"
+
+if ! command -v curl &> /dev/null; then
+    echo "❌ curl is not installed."
+    exit 1
+fi
+
+run_mode() {
+    local label=$1
+    local encoding=$2
+    local times_file
+    times_file=$(mktemp)
+
+    # Warm-up so connection setup and JIT do not skew the numbers
+    for _ in $(seq 1 20); do
+        curl -s -o /dev/null -H "Accept-Encoding: ${encoding}" "${GATEWAY_URL}${ENDPOINT}"
+    done
+
+    local bytes
+    bytes=$(curl -s -o /dev/null -w "%{size_download}" -H "Accept-Encoding: ${encoding}" "${GATEWAY_URL}${ENDPOINT}")
+
+    for _ in $(seq 1 "${REQUESTS}"); do
+        curl -s -o /dev/null -w "%{time_total}\n" -H "Accept-Encoding: ${encoding}" "${GATEWAY_URL}${ENDPOINT}" >> "${times_file}"
+    done
+
+    sort -n "${times_file}" | awk -v label="${label}" -v bytes="${bytes}" '
+        { t[NR] = $1 }
+        END {
+            p50 = t[int(NR * 0.50)]; p99 = t[int(NR * 0.99)]
+            printf "  • %-9s body bytes: %8d   p50: %6.1f ms   p99: %6.1f ms\n", label, bytes, p50 * 1000, p99 * 1000
+        }'
+    rm -f "${times_file}"
+}
+
+run_mode "identity" "identity"
+run_mode "gzip" "gzip"
+run_mode "deflate" "deflate"
+
+echo ""
+echo "ℹ️  Run once with the default configuration and once with"
+echo "   SERVER_COMPRESSION_ENABLED=false GATEWAY_HTTPCLIENT_PROTOCOLS=HTTP11"
+echo "   on the gateway to compare against plain HTTP/1.1."
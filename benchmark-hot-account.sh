@@ -0,0 +1,51 @@
+#!/bin/bash
+
+# Hot Account Benchmark Script for Banking Microservices
+# Runs the JMH benchmark of deposits to a single hot account
+# (account-movement-service/src/jmh) and reports deposits per second for each
+# slot count, and the speedup over one slot, where every deposit to the account
+# waits for the previous one as it does without split balances.
+#
+# Usage: ./benchmark-hot-account.sh [slots] [commit-micros]
+#   slots          comma-separated slot counts to measure, include 1 for the baseline (default 1,4,16)
+#   commit-micros  comma-separated simulated insert and commit times in µs (default 0,200)
+
+SLOTS=${1:-1,4,16}
+COMMIT_MICROS=${2:-0,200}
+
+echo "🔥 Benchmarking a hot account (slots: ${SLOTS}, commit: ${COMMIT_MICROS} µs)"
+echo "======================================"
+
+if ! command -v mvn &> /dev/null; then
+    echo "❌ Maven is not installed."
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+
+(cd account-movement-service && mvn -B -q -Pbenchmark test-compile exec:exec \
+    -Djmh.args="HotAccountBenchmark -p slots=${SLOTS} -p commitMicros=${COMMIT_MICROS} -rf csv -rff ${RESULTS}")
+
+if [ ! -s "${RESULTS}" ]; then
+    echo "❌ The benchmark did not produce results."
+    rm -f "${RESULTS}"
+    exit 1
+fi
+
+# Columns: Benchmark, Mode, Threads, Samples, Score, Score Error, Unit, Param: commitMicros, Param: slots
+awk -F',' '
+    NR == 1 { for (i = 1; i <= NF; i++) { gsub(/"/, "", $i); column[$i] = i }; next }
+    {
+        gsub(/"/, "")
+        row++
+        commit[row] = $column["Param: commitMicros"]; slots[row] = $column["Param: slots"]; score[row] = $column["Score"]
+        if (slots[row] == 1) { baseline[commit[row]] = score[row] }
+    }
+    END {
+        for (i = 1; i <= row; i++) {
+            speedup = baseline[commit[i]] > 0 ? sprintf("%6.1fx", score[i] / baseline[commit[i]]) : "     -"
+            printf "  • commit %4d µs   %2d slots   %10.0f deposits/s   %s vs 1 slot\n", commit[i], slots[i], score[i], speedup
+        }
+    }' "${RESULTS}"
+
+rm -f "${RESULTS}"
@@ -0,0 +1,85 @@
+#!/bin/bash
+
+# Image Benchmark Script for Banking Microservices
+# Builds the layered JVM image of every service and records its size, then
+# starts the containers in turn (Eureka first, then the others registered to it)
+# against an in-memory H2 database and records the context startup time, the
+# time until the first successful request and the memory in use once it is up.
+#
+# Usage: ./benchmark-images.sh [cds|nocds]
+#   cds    the image as shipped, with the AppCDS archive from its training run
+#   nocds  the same image started with -Xshare:off, as a baseline
+#
+# Build the jars first with: mvn package -DskipTests
+
+MODE=${1:-cds}
+SETTLE_SECONDS=5
+NETWORK=banking-benchmark
+
+# module:image:port:probe path
+SERVICES="eureka-server:banking-eureka-server:8761:/ api-gateway:banking-api-gateway:8080:/actuator/health client-person-service:banking-client-service:8081:/clientes account-movement-service:banking-account-service:8082:/cuentas"
+
+case "${MODE}" in
+    cds)   EXTRA_ENV=() ;;
+    nocds) EXTRA_ENV=(-e JAVA_TOOL_OPTIONS=-Xshare:off) ;;
+    *)     echo "❌ Unknown mode ${MODE}"; exit 1 ;;
+esac
+
+echo "🚀 Measuring images in ${MODE} mode"
+echo "======================================"
+
+for tool in docker curl; do
+    if ! command -v "${tool}" &> /dev/null; then
+        echo "❌ ${tool} is not installed."
+        exit 1
+    fi
+done
+
+CONTAINERS=()
+cleanup() {
+    docker rm -f "${CONTAINERS[@]}" > /dev/null 2>&1
+    docker network rm "${NETWORK}" > /dev/null 2>&1
+}
+trap cleanup EXIT
+
+docker network create "${NETWORK}" > /dev/null
+
+for service in ${SERVICES}; do
+    IFS=: read -r module image port probe <<< "${service}"
+
+    if ! docker build -q -t "${image}:latest" -f "${module}/Dockerfile" . > /dev/null; then
+        echo "❌ Failed to build ${image}"
+        exit 1
+    fi
+    size_bytes=$(docker image inspect -f '{{.Size}}' "${image}:latest")
+
+    container="benchmark-${module}"
+    CONTAINERS+=("${container}")
+
+    start=$(date +%s%N)
+    docker run -d --name "${container}" --network "${NETWORK}" -p "${port}:${port}" \
+        "${EXTRA_ENV[@]}" \
+        -e EUREKA_SERVER_URL=http://benchmark-eureka-server:8761/eureka/ \
+        -e SPRING_DATASOURCE_URL="jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1" \
+        -e SPRING_DATASOURCE_DRIVER_CLASS_NAME=org.h2.Driver \
+        -e SPRING_DATASOURCE_USERNAME=sa \
+        -e SPRING_DATASOURCE_PASSWORD= \
+        -e SPRING_JPA_DATABASE_PLATFORM=org.hibernate.dialect.H2Dialect \
+        "${image}:latest" > /dev/null
+
+    until curl -s -o /dev/null -f "http://localhost:${port}${probe}"; do
+        if [ "$(docker inspect -f '{{.State.Running}}' "${container}")" != "true" ]; then
+            echo "❌ ${module} exited, see: docker logs ${container}"
+            exit 1
+        fi
+        sleep 0.05
+    done
+    first_request_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+
+    sleep "${SETTLE_SECONDS}"
+    memory=$(docker stats --no-stream --format '{{.MemUsage}}' "${container}" | awk '{ print $1 }')
+    started=$(docker logs "${container}" 2>&1 | grep -o "Started [A-Za-z]* in [0-9.]* seconds" | awk '{ print $4 }')
+
+    printf "  • %-25s image: %4d MB   context started: %6s s   first request: %6d ms   memory: %s\n" \
+        "${module}" $(( size_bytes / 1024 / 1024 )) "${started:-?}" "${first_request_ms}" "${memory:-?}"
+done
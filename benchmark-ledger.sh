@@ -0,0 +1,43 @@
+#!/bin/bash
+
+# Ledger Engine Benchmark Script for Banking Microservices
+# Runs the JMH benchmark of the in-memory posting ledger
+# (account-movement-service/src/jmh) and reports movements per second in total
+# and per core, one partition writer thread being one core.
+#
+# Usage: ./benchmark-ledger.sh [partitions] [journal-dir]
+#   partitions   comma-separated partition counts to measure (default 1,2,4)
+#   journal-dir  where the journal is synced, on the disk to measure (default /tmp)
+
+PARTITIONS=${1:-1,2,4}
+JOURNAL_DIR=${2:-/tmp}
+
+echo "📒 Benchmarking ledger postings (partitions: ${PARTITIONS}, journal in ${JOURNAL_DIR})"
+echo "======================================"
+
+if ! command -v mvn &> /dev/null; then
+    echo "❌ Maven is not installed."
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+
+(cd account-movement-service && mvn -B -q -Pbenchmark test-compile exec:exec \
+    -Djmh.args="LedgerEngineBenchmark -p partitions=${PARTITIONS} -jvmArgs -Dledger.benchmark.dir=${JOURNAL_DIR} -rf csv -rff ${RESULTS}")
+
+if [ ! -s "${RESULTS}" ]; then
+    echo "❌ The benchmark did not produce results."
+    rm -f "${RESULTS}"
+    exit 1
+fi
+
+# Columns: Benchmark, Mode, Threads, Samples, Score, Score Error, Unit, Param: accounts, Param: partitions
+awk -F',' '
+    NR == 1 { for (i = 1; i <= NF; i++) { gsub(/"/, "", $i); column[$i] = i }; next }
+    {
+        gsub(/"/, "")
+        partitions = $column["Param: partitions"]; score = $column["Score"]
+        printf "  • %2d partitions   %10.0f movements/s   %10.0f movements/s per core\n", partitions, score, score / partitions
+    }' "${RESULTS}"
+
+rm -f "${RESULTS}"
@@ -0,0 +1,76 @@
+#!/bin/bash
+
+# Startup Benchmark Script for Banking Microservices
+# Starts each service in turn (Eureka first, then the others registered to it)
+# against an in-memory H2 database and records the time until the first
+# successful request and the resident memory once the service is up.
+#
+# Usage: ./benchmark-startup.sh [jvm|aot|native]
+#   jvm     target/<module>-1.0.0.jar                       (mvn package)
+#   aot     same jar using the AOT-generated initializers   (mvn -Pnative -DskipNativeBuild=true package)
+#   native  target/<module> native executable               (mvn -Pnative package)
+#
+# Eureka Server always runs as a jar, it has no native profile.
+
+MODE=${1:-jvm}
+SETTLE_SECONDS=5
+
+# module:port:probe path
+SERVICES="eureka-server:8761:/ api-gateway:8080:/actuator/health client-person-service:8081:/clientes account-movement-service:8082:/cuentas"
+
+export SPRING_DATASOURCE_URL="jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1"
+export SPRING_DATASOURCE_DRIVER_CLASS_NAME=org.h2.Driver
+export SPRING_DATASOURCE_USERNAME=sa
+export SPRING_DATASOURCE_PASSWORD=
+export SPRING_JPA_DATABASE_PLATFORM=org.hibernate.dialect.H2Dialect
+
+echo "🚀 Measuring startup in ${MODE} mode"
+echo "======================================"
+
+if ! command -v curl &> /dev/null; then
+    echo "❌ curl is not installed."
+    exit 1
+fi
+
+command_for() {
+    local module=$1
+    # Eureka Server has no AOT support in Spring Cloud Netflix, it always runs on the JVM
+    local mode=${MODE}
+    [ "${module}" = "eureka-server" ] && mode=jvm
+    case "${mode}" in
+        jvm)    echo "java -jar ${module}/target/${module}-1.0.0.jar" ;;
+        aot)    echo "java -Dspring.aot.enabled=true -jar ${module}/target/${module}-1.0.0.jar" ;;
+        native) echo "${module}/target/${module}" ;;
+        *)      echo "❌ Unknown mode ${MODE}" >&2; exit 1 ;;
+    esac
+}
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2> /dev/null' EXIT
+
+for service in ${SERVICES}; do
+    IFS=: read -r module port probe <<< "${service}"
+    log_file=$(mktemp)
+
+    start=$(date +%s%N)
+    $(command_for "${module}") > "${log_file}" 2>&1 &
+    pid=$!
+    PIDS+=("${pid}")
+
+    until curl -s -o /dev/null -f "http://localhost:${port}${probe}"; do
+        if ! kill -0 "${pid}" 2> /dev/null; then
+            echo "❌ ${module} exited, see ${log_file}"
+            exit 1
+        fi
+        sleep 0.05
+    done
+    first_request_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+
+    sleep "${SETTLE_SECONDS}"
+    rss_kb=$(awk '/VmRSS/ { print $2 }' "/proc/${pid}/status")
+    started=$(grep -o "Started [A-Za-z]* in [0-9.]* seconds" "${log_file}" | awk '{ print $4 }')
+
+    printf "  • %-25s first request: %6d ms   context started: %6s s   RSS: %5d MB\n" \
+        "${module}" "${first_request_ms}" "${started:-?}" $(( rss_kb / 1024 ))
+    rm -f "${log_file}"
+done
@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Transfer Contention Benchmark Script for Banking Microservices
+# Runs TransferContentionIntegrationTest (account-movement-service/src/test,
+# tagged "benchmark" so the default mvn test leaves it out) with -Pbenchmark:
+# many threads transferring at random in both directions among a few accounts
+# on an in-memory H2 database, and reports transfers per second and latency
+# for each thread count. Every run also checks that no transfer deadlocked or
+# failed on a concurrent posting and that the accounts kept their total.
+#
+# Usage: ./benchmark-transfers.sh [threads] [accounts] [transfers-per-thread]
+#   threads               comma-separated thread counts to measure (default 4,16,64)
+#   accounts              accounts the transfers are spread over, fewer is more contention (default 4)
+#   transfers-per-thread  transfers each thread posts (default 500)
+
+THREADS=${1:-4,16,64}
+ACCOUNTS=${2:-4}
+PER_THREAD=${3:-500}
+
+echo "🔁 Benchmarking concurrent transfers (threads: ${THREADS}, accounts: ${ACCOUNTS}, ${PER_THREAD} per thread)"
+echo "======================================"
+
+if ! command -v mvn &> /dev/null; then
+    echo "❌ Maven is not installed."
+    exit 1
+fi
+
+for threads in ${THREADS//,/ }; do
+    OUTPUT=$(cd account-movement-service && mvn -B -q -Pbenchmark test -Dtest=TransferContentionIntegrationTest \
+        -Dtransfers.threads="${threads}" -Dtransfers.accounts="${ACCOUNTS}" -Dtransfers.per-thread="${PER_THREAD}" 2>&1)
+    if [ $? -ne 0 ]; then
+        echo "❌ The run with ${threads} threads failed:"
+        echo "${OUTPUT}" | grep -E "FAIL|Error|Exception" | head -20
+        exit 1
+    fi
+    echo "${OUTPUT}" | grep -o "Transfers: .*" | sed 's/^/  • /'
+done
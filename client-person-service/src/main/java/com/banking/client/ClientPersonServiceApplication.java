@@ -1,14 +1,17 @@
 package com.banking.client;
 
+import com.banking.client.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Client Person Service Application
  * Microservice for managing clients and persons
  */
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 @EnableFeignClients
 public class ClientPersonServiceApplication {
 
@@ -0,0 +1,22 @@
+package com.banking.client.config;
+
+import com.banking.client.entity.Client;
+import com.banking.client.entity.Person;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reachability metadata for the native image.
+ * Hibernate accesses entity fields and validation constraints reflectively,
+ * including the inherited ones of the joined Person table.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection()
+                .registerType(Person.class, MemberCategory.values())
+                .registerType(Client.class, MemberCategory.values());
+    }
+}
@@ -0,0 +1,161 @@
+package com.banking.client.warmup;
+
+import com.banking.client.dto.ClientDto;
+import com.banking.client.entity.Client;
+import com.banking.client.repository.ClientRepository;
+import com.banking.client.service.ClientService;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup warm-up run before the instance takes traffic.
+ * The instance registers with Eureka as STARTING (eureka.instance.initial-status)
+ * and the readiness probe keeps reporting REFUSING_TRAFFIC until the
+ * ApplicationReadyEvent listeners return. In between, the connection pool is
+ * filled and the client create, lookup and update paths are run against a
+ * throwaway client inside rollback-only transactions.
+ */
+@Component
+public class WarmUpRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private final ClientService clientService;
+    private final ClientRepository clientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    @Autowired
+    public WarmUpRunner(ClientService clientService,
+                        ClientRepository clientRepository,
+                        PlatformTransactionManager transactionManager,
+                        DataSource dataSource,
+                        ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                        @Value("${warmup.enabled:true}") boolean enabled,
+                        @Value("${warmup.iterations:200}") int iterations,
+                        @Value("${warmup.max-duration:30s}") Duration maxDuration) {
+        this.clientService = clientService;
+        this.clientRepository = clientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.applicationInfoManager = applicationInfoManager;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Warm up, then mark the instance UP in Eureka.
+     * Spring Boot switches readiness to ACCEPTING_TRAFFIC right after this returns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            long start = System.nanoTime();
+            fillConnectionPool();
+            int completed = exerciseCodePaths(start + maxDuration.toNanos());
+            log.info("Warm-up ran {} of {} iterations in {} ms", completed, iterations,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+        applicationInfoManager.ifAvailable(manager -> manager.setInstanceStatus(InstanceStatus.UP));
+    }
+
+    /**
+     * Hold as many connections as the pool keeps idle at the same time, so each is opened now
+     */
+    void fillConnectionPool() {
+        int size = 1;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                size = Math.max(dataSource.unwrap(HikariDataSource.class).getMinimumIdle(), 1);
+            }
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up opened {} of {} pool connections: {}", connections.size(), size, e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Could not return warm-up connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the request code paths until the iterations or the time budget run out
+     * @param deadlineNanos {@link System#nanoTime()} value after which no new iteration starts
+     * @return the number of iterations completed
+     */
+    int exerciseCodePaths(long deadlineNanos) {
+        String identificacion = freeIdentification();
+        if (identificacion == null) {
+            log.warn("Warm-up skipped, no free identification for the synthetic client");
+            return 0;
+        }
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() - deadlineNanos < 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    runIteration(identificacion);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Warm-up stopped after {} iterations: {}", completed, e.getMessage());
+                break;
+            }
+            completed++;
+        }
+        return completed;
+    }
+
+    private void runIteration(String identificacion) {
+        ClientDto client = clientService.createClient(new ClientDto(
+                "Warm Up", "M", 30, identificacion, "Warm-up", "0000000000", "warmup", true));
+
+        // The /clientes/{id} endpoints are keyed by persona_id, which the DTO does not carry
+        Long id = clientRepository.findByIdentificacion(identificacion)
+                .map(Client::getPersonaId)
+                .orElseThrow();
+        clientService.getClientById(id);
+        clientService.getClientByIdentificacion(identificacion);
+        client.setDireccion("Warm-up updated");
+        clientService.updateClient(id, client);
+    }
+
+    private String freeIdentification() {
+        for (int suffix = 0; suffix < 100; suffix++) {
+            String identificacion = "WARMUP-" + suffix;
+            if (!clientRepository.existsByIdentificacion(identificacion)) {
+                return identificacion;
+            }
+        }
+        return null;
+    }
+}